@@ -0,0 +1,184 @@
+package com.medshare.hub.abac;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.abac.dsl.PolicyCompiler;
+import com.medshare.hub.abac.dsl.PolicyDocument;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.abac.policies.InsuranceClaimsPolicy;
+import com.medshare.hub.abac.policies.TreatingPhysicianPolicy;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeclarativePolicyBenchmark - Compiled declarative policies against the
+ * hand-written policy components they mirror
+ *
+ * Each scenario evaluates the hand-written policy and a declarative
+ * definition with the same rules, compiled by PolicyCompiler, on the same
+ * permitted request. The compiled policy should be at least as fast.
+ *
+ * @author MedShare Development Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DeclarativePolicyBenchmark {
+
+    private static final String POLICIES = """
+            policies:
+              - name: DeclarativeTreatingPhysician
+                priority: 3
+                targets:
+                  - { role: DOCTOR, action: READ, resourceType: MEDICAL_RECORD }
+                deny:
+                  - when: { not: { fact: ACTIVE_RELATIONSHIP } }
+                    reason: No active treatment relationship with patient
+                  - when:
+                      all:
+                        - { attribute: environment.businessHours, equals: false }
+                        - { attribute: environment.emergency, equals: false }
+                    reason: Access outside business hours requires emergency override
+                  - when:
+                      all:
+                        - { attribute: resource.sensitivityLevel, equals: PSYCHIATRIC }
+                        - { not: { attribute: subject.department, equals: psychiatry } }
+                    reason: Psychiatric records require psychiatry department affiliation
+              - name: DeclarativeInsuranceClaims
+                priority: 4
+                targets:
+                  - { role: INSURANCE_ADJUSTER, action: READ, resourceType: MEDICAL_RECORD }
+                deny:
+                  - when: { not: { fact: CONSENT, purpose: INSURANCE, dataType: BILLING } }
+                    reason: No valid patient consent for insurance data sharing
+                  - when: { not: { attribute: resource.recordType, equals: DIAGNOSIS } }
+                    reason: Insurance adjusters can only access billing and diagnosis records
+                  - when: { attribute: resource.highlySensitive, equals: true }
+                    reason: Insurance adjusters cannot access highly sensitive diagnoses
+                permit:
+                  obligations: [REDACT_CLINICAL_NOTES, REDACT_SENSITIVE_DIAGNOSES]
+            """;
+
+    public enum Scenario {
+        TREATING_PHYSICIAN,
+        INSURANCE
+    }
+
+    @Param
+    private Scenario scenario;
+
+    private Policy handWritten;
+    private Policy compiled;
+
+    private SubjectAttributes subject;
+    private ResourceAttributes resource;
+    private EnvironmentAttributes environment;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        PolicyInformationPoint pip = new StubPolicyInformationPoint();
+        List<Policy> compiledPolicies = new PolicyCompiler(pip)
+                .compile(new ObjectMapper(new YAMLFactory()).readValue(POLICIES, PolicyDocument.class));
+
+        SubjectAttributes.SubjectAttributesBuilder user = SubjectAttributes.builder().userId(10L);
+        switch (scenario) {
+            case TREATING_PHYSICIAN -> {
+                handWritten = new TreatingPhysicianPolicy(pip);
+                compiled = compiledPolicies.get(0);
+                user.role(User.UserRole.DOCTOR).department("cardiology");
+            }
+            case INSURANCE -> {
+                handWritten = new InsuranceClaimsPolicy(pip);
+                compiled = compiledPolicies.get(1);
+                user.role(User.UserRole.INSURANCE_ADJUSTER);
+            }
+        }
+        subject = user.build();
+        resource = ResourceAttributes.builder()
+                .resourceId(100L)
+                .resourceType(ResourceType.MEDICAL_RECORD)
+                .patientId(50L)
+                .sensitivityLevel(MedicalRecord.SensitivityLevel.STANDARD)
+                .recordType(MedicalRecord.RecordType.DIAGNOSIS)
+                .build();
+        environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now().withHour(10))
+                .isEmergency(false)
+                .build();
+
+        PolicyDecision expected = handWritten.evaluate(subject, resource, environment, AccessLog.Action.READ);
+        PolicyDecision actual = compiled.evaluate(subject, resource, environment, AccessLog.Action.READ);
+        if (!expected.isPermitted() || !actual.isPermitted()
+                || !expected.getObligations().equals(actual.getObligations())) {
+            throw new IllegalStateException("Compiled policy does not match " + handWritten.getPolicyName());
+        }
+    }
+
+    @Benchmark
+    public PolicyDecision handWritten() {
+        return handWritten.evaluate(subject, resource, environment, AccessLog.Action.READ);
+    }
+
+    @Benchmark
+    public PolicyDecision compiled() {
+        return compiled.evaluate(subject, resource, environment, AccessLog.Action.READ);
+    }
+
+    /**
+     * Every provider treats every patient, every patient consented
+     */
+    private static final class StubPolicyInformationPoint implements PolicyInformationPoint {
+
+        @Override
+        public boolean hasActiveRelationship(Long providerId, Long patientId) {
+            return true;
+        }
+
+        @Override
+        public Set<Long> findActivelyTreatedPatientIds(Long providerId, Collection<Long> patientIds) {
+            return new HashSet<>(patientIds);
+        }
+
+        @Override
+        public boolean hasValidConsent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+            return true;
+        }
+
+        @Override
+        public Set<Long> findPatientIdsWithValidConsent(
+                Collection<Long> patientIds,
+                Long userId,
+                Consent.Purpose purpose,
+                Consent.DataType dataType) {
+            return new HashSet<>(patientIds);
+        }
+    }
+}
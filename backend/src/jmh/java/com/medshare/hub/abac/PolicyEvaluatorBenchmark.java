@@ -0,0 +1,251 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.abac.policies.EmergencyOverridePolicy;
+import com.medshare.hub.abac.policies.InsuranceClaimsPolicy;
+import com.medshare.hub.abac.policies.PatientSelfAccessPolicy;
+import com.medshare.hub.abac.policies.TreatingPhysicianPolicy;
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.cache.TwoTierCacheManager;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PolicyEvaluatorBenchmark - Cost of one authorization decision
+ *
+ * Measures PolicyEvaluator.evaluateAccess on each policy path, with the
+ * four production policies padded by filler policies, and the cached path
+ * (decision key generation plus a near cache hit).
+ *
+ * Policy information comes from an in-memory stub, so the numbers are the
+ * engine's own cost without database or index lookups.
+ *
+ * Run with the benchmark profile (see pom.xml); results are written as
+ * JSON including gc.alloc.rate.norm (bytes allocated per decision).
+ *
+ * @author MedShare Development Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PolicyEvaluatorBenchmark {
+
+    private static final long PATIENT_ID = 50L;
+
+    public enum PolicyPath {
+        EMERGENCY,
+        PATIENT_SELF,
+        TREATING_PHYSICIAN,
+        INSURANCE
+    }
+
+    @Param
+    private PolicyPath path;
+
+    /**
+     * Registered policies: the four production policies plus fillers
+     */
+    @Param({ "4", "16", "64" })
+    private int policyCount;
+
+    private PolicyEvaluator evaluator;
+    private PolicyDecisionKeyGenerator keyGenerator;
+    private Cache decisionCache;
+
+    private SubjectAttributes subject;
+    private ResourceAttributes resource;
+    private EnvironmentAttributes environment;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PolicyInformationPoint pip = new StubPolicyInformationPoint();
+        List<Policy> policies = new ArrayList<>(List.of(
+                new EmergencyOverridePolicy(),
+                new PatientSelfAccessPolicy(),
+                new TreatingPhysicianPolicy(pip),
+                new InsuranceClaimsPolicy(pip)));
+        for (int i = policies.size(); i < policyCount; i++) {
+            policies.add(new FillerPolicy(i));
+        }
+        evaluator = new PolicyEvaluator(policies);
+
+        keyGenerator = new PolicyDecisionKeyGenerator(new FixedEpochs(), evaluator);
+        decisionCache = new TwoTierCacheManager(
+                new ConcurrentMapCacheManager("policyDecisions"),
+                Set.of("policyDecisions"),
+                10_000,
+                Duration.ofMinutes(5),
+                new SimpleMeterRegistry()).getCache("policyDecisions");
+
+        resource = ResourceAttributes.builder()
+                .resourceId(100L)
+                .resourceType(ResourceType.MEDICAL_RECORD)
+                .patientId(PATIENT_ID)
+                .sensitivityLevel(MedicalRecord.SensitivityLevel.STANDARD)
+                .recordType(MedicalRecord.RecordType.DIAGNOSIS)
+                .build();
+
+        EnvironmentAttributes.EnvironmentAttributesBuilder env = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now().withHour(10))
+                .isEmergency(false);
+        SubjectAttributes.SubjectAttributesBuilder user = SubjectAttributes.builder().userId(10L);
+        switch (path) {
+            case EMERGENCY -> {
+                user.role(User.UserRole.DOCTOR).emergencyCertified(true);
+                env.isEmergency(true).justification("Patient unconscious in ER, needs allergy history");
+            }
+            case PATIENT_SELF -> user.userId(PATIENT_ID).role(User.UserRole.PATIENT);
+            case TREATING_PHYSICIAN -> user.role(User.UserRole.DOCTOR).department("cardiology");
+            case INSURANCE -> user.role(User.UserRole.INSURANCE_ADJUSTER);
+        }
+        subject = user.build();
+        environment = env.build();
+
+        if (!evaluator.evaluateAccess(subject, resource, environment, AccessLog.Action.READ).isPermitted()) {
+            throw new IllegalStateException("Benchmark scenario " + path + " is not permitted");
+        }
+    }
+
+    @Benchmark
+    public PolicyDecision evaluateAccess() {
+        return evaluator.evaluateAccess(subject, resource, environment, AccessLog.Action.READ);
+    }
+
+    /**
+     * The work PolicyEvaluator.evaluateAccessCached does on a near cache
+     * hit: build the decision key, then read the Caffeine tier
+     */
+    @Benchmark
+    public PolicyDecision evaluateAccessCached() {
+        if (!evaluator.isCacheable(subject, resource, environment, AccessLog.Action.READ)) {
+            return evaluateAccess();
+        }
+        Object key = keyGenerator.generate(evaluator, null, subject, resource, environment, AccessLog.Action.READ);
+        return decisionCache.get(key, this::evaluateAccess);
+    }
+
+    /**
+     * Dynamic policy that never applies: costs one isApplicable call per
+     * evaluation, like a policy without declared targets
+     */
+    private static final class FillerPolicy implements Policy {
+
+        private final int priority;
+
+        FillerPolicy(int priority) {
+            this.priority = 10 + priority;
+        }
+
+        @Override
+        public PolicyDecision evaluate(
+                SubjectAttributes subject,
+                ResourceAttributes resource,
+                EnvironmentAttributes environment,
+                AccessLog.Action action) {
+            return PolicyDecision.deny(getPolicyName(), "Filler policy");
+        }
+
+        @Override
+        public String getPolicyName() {
+            return "FillerPolicy" + priority;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public boolean isApplicable(
+                SubjectAttributes subject,
+                ResourceAttributes resource,
+                EnvironmentAttributes environment,
+                AccessLog.Action action) {
+            return action == AccessLog.Action.EXPORT && subject.getRole() == User.UserRole.ADMIN;
+        }
+    }
+
+    /**
+     * Every provider treats every patient, every patient consented
+     */
+    private static final class StubPolicyInformationPoint implements PolicyInformationPoint {
+
+        @Override
+        public boolean hasActiveRelationship(Long providerId, Long patientId) {
+            return true;
+        }
+
+        @Override
+        public Set<Long> findActivelyTreatedPatientIds(Long providerId, Collection<Long> patientIds) {
+            return new HashSet<>(patientIds);
+        }
+
+        @Override
+        public boolean hasValidConsent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+            return true;
+        }
+
+        @Override
+        public Set<Long> findPatientIdsWithValidConsent(
+                Collection<Long> patientIds,
+                Long userId,
+                Consent.Purpose purpose,
+                Consent.DataType dataType) {
+            return new HashSet<>(patientIds);
+        }
+    }
+
+    /**
+     * Epochs that never change, without Redis
+     */
+    private static final class FixedEpochs extends InvalidationEpochs {
+
+        FixedEpochs() {
+            super(new StringRedisTemplate(), "benchmark", 1, 30_000);
+        }
+
+        @Override
+        public long patientEpoch(Long patientId) {
+            return 0;
+        }
+
+        @Override
+        public long userEpoch(Long userId) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.repository.ConsentRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * ConsentIndexLoadBenchmark - Startup bulk load of the consent index
+ *
+ * Loads ConsentIndex from a synthetic stream of valid user consents, as
+ * streamValidUserConsentKeys would return them: four grants per
+ * patient/user pair on average, one in ten with an expiry. The score is
+ * the time of one full load; the footprint is in the iteration output, from
+ * the index's own "Loaded consent index" log line.
+ *
+ * The database read is not included: at 10M rows it dominates and is
+ * measured by the "Loaded consent index" log line on a real database.
+ *
+ * @author MedShare Development Team
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xms3g", "-Xmx3g" })
+@State(Scope.Benchmark)
+public class ConsentIndexLoadBenchmark {
+
+    private static final Consent.Purpose[] PURPOSES = Consent.Purpose.values();
+    private static final Consent.DataType[] DATA_TYPES = Consent.DataType.values();
+    private static final int GRANTS_PER_PAIR = 4;
+    private static final int USERS_PER_PATIENT = 5;
+
+    @Param({ "1000000", "10000000" })
+    public long rows;
+
+    private ConsentIndex index;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        // A fresh index per load; only reload() is exercised, so no epochs are needed
+        index = new ConsentIndex(repository(rows), null);
+    }
+
+    @Benchmark
+    public ConsentIndex load() {
+        index.reload();
+        return index;
+    }
+    private static ConsentRepository repository(long rows) {
+        LocalDateTime expiry = LocalDateTime.now().plusYears(1);
+        return (ConsentRepository) Proxy.newProxyInstance(
+                ConsentRepository.class.getClassLoader(),
+                new Class<?>[] { ConsentRepository.class },
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("streamValidUserConsentKeys")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return LongStream.range(0, rows).mapToObj(row -> new SyntheticKey(row, expiry));
+                });
+    }
+
+    /**
+     * Row n of the synthetic consents table
+     */
+    private static final class SyntheticKey implements ConsentRepository.ValidConsentKey {
+
+        private final long row;
+        private final LocalDateTime expiry;
+
+        private SyntheticKey(long row, LocalDateTime expiry) {
+            this.row = row;
+            this.expiry = expiry;
+        }
+
+        @Override
+        public Long getPatientId() {
+            return row / GRANTS_PER_PAIR / USERS_PER_PATIENT;
+        }
+
+        @Override
+        public Long getUserId() {
+            return 1_000_000 + (row / GRANTS_PER_PAIR) % USERS_PER_PATIENT;
+        }
+
+        @Override
+        public Consent.Purpose getPurpose() {
+            return PURPOSES[(int) (row % PURPOSES.length)];
+        }
+
+        @Override
+        public Consent.DataType getDataType() {
+            return DATA_TYPES[(int) ((row / PURPOSES.length) % DATA_TYPES.length)];
+        }
+
+        @Override
+        public LocalDateTime getExpiresAt() {
+            return row % 10 == 0 ? expiry : null;
+        }
+    }
+}
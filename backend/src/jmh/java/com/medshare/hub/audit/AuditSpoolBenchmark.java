@@ -0,0 +1,96 @@
+package com.medshare.hub.audit;
+
+import com.medshare.hub.entity.AccessLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * AuditSpoolBenchmark - Cost of recording an access event on the request
+ * thread
+ *
+ * - spoolAppend: encode and append to the memory-mapped spool; every
+ *   1024 appends the events are drained and acknowledged, as the writer
+ *   thread would, so segments rotate and are deleted
+ * - queueOffer: the in-memory AuditEventQueue, for reference
+ *
+ * @author MedShare Development Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class AuditSpoolBenchmark {
+
+    private static final int DRAIN_EVERY = 1024;
+
+    private final AuditEvent event = new AuditEvent(42L, 50L, "MEDICAL_RECORD", 1234L, AccessLog.Action.READ,
+            AccessLog.Decision.PERMIT, "TreatingPhysicianPolicy", null, false, null,
+            "10.0.0.15", "5f0c3b7e-8a1d-4c1e-9b6a-2d7f0e9c4a11", LocalDateTime.now());
+    private final List<AuditEvent> drained = new ArrayList<>(DRAIN_EVERY);
+
+    private Path directory;
+    private AuditSpool spool;
+    private AuditEventQueue queue;
+    private int appended;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("audit-spool-benchmark");
+        spool = AuditSpool.open(directory, 64 << 20, 1L << 30, AuditSpool.OverflowMode.REJECT, 0, 1000);
+        queue = new AuditEventQueue(Integer.MAX_VALUE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        spool.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean spoolAppend() {
+        boolean accepted = spool.offer(event);
+        if (++appended == DRAIN_EVERY) {
+            appended = 0;
+            spool.drainTo(drained, DRAIN_EVERY);
+            spool.acknowledge();
+            drained.clear();
+        }
+        return accepted;
+    }
+
+    @Benchmark
+    public boolean queueOffer() {
+        boolean accepted = queue.offer(event);
+        if (++appended == DRAIN_EVERY) {
+            appended = 0;
+            queue.drainTo(drained, DRAIN_EVERY);
+            drained.clear();
+        }
+        return accepted;
+    }
+}
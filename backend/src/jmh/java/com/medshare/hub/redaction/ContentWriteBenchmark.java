@@ -0,0 +1,108 @@
+package com.medshare.hub.redaction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medshare.hub.abac.Obligation;
+import com.medshare.hub.abac.PolicyDecision;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ContentWriteBenchmark - Ways of writing record content to a response
+ *
+ * Compares, on a lab result payload of the given number of observations:
+ * - mapRoundTrip: content parsed into a Map (as Hibernate does for the
+ *   JSONB column) and serialized again by Jackson
+ * - redactingStream: raw JSON streamed through the redaction filter
+ * - passThrough: raw JSON spliced into the output untouched (no content
+ *   obligations)
+ *
+ * @author MedShare Development Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ContentWriteBenchmark {
+
+    private static final TypeReference<Map<String, Object>> CONTENT_TYPE = new TypeReference<>() {
+    };
+
+    @Param({ "10", "1000", "10000" })
+    public int observations;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ContentRedactor redactor = new ContentRedactor(objectMapper);
+    private final PolicyDecision plain = PolicyDecision.permit("BenchmarkPolicy");
+    private final PolicyDecision redacting = PolicyDecision.permit("BenchmarkPolicy",
+            List.of(Obligation.REDACT_CLINICAL_NOTES));
+
+    private String json;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < observations; i++) {
+            Map<String, Object> observation = new LinkedHashMap<>();
+            observation.put("code", "LOINC-" + i);
+            observation.put("display", "Observation " + i);
+            observation.put("value", i * 1.5);
+            observation.put("unit", "mg/dL");
+            observation.put("referenceRange", Map.of("low", 1.0, "high", 10.0));
+            results.add(observation);
+        }
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("resourceType", "DiagnosticReport");
+        content.put("status", "final");
+        content.put("results", results);
+        content.put("clinicalNotes", "Reviewed with patient");
+        json = objectMapper.writeValueAsString(content);
+    }
+
+    @Benchmark
+    public void mapRoundTrip() throws IOException {
+        Map<String, Object> content = objectMapper.readValue(json, CONTENT_TYPE);
+        try (JsonGenerator generator = generator()) {
+            objectMapper.writeValue(generator, content);
+        }
+    }
+
+    @Benchmark
+    public void redactingStream() throws IOException {
+        try (JsonGenerator generator = generator()) {
+            redactor.write(generator, new StringReader(json), redacting);
+        }
+    }
+
+    @Benchmark
+    public void passThrough() throws IOException {
+        try (JsonGenerator generator = generator()) {
+            redactor.write(generator, json, plain);
+        }
+    }
+
+    private JsonGenerator generator() throws IOException {
+        return objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream());
+    }
+}
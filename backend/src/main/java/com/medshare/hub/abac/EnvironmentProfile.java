@@ -0,0 +1,97 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * EnvironmentProfile - Environment attributes read by a policy chain
+ *
+ * The union of the environment dependencies declared by the policies of a
+ * chain, pre-computed when the dispatch table is built. Used to derive the
+ * environment part of decision cache keys and the instant at which a cached
+ * decision must expire.
+ *
+ * @author MedShare Development Team
+ */
+public final class EnvironmentProfile {
+
+    private final EnvironmentAttribute[] attributes;
+    private final boolean timeDependent;
+
+    private EnvironmentProfile(EnvironmentAttribute[] attributes) {
+        this.attributes = attributes;
+        boolean timeDependent = false;
+        for (EnvironmentAttribute attribute : attributes) {
+            timeDependent |= attribute.isTimeDependent();
+        }
+        this.timeDependent = timeDependent;
+    }
+
+    static EnvironmentProfile of(List<Policy> policies) {
+        Set<EnvironmentAttribute> union = EnumSet.noneOf(EnvironmentAttribute.class);
+        for (Policy policy : policies) {
+            union.addAll(policy.getEnvironmentDependencies());
+        }
+        return new EnvironmentProfile(union.toArray(new EnvironmentAttribute[0]));
+    }
+
+    /**
+     * Environment part of the cache key, or null if decisions cannot be
+     * cached for this environment
+     */
+    public String key(EnvironmentAttributes environment) {
+        if (attributes.length == 0) {
+            return "";
+        }
+        StringBuilder key = new StringBuilder();
+        for (EnvironmentAttribute attribute : attributes) {
+            String part = attribute.keyPart(environment);
+            if (part == null) {
+                return null;
+            }
+            if (!part.isEmpty()) {
+                if (!key.isEmpty()) {
+                    key.append(',');
+                }
+                key.append(part);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Instant (epoch millis) at which a decision cached for this environment
+     * stops being valid, or Long.MAX_VALUE if it does not depend on time
+     */
+    public long expiresAtMillis(EnvironmentAttributes environment) {
+        if (!timeDependent) {
+            return Long.MAX_VALUE;
+        }
+        LocalDateTime time = environment.getCurrentTime() != null
+                ? environment.getCurrentTime()
+                : LocalDateTime.now();
+        LocalDateTime earliest = null;
+        for (EnvironmentAttribute attribute : attributes) {
+            LocalDateTime change = attribute.nextChange(time);
+            if (change != null && (earliest == null || change.isBefore(earliest))) {
+                earliest = change;
+            }
+        }
+        return earliest.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Environment attributes of the chain (for admin/debugging)
+     */
+    public Set<EnvironmentAttribute> getAttributes() {
+        Set<EnvironmentAttribute> set = EnumSet.noneOf(EnvironmentAttribute.class);
+        set.addAll(List.of(attributes));
+        return set;
+    }
+}
@@ -0,0 +1,65 @@
+package com.medshare.hub.abac;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Obligation - Actions required when a decision grants access
+ *
+ * Each obligation has a stable string code (the form used in audit logs and
+ * by callers of the string-based PolicyDecision API) and a bit in the
+ * obligation bitset carried by PolicyDecision.
+ *
+ * @author MedShare Development Team
+ */
+public enum Obligation {
+
+    ENHANCED_AUDIT("enhanced_audit"), // Create detailed audit log
+    SUPERVISOR_NOTIFICATION("supervisor_notification"), // Notify supervisor immediately
+    REQUIRE_JUSTIFICATION("require_justification"), // Record justification
+    TEMPORARY_ACCESS("temporary_access"), // Access is time-limited
+    REDACT_CLINICAL_NOTES("redact_clinical_notes"), // Remove clinical notes from content
+    REDACT_SENSITIVE_DIAGNOSES("redact_sensitive_diagnoses"); // Remove sensitive diagnoses from content
+
+    private static final Obligation[] VALUES = values();
+    private static final Map<String, Obligation> BY_CODE = new HashMap<>();
+
+    static {
+        for (Obligation obligation : VALUES) {
+            BY_CODE.put(obligation.code, obligation);
+        }
+    }
+
+    private final String code;
+
+    Obligation(String code) {
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Bit of this obligation in an obligation bitset
+     */
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * Find an obligation by its string code
+     *
+     * @return the obligation, or null for an unknown code
+     */
+    public static Obligation fromCode(String code) {
+        return code == null ? null : BY_CODE.get(code);
+    }
+
+    /**
+     * Obligation for the given bit index
+     */
+    static Obligation ofIndex(int index) {
+        return VALUES[index];
+    }
+}
@@ -1,8 +1,15 @@
 package com.medshare.hub.abac;
 
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.entity.AccessLog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Policy - Interface for ABAC policies
@@ -34,7 +41,7 @@ public interface Policy {
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action);
+            AccessLog.Action action);
 
     /**
      * Get the name of this policy
@@ -47,6 +54,69 @@ public interface Policy {
      */
     int getPriority();
 
+    /**
+     * Get the static (role, action, resourceType) targets of this policy
+     *
+     * PolicyEvaluator compiles the targets of all policies into a dispatch
+     * table, and does not call isApplicable for policies found through it.
+     * Return an empty collection (the default) for policies whose
+     * applicability depends on other attributes; they are added to every
+     * chain and isApplicable is checked per request.
+     */
+    default Collection<PolicyTarget> getTargets() {
+        return List.of();
+    }
+
+    /**
+     * Get the environment attributes this policy reads (in isApplicable or
+     * evaluate)
+     *
+     * Decisions are cached under a key built from the declared attributes
+     * of every policy in the chain, and expire when a time-derived attribute
+     * (business hours, weekend) next changes. The default, ANY, marks the
+     * policy as undeclared: decisions involving it are never cached.
+     */
+    default Set<EnvironmentAttribute> getEnvironmentDependencies() {
+        return Set.of(EnvironmentAttribute.ANY);
+    }
+
+    /**
+     * Bulk-resolve the facts this policy needs for a batch of resources
+     *
+     * Called once per batch by PolicyEvaluator.evaluateAll before any
+     * resource is evaluated. Implementations should resolve their facts for
+     * all patients of the batch through the bulk PolicyInformationPoint
+     * lookups, which memoize them for the rest of the batch.
+     * Default: nothing to prefetch.
+     */
+    default void prefetch(
+            SubjectAttributes subject,
+            Collection<ResourceAttributes> resources,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+    }
+
+    /**
+     * Partially evaluate this policy for a known subject, environment,
+     * action and resource type
+     *
+     * Returns the condition on the remaining resource attributes under
+     * which this policy applies and permits, with facts resolved for the
+     * given candidate patients (through the bulk PolicyInformationPoint
+     * lookups). Used by PolicyEvaluator.partialEvaluate to push listing
+     * authorization into the database query.
+     * Default: null, the policy cannot be partially evaluated and callers
+     * fall back to evaluating each resource.
+     */
+    default ResourceCondition partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Set<Long> patientIds) {
+        return null;
+    }
+
     /**
      * Check if this policy is applicable to the given context
      * Returns true if this policy should be evaluated
@@ -55,5 +125,5 @@ public interface Policy {
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action);
+            AccessLog.Action action);
 }
@@ -0,0 +1,72 @@
+package com.medshare.hub.abac;
+
+import java.util.List;
+
+/**
+ * PolicyChain - Priority-ordered policies for one dispatch table entry
+ *
+ * Backed by plain arrays so iteration on the authorization hot path does
+ * not allocate. Policies that declared static targets are known to be
+ * applicable for the chain's key; dynamic policies are flagged so the
+ * evaluator still consults their isApplicable method per request.
+ * The chain's EnvironmentProfile drives decision cache keys and expiry.
+ * Each policy's latency timers are resolved when the chain is built.
+ *
+ * @author MedShare Development Team
+ */
+final class PolicyChain {
+
+    private final Policy[] policies;
+    private final boolean[] dynamic;
+    private final PolicyMetrics.PolicyMeters[] meters;
+    private final EnvironmentProfile environmentProfile;
+
+    private PolicyChain(
+            Policy[] policies,
+            boolean[] dynamic,
+            PolicyMetrics.PolicyMeters[] meters,
+            EnvironmentProfile environmentProfile) {
+        this.policies = policies;
+        this.dynamic = dynamic;
+        this.meters = meters;
+        this.environmentProfile = environmentProfile;
+    }
+
+    static PolicyChain of(List<Policy> orderedPolicies, PolicyMetrics metrics) {
+        Policy[] policies = orderedPolicies.toArray(new Policy[0]);
+        boolean[] dynamic = new boolean[policies.length];
+        PolicyMetrics.PolicyMeters[] meters = new PolicyMetrics.PolicyMeters[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            dynamic[i] = policies[i].getTargets().isEmpty();
+            meters[i] = metrics.policyMeters(policies[i]);
+        }
+        return new PolicyChain(policies, dynamic, meters, EnvironmentProfile.of(orderedPolicies));
+    }
+
+    int size() {
+        return policies.length;
+    }
+
+    Policy policy(int index) {
+        return policies[index];
+    }
+
+    /**
+     * Latency timers of the policy at the given index
+     */
+    PolicyMetrics.PolicyMeters meters(int index) {
+        return meters[index];
+    }
+
+    /**
+     * Whether the policy at the given index requires a per-request
+     * isApplicable check
+     */
+    boolean isDynamic(int index) {
+        return dynamic[index];
+    }
+
+    EnvironmentProfile environmentProfile() {
+        return environmentProfile;
+    }
+}
@@ -1,11 +1,16 @@
 package com.medshare.hub.abac;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+import java.io.Serial;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * PolicyDecision - Result of ABAC policy evaluation
@@ -18,70 +23,199 @@ import java.util.List;
  * such as enhanced audit logging or supervisor notifications for
  * emergency (break-glass) access.
  * 
+ * Decisions are immutable and interned: the factory methods return one
+ * shared instance per (policy, obligations) permit and per (policy, reason)
+ * deny, so evaluating a request does not allocate a decision. Obligations
+ * are held as an Obligation bitset; the string-based accessors are kept
+ * for compatibility.
+ * 
  * @author MedShare Development Team
  */
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-public class PolicyDecision {
+@ToString(exclude = "obligationCodes")
+@EqualsAndHashCode(exclude = "obligationCodes")
+public final class PolicyDecision implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * Upper bound on interned instances per table, in case a policy builds
+     * deny reasons dynamically; past it decisions are simply allocated
+     */
+    private static final int MAX_INTERNED = 4096;
+
+    private static final Map<String, Map<Integer, PolicyDecision>> PERMITS = new ConcurrentHashMap<>();
+    private static final Map<String, Map<String, PolicyDecision>> DENIES = new ConcurrentHashMap<>();
 
     /**
      * Whether access is permitted
      */
-    private boolean permitted;
+    private final boolean permitted;
 
     /**
      * Name of the policy that made the decision
      */
-    private String policyMatched;
+    private final String policyMatched;
 
     /**
-     * Additional actions required when access is granted
-     * Examples: "enhanced_audit", "supervisor_notification",
-     * "require_justification"
+     * Obligation bitset (see Obligation.bit)
      */
-    private List<String> obligations;
+    private final int obligationBits;
 
     /**
      * Reason for denying access (if denied)
      */
-    private String denyReason;
+    private final String denyReason;
+
+    /**
+     * Obligation codes, derived once per (interned) instance
+     */
+    private final transient List<String> obligationCodes;
+
+    private PolicyDecision(boolean permitted, String policyMatched, int obligationBits, String denyReason) {
+        this.permitted = permitted;
+        this.policyMatched = policyMatched;
+        this.obligationBits = obligationBits;
+        this.denyReason = denyReason;
+        this.obligationCodes = codesOf(obligationBits);
+    }
 
     /**
      * Factory method to create a PERMIT decision
      */
     public static PolicyDecision permit(String policyName) {
-        return new PolicyDecision(true, policyName, new ArrayList<>(), null);
+        return internPermit(policyName, 0);
     }
 
     /**
      * Factory method to create a PERMIT decision with obligations
      */
+    public static PolicyDecision permit(String policyName, Collection<Obligation> obligations) {
+        int bits = 0;
+        for (Obligation obligation : obligations) {
+            bits |= obligation.bit();
+        }
+        return internPermit(policyName, bits);
+    }
+
+    /**
+     * Factory method to create a PERMIT decision with obligations given by
+     * their string codes
+     *
+     * @throws IllegalArgumentException for an unknown obligation code
+     */
     public static PolicyDecision permitWithObligations(String policyName, List<String> obligations) {
-        return new PolicyDecision(true, policyName, obligations, null);
+        int bits = 0;
+        if (obligations != null) {
+            for (String code : obligations) {
+                Obligation obligation = Obligation.fromCode(code);
+                if (obligation == null) {
+                    throw new IllegalArgumentException("Unknown obligation: " + code);
+                }
+                bits |= obligation.bit();
+            }
+        }
+        return internPermit(policyName, bits);
     }
 
     /**
      * Factory method to create a DENY decision
      */
     public static PolicyDecision deny(String policyName, String reason) {
-        return new PolicyDecision(false, policyName, new ArrayList<>(), reason);
+        Map<String, PolicyDecision> byReason = DENIES.get(policyName);
+        PolicyDecision decision = byReason == null ? null : byReason.get(reason);
+        if (decision != null) {
+            return decision;
+        }
+        return intern(DENIES, policyName, reason, new PolicyDecision(false, policyName, 0, reason));
+    }
+
+    public boolean isPermitted() {
+        return permitted;
+    }
+
+    public String getPolicyMatched() {
+        return policyMatched;
+    }
+
+    public String getDenyReason() {
+        return denyReason;
     }
 
     /**
-     * Add an obligation to this decision
+     * Obligation codes of this decision (unmodifiable)
+     * Examples: "enhanced_audit", "supervisor_notification",
+     * "require_justification"
      */
-    public void addObligation(String obligation) {
-        if (this.obligations == null) {
-            this.obligations = new ArrayList<>();
-        }
-        this.obligations.add(obligation);
+    public List<String> getObligations() {
+        return obligationCodes;
     }
 
     /**
      * Check if decision has a specific obligation
      */
+    public boolean hasObligation(Obligation obligation) {
+        return (obligationBits & obligation.bit()) != 0;
+    }
+
+    /**
+     * Check if decision has a specific obligation, given by its string code
+     */
     public boolean hasObligation(String obligation) {
-        return obligations != null && obligations.contains(obligation);
+        Obligation resolved = Obligation.fromCode(obligation);
+        return resolved != null && hasObligation(resolved);
+    }
+
+    /**
+     * Check if decision has any obligation at all
+     */
+    public boolean hasObligations() {
+        return obligationBits != 0;
+    }
+
+    /**
+     * Keep decisions read back from a cache tier interned
+     */
+    @Serial
+    private Object readResolve() {
+        return permitted ? internPermit(policyMatched, obligationBits) : deny(policyMatched, denyReason);
+    }
+
+    private static PolicyDecision internPermit(String policyName, int obligationBits) {
+        Map<Integer, PolicyDecision> byObligations = PERMITS.get(policyName);
+        // Integer.valueOf is cached for the small bitsets used here
+        PolicyDecision decision = byObligations == null ? null : byObligations.get(obligationBits);
+        if (decision != null) {
+            return decision;
+        }
+        return intern(PERMITS, policyName, obligationBits,
+                new PolicyDecision(true, policyName, obligationBits, null));
+    }
+
+    private static <K> PolicyDecision intern(
+            Map<String, Map<K, PolicyDecision>> table,
+            String policyName,
+            K key,
+            PolicyDecision decision) {
+        if (policyName == null || key == null) {
+            return decision;
+        }
+        Map<K, PolicyDecision> byKey = table.computeIfAbsent(policyName, name -> new ConcurrentHashMap<>());
+        if (byKey.size() >= MAX_INTERNED) {
+            return decision;
+        }
+        PolicyDecision existing = byKey.putIfAbsent(key, decision);
+        return existing != null ? existing : decision;
+    }
+
+    private static List<String> codesOf(int obligationBits) {
+        if (obligationBits == 0) {
+            return Collections.emptyList();
+        }
+        List<String> codes = new ArrayList<>(Integer.bitCount(obligationBits));
+        for (int remaining = obligationBits; remaining != 0; remaining &= remaining - 1) {
+            codes.add(Obligation.ofIndex(Integer.numberOfTrailingZeros(remaining)).getCode());
+        }
+        return Collections.unmodifiableList(codes);
     }
 }
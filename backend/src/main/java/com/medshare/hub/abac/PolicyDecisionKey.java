@@ -0,0 +1,20 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.cache.ExpiringCacheKey;
+
+/**
+ * PolicyDecisionKey - Decision cache key with its expiry instant
+ *
+ * Cache tiers store entries under value (the string form); expiresAtMillis
+ * is the next instant at which an environment attribute the decision
+ * depends on may change.
+ *
+ * @author MedShare Development Team
+ */
+public record PolicyDecisionKey(String value, long expiresAtMillis) implements ExpiringCacheKey {
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
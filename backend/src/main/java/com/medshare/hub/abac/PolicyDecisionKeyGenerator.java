@@ -0,0 +1,53 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.entity.AccessLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+
+/**
+ * PolicyDecisionKeyGenerator - Cache key for PolicyEvaluator.evaluateAccessCached
+ *
+ * Key: userId:resourceId:action:u{user epoch}:p{patient epoch}:v{policy set}:{environment}
+ *
+ * Folding the user and patient invalidation epochs into the key means a
+ * consent, relationship or user change only has to bump one epoch to make
+ * the affected decisions unreachable. The policy set version does the same
+ * for every decision when the declarative policies are reloaded.
+ *
+ * The environment part only holds the environment attributes the policy
+ * chain declared (e.g. business hours, emergency flag). The key also
+ * carries the instant at which one of them next changes (e.g. the next
+ * 08:00/20:00 edge), so the entry expires exactly at that boundary.
+ * Only called for requests PolicyEvaluator.isCacheable accepted.
+ *
+ * @author MedShare Development Team
+ */
+@Component("policyDecisionKeyGenerator")
+@RequiredArgsConstructor
+public class PolicyDecisionKeyGenerator implements KeyGenerator {
+
+    private final InvalidationEpochs invalidationEpochs;
+    private final PolicyEvaluator policyEvaluator;
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        SubjectAttributes subject = (SubjectAttributes) params[0];
+        ResourceAttributes resource = (ResourceAttributes) params[1];
+        EnvironmentAttributes environment = (EnvironmentAttributes) params[2];
+        AccessLog.Action action = (AccessLog.Action) params[3];
+        EnvironmentProfile profile = policyEvaluator.environmentProfile(subject, resource, action);
+        String key = subject.getUserId() + ":" + resource.getResourceId() + ":" + action
+                + ":u" + invalidationEpochs.userEpoch(subject.getUserId())
+                + ":p" + invalidationEpochs.patientEpoch(resource.getPatientId())
+                + ":v" + policyEvaluator.getPolicyVersion()
+                + ":" + profile.key(environment);
+        return new PolicyDecisionKey(key, profile.expiresAtMillis(environment));
+    }
+}
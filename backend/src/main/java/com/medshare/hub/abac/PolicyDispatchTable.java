@@ -0,0 +1,96 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PolicyDispatchTable - Immutable (role, action, resourceType) to policy
+ * chain index
+ *
+ * Built once from the priority-ordered policy list. Every declared
+ * PolicyTarget maps to a pre-computed PolicyChain containing, in priority
+ * order, the policies declaring that target plus all dynamic policies
+ * (policies without declared targets). Requests that match no declared
+ * target fall back to a chain of dynamic policies only.
+ *
+ * The table is a flat array indexed by the ordinals of the three enum
+ * attributes, so a lookup is a bounds check and one array read. Null
+ * attributes (unknown roles, actions or resource types) use the fallback.
+ *
+ * @author MedShare Development Team
+ */
+final class PolicyDispatchTable {
+
+    private static final int ROLES = User.UserRole.values().length;
+    private static final int ACTIONS = AccessLog.Action.values().length;
+    private static final int RESOURCE_TYPES = ResourceType.values().length;
+
+    private final PolicyChain[] chains;
+    private final PolicyChain fallback;
+    private final int size;
+
+    private PolicyDispatchTable(PolicyChain[] chains, PolicyChain fallback, int size) {
+        this.chains = chains;
+        this.fallback = fallback;
+        this.size = size;
+    }
+
+    /**
+     * Compile the dispatch table from policies sorted by priority
+     */
+    static PolicyDispatchTable build(List<Policy> orderedPolicies, PolicyMetrics metrics) {
+        Set<PolicyTarget> targets = new LinkedHashSet<>();
+        for (Policy policy : orderedPolicies) {
+            targets.addAll(policy.getTargets());
+        }
+
+        List<Policy> dynamicPolicies = orderedPolicies.stream()
+                .filter(policy -> policy.getTargets().isEmpty())
+                .toList();
+        PolicyChain fallback = PolicyChain.of(dynamicPolicies, metrics);
+
+        PolicyChain[] chains = new PolicyChain[ROLES * ACTIONS * RESOURCE_TYPES];
+        Arrays.fill(chains, fallback);
+        for (PolicyTarget target : targets) {
+            List<Policy> chainPolicies = new ArrayList<>();
+            for (Policy policy : orderedPolicies) {
+                Collection<PolicyTarget> declared = policy.getTargets();
+                if (declared.isEmpty() || declared.contains(target)) {
+                    chainPolicies.add(policy);
+                }
+            }
+            chains[index(target.role(), target.action(), target.resourceType())] = PolicyChain.of(chainPolicies, metrics);
+        }
+
+        return new PolicyDispatchTable(chains, fallback, targets.size());
+    }
+
+    /**
+     * Find the policy chain for the given request attributes
+     */
+    PolicyChain lookup(User.UserRole role, AccessLog.Action action, ResourceType resourceType) {
+        if (role == null || action == null || resourceType == null) {
+            return fallback;
+        }
+        return chains[index(role, action, resourceType)];
+    }
+
+    /**
+     * Number of distinct targets compiled into the table
+     */
+    int size() {
+        return size;
+    }
+
+    private static int index(User.UserRole role, AccessLog.Action action, ResourceType resourceType) {
+        return (role.ordinal() * ACTIONS + action.ordinal()) * RESOURCE_TYPES + resourceType.ordinal();
+    }
+}
@@ -1,59 +1,144 @@
 package com.medshare.hub.abac;
 
+import com.medshare.hub.abac.attributes.AttributeValues;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.abac.pip.PipScope;
+import com.medshare.hub.entity.AccessLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * PolicyEvaluator - Central ABAC policy evaluation engine
  * 
  * Orchestrates policy evaluation by:
- * 1. Collecting all registered policies
- * 2. Filtering to applicable policies for the request context
+ * 1. Compiling all registered policies (components and declarative
+ * policies) into a dispatch table, swapped atomically on reload
+ * 2. Looking up the applicable policy chain for the request context
  * 3. Evaluating policies in priority order
  * 4. Returning the first PERMIT decision or final DENY
  * 
  * Performance Optimization:
  * - Uses @Cacheable for attribute caching (Redis)
  * - Policy results cached for 1 minute
+ * - Applicable policies found with an O(1) (role, action, resourceType)
+ * lookup instead of filtering every policy per request
+ * - Attributes are enums, so dispatch and policy predicates are ordinal and
+ * identity compares rather than case-insensitive string compares
  * - Evaluates policies by priority to short-circuit on first PERMIT
  * 
  * Target Performance: <100ms policy evaluation (95th percentile)
  * 
+ * Metrics: per-policy and per-decision latency timers, decision counters
+ * and applicable policy counts (see PolicyMetrics)
+ * 
  * @author MedShare Development Team
  */
 @Service
 @Slf4j
 public class PolicyEvaluator {
 
-    private final List<Policy> policies;
+    /**
+     * Version of a policy set without declarative policies
+     */
+    public static final String BUILT_IN_VERSION = "0";
+
+    private final List<Policy> componentPolicies;
+    private final PolicyMetrics metrics;
+
+    /**
+     * Current policies and their dispatch table, replaced atomically on
+     * reload; each evaluation reads it once
+     */
+    private volatile PolicySet policySet;
+
+    /**
+     * Evaluator recording its metrics into a private registry (tests,
+     * benchmarks)
+     */
+    public PolicyEvaluator(List<Policy> policies) {
+        this(policies, new SimpleMeterRegistry());
+    }
 
     /**
      * Constructor injection of all Policy beans
      * Spring automatically injects all @Component classes implementing Policy
      * interface
      */
-    public PolicyEvaluator(List<Policy> policies) {
-        this.policies = policies;
-        // Sort policies by priority (lower number = higher priority)
-        this.policies.sort(Comparator.comparingInt(Policy::getPriority));
-        log.info("Initialized PolicyEvaluator with {} policies: {}",
+    @Autowired
+    public PolicyEvaluator(List<Policy> policies, MeterRegistry meterRegistry) {
+        this.componentPolicies = List.copyOf(policies);
+        this.metrics = new PolicyMetrics(meterRegistry);
+        this.policySet = PolicySet.of(componentPolicies, BUILT_IN_VERSION, metrics);
+        log.info("Initialized PolicyEvaluator with {} policies ({} dispatch targets): {}",
                 policies.size(),
-                policies.stream().map(Policy::getPolicyName).toList());
+                policySet.dispatchTable().size(),
+                policySet.names());
+    }
+
+    /**
+     * Atomically replace the declarative policies evaluated alongside the
+     * policy components
+     *
+     * Requests already being evaluated finish against the previous set.
+     * The version is part of decision cache keys, so decisions cached under
+     * another policy set are not served.
+     *
+     * @param declarativePolicies compiled declarative policies
+     * @param version             identifies the policy set (same content,
+     *                            same version on every node)
+     * @throws IllegalArgumentException if a policy name is already taken
+     */
+    public void replaceDeclarativePolicies(List<Policy> declarativePolicies, String version) {
+        Set<String> names = new HashSet<>();
+        for (Policy policy : componentPolicies) {
+            names.add(policy.getPolicyName());
+        }
+        for (Policy policy : declarativePolicies) {
+            if (!names.add(policy.getPolicyName())) {
+                throw new IllegalArgumentException("Policy name already in use: " + policy.getPolicyName());
+            }
+        }
+
+        List<Policy> combined = new ArrayList<>(componentPolicies);
+        combined.addAll(declarativePolicies);
+        PolicySet updated = PolicySet.of(combined, version, metrics);
+        policySet = updated;
+        log.info("Loaded policy set {}: {} policies ({} declarative, {} dispatch targets): {}",
+                version, combined.size(), declarativePolicies.size(),
+                updated.dispatchTable().size(), updated.names());
+    }
+
+    /**
+     * Version of the current policy set
+     */
+    public String getPolicyVersion() {
+        return policySet.version();
     }
 
     /**
      * Evaluate access request against all applicable ABAC policies
      * 
      * Algorithm:
-     * 1. Filter to applicable policies only
-     * 2. Evaluate in priority order (1=highest)
+     * 1. Look up the policy chain for (role, action, resourceType)
+     * 2. Evaluate in priority order (1=highest), checking isApplicable only
+     * for dynamic policies
      * 3. Return first PERMIT (short-circuit)
      * 4. If all deny or no policies match, return DENY
      * 
@@ -67,61 +152,209 @@ public class PolicyEvaluator {
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
-        long startTime = System.currentTimeMillis();
-
-        log.debug("Evaluating access: user={}, resource={}, action={}",
-                subject.getUserId(), resource.getResourceId(), action);
-
-        // Filter to applicable policies
-        List<Policy> applicablePolicies = policies.stream()
-                .filter(policy -> policy.isApplicable(subject, resource, environment, action))
-                .toList();
+            AccessLog.Action action) {
+        return evaluateAccess(policySet.dispatchTable(), subject, resource, environment, action);
+    }
 
-        log.debug("Found {} applicable policies out of {}",
-                applicablePolicies.size(), policies.size());
+    private PolicyDecision evaluateAccess(
+            PolicyDispatchTable dispatchTable,
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        long startTime = System.nanoTime();
 
-        if (applicablePolicies.isEmpty()) {
-            log.warn("No applicable policies found - DENY by default");
-            return PolicyDecision.deny("DefaultDeny", "No applicable policy found");
+        if (log.isDebugEnabled()) {
+            log.debug("Evaluating access: user={}, resource={}, action={}",
+                    subject.getUserId(), resource.getResourceId(), action);
         }
 
+        PolicyChain chain = dispatchTable.lookup(subject.getRole(), action, resource.getResourceType());
+
         // Evaluate policies in priority order
-        for (Policy policy : applicablePolicies) {
+        int evaluated = 0;
+        for (int i = 0; i < chain.size(); i++) {
+            Policy policy = chain.policy(i);
+            if (chain.isDynamic(i) && !policy.isApplicable(subject, resource, environment, action)) {
+                continue;
+            }
+            evaluated++;
+
+            long policyStart = System.nanoTime();
             PolicyDecision decision = policy.evaluate(subject, resource, environment, action);
+            long policyEnd = System.nanoTime();
+            chain.meters(i).record(decision.isPermitted(), policyEnd - policyStart);
 
             if (decision.isPermitted()) {
-                long duration = System.currentTimeMillis() - startTime;
-                log.info("Access PERMITTED by {} in {}ms", policy.getPolicyName(), duration);
+                metrics.recordDecision(decision, PolicyMetrics.Outcome.PERMIT, evaluated, policyEnd - startTime);
+                if (log.isDebugEnabled()) {
+                    log.debug("Access PERMITTED by {} in {}us",
+                            policy.getPolicyName(), (policyEnd - startTime) / 1_000);
+                }
                 return decision;
             } else {
                 log.debug("Policy {} denied: {}", policy.getPolicyName(), decision.getDenyReason());
             }
         }
 
+        if (evaluated == 0) {
+            log.warn("No applicable policies found - DENY by default");
+            PolicyDecision decision = PolicyDecision.deny("DefaultDeny", "No applicable policy found");
+            metrics.recordDecision(decision, PolicyMetrics.Outcome.DEFAULT_DENY, 0, System.nanoTime() - startTime);
+            return decision;
+        }
+
         // All policies denied - return last denial reason
-        long duration = System.currentTimeMillis() - startTime;
-        log.info("Access DENIED after evaluating {} policies in {}ms",
-                applicablePolicies.size(), duration);
+        long elapsed = System.nanoTime() - startTime;
+        if (log.isDebugEnabled()) {
+            log.debug("Access DENIED after evaluating {} policies in {}us",
+                    evaluated, elapsed / 1_000);
+        }
 
-        return PolicyDecision.deny("AllPoliciesDenied",
+        PolicyDecision decision = PolicyDecision.deny("AllPoliciesDenied",
                 "No policy granted access to this resource");
+        metrics.recordDecision(decision, PolicyMetrics.Outcome.DENY, evaluated, elapsed);
+        return decision;
+    }
+
+    /**
+     * Evaluate access for an action given by name (case-insensitive)
+     * Unknown actions match no policy target and are denied by default
+     */
+    public PolicyDecision evaluateAccess(
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            EnvironmentAttributes environment,
+            String action) {
+        return evaluateAccess(subject, resource, environment, AttributeValues.parse(AccessLog.Action.class, action));
+    }
+
+    /**
+     * Evaluate one subject's access to many resources in a single pass
+     * 
+     * Used for list views, where per-record evaluateAccess would issue one
+     * relationship or consent query per record. Every policy that can apply
+     * to the batch first prefetches its facts for all patients of the batch
+     * (grouped by patient) in a PipScope, then each resource is evaluated
+     * against those memoized facts.
+     * 
+     * @param subject     Subject (user) attributes
+     * @param resources   Resources to authorize
+     * @param environment Environmental context
+     * @param action      Action being attempted (READ, WRITE, etc.)
+     * @return Decisions in the iteration order of resources
+     */
+    public List<PolicyDecision> evaluateAll(
+            SubjectAttributes subject,
+            Collection<ResourceAttributes> resources,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        if (resources.isEmpty()) {
+            return List.of();
+        }
+
+        PolicyDispatchTable dispatchTable = policySet.dispatchTable();
+        try (PipScope scope = PipScope.open()) {
+            // Resolve facts once per batch for every policy that may apply
+            Set<Policy> prefetched = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (ResourceAttributes resource : resources) {
+                PolicyChain chain = dispatchTable.lookup(subject.getRole(), action, resource.getResourceType());
+                for (int i = 0; i < chain.size(); i++) {
+                    Policy policy = chain.policy(i);
+                    if (prefetched.contains(policy)
+                            || (chain.isDynamic(i) && !policy.isApplicable(subject, resource, environment, action))) {
+                        continue;
+                    }
+                    prefetched.add(policy);
+                    policy.prefetch(subject, resources, environment, action);
+                }
+            }
+
+            List<PolicyDecision> decisions = new ArrayList<>(resources.size());
+            for (ResourceAttributes resource : resources) {
+                decisions.add(evaluateAccess(dispatchTable, subject, resource, environment, action));
+            }
+
+            log.debug("Batch evaluated {} resources for user {} with {} prefetching policies",
+                    resources.size(), subject.getUserId(), prefetched.size());
+            return decisions;
+        }
+    }
+
+    /**
+     * Batch evaluation for an action given by name (case-insensitive)
+     */
+    public List<PolicyDecision> evaluateAll(
+            SubjectAttributes subject,
+            Collection<ResourceAttributes> resources,
+            EnvironmentAttributes environment,
+            String action) {
+        return evaluateAll(subject, resources, environment, AttributeValues.parse(AccessLog.Action.class, action));
+    }
+
+    /**
+     * Partially evaluate the policies for a listing query
+     * 
+     * With the subject, environment, action and resource type known, each
+     * applicable policy reduces to a condition on the remaining resource
+     * attributes; policies combine permit-overrides, so the residual is
+     * their disjunction. Facts are resolved for the candidate patients in
+     * one bulk lookup per policy, in a PipScope.
+     * 
+     * The residual can be pushed into the listing query so that only
+     * permitted rows are fetched (and counted) by the database. Resources
+     * it admits must still be evaluated for their obligations.
+     * 
+     * @param patientIds candidate patients of the listing
+     * @return the residual condition, or empty if a policy that may apply
+     *         cannot be partially evaluated (callers then evaluate each
+     *         resource)
+     */
+    public Optional<ResourceCondition> partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Collection<Long> patientIds) {
+        PolicyChain chain = policySet.dispatchTable().lookup(subject.getRole(), action, resourceType);
+        Set<Long> candidates = Set.copyOf(patientIds);
+        ResourceCondition residual = ResourceCondition.FALSE;
+        try (PipScope scope = PipScope.open()) {
+            for (int i = 0; i < chain.size() && residual != ResourceCondition.TRUE; i++) {
+                Policy policy = chain.policy(i);
+                ResourceCondition condition = policy.partialEvaluate(subject, environment, action, resourceType,
+                        candidates);
+                if (condition == null) {
+                    log.debug("Policy {} does not support partial evaluation", policy.getPolicyName());
+                    return Optional.empty();
+                }
+                residual = ResourceCondition.or(residual, condition);
+            }
+        }
+        log.debug("Partially evaluated {} policies for user {}: {}", chain.size(), subject.getUserId(), residual);
+        return Optional.of(residual);
     }
 
     /**
      * Cached policy evaluation for repeated requests
-     * Cache key includes all attributes to ensure correct decisions
-     * TTL: 60 seconds (configured in Redis)
+     * Cache key built by PolicyDecisionKeyGenerator
+     * TTL: configured per cache tier (Caffeine near cache, Redis)
      * 
-     * Note: Cache is invalidated when user attributes, relationships, or consents
-     * change
+     * Note: Cached decisions are invalidated through the user and patient
+     * epochs in the key when user attributes, relationships, or consents
+     * change, and expire when an environment attribute they depend on does
      */
-    @Cacheable(value = "policyDecisions", key = "#subject.userId + ':' + #resource.resourceId + ':' + #action", unless = "#environment.isEmergencyAccess()")
+    @Cacheable(value = "policyDecisions",
+            keyGenerator = "policyDecisionKeyGenerator",
+            condition = "@policyEvaluator.isCacheable(#subject, #resource, #environment, #action)",
+            unless = "#environment.isEmergencyAccess()")
     public PolicyDecision evaluateAccessCached(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
+        metrics.recordCacheMiss(isCacheable(subject, resource, environment, action));
+
         // Emergency access should never be cached
         if (environment.isEmergencyAccess()) {
             return evaluateAccess(subject, resource, environment, action);
@@ -130,14 +363,57 @@ public class PolicyEvaluator {
         return evaluateAccess(subject, resource, environment, action);
     }
 
+    /**
+     * Environment attributes read by the policies that apply to the request
+     */
+    public EnvironmentProfile environmentProfile(
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            AccessLog.Action action) {
+        return policySet.dispatchTable()
+                .lookup(subject.getRole(), action, resource.getResourceType())
+                .environmentProfile();
+    }
+
+    /**
+     * Whether a decision for this request can be cached: every policy that
+     * may apply declared its environment dependencies, and none of them
+     * rules caching out for this environment
+     */
+    public boolean isCacheable(
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        return !environment.isEmergencyAccess()
+                && environmentProfile(subject, resource, action).key(environment) != null;
+    }
+
     /**
      * Get all registered policies (for admin/debugging)
      */
     public List<String> getRegisteredPolicies() {
-        return policies.stream()
+        return policySet.policies().stream()
                 .map(policy -> String.format("%s (priority=%d)",
                         policy.getPolicyName(),
                         policy.getPriority()))
                 .toList();
     }
+
+    /**
+     * Priority-ordered policies with their compiled dispatch table
+     */
+    private record PolicySet(List<Policy> policies, PolicyDispatchTable dispatchTable, String version) {
+
+        static PolicySet of(List<Policy> policies, String version, PolicyMetrics metrics) {
+            List<Policy> ordered = new ArrayList<>(policies);
+            // Sort policies by priority (lower number = higher priority)
+            ordered.sort(Comparator.comparingInt(Policy::getPriority));
+            return new PolicySet(List.copyOf(ordered), PolicyDispatchTable.build(ordered, metrics), version);
+        }
+
+        List<String> names() {
+            return policies.stream().map(Policy::getPolicyName).toList();
+        }
+    }
 }
@@ -0,0 +1,158 @@
+package com.medshare.hub.abac;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PolicyMetrics - Micrometer instrumentation of PolicyEvaluator
+ *
+ * Meters (exported through the actuator metrics endpoint):
+ * - abac.evaluation: latency of one evaluateAccess call, tagged by outcome
+ * (permit, deny, default_deny)
+ * - abac.policy.evaluation: latency of one Policy.evaluate call, tagged by
+ * policy and outcome (permit, deny)
+ * - abac.decisions: decisions, tagged by outcome and matched policy
+ * - abac.applicable.policies: number of policies evaluated per request
+ * - abac.decision.cache: evaluateAccessCached calls that evaluated the
+ * policies, tagged by result (miss, bypass for uncacheable requests).
+ * Hits never reach the evaluator; they are counted per tier by
+ * cache.tier.gets{cache=policyDecisions}
+ *
+ * Timers record nanosecond durations and publish p50/p95/p99 plus a
+ * percentile histogram. Meters are resolved once per policy or outcome:
+ * per-policy meters when a policy set is built (PolicyChain holds them
+ * next to its policies), so recording neither looks anything up in the
+ * registry nor allocates.
+ *
+ * @author MedShare Development Team
+ */
+final class PolicyMetrics {
+
+    /**
+     * Outcome of an authorization decision
+     */
+    enum Outcome {
+        PERMIT,
+        DENY,
+        DEFAULT_DENY;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PolicyMeters> policyMeters = new ConcurrentHashMap<>();
+    private final Map<Outcome, OutcomeMeters> outcomeMeters = new EnumMap<>(Outcome.class);
+    private final DistributionSummary applicablePolicies;
+    private final Counter cacheMisses;
+    private final Counter cacheBypasses;
+
+    PolicyMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (Outcome outcome : Outcome.values()) {
+            outcomeMeters.put(outcome, new OutcomeMeters(evaluationTimer(outcome), new ConcurrentHashMap<>()));
+        }
+        this.applicablePolicies = DistributionSummary.builder("abac.applicable.policies")
+                .description("Policies evaluated per authorization request")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.cacheMisses = cacheCounter("miss");
+        this.cacheBypasses = cacheCounter("bypass");
+    }
+
+    /**
+     * Meters of a policy, registered on first use (called when a policy set
+     * is built, not per evaluation)
+     * Also registers the policy's permit decision counter
+     */
+    PolicyMeters policyMeters(Policy policy) {
+        String policyName = policy.getPolicyName();
+        decisionCounter(Outcome.PERMIT, policyName);
+        return policyMeters.computeIfAbsent(policyName,
+                name -> new PolicyMeters(policyTimer(name, Outcome.PERMIT), policyTimer(name, Outcome.DENY)));
+    }
+
+    /**
+     * Record the outcome of one evaluateAccess call
+     */
+    void recordDecision(PolicyDecision decision, Outcome outcome, int evaluated, long nanos) {
+        OutcomeMeters meters = outcomeMeters.get(outcome);
+        meters.latency().record(nanos, TimeUnit.NANOSECONDS);
+        decisionCounter(outcome, decision.getPolicyMatched()).increment();
+        applicablePolicies.record(evaluated);
+    }
+
+    /**
+     * Record an evaluateAccessCached call that had to evaluate the policies
+     */
+    void recordCacheMiss(boolean cacheable) {
+        (cacheable ? cacheMisses : cacheBypasses).increment();
+    }
+
+    private Timer policyTimer(String policyName, Outcome outcome) {
+        return Timer.builder("abac.policy.evaluation")
+                .description("Latency of a single ABAC policy evaluation")
+                .tag("policy", policyName)
+                .tag("outcome", outcome.tag)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer evaluationTimer(Outcome outcome) {
+        return Timer.builder("abac.evaluation")
+                .description("Latency of an ABAC authorization decision")
+                .tag("outcome", outcome.tag)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Counter decisionCounter(Outcome outcome, String policyName) {
+        Map<String, Counter> decisions = outcomeMeters.get(outcome).decisions();
+        // Plain get first: computeIfAbsent would allocate its capturing lambda
+        Counter counter = decisions.get(policyName);
+        if (counter == null) {
+            counter = decisions.computeIfAbsent(policyName, name -> registerDecisionCounter(outcome, name));
+        }
+        return counter;
+    }
+
+    private Counter registerDecisionCounter(Outcome outcome, String policyName) {
+        return Counter.builder("abac.decisions")
+                .description("ABAC authorization decisions")
+                .tag("outcome", outcome.tag)
+                .tag("policy", policyName)
+                .register(meterRegistry);
+    }
+
+    private Counter cacheCounter(String result) {
+        return Counter.builder("abac.decision.cache")
+                .description("Cached-path decisions that were evaluated instead of read from the cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Latency timers of one policy
+     */
+    record PolicyMeters(Timer permit, Timer deny) {
+
+        /**
+         * Record one Policy.evaluate call
+         */
+        void record(boolean permitted, long nanos) {
+            (permitted ? permit : deny).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private record OutcomeMeters(Timer latency, Map<String, Counter> decisions) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.AttributeValues;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.User;
+
+/**
+ * PolicyTarget - Static applicability key of an ABAC policy
+ *
+ * A (role, action, resourceType) tuple declared by a policy to describe
+ * the requests it applies to. PolicyEvaluator compiles the declared targets
+ * of all policies into a dispatch table at startup, so the applicable policy
+ * chain for a request is found with a single lookup instead of calling
+ * isApplicable on every registered policy.
+ *
+ * @author MedShare Development Team
+ */
+public record PolicyTarget(User.UserRole role, AccessLog.Action action, ResourceType resourceType) {
+
+    public PolicyTarget {
+        if (role == null || action == null || resourceType == null) {
+            throw new IllegalArgumentException("Policy target attributes must not be null");
+        }
+    }
+
+    /**
+     * Factory method for a target tuple
+     */
+    public static PolicyTarget of(User.UserRole role, AccessLog.Action action, ResourceType resourceType) {
+        return new PolicyTarget(role, action, resourceType);
+    }
+
+    /**
+     * Factory method for a target tuple given by (case-insensitive) names
+     *
+     * @throws IllegalArgumentException if a name is not a known constant
+     */
+    public static PolicyTarget of(String role, String action, String resourceType) {
+        return new PolicyTarget(
+                require(User.UserRole.class, role),
+                require(AccessLog.Action.class, action),
+                require(ResourceType.class, resourceType));
+    }
+
+    private static <E extends Enum<E>> E require(Class<E> type, String name) {
+        E value = AttributeValues.parse(type, name);
+        if (value == null && name != null) {
+            throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " in policy target: " + name);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,176 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.entity.MedicalRecord;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * ResourceCondition - Residual of a partially evaluated policy
+ *
+ * When the subject, environment, action and resource type are known, a
+ * policy's permit condition reduces to a condition on the remaining
+ * resource attributes: the patient (facts such as treatment relationships
+ * and consents resolved to a patient id set), the sensitivity level and
+ * the record type. The condition can be tested in memory or translated to
+ * a query predicate (MedicalRecordSpecifications).
+ *
+ * Factories simplify as they build: constants are folded, empty sets are
+ * FALSE, and a negated set membership becomes membership in the
+ * complement (sensitivity level and record type are never null).
+ *
+ * @author MedShare Development Team
+ */
+public sealed interface ResourceCondition {
+
+    ResourceCondition TRUE = new Constant(true);
+    ResourceCondition FALSE = new Constant(false);
+
+    /**
+     * Test the condition against a resource
+     */
+    boolean test(ResourceAttributes resource);
+
+    static ResourceCondition of(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    static ResourceCondition patientIn(Collection<Long> patientIds) {
+        return patientIds.isEmpty() ? FALSE : new PatientIn(Set.copyOf(patientIds));
+    }
+
+    static ResourceCondition sensitivityIn(Set<MedicalRecord.SensitivityLevel> levels) {
+        if (levels.isEmpty()) {
+            return FALSE;
+        }
+        EnumSet<MedicalRecord.SensitivityLevel> copy = EnumSet.copyOf(levels);
+        return copy.size() == MedicalRecord.SensitivityLevel.values().length ? TRUE : new SensitivityIn(copy);
+    }
+
+    static ResourceCondition recordTypeIn(Set<MedicalRecord.RecordType> types) {
+        if (types.isEmpty()) {
+            return FALSE;
+        }
+        EnumSet<MedicalRecord.RecordType> copy = EnumSet.copyOf(types);
+        return copy.size() == MedicalRecord.RecordType.values().length ? TRUE : new RecordTypeIn(copy);
+    }
+
+    static ResourceCondition and(ResourceCondition left, ResourceCondition right) {
+        if (left == FALSE || right == FALSE) {
+            return FALSE;
+        }
+        if (left == TRUE) {
+            return right;
+        }
+        if (right == TRUE) {
+            return left;
+        }
+        return new And(flatten(left, right, true));
+    }
+
+    static ResourceCondition or(ResourceCondition left, ResourceCondition right) {
+        if (left == TRUE || right == TRUE) {
+            return TRUE;
+        }
+        if (left == FALSE) {
+            return right;
+        }
+        if (right == FALSE) {
+            return left;
+        }
+        return new Or(flatten(left, right, false));
+    }
+
+    static ResourceCondition not(ResourceCondition condition) {
+        if (condition instanceof Constant constant) {
+            return of(!constant.value());
+        }
+        if (condition instanceof SensitivityIn in) {
+            return sensitivityIn(EnumSet.complementOf(in.levels()));
+        }
+        if (condition instanceof RecordTypeIn in) {
+            return recordTypeIn(EnumSet.complementOf(in.types()));
+        }
+        if (condition instanceof Not not) {
+            return not.condition();
+        }
+        return new Not(condition);
+    }
+
+    private static List<ResourceCondition> flatten(ResourceCondition left, ResourceCondition right, boolean and) {
+        List<ResourceCondition> operands = new ArrayList<>();
+        for (ResourceCondition operand : List.of(left, right)) {
+            if (and && operand instanceof And nested) {
+                operands.addAll(nested.operands());
+            } else if (!and && operand instanceof Or nested) {
+                operands.addAll(nested.operands());
+            } else {
+                operands.add(operand);
+            }
+        }
+        return List.copyOf(operands);
+    }
+
+    record Constant(boolean value) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            return value;
+        }
+    }
+
+    record PatientIn(Set<Long> patientIds) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            return resource.getPatientId() != null && patientIds.contains(resource.getPatientId());
+        }
+    }
+
+    record SensitivityIn(EnumSet<MedicalRecord.SensitivityLevel> levels) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            return resource.getSensitivityLevel() != null && levels.contains(resource.getSensitivityLevel());
+        }
+    }
+
+    record RecordTypeIn(EnumSet<MedicalRecord.RecordType> types) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            return resource.getRecordType() != null && types.contains(resource.getRecordType());
+        }
+    }
+
+    record And(List<ResourceCondition> operands) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            for (ResourceCondition operand : operands) {
+                if (!operand.test(resource)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    record Or(List<ResourceCondition> operands) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            for (ResourceCondition operand : operands) {
+                if (operand.test(resource)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    record Not(ResourceCondition condition) implements ResourceCondition {
+        @Override
+        public boolean test(ResourceAttributes resource) {
+            return !condition.test(resource);
+        }
+    }
+}
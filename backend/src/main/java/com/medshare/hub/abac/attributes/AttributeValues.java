@@ -0,0 +1,50 @@
+package com.medshare.hub.abac.attributes;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * AttributeValues - Case-insensitive string to enum conversion for ABAC
+ * attributes
+ *
+ * Backs the string-based builder methods kept for compatibility. Unknown or
+ * null values map to null, which no policy target or predicate matches, so
+ * such requests fall through to a default deny.
+ *
+ * @author MedShare Development Team
+ */
+public final class AttributeValues {
+
+    private static final ClassValue<Map<String, Enum<?>>> CONSTANTS = new ClassValue<>() {
+        @Override
+        protected Map<String, Enum<?>> computeValue(Class<?> type) {
+            Map<String, Enum<?>> constants = new HashMap<>();
+            for (Object constant : type.getEnumConstants()) {
+                Enum<?> value = (Enum<?>) constant;
+                constants.put(value.name(), value);
+            }
+            return Map.copyOf(constants);
+        }
+    };
+
+    private AttributeValues() {
+    }
+
+    /**
+     * Resolve a constant by name, ignoring case
+     *
+     * @return the constant, or null for a null or unknown name
+     */
+    public static <E extends Enum<E>> E parse(Class<E> type, String name) {
+        if (name == null) {
+            return null;
+        }
+        Map<String, Enum<?>> constants = CONSTANTS.get(type);
+        Enum<?> value = constants.get(name);
+        if (value == null) {
+            value = constants.get(name.trim().toUpperCase(Locale.ROOT));
+        }
+        return type.cast(value);
+    }
+}
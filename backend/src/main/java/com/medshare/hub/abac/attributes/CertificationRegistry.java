@@ -0,0 +1,105 @@
+package com.medshare.hub.abac.attributes;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CertificationRegistry - Global interning of certification names
+ *
+ * Every distinct certification name (compared case-insensitively) is given
+ * a small, stable integer id the first time it is seen. SubjectAttributes
+ * holds a subject's certifications as a bitset of these ids, so a
+ * certification check is a single bit test instead of a scan of string
+ * compares.
+ *
+ * Ids are process-local and never reused; they must not be persisted or
+ * sent to other nodes.
+ *
+ * @author MedShare Development Team
+ */
+public final class CertificationRegistry {
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    // Guarded by NAMES
+    private static final List<String> NAMES = new ArrayList<>();
+
+    private CertificationRegistry() {
+    }
+
+    /**
+     * Id of the certification, registering it if it was not seen before
+     */
+    public static int intern(String certification) {
+        String name = normalize(certification);
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (NAMES) {
+            return IDS.computeIfAbsent(name, key -> {
+                NAMES.add(key);
+                return NAMES.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Id of the certification, or -1 if it was never registered (so no
+     * subject can hold it)
+     */
+    public static int find(String certification) {
+        if (certification == null) {
+            return -1;
+        }
+        Integer id = IDS.get(normalize(certification));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Canonical (upper-case) name of a registered certification
+     */
+    public static String nameOf(int id) {
+        synchronized (NAMES) {
+            return NAMES.get(id);
+        }
+    }
+
+    /**
+     * Bitset of the given certification names; null entries are skipped
+     */
+    public static BitSet encode(Iterable<String> certifications) {
+        BitSet bits = new BitSet();
+        if (certifications != null) {
+            for (String certification : certifications) {
+                if (certification != null) {
+                    bits.set(intern(certification));
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Canonical names of the certifications in the bitset
+     */
+    public static String[] decode(BitSet bits) {
+        if (bits == null) {
+            return new String[0];
+        }
+        String[] names = new String[bits.cardinality()];
+        int i = 0;
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            names[i++] = nameOf(id);
+        }
+        return names;
+    }
+
+    private static String normalize(String certification) {
+        return certification.trim().toUpperCase(Locale.ROOT);
+    }
+}
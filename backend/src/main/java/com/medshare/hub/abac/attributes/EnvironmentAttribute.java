@@ -0,0 +1,129 @@
+package com.medshare.hub.abac.attributes;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * EnvironmentAttribute - Environment attributes a policy decision can
+ * depend on
+ *
+ * Policies declare the attributes they read (Policy.getEnvironmentDependencies)
+ * so cached decisions can be keyed on exactly those attributes. Each
+ * attribute contributes a key fragment, and time-derived attributes report
+ * when that fragment next changes so cache entries expire at the boundary.
+ *
+ * @author MedShare Development Team
+ */
+public enum EnvironmentAttribute {
+
+    /**
+     * EnvironmentAttributes.isBusinessHours (8AM - 8PM)
+     */
+    BUSINESS_HOURS {
+        @Override
+        public String keyPart(EnvironmentAttributes environment) {
+            return environment.isBusinessHours() ? "bh1" : "bh0";
+        }
+
+        @Override
+        public boolean isTimeDependent() {
+            return true;
+        }
+
+        @Override
+        public LocalDateTime nextChange(LocalDateTime time) {
+            LocalDate today = time.toLocalDate();
+            LocalTime timeOfDay = time.toLocalTime();
+            if (!timeOfDay.isAfter(BUSINESS_HOURS_START)) {
+                return today.atTime(BUSINESS_HOURS_START);
+            }
+            if (timeOfDay.isBefore(BUSINESS_HOURS_END)) {
+                return today.atTime(BUSINESS_HOURS_END);
+            }
+            return today.plusDays(1).atTime(BUSINESS_HOURS_START);
+        }
+    },
+
+    /**
+     * EnvironmentAttributes.isWeekend
+     */
+    WEEKEND {
+        @Override
+        public String keyPart(EnvironmentAttributes environment) {
+            return environment.isWeekend() ? "we1" : "we0";
+        }
+
+        @Override
+        public boolean isTimeDependent() {
+            return true;
+        }
+
+        @Override
+        public LocalDateTime nextChange(LocalDateTime time) {
+            DayOfWeek day = time.getDayOfWeek();
+            DayOfWeek next = day == DayOfWeek.SATURDAY || day == DayOfWeek.SUNDAY
+                    ? DayOfWeek.MONDAY
+                    : DayOfWeek.SATURDAY;
+            return time.toLocalDate().with(TemporalAdjusters.next(next)).atStartOfDay();
+        }
+    },
+
+    /**
+     * EnvironmentAttributes.isEmergencyAccess
+     */
+    EMERGENCY {
+        @Override
+        public String keyPart(EnvironmentAttributes environment) {
+            return environment.isEmergencyAccess() ? "em1" : "em0";
+        }
+    },
+
+    /**
+     * EnvironmentAttributes.justification
+     * Free text: only requests without a justification can be cached
+     */
+    JUSTIFICATION {
+        @Override
+        public String keyPart(EnvironmentAttributes environment) {
+            return environment.getJustification() == null ? "" : null;
+        }
+    },
+
+    /**
+     * Any other environment attribute (time of day, IP address, device,
+     * session); decisions depending on it are never cached
+     */
+    ANY {
+        @Override
+        public String keyPart(EnvironmentAttributes environment) {
+            return null;
+        }
+    };
+
+    private static final LocalTime BUSINESS_HOURS_START = LocalTime.of(8, 0);
+    private static final LocalTime BUSINESS_HOURS_END = LocalTime.of(20, 0);
+
+    /**
+     * Cache key fragment for this attribute, or null if a decision depending
+     * on it cannot be cached for this environment
+     */
+    public abstract String keyPart(EnvironmentAttributes environment);
+
+    /**
+     * Whether the key fragment changes with the passage of time
+     */
+    public boolean isTimeDependent() {
+        return false;
+    }
+
+    /**
+     * Next instant after the given time at which the key fragment may
+     * change, or null if it does not depend on time
+     */
+    public LocalDateTime nextChange(LocalDateTime time) {
+        return null;
+    }
+}
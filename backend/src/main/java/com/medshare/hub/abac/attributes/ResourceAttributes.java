@@ -1,10 +1,15 @@
 package com.medshare.hub.abac.attributes;
 
+import com.medshare.hub.entity.MedicalRecord;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * ResourceAttributes - Attributes of the resource being accessed
  * 
@@ -20,6 +25,9 @@ import lombok.NoArgsConstructor;
  * - recordType: Type of medical record (LAB_RESULT, PRESCRIPTION, etc.)
  * - createdBy: User who created the resource
  * 
+ * The builder also accepts the enum attributes as strings
+ * (case-insensitive; unknown values become null).
+ * 
  * @author MedShare Development Team
  */
 @Data
@@ -29,25 +37,82 @@ import lombok.NoArgsConstructor;
 public class ResourceAttributes {
 
     private Long resourceId;
-    private String resourceType;
+    private ResourceType resourceType;
     private Long patientId;
-    private String sensitivityLevel;
-    private String recordType;
+    private MedicalRecord.SensitivityLevel sensitivityLevel;
+    private MedicalRecord.RecordType recordType;
     private Long createdBy;
 
     /**
      * Check if resource is highly sensitive
      */
     public boolean isHighlySensitive() {
-        return "PSYCHIATRIC".equalsIgnoreCase(sensitivityLevel) ||
-                "HIV".equalsIgnoreCase(sensitivityLevel) ||
-                "CRITICAL".equalsIgnoreCase(sensitivityLevel);
+        return sensitivityLevel == MedicalRecord.SensitivityLevel.PSYCHIATRIC ||
+                sensitivityLevel == MedicalRecord.SensitivityLevel.HIV ||
+                sensitivityLevel == MedicalRecord.SensitivityLevel.CRITICAL;
     }
 
     /**
      * Check if resource has specific sensitivity level
      */
+    public boolean hasSensitivityLevel(MedicalRecord.SensitivityLevel level) {
+        return level != null && this.sensitivityLevel == level;
+    }
+
+    /**
+     * Check if resource has specific sensitivity level (case-insensitive name)
+     */
     public boolean hasSensitivityLevel(String level) {
-        return this.sensitivityLevel != null && this.sensitivityLevel.equalsIgnoreCase(level);
+        return hasSensitivityLevel(AttributeValues.parse(MedicalRecord.SensitivityLevel.class, level));
+    }
+
+    /**
+     * Distinct patient ids of a batch of resources
+     * Batch evaluation groups policy lookups by patient
+     */
+    public static Set<Long> patientIdsOf(Collection<ResourceAttributes> resources) {
+        Set<Long> patientIds = new LinkedHashSet<>();
+        for (ResourceAttributes resource : resources) {
+            if (resource.getPatientId() != null) {
+                patientIds.add(resource.getPatientId());
+            }
+        }
+        return patientIds;
+    }
+
+    /**
+     * Builder with string-based setters kept for compatibility
+     */
+    public static class ResourceAttributesBuilder {
+
+        public ResourceAttributesBuilder resourceType(ResourceType resourceType) {
+            this.resourceType = resourceType;
+            return this;
+        }
+
+        public ResourceAttributesBuilder resourceType(String resourceType) {
+            this.resourceType = AttributeValues.parse(ResourceType.class, resourceType);
+            return this;
+        }
+
+        public ResourceAttributesBuilder sensitivityLevel(MedicalRecord.SensitivityLevel sensitivityLevel) {
+            this.sensitivityLevel = sensitivityLevel;
+            return this;
+        }
+
+        public ResourceAttributesBuilder sensitivityLevel(String sensitivityLevel) {
+            this.sensitivityLevel = AttributeValues.parse(MedicalRecord.SensitivityLevel.class, sensitivityLevel);
+            return this;
+        }
+
+        public ResourceAttributesBuilder recordType(MedicalRecord.RecordType recordType) {
+            this.recordType = recordType;
+            return this;
+        }
+
+        public ResourceAttributesBuilder recordType(String recordType) {
+            this.recordType = AttributeValues.parse(MedicalRecord.RecordType.class, recordType);
+            return this;
+        }
     }
 }
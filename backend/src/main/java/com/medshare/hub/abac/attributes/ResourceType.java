@@ -0,0 +1,17 @@
+package com.medshare.hub.abac.attributes;
+
+/**
+ * ResourceType - Kinds of resources ABAC policies protect
+ *
+ * The name of each constant is the resource type string recorded in the
+ * audit log (AccessLog.resourceType).
+ *
+ * @author MedShare Development Team
+ */
+public enum ResourceType {
+    MEDICAL_RECORD,
+    PATIENT,
+    CONSENT,
+    TREATMENT_RELATIONSHIP,
+    ACCESS_LOG
+}
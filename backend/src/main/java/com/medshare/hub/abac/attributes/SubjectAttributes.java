@@ -1,9 +1,17 @@
 package com.medshare.hub.abac.attributes;
 
+import com.medshare.hub.entity.User;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 
 /**
  * SubjectAttributes - Attributes of the user requesting access
@@ -15,10 +23,14 @@ import lombok.NoArgsConstructor;
  * - userId: Unique identifier
  * - role: User's role (DOCTOR, PATIENT, etc.)
  * - department: For department-based restrictions
- * - certifications: Professional certifications
+ * - certifications: Professional certifications, held as a bitset of
+ * CertificationRegistry ids
  * - emergencyCertified: Can perform break-glass access
  * - location: Physical location (for location-based policies)
  * 
+ * The builder also accepts the role as a string (case-insensitive; unknown
+ * roles become null and are denied by default).
+ * 
  * @author MedShare Development Team
  */
 @Data
@@ -28,31 +40,84 @@ import lombok.NoArgsConstructor;
 public class SubjectAttributes {
 
     private Long userId;
-    private String role;
+    private User.UserRole role;
     private String department;
-    private String[] certifications;
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BitSet certifications;
     private Boolean emergencyCertified;
     private String employer;
     private String location;
 
+    /**
+     * Canonical names of the subject's certifications
+     */
+    public String[] getCertifications() {
+        return CertificationRegistry.decode(certifications);
+    }
+
+    /**
+     * Replace the subject's certifications
+     */
+    public void setCertifications(String... certifications) {
+        this.certifications = encode(certifications);
+    }
+
     /**
      * Check if subject has a specific certification
      */
     public boolean hasCertification(String certification) {
-        if (certifications == null)
-            return false;
-        for (String cert : certifications) {
-            if (cert.equalsIgnoreCase(certification)) {
-                return true;
-            }
-        }
-        return false;
+        return hasCertification(CertificationRegistry.find(certification));
+    }
+
+    /**
+     * Check if subject has the certification with the given registry id
+     */
+    public boolean hasCertification(int certificationId) {
+        return certificationId >= 0 && certifications != null && certifications.get(certificationId);
     }
 
     /**
      * Check if subject has a specific role
      */
+    public boolean hasRole(User.UserRole role) {
+        return role != null && this.role == role;
+    }
+
+    /**
+     * Check if subject has a specific role (case-insensitive name)
+     */
     public boolean hasRole(String roleName) {
-        return this.role != null && this.role.equalsIgnoreCase(roleName);
+        return hasRole(AttributeValues.parse(User.UserRole.class, roleName));
+    }
+
+    private static BitSet encode(String[] certifications) {
+        return certifications == null ? null : CertificationRegistry.encode(Arrays.asList(certifications));
+    }
+
+    /**
+     * Builder with string-based setters kept for compatibility
+     */
+    public static class SubjectAttributesBuilder {
+
+        public SubjectAttributesBuilder role(User.UserRole role) {
+            this.role = role;
+            return this;
+        }
+
+        public SubjectAttributesBuilder role(String role) {
+            this.role = AttributeValues.parse(User.UserRole.class, role);
+            return this;
+        }
+
+        public SubjectAttributesBuilder certifications(String... certifications) {
+            this.certifications = encode(certifications);
+            return this;
+        }
+
+        public SubjectAttributesBuilder certifications(Collection<String> certifications) {
+            this.certifications = certifications == null ? null : CertificationRegistry.encode(certifications);
+            return this;
+        }
     }
 }
@@ -0,0 +1,160 @@
+package com.medshare.hub.abac.dsl;
+
+import com.medshare.hub.abac.Policy;
+import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.PolicyTarget;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.entity.AccessLog;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CompiledPolicy - Policy produced by PolicyCompiler from a declarative
+ * definition
+ *
+ * Deny rules are tested in declaration order; the first match returns its
+ * pre-built decision, otherwise the pre-built permit is returned. Decisions
+ * are interned PolicyDecision instances, so evaluation does not allocate.
+ *
+ * Every rule is also compiled to a ResidualRule, so declarative policies
+ * always support partial evaluation.
+ *
+ * @author MedShare Development Team
+ */
+final class CompiledPolicy implements Policy {
+
+    /**
+     * Bulk lookup run once per batch by PolicyEvaluator.evaluateAll
+     */
+    @FunctionalInterface
+    interface Prefetch {
+        void run(SubjectAttributes subject, Collection<ResourceAttributes> resources);
+    }
+
+    private final String name;
+    private final int priority;
+    private final List<PolicyTarget> targets;
+    private final RulePredicate applicable;
+    private final ResidualRule applicableResidual;
+    private final RulePredicate[] denyWhen;
+    private final ResidualRule[] denyResiduals;
+    private final PolicyDecision[] denials;
+    private final PolicyDecision permit;
+    private final Set<EnvironmentAttribute> environmentDependencies;
+    private final List<Prefetch> prefetches;
+
+    CompiledPolicy(
+            String name,
+            int priority,
+            List<PolicyTarget> targets,
+            RulePredicate applicable,
+            ResidualRule applicableResidual,
+            RulePredicate[] denyWhen,
+            ResidualRule[] denyResiduals,
+            PolicyDecision[] denials,
+            PolicyDecision permit,
+            Set<EnvironmentAttribute> environmentDependencies,
+            List<Prefetch> prefetches) {
+        this.name = name;
+        this.priority = priority;
+        this.targets = List.copyOf(targets);
+        this.applicable = applicable;
+        this.applicableResidual = applicableResidual;
+        this.denyWhen = denyWhen;
+        this.denyResiduals = denyResiduals;
+        this.denials = denials;
+        this.permit = permit;
+        this.environmentDependencies = Set.copyOf(environmentDependencies);
+        this.prefetches = List.copyOf(prefetches);
+    }
+
+    @Override
+    public PolicyDecision evaluate(
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        for (int i = 0; i < denyWhen.length; i++) {
+            if (denyWhen[i].test(subject, resource, environment, action)) {
+                return denials[i];
+            }
+        }
+        return permit;
+    }
+
+    @Override
+    public void prefetch(
+            SubjectAttributes subject,
+            Collection<ResourceAttributes> resources,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        for (Prefetch prefetch : prefetches) {
+            prefetch.run(subject, resources);
+        }
+    }
+
+    @Override
+    public ResourceCondition partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Set<Long> patientIds) {
+        ResourceAttributes probe = ResourceAttributes.builder().resourceType(resourceType).build();
+        ResourceCondition permitted = applicableResidual != null
+                ? applicableResidual.residual(subject, probe, environment, action, patientIds)
+                : ResourceCondition.of(isApplicable(subject, probe, environment, action));
+        // Permitted when applicable and no deny rule matches
+        for (int i = 0; i < denyResiduals.length && permitted != ResourceCondition.FALSE; i++) {
+            permitted = ResourceCondition.and(permitted, ResourceCondition.not(
+                    denyResiduals[i].residual(subject, probe, environment, action, patientIds)));
+        }
+        return permitted;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return name;
+    }
+
+    @Override
+    public int getPriority() {
+        return priority;
+    }
+
+    @Override
+    public Collection<PolicyTarget> getTargets() {
+        return targets;
+    }
+
+    @Override
+    public Set<EnvironmentAttribute> getEnvironmentDependencies() {
+        return environmentDependencies;
+    }
+
+    @Override
+    public boolean isApplicable(
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        if (applicable != null) {
+            return applicable.test(subject, resource, environment, action);
+        }
+        for (PolicyTarget target : targets) {
+            if (target.role() == subject.getRole()
+                    && target.action() == action
+                    && target.resourceType() == resource.getResourceType()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
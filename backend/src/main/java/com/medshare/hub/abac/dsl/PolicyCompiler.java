@@ -0,0 +1,578 @@
+package com.medshare.hub.abac.dsl;
+
+import com.medshare.hub.abac.Obligation;
+import com.medshare.hub.abac.Policy;
+import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.PolicyTarget;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.attributes.AttributeValues;
+import com.medshare.hub.abac.attributes.CertificationRegistry;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.User;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PolicyCompiler - Compiles declarative policy definitions into Policy
+ * instances
+ *
+ * All name resolution happens here, once per load: attribute paths are
+ * bound to typed accessors, enum values to constants or ordinal masks,
+ * certifications to registry ids, obligations to an interned permit
+ * decision. The result is a tree of small lambdas per rule.
+ *
+ * Environment dependencies are inferred from the environment attributes
+ * the rules read, so compiled decisions are cached exactly like those of
+ * hand-written policies that declare them.
+ *
+ * Each condition is also compiled to a ResidualRule for partial
+ * evaluation (see Policy.partialEvaluate).
+ *
+ * Supported attributes:
+ * - Enums (equals, in): subject.role, action, resource.resourceType,
+ * resource.sensitivityLevel, resource.recordType
+ * - Booleans (equals): subject.emergencyCertified, resource.highlySensitive,
+ * environment.businessHours, environment.weekend, environment.emergency
+ * - Strings, case-insensitive (equals, in, minLength, present):
+ * subject.department, subject.employer, subject.location,
+ * environment.justification
+ * - subject.certifications (contains)
+ * - Facts: ACTIVE_RELATIONSHIP, CONSENT (with purpose and dataType)
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@RequiredArgsConstructor
+public class PolicyCompiler {
+
+    private static final Map<String, EnumAttribute> ENUM_ATTRIBUTES = Map.of(
+            "subject.role", new EnumAttribute(User.UserRole.class,
+                    (subject, resource, environment, action) -> subject.getRole()),
+            "action", new EnumAttribute(AccessLog.Action.class,
+                    (subject, resource, environment, action) -> action),
+            "resource.resourceType", new EnumAttribute(ResourceType.class,
+                    (subject, resource, environment, action) -> resource.getResourceType()),
+            "resource.sensitivityLevel", new EnumAttribute(MedicalRecord.SensitivityLevel.class,
+                    (subject, resource, environment, action) -> resource.getSensitivityLevel()),
+            "resource.recordType", new EnumAttribute(MedicalRecord.RecordType.class,
+                    (subject, resource, environment, action) -> resource.getRecordType()));
+
+    private static final Map<String, BooleanAttribute> BOOLEAN_ATTRIBUTES = Map.of(
+            "subject.emergencyCertified", new BooleanAttribute(null,
+                    (subject, resource, environment, action) -> Boolean.TRUE.equals(subject.getEmergencyCertified())),
+            "resource.highlySensitive", new BooleanAttribute(null,
+                    (subject, resource, environment, action) -> resource.isHighlySensitive()),
+            "environment.businessHours", new BooleanAttribute(EnvironmentAttribute.BUSINESS_HOURS,
+                    (subject, resource, environment, action) -> environment.isBusinessHours()),
+            "environment.weekend", new BooleanAttribute(EnvironmentAttribute.WEEKEND,
+                    (subject, resource, environment, action) -> environment.isWeekend()),
+            "environment.emergency", new BooleanAttribute(EnvironmentAttribute.EMERGENCY,
+                    (subject, resource, environment, action) -> environment.isEmergencyAccess()));
+
+    private static final Map<String, StringAttribute> STRING_ATTRIBUTES = Map.of(
+            "subject.department", new StringAttribute(null,
+                    (subject, resource, environment, action) -> subject.getDepartment()),
+            "subject.employer", new StringAttribute(null,
+                    (subject, resource, environment, action) -> subject.getEmployer()),
+            "subject.location", new StringAttribute(null,
+                    (subject, resource, environment, action) -> subject.getLocation()),
+            "environment.justification", new StringAttribute(EnvironmentAttribute.JUSTIFICATION,
+                    (subject, resource, environment, action) -> environment.getJustification()));
+
+    private static final String CERTIFICATIONS = "subject.certifications";
+
+    private static final Set<MedicalRecord.SensitivityLevel> HIGHLY_SENSITIVE = EnumSet.of(
+            MedicalRecord.SensitivityLevel.PSYCHIATRIC,
+            MedicalRecord.SensitivityLevel.HIV,
+            MedicalRecord.SensitivityLevel.CRITICAL);
+
+    private final PolicyInformationPoint policyInformationPoint;
+
+    /**
+     * Compile every policy of the document
+     *
+     * @throws PolicyDefinitionException if a definition is invalid
+     */
+    public List<Policy> compile(PolicyDocument document) {
+        List<Policy> compiled = new ArrayList<>();
+        Set<String> names = new HashSet<>();
+        for (PolicyDocument.PolicyDefinition definition : document.getPolicies()) {
+            Policy policy = compile(definition);
+            if (!names.add(policy.getPolicyName())) {
+                throw new PolicyDefinitionException("Duplicate policy name: " + policy.getPolicyName());
+            }
+            compiled.add(policy);
+        }
+        return compiled;
+    }
+
+    private Policy compile(PolicyDocument.PolicyDefinition definition) {
+        String name = definition.getName();
+        if (name == null || name.isBlank()) {
+            throw new PolicyDefinitionException("Policy without a name");
+        }
+        if (definition.getPriority() == null) {
+            throw new PolicyDefinitionException(name + ": priority is required");
+        }
+        boolean hasTargets = definition.getTargets() != null && !definition.getTargets().isEmpty();
+        if (hasTargets == (definition.getApplicable() != null)) {
+            throw new PolicyDefinitionException(name + ": declare either targets or an applicable condition");
+        }
+
+        Context context = new Context(name);
+
+        List<PolicyTarget> targets = new ArrayList<>();
+        if (hasTargets) {
+            for (PolicyDocument.TargetDefinition target : definition.getTargets()) {
+                try {
+                    targets.add(PolicyTarget.of(target.getRole(), target.getAction(), target.getResourceType()));
+                } catch (IllegalArgumentException e) {
+                    throw new PolicyDefinitionException(name + ": invalid target: " + e.getMessage());
+                }
+            }
+        }
+        RulePredicate applicable = hasTargets ? null : condition(definition.getApplicable(), context);
+        ResidualRule applicableResidual = hasTargets ? null : residual(definition.getApplicable(), context);
+
+        List<PolicyDocument.RuleDefinition> rules = definition.getDeny() == null ? List.of() : definition.getDeny();
+        RulePredicate[] denyWhen = new RulePredicate[rules.size()];
+        ResidualRule[] denyResiduals = new ResidualRule[rules.size()];
+        PolicyDecision[] denials = new PolicyDecision[rules.size()];
+        for (int i = 0; i < rules.size(); i++) {
+            PolicyDocument.RuleDefinition rule = rules.get(i);
+            if (rule.getWhen() == null || rule.getReason() == null || rule.getReason().isBlank()) {
+                throw new PolicyDefinitionException(name + ": deny rule " + (i + 1) + " needs 'when' and 'reason'");
+            }
+            denyWhen[i] = condition(rule.getWhen(), context);
+            denyResiduals[i] = residual(rule.getWhen(), context);
+            denials[i] = PolicyDecision.deny(name, rule.getReason());
+        }
+
+        EnumSet<Obligation> obligations = EnumSet.noneOf(Obligation.class);
+        if (definition.getPermit() != null && definition.getPermit().getObligations() != null) {
+            for (String code : definition.getPermit().getObligations()) {
+                Obligation obligation = Obligation.fromCode(code.toLowerCase(Locale.ROOT));
+                if (obligation == null) {
+                    throw new PolicyDefinitionException(name + ": unknown obligation " + code);
+                }
+                obligations.add(obligation);
+            }
+        }
+
+        return new CompiledPolicy(
+                name,
+                definition.getPriority(),
+                targets,
+                applicable,
+                applicableResidual,
+                denyWhen,
+                denyResiduals,
+                denials,
+                PolicyDecision.permit(name, obligations),
+                context.environmentDependencies,
+                context.prefetches);
+    }
+
+    private RulePredicate condition(PolicyDocument.ConditionDefinition condition, Context context) {
+        if (condition == null) {
+            throw new PolicyDefinitionException(context.policyName + ": empty condition");
+        }
+        int forms = count(condition.getAll() != null, condition.getAny() != null, condition.getNot() != null,
+                condition.getAttribute() != null, condition.getFact() != null);
+        if (forms != 1) {
+            throw new PolicyDefinitionException(context.policyName
+                    + ": a condition needs exactly one of all, any, not, attribute or fact");
+        }
+
+        if (condition.getAll() != null) {
+            return all(conditions(condition.getAll(), context));
+        }
+        if (condition.getAny() != null) {
+            return any(conditions(condition.getAny(), context));
+        }
+        if (condition.getNot() != null) {
+            RulePredicate negated = condition(condition.getNot(), context);
+            return (subject, resource, environment, action) -> !negated.test(subject, resource, environment, action);
+        }
+        if (condition.getFact() != null) {
+            return fact(condition, context);
+        }
+        return attribute(condition, context);
+    }
+
+    private RulePredicate[] conditions(List<PolicyDocument.ConditionDefinition> conditions, Context context) {
+        if (conditions.isEmpty()) {
+            throw new PolicyDefinitionException(context.policyName + ": all/any needs at least one condition");
+        }
+        RulePredicate[] compiled = new RulePredicate[conditions.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = condition(conditions.get(i), context);
+        }
+        return compiled;
+    }
+
+    private static RulePredicate all(RulePredicate[] predicates) {
+        if (predicates.length == 1) {
+            return predicates[0];
+        }
+        if (predicates.length == 2) {
+            RulePredicate first = predicates[0];
+            RulePredicate second = predicates[1];
+            return (subject, resource, environment, action) -> first.test(subject, resource, environment, action)
+                    && second.test(subject, resource, environment, action);
+        }
+        return (subject, resource, environment, action) -> {
+            for (RulePredicate predicate : predicates) {
+                if (!predicate.test(subject, resource, environment, action)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private static RulePredicate any(RulePredicate[] predicates) {
+        if (predicates.length == 1) {
+            return predicates[0];
+        }
+        if (predicates.length == 2) {
+            RulePredicate first = predicates[0];
+            RulePredicate second = predicates[1];
+            return (subject, resource, environment, action) -> first.test(subject, resource, environment, action)
+                    || second.test(subject, resource, environment, action);
+        }
+        return (subject, resource, environment, action) -> {
+            for (RulePredicate predicate : predicates) {
+                if (predicate.test(subject, resource, environment, action)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private RulePredicate fact(PolicyDocument.ConditionDefinition condition, Context context) {
+        PolicyInformationPoint pip = policyInformationPoint;
+        switch (condition.getFact().toUpperCase(Locale.ROOT)) {
+            case "ACTIVE_RELATIONSHIP" -> {
+                context.prefetch("ACTIVE_RELATIONSHIP", (subject, resources) -> {
+                    Set<Long> patientIds = ResourceAttributes.patientIdsOf(resources);
+                    if (subject.getUserId() != null && !patientIds.isEmpty()) {
+                        pip.findActivelyTreatedPatientIds(subject.getUserId(), patientIds);
+                    }
+                });
+                return (subject, resource, environment, action) ->
+                        pip.hasActiveRelationship(subject.getUserId(), resource.getPatientId());
+            }
+            case "CONSENT" -> {
+                Consent.Purpose purpose = require(Consent.Purpose.class, condition.getPurpose(), "purpose", context);
+                Consent.DataType dataType = require(Consent.DataType.class, condition.getDataType(), "dataType",
+                        context);
+                context.prefetch("CONSENT:" + purpose + ":" + dataType, (subject, resources) -> {
+                    Set<Long> patientIds = ResourceAttributes.patientIdsOf(resources);
+                    if (subject.getUserId() != null && !patientIds.isEmpty()) {
+                        pip.findPatientIdsWithValidConsent(patientIds, subject.getUserId(), purpose, dataType);
+                    }
+                });
+                return (subject, resource, environment, action) ->
+                        pip.hasValidConsent(resource.getPatientId(), subject.getUserId(), purpose, dataType);
+            }
+            default -> throw new PolicyDefinitionException(context.policyName + ": unknown fact " + condition.getFact());
+        }
+    }
+
+    private RulePredicate attribute(PolicyDocument.ConditionDefinition condition, Context context) {
+        String path = condition.getAttribute();
+
+        EnumAttribute enumAttribute = ENUM_ATTRIBUTES.get(path);
+        if (enumAttribute != null) {
+            return enumCondition(enumAttribute, condition, context);
+        }
+        BooleanAttribute booleanAttribute = BOOLEAN_ATTRIBUTES.get(path);
+        if (booleanAttribute != null) {
+            context.dependsOn(booleanAttribute.environmentAttribute());
+            return booleanCondition(booleanAttribute, condition, context);
+        }
+        StringAttribute stringAttribute = STRING_ATTRIBUTES.get(path);
+        if (stringAttribute != null) {
+            context.dependsOn(stringAttribute.environmentAttribute());
+            return stringCondition(stringAttribute, condition, context);
+        }
+        if (CERTIFICATIONS.equals(path)) {
+            if (condition.getContains() == null) {
+                throw new PolicyDefinitionException(context.policyName + ": " + path + " supports 'contains' only");
+            }
+            int certificationId = CertificationRegistry.intern(condition.getContains());
+            return (subject, resource, environment, action) -> subject.hasCertification(certificationId);
+        }
+        throw new PolicyDefinitionException(context.policyName + ": unknown attribute " + path);
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private RulePredicate enumCondition(
+            EnumAttribute attribute,
+            PolicyDocument.ConditionDefinition condition,
+            Context context) {
+        EnumAccessor accessor = attribute.accessor();
+        if (condition.getEqualTo() != null && condition.getIn() == null) {
+            Enum<?> expected = require((Class) attribute.type(), String.valueOf(condition.getEqualTo()),
+                    condition.getAttribute(), context);
+            return (subject, resource, environment, action) ->
+                    accessor.get(subject, resource, environment, action) == expected;
+        }
+        if (condition.getIn() != null && condition.getEqualTo() == null) {
+            // Enum attributes have fewer than 64 constants: membership is a mask test
+            long mask = 0;
+            for (Object value : condition.getIn()) {
+                mask |= 1L << require((Class) attribute.type(), String.valueOf(value),
+                        condition.getAttribute(), context).ordinal();
+            }
+            long members = mask;
+            return (subject, resource, environment, action) -> {
+                Enum<?> value = accessor.get(subject, resource, environment, action);
+                return value != null && (members & (1L << value.ordinal())) != 0;
+            };
+        }
+        throw new PolicyDefinitionException(context.policyName + ": " + condition.getAttribute()
+                + " needs exactly one of equals or in");
+    }
+
+    private RulePredicate booleanCondition(
+            BooleanAttribute attribute,
+            PolicyDocument.ConditionDefinition condition,
+            Context context) {
+        if (!(condition.getEqualTo() instanceof Boolean expected) || condition.getIn() != null) {
+            throw new PolicyDefinitionException(context.policyName + ": " + condition.getAttribute()
+                    + " needs equals: true or false");
+        }
+        BooleanAccessor accessor = attribute.accessor();
+        return expected
+                ? accessor
+                : (subject, resource, environment, action) -> !accessor.test(subject, resource, environment, action);
+    }
+
+    private RulePredicate stringCondition(
+            StringAttribute attribute,
+            PolicyDocument.ConditionDefinition condition,
+            Context context) {
+        StringAccessor accessor = attribute.accessor();
+        int forms = count(condition.getEqualTo() != null, condition.getIn() != null,
+                condition.getMinLength() != null, condition.getPresent() != null);
+        if (forms != 1) {
+            throw new PolicyDefinitionException(context.policyName + ": " + condition.getAttribute()
+                    + " needs exactly one of equals, in, minLength or present");
+        }
+        if (condition.getEqualTo() != null) {
+            String expected = String.valueOf(condition.getEqualTo());
+            return (subject, resource, environment, action) ->
+                    expected.equalsIgnoreCase(accessor.get(subject, resource, environment, action));
+        }
+        if (condition.getIn() != null) {
+            String[] expected = condition.getIn().stream().map(String::valueOf).toArray(String[]::new);
+            return (subject, resource, environment, action) -> {
+                String value = accessor.get(subject, resource, environment, action);
+                if (value != null) {
+                    for (String candidate : expected) {
+                        if (candidate.equalsIgnoreCase(value)) {
+                            return true;
+                        }
+                    }
+                }
+                return false;
+            };
+        }
+        if (condition.getMinLength() != null) {
+            int minLength = condition.getMinLength();
+            return (subject, resource, environment, action) -> {
+                String value = accessor.get(subject, resource, environment, action);
+                return value != null && value.trim().length() >= minLength;
+            };
+        }
+        boolean present = condition.getPresent();
+        return (subject, resource, environment, action) -> {
+            String value = accessor.get(subject, resource, environment, action);
+            return (value != null && !value.isBlank()) == present;
+        };
+    }
+
+    /**
+     * Compile the partially evaluated form of a condition
+     * Runs after condition(), which has validated the definition
+     */
+    private ResidualRule residual(PolicyDocument.ConditionDefinition condition, Context context) {
+        if (condition.getAll() != null) {
+            ResidualRule[] parts = residuals(condition.getAll(), context);
+            return (subject, probe, environment, action, patientIds) -> {
+                ResourceCondition result = ResourceCondition.TRUE;
+                for (int i = 0; i < parts.length && result != ResourceCondition.FALSE; i++) {
+                    result = ResourceCondition.and(result,
+                            parts[i].residual(subject, probe, environment, action, patientIds));
+                }
+                return result;
+            };
+        }
+        if (condition.getAny() != null) {
+            ResidualRule[] parts = residuals(condition.getAny(), context);
+            return (subject, probe, environment, action, patientIds) -> {
+                ResourceCondition result = ResourceCondition.FALSE;
+                for (int i = 0; i < parts.length && result != ResourceCondition.TRUE; i++) {
+                    result = ResourceCondition.or(result,
+                            parts[i].residual(subject, probe, environment, action, patientIds));
+                }
+                return result;
+            };
+        }
+        if (condition.getNot() != null) {
+            ResidualRule negated = residual(condition.getNot(), context);
+            return (subject, probe, environment, action, patientIds) ->
+                    ResourceCondition.not(negated.residual(subject, probe, environment, action, patientIds));
+        }
+        if (condition.getFact() != null) {
+            return factResidual(condition, context);
+        }
+
+        // Resource attributes other than the resource type are left in the residual
+        ResourceCondition fixed = switch (condition.getAttribute()) {
+            case "resource.sensitivityLevel" -> ResourceCondition.sensitivityIn(
+                    enumValues(MedicalRecord.SensitivityLevel.class, condition, context));
+            case "resource.recordType" -> ResourceCondition.recordTypeIn(
+                    enumValues(MedicalRecord.RecordType.class, condition, context));
+            case "resource.highlySensitive" -> {
+                ResourceCondition highlySensitive = ResourceCondition.sensitivityIn(HIGHLY_SENSITIVE);
+                yield Boolean.TRUE.equals(condition.getEqualTo())
+                        ? highlySensitive
+                        : ResourceCondition.not(highlySensitive);
+            }
+            default -> null;
+        };
+        if (fixed != null) {
+            return (subject, probe, environment, action, patientIds) -> fixed;
+        }
+        RulePredicate predicate = attribute(condition, context);
+        return (subject, probe, environment, action, patientIds) ->
+                ResourceCondition.of(predicate.test(subject, probe, environment, action));
+    }
+
+    private ResidualRule[] residuals(List<PolicyDocument.ConditionDefinition> conditions, Context context) {
+        ResidualRule[] compiled = new ResidualRule[conditions.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = residual(conditions.get(i), context);
+        }
+        return compiled;
+    }
+
+    private ResidualRule factResidual(PolicyDocument.ConditionDefinition condition, Context context) {
+        PolicyInformationPoint pip = policyInformationPoint;
+        if ("ACTIVE_RELATIONSHIP".equalsIgnoreCase(condition.getFact())) {
+            return (subject, probe, environment, action, patientIds) -> subject.getUserId() == null
+                    ? ResourceCondition.FALSE
+                    : ResourceCondition.patientIn(pip.findActivelyTreatedPatientIds(subject.getUserId(), patientIds));
+        }
+        Consent.Purpose purpose = require(Consent.Purpose.class, condition.getPurpose(), "purpose", context);
+        Consent.DataType dataType = require(Consent.DataType.class, condition.getDataType(), "dataType", context);
+        return (subject, probe, environment, action, patientIds) -> subject.getUserId() == null
+                ? ResourceCondition.FALSE
+                : ResourceCondition.patientIn(
+                        pip.findPatientIdsWithValidConsent(patientIds, subject.getUserId(), purpose, dataType));
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> enumValues(
+            Class<E> type,
+            PolicyDocument.ConditionDefinition condition,
+            Context context) {
+        EnumSet<E> values = EnumSet.noneOf(type);
+        if (condition.getEqualTo() != null) {
+            values.add(require(type, String.valueOf(condition.getEqualTo()), condition.getAttribute(), context));
+        } else {
+            for (Object value : condition.getIn()) {
+                values.add(require(type, String.valueOf(value), condition.getAttribute(), context));
+            }
+        }
+        return values;
+    }
+
+    private static <E extends Enum<E>> E require(Class<E> type, String name, String what, Context context) {
+        E value = AttributeValues.parse(type, name);
+        if (value == null) {
+            throw new PolicyDefinitionException(context.policyName + ": invalid " + what + " value " + name);
+        }
+        return value;
+    }
+
+    private static int count(boolean... present) {
+        int count = 0;
+        for (boolean p : present) {
+            if (p) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Per-policy compilation state
+     */
+    private static final class Context {
+        private final String policyName;
+        private final Set<EnvironmentAttribute> environmentDependencies = EnumSet.noneOf(EnvironmentAttribute.class);
+        private final Set<String> prefetchedFacts = new HashSet<>();
+        private final List<CompiledPolicy.Prefetch> prefetches = new ArrayList<>();
+
+        Context(String policyName) {
+            this.policyName = policyName;
+        }
+
+        void dependsOn(EnvironmentAttribute attribute) {
+            if (attribute != null) {
+                environmentDependencies.add(attribute);
+            }
+        }
+
+        void prefetch(String fact, CompiledPolicy.Prefetch prefetch) {
+            if (prefetchedFacts.add(fact)) {
+                prefetches.add(prefetch);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EnumAccessor {
+        Enum<?> get(SubjectAttributes subject, ResourceAttributes resource,
+                EnvironmentAttributes environment, AccessLog.Action action);
+    }
+
+    @FunctionalInterface
+    private interface BooleanAccessor extends RulePredicate {
+    }
+
+    @FunctionalInterface
+    private interface StringAccessor {
+        String get(SubjectAttributes subject, ResourceAttributes resource,
+                EnvironmentAttributes environment, AccessLog.Action action);
+    }
+
+    private record EnumAttribute(Class<? extends Enum<?>> type, EnumAccessor accessor) {
+    }
+
+    private record BooleanAttribute(EnvironmentAttribute environmentAttribute, BooleanAccessor accessor) {
+    }
+
+    private record StringAttribute(EnvironmentAttribute environmentAttribute, StringAccessor accessor) {
+    }
+}
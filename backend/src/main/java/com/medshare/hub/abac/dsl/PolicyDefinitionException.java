@@ -0,0 +1,21 @@
+package com.medshare.hub.abac.dsl;
+
+/**
+ * PolicyDefinitionException - Thrown when a declarative policy file cannot
+ * be parsed or compiled
+ *
+ * The message names the offending policy and attribute so it can be
+ * returned to the administrator triggering a reload.
+ *
+ * @author MedShare Development Team
+ */
+public class PolicyDefinitionException extends RuntimeException {
+
+    public PolicyDefinitionException(String message) {
+        super(message);
+    }
+
+    public PolicyDefinitionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,104 @@
+package com.medshare.hub.abac.dsl;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PolicyDocument - Declarative ABAC policy file (YAML or JSON)
+ *
+ * Bound by Jackson and compiled by PolicyCompiler; never evaluated
+ * directly. Example:
+ *
+ * <pre>
+ * policies:
+ *   - name: OncologyNurseReadPolicy
+ *     priority: 5
+ *     targets:
+ *       - { role: DOCTOR, action: READ, resourceType: MEDICAL_RECORD }
+ *     deny:
+ *       - when: { not: { fact: ACTIVE_RELATIONSHIP } }
+ *         reason: No active treatment relationship with patient
+ *       - when: { attribute: resource.sensitivityLevel, in: [PSYCHIATRIC, HIV] }
+ *         reason: Sensitive records are excluded
+ *     permit:
+ *       obligations: [ENHANCED_AUDIT]
+ * </pre>
+ *
+ * A policy permits when none of its deny rules match. Policies either
+ * declare static targets or an "applicable" condition (dynamic policy).
+ *
+ * @author MedShare Development Team
+ */
+@Data
+public class PolicyDocument {
+
+    private List<PolicyDefinition> policies = new ArrayList<>();
+
+    /**
+     * One declarative policy
+     */
+    @Data
+    public static class PolicyDefinition {
+        private String name;
+        private Integer priority;
+        private List<TargetDefinition> targets = new ArrayList<>();
+        private ConditionDefinition applicable;
+        private List<RuleDefinition> deny = new ArrayList<>();
+        private PermitDefinition permit = new PermitDefinition();
+    }
+
+    /**
+     * Static (role, action, resourceType) target
+     */
+    @Data
+    public static class TargetDefinition {
+        private String role;
+        private String action;
+        private String resourceType;
+    }
+
+    /**
+     * Deny rule: deny with the reason when the condition holds
+     */
+    @Data
+    public static class RuleDefinition {
+        private ConditionDefinition when;
+        private String reason;
+    }
+
+    /**
+     * Permit decision issued when no deny rule matched
+     */
+    @Data
+    public static class PermitDefinition {
+        private List<String> obligations = new ArrayList<>();
+    }
+
+    /**
+     * Condition node; exactly one form per node:
+     * - all / any / not: combinators
+     * - attribute with equals, in, contains, minLength or present
+     * - fact: ACTIVE_RELATIONSHIP, or CONSENT with purpose and dataType
+     */
+    @Data
+    public static class ConditionDefinition {
+        private List<ConditionDefinition> all;
+        private List<ConditionDefinition> any;
+        private ConditionDefinition not;
+
+        private String attribute;
+        @JsonProperty("equals")
+        private Object equalTo;
+        private List<Object> in;
+        private String contains;
+        private Integer minLength;
+        private Boolean present;
+
+        private String fact;
+        private String purpose;
+        private String dataType;
+    }
+}
@@ -0,0 +1,33 @@
+package com.medshare.hub.abac.dsl;
+
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.entity.AccessLog;
+
+import java.util.Set;
+
+/**
+ * ResidualRule - Partially evaluated form of a compiled condition
+ *
+ * Compiled by PolicyCompiler alongside each RulePredicate. Conditions on
+ * the subject, environment, action and resource type are decided against
+ * a probe resource carrying only the resource type; conditions on the
+ * sensitivity level or record type become set membership; facts become
+ * the set of candidate patients they hold for.
+ *
+ * @author MedShare Development Team
+ */
+@FunctionalInterface
+interface ResidualRule {
+
+    ResidualRule TRUE = (subject, probe, environment, action, patientIds) -> ResourceCondition.TRUE;
+
+    ResourceCondition residual(
+            SubjectAttributes subject,
+            ResourceAttributes probe,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            Set<Long> patientIds);
+}
@@ -0,0 +1,28 @@
+package com.medshare.hub.abac.dsl;
+
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.entity.AccessLog;
+
+/**
+ * RulePredicate - Compiled condition of a declarative policy
+ *
+ * Produced by PolicyCompiler as a tree of specialized lambdas (enum
+ * identity or ordinal-mask tests, bit tests for certifications, direct
+ * policy information point calls for facts). Nothing is looked up by name
+ * at evaluation time.
+ *
+ * @author MedShare Development Team
+ */
+@FunctionalInterface
+interface RulePredicate {
+
+    RulePredicate ALWAYS = (subject, resource, environment, action) -> true;
+
+    boolean test(
+            SubjectAttributes subject,
+            ResourceAttributes resource,
+            EnvironmentAttributes environment,
+            AccessLog.Action action);
+}
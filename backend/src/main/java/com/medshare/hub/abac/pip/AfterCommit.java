@@ -0,0 +1,32 @@
+package com.medshare.hub.abac.pip;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AfterCommit - Defers in-memory index updates until the surrounding
+ * transaction commits
+ *
+ * A change made by a transaction that rolls back must never become visible
+ * to authorization. Outside of a transaction the update runs immediately.
+ *
+ * @author MedShare Development Team
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.repository.ConsentRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * ConsentIndex - In-memory index of valid patient consents granted to users
+ *
+ * Keyed by (patientId, grantee userId). Each entry holds a bitmask of the
+ * granted (purpose, dataType) pairs and, for grants that expire, their
+ * expiry instants. Consent checks are a hash probe and a few bit tests, with
+ * no allocation and no database round trip.
+ *
+ * Consistency:
+ * - Bulk-loaded from the database once the application is ready
+ * - Updated after commit by ConsentManagementService on grant and revoke
+ *   (a revoke reloads the pair, other consents may still cover it)
+ * - Refreshed per patient from the database when another node bumps the
+ *   patient's cache epoch, before the new epoch is applied on this node;
+ *   if the refresh fails the index stops answering until the next reload
+ * - Expired grants are dropped by a scheduled sweep; lookups also compare
+ *   expiry instants so a grant never outlives its expiry between sweeps
+ * - Fully reloaded periodically, to pick up changes made outside this node
+ *
+ * Consents granted to organizations are not indexed; hasValidConsent only
+ * matches user grantees.
+ *
+ * Storage is an open-addressing hash table (linear probing, backward-shift
+ * deletion) guarded by a StampedLock: readers probe under an optimistic
+ * stamp and only fall back to the read lock when a writer interfered.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConsentIndex {
+
+    private static final int DATA_TYPES = Consent.DataType.values().length;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    static {
+        if (Consent.Purpose.values().length * DATA_TYPES > Integer.SIZE) {
+            throw new ExceptionInInitializerError("Consent purposes x data types do not fit an int mask");
+        }
+    }
+
+    private final ConsentRepository consentRepository;
+    private final InvalidationEpochs invalidationEpochs;
+
+    @Value("${abac.index.consents.enabled:true}")
+    private boolean enabled;
+
+    private final StampedLock lock = new StampedLock();
+    private final Map<Integer, Grants> nonExpiringGrants = new ConcurrentHashMap<>();
+    private final PatientLocks patientLocks = new PatientLocks();
+
+    // Guarded by lock
+    private Table table = new Table(INITIAL_CAPACITY);
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>();
+    private List<Runnable> pendingDuringReload;
+
+    private volatile boolean ready;
+    private final AtomicInteger refreshFailures = new AtomicInteger();
+
+    /**
+     * Follow consent changes made on other nodes
+     */
+    @PostConstruct
+    void subscribeToRemoteChanges() {
+        if (enabled) {
+            invalidationEpochs.addRemotePatientListener(this::refreshPatient);
+        }
+    }
+
+    /**
+     * Load the index once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Periodic full reload (safety net for changes made on other nodes or
+     * directly in the database)
+     */
+    @Scheduled(
+            initialDelayString = "${abac.index.consents.resync-interval-ms:900000}",
+            fixedDelayString = "${abac.index.consents.resync-interval-ms:900000}")
+    @Transactional(readOnly = true)
+    public void resync() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Scheduled sweep of expired grants
+     */
+    @Scheduled(fixedDelayString = "${abac.index.consents.sweep-interval-ms:30000}")
+    public void sweepExpired() {
+        if (!ready) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Long> expiredPatients = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            while (!expiries.isEmpty() && expiries.peek().atMillis() <= now) {
+                Expiry expiry = expiries.poll();
+                Grants grants = table.get(expiry.patientId(), expiry.userId());
+                if (grants != null) {
+                    table.put(expiry.patientId(), expiry.userId(), intern(grants.withoutExpired(now)));
+                    expiredPatients.add(expiry.patientId());
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (!expiredPatients.isEmpty()) {
+            expiredPatients.forEach(invalidationEpochs::bumpPatient);
+            log.debug("Swept expired consent grants for {} patient/user pairs", expiredPatients.size());
+        }
+    }
+
+    /**
+     * Rebuild the index from the database
+     * Must run inside a transaction (the result is streamed)
+     */
+    void reload() {
+        long start = System.nanoTime();
+        int failuresAtStart = refreshFailures.get();
+        long stamp = lock.writeLock();
+        try {
+            pendingDuringReload = new ArrayList<>();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        Table loaded = new Table(INITIAL_CAPACITY);
+        PriorityQueue<Expiry> loadedExpiries = new PriorityQueue<>();
+        long rows = 0;
+        try (Stream<ConsentRepository.ValidConsentKey> keys = consentRepository.streamValidUserConsentKeys()) {
+            Iterator<ConsentRepository.ValidConsentKey> it = keys.iterator();
+            while (it.hasNext()) {
+                ConsentRepository.ValidConsentKey key = it.next();
+                long expiresAt = toEpochMillis(key.getExpiresAt());
+                Grants merged = Grants.with(loaded.get(key.getPatientId(), key.getUserId()),
+                        bit(key.getPurpose(), key.getDataType()), expiresAt);
+                loaded.put(key.getPatientId(), key.getUserId(), intern(merged));
+                if (expiresAt != Long.MAX_VALUE) {
+                    loadedExpiries.add(new Expiry(expiresAt, key.getPatientId(), key.getUserId()));
+                }
+                rows++;
+            }
+        } catch (RuntimeException e) {
+            stamp = lock.writeLock();
+            try {
+                pendingDuringReload = null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            log.error("Failed to load consent index: {}", e.getMessage(), e);
+            return;
+        }
+
+        stamp = lock.writeLock();
+        try {
+            table = loaded;
+            expiries.clear();
+            expiries.addAll(loadedExpiries);
+            // Replay changes committed while the snapshot was being read
+            List<Runnable> pending = pendingDuringReload;
+            pendingDuringReload = null;
+            pending.forEach(Runnable::run);
+            // A refresh that failed meanwhile may not be covered by the snapshot
+            ready = refreshFailures.get() == failuresAtStart;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        log.info("Loaded consent index: {} consents, {} patient/user pairs, ~{} KB in {} ms",
+                rows, loaded.size, getMemoryFootprintBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Whether the index has been loaded and can answer lookups
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Check if the patient has a valid consent for the user, purpose and data
+     * type (a consent for data type ALL covers every data type)
+     */
+    public boolean hasValidConsent(long patientId, long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+        if (purpose == null || dataType == null) {
+            return false;
+        }
+        return permits(find(patientId, userId), purpose, dataType, System.currentTimeMillis());
+    }
+
+    /**
+     * Filter the given patients down to those with a valid consent for the
+     * user, purpose and data type
+     */
+    public Set<Long> filterConsentingPatients(
+            Collection<Long> patientIds,
+            long userId,
+            Consent.Purpose purpose,
+            Consent.DataType dataType,
+            Set<Long> into) {
+        if (purpose == null || dataType == null) {
+            return into;
+        }
+        long now = System.currentTimeMillis();
+        for (Long patientId : patientIds) {
+            if (patientId != null && permits(find(patientId, userId), purpose, dataType, now)) {
+                into.add(patientId);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Approximate heap used by the index, in bytes
+     */
+    public long getMemoryFootprintBytes() {
+        long stamp = lock.readLock();
+        try {
+            return table.footprintBytes();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Record a granted consent once the surrounding transaction commits
+     */
+    public void consentGranted(Consent consent) {
+        if (consent.getGrantedToUser() == null || consent.getPurpose() == null || consent.getDataType() == null) {
+            return;
+        }
+        long patientId = consent.getPatient().getPatientId();
+        long userId = consent.getGrantedToUser().getUserId();
+        int bit = bit(consent.getPurpose(), consent.getDataType());
+        long expiresAt = toEpochMillis(consent.getExpiresAt());
+        AfterCommit.run(() -> {
+            synchronized (patientLocks.of(patientId)) {
+                write(() -> {
+                    table.put(patientId, userId, intern(Grants.with(table.get(patientId, userId), bit, expiresAt)));
+                    if (expiresAt != Long.MAX_VALUE) {
+                        expiries.add(new Expiry(expiresAt, patientId, userId));
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Reload the grants of a patient/user pair from the database once the
+     * surrounding transaction commits (used after a revoke)
+     */
+    public void consentRevoked(Consent consent) {
+        if (consent.getGrantedToUser() == null) {
+            return;
+        }
+        long patientId = consent.getPatient().getPatientId();
+        long userId = consent.getGrantedToUser().getUserId();
+        AfterCommit.run(() -> {
+            synchronized (patientLocks.of(patientId)) {
+                Grants grants = null;
+                for (Consent valid : consentRepository.findValidConsentsForUser(patientId, userId)) {
+                    if (valid.getPurpose() != null && valid.getDataType() != null) {
+                        grants = Grants.with(grants, bit(valid.getPurpose(), valid.getDataType()),
+                                toEpochMillis(valid.getExpiresAt()));
+                    }
+                }
+                Grants reloaded = intern(grants);
+                write(() -> table.put(patientId, userId, reloaded));
+            }
+        });
+    }
+
+    /**
+     * Reload every user grant of a patient from the database (consents
+     * granted or revoked on another node)
+     * Users the patient ever granted a consent to are reloaded, so a pair
+     * whose last consent was revoked is dropped
+     */
+    void refreshPatient(long patientId) {
+        synchronized (patientLocks.of(patientId)) {
+            Map<Long, Grants> byUser = new HashMap<>();
+            List<Expiry> loadedExpiries = new ArrayList<>();
+            try {
+                for (Long userId : consentRepository.findGranteeUserIds(patientId)) {
+                    byUser.put(userId, null);
+                }
+                for (ConsentRepository.ValidConsentKey key : consentRepository.findValidUserConsentKeys(patientId)) {
+                    long expiresAt = toEpochMillis(key.getExpiresAt());
+                    byUser.put(key.getUserId(), Grants.with(byUser.get(key.getUserId()),
+                            bit(key.getPurpose(), key.getDataType()), expiresAt));
+                    if (expiresAt != Long.MAX_VALUE) {
+                        loadedExpiries.add(new Expiry(expiresAt, patientId, key.getUserId()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                // A stale entry could grant revoked access: stop answering
+                // from memory until the next full reload succeeds
+                refreshFailures.incrementAndGet();
+                ready = false;
+                log.error("Failed to refresh consent index for patient {}, index disabled until the next reload: {}",
+                        patientId, e.getMessage(), e);
+                return;
+            }
+            write(() -> {
+                byUser.forEach((userId, grants) -> table.put(patientId, userId, intern(grants)));
+                expiries.addAll(loadedExpiries);
+            });
+        }
+    }
+
+    private Grants find(long patientId, long userId) {
+        long stamp = lock.tryOptimisticRead();
+        Grants grants = table.get(patientId, userId);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                grants = table.get(patientId, userId);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return grants;
+    }
+
+    private void write(Runnable change) {
+        long stamp = lock.writeLock();
+        try {
+            change.run();
+            if (pendingDuringReload != null) {
+                pendingDuringReload.add(change);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Share one Grants instance per mask among pairs whose grants never
+     * expire, which is most of them
+     */
+    private Grants intern(Grants grants) {
+        if (grants == null || grants.expiries != null) {
+            return grants;
+        }
+        return nonExpiringGrants.computeIfAbsent(grants.mask, mask -> grants);
+    }
+
+    private static boolean permits(Grants grants, Consent.Purpose purpose, Consent.DataType dataType, long now) {
+        return grants != null
+                && (grants.isValid(bit(purpose, dataType), now)
+                || grants.isValid(bit(purpose, Consent.DataType.ALL), now));
+    }
+
+    private static int bit(Consent.Purpose purpose, Consent.DataType dataType) {
+        return purpose.ordinal() * DATA_TYPES + dataType.ordinal();
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null
+                ? Long.MAX_VALUE
+                : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Immutable set of grants of one patient/user pair
+     *
+     * expiries holds one instant per set bit of mask, ordered by bit
+     * position (Long.MAX_VALUE for grants that never expire), or is null
+     * when no grant expires.
+     */
+    static final class Grants {
+
+        private static final long ENTRY_OVERHEAD_BYTES = 32;
+
+        final int mask;
+        final long[] expiries;
+
+        private Grants(int mask, long[] expiries) {
+            this.mask = mask;
+            this.expiries = expiries;
+        }
+
+        boolean isValid(int bit, long now) {
+            int flag = 1 << bit;
+            if ((mask & flag) == 0) {
+                return false;
+            }
+            return expiries == null || expiries[Integer.bitCount(mask & (flag - 1))] > now;
+        }
+
+        /**
+         * Merge a grant into the current grants, keeping the later expiry
+         * when the bit is already granted
+         */
+        static Grants with(Grants current, int bit, long expiresAt) {
+            int flag = 1 << bit;
+            int currentMask = current == null ? 0 : current.mask;
+            int mask = currentMask | flag;
+            if (expiresAt == Long.MAX_VALUE && (current == null || current.expiries == null)) {
+                return new Grants(mask, null);
+            }
+
+            long[] expiries = new long[Integer.bitCount(mask)];
+            int rank = 0;
+            for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                int b = Integer.numberOfTrailingZeros(remaining);
+                long existing = (currentMask & (1 << b)) == 0 ? Long.MIN_VALUE : current.expiryOf(b);
+                expiries[rank++] = b == bit ? Math.max(existing, expiresAt) : existing;
+            }
+            return new Grants(mask, compact(expiries));
+        }
+
+        /**
+         * Drop the expired grants, or return null when none is left
+         */
+        Grants withoutExpired(long now) {
+            if (expiries == null) {
+                return this;
+            }
+            int kept = 0;
+            long[] keptExpiries = new long[expiries.length];
+            int rank = 0;
+            for (int remaining = mask; remaining != 0; remaining &= remaining - 1) {
+                long expiresAt = expiries[rank++];
+                if (expiresAt > now) {
+                    kept |= Integer.lowestOneBit(remaining);
+                    keptExpiries[Integer.bitCount(kept) - 1] = expiresAt;
+                }
+            }
+            if (kept == 0) {
+                return null;
+            }
+            return new Grants(kept, compact(Arrays.copyOf(keptExpiries, Integer.bitCount(kept))));
+        }
+
+        long footprintBytes() {
+            return ENTRY_OVERHEAD_BYTES + (expiries == null ? 0 : 16 + 8L * expiries.length);
+        }
+
+        private long expiryOf(int bit) {
+            return expiries == null
+                    ? Long.MAX_VALUE
+                    : expiries[Integer.bitCount(mask & ((1 << bit) - 1))];
+        }
+
+        private static long[] compact(long[] expiries) {
+            for (long expiresAt : expiries) {
+                if (expiresAt != Long.MAX_VALUE) {
+                    return expiries;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Open-addressing table from (patientId, userId) to Grants
+     * Not thread-safe; guarded by the index lock
+     */
+    static final class Table {
+
+        long[] patientIds;
+        long[] userIds;
+        Grants[] grants;
+        int size;
+
+        Table(int capacity) {
+            patientIds = new long[capacity];
+            userIds = new long[capacity];
+            grants = new Grants[capacity];
+        }
+
+        Grants get(long patientId, long userId) {
+            // Arrays are read once: under an optimistic read they may be
+            // swapped by a resize, the caller revalidates
+            long[] patients = patientIds;
+            long[] users = userIds;
+            Grants[] values = grants;
+            int mask = values.length - 1;
+            if (patients.length != values.length || users.length != values.length) {
+                return null;
+            }
+            int slot = hash(patientId, userId) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                Grants value = values[slot];
+                if (value == null) {
+                    return null;
+                }
+                if (patients[slot] == patientId && users[slot] == userId) {
+                    return value;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Insert, replace, or remove (null grants) an entry
+         */
+        void put(long patientId, long userId, Grants value) {
+            int mask = grants.length - 1;
+            int slot = hash(patientId, userId) & mask;
+            while (grants[slot] != null) {
+                if (patientIds[slot] == patientId && userIds[slot] == userId) {
+                    if (value == null) {
+                        delete(slot);
+                    } else {
+                        grants[slot] = value;
+                    }
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (value == null) {
+                return;
+            }
+
+            patientIds[slot] = patientId;
+            userIds[slot] = userId;
+            grants[slot] = value;
+            if (++size > grants.length >> 1) {
+                resize();
+            }
+        }
+
+        long footprintBytes() {
+            long bytes = (long) grants.length * (8 + 8 + 4);
+            for (Grants value : grants) {
+                if (value != null && value.expiries != null) {
+                    bytes += value.footprintBytes();
+                }
+            }
+            return bytes;
+        }
+
+        // Backward-shift deletion keeps probe sequences intact without tombstones
+        private void delete(int slot) {
+            int mask = grants.length - 1;
+            int hole = slot;
+            int next = (hole + 1) & mask;
+            while (grants[next] != null) {
+                int home = hash(patientIds[next], userIds[next]) & mask;
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    patientIds[hole] = patientIds[next];
+                    userIds[hole] = userIds[next];
+                    grants[hole] = grants[next];
+                    hole = next;
+                }
+                next = (next + 1) & mask;
+            }
+            grants[hole] = null;
+            size--;
+        }
+
+        private void resize() {
+            long[] oldPatients = patientIds;
+            long[] oldUsers = userIds;
+            Grants[] oldGrants = grants;
+            Table resized = new Table(oldGrants.length << 1);
+            for (int i = 0; i < oldGrants.length; i++) {
+                if (oldGrants[i] != null) {
+                    resized.put(oldPatients[i], oldUsers[i], oldGrants[i]);
+                }
+            }
+            patientIds = resized.patientIds;
+            userIds = resized.userIds;
+            grants = resized.grants;
+        }
+
+        private static int hash(long patientId, long userId) {
+            long h = patientId * 0x9E3779B97F4A7C15L + userId;
+            h ^= h >>> 32;
+            h *= 0xC2B2AE3D27D4EB4FL;
+            return (int) (h ^ (h >>> 29));
+        }
+    }
+
+    private record Expiry(long atMillis, long patientId, long userId) implements Comparable<Expiry> {
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(atMillis, other.atMillis);
+        }
+    }
+}
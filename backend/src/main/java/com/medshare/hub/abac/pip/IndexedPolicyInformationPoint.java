@@ -0,0 +1,74 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * IndexedPolicyInformationPoint - Policy information served from memory
+ *
+ * Front of the PIP chain injected into policies. Answers relationship
+ * lookups from TreatmentRelationshipIndex and consent lookups from
+ * ConsentIndex once they are loaded; anything the indexes cannot answer
+ * falls through to MemoizingPolicyInformationPoint.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Primary
+public class IndexedPolicyInformationPoint implements PolicyInformationPoint {
+
+    private final TreatmentRelationshipIndex relationshipIndex;
+    private final ConsentIndex consentIndex;
+    private final PolicyInformationPoint delegate;
+
+    public IndexedPolicyInformationPoint(
+            TreatmentRelationshipIndex relationshipIndex,
+            ConsentIndex consentIndex,
+            @Qualifier("memoizingPolicyInformationPoint") PolicyInformationPoint delegate) {
+        this.relationshipIndex = relationshipIndex;
+        this.consentIndex = consentIndex;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean hasActiveRelationship(Long providerId, Long patientId) {
+        if (providerId != null && patientId != null && relationshipIndex.isReady()) {
+            return relationshipIndex.contains(providerId, patientId);
+        }
+        return delegate.hasActiveRelationship(providerId, patientId);
+    }
+
+    @Override
+    public Set<Long> findActivelyTreatedPatientIds(Long providerId, Collection<Long> patientIds) {
+        if (providerId != null && relationshipIndex.isReady()) {
+            return relationshipIndex.filterTreatedPatients(providerId, patientIds, new HashSet<>());
+        }
+        return delegate.findActivelyTreatedPatientIds(providerId, patientIds);
+    }
+
+    @Override
+    public boolean hasValidConsent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+        if (patientId != null && userId != null && consentIndex.isReady()) {
+            return consentIndex.hasValidConsent(patientId, userId, purpose, dataType);
+        }
+        return delegate.hasValidConsent(patientId, userId, purpose, dataType);
+    }
+
+    @Override
+    public Set<Long> findPatientIdsWithValidConsent(
+            Collection<Long> patientIds,
+            Long userId,
+            Consent.Purpose purpose,
+            Consent.DataType dataType) {
+        if (userId != null && consentIndex.isReady()) {
+            return consentIndex.filterConsentingPatients(patientIds, userId, purpose, dataType, new HashSet<>());
+        }
+        return delegate.findPatientIdsWithValidConsent(patientIds, userId, purpose, dataType);
+    }
+}
@@ -0,0 +1,170 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * MemoizingPolicyInformationPoint - Scope-memoizing policy information point
+ *
+ * Sits behind IndexedPolicyInformationPoint. Inside an open PipScope
+ * (an HTTP request or a batch evaluation) every fact is fetched from the
+ * delegate at most once; bulk lookups only query the patients whose facts
+ * are not known yet. Outside of a scope lookups go straight to the delegate.
+ *
+ * Hits and misses are counted per lookup kind by the abac.pip.facts
+ * counter, tagged by lookup and result (hit, miss). A hit is a fact served
+ * from the scope, a miss is a fact that had to be resolved by the delegate.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Slf4j
+public class MemoizingPolicyInformationPoint implements PolicyInformationPoint {
+
+    private final PolicyInformationPoint delegate;
+    private final Map<PipLookup, Counter> hits = new EnumMap<>(PipLookup.class);
+    private final Map<PipLookup, Counter> misses = new EnumMap<>(PipLookup.class);
+
+    /**
+     * Policy information point counting into a private registry (tests)
+     */
+    public MemoizingPolicyInformationPoint(PolicyInformationPoint delegate) {
+        this(delegate, new SimpleMeterRegistry());
+    }
+
+    @Autowired
+    public MemoizingPolicyInformationPoint(
+            @Qualifier("repositoryPolicyInformationPoint") PolicyInformationPoint delegate,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        for (PipLookup lookup : PipLookup.values()) {
+            hits.put(lookup, factCounter(meterRegistry, lookup, "hit"));
+            misses.put(lookup, factCounter(meterRegistry, lookup, "miss"));
+        }
+    }
+
+    @Override
+    public boolean hasActiveRelationship(Long providerId, Long patientId) {
+        return memoize(PipScope.FactKey.relationship(providerId, patientId),
+                () -> delegate.hasActiveRelationship(providerId, patientId));
+    }
+
+    @Override
+    public Set<Long> findActivelyTreatedPatientIds(Long providerId, Collection<Long> patientIds) {
+        return memoizeBulk(PipLookup.ACTIVE_RELATIONSHIP, patientIds,
+                patientId -> PipScope.FactKey.relationship(providerId, patientId),
+                unknown -> delegate.findActivelyTreatedPatientIds(providerId, unknown));
+    }
+
+    @Override
+    public boolean hasValidConsent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+        return memoize(PipScope.FactKey.consent(patientId, userId, purpose, dataType),
+                () -> delegate.hasValidConsent(patientId, userId, purpose, dataType));
+    }
+
+    @Override
+    public Set<Long> findPatientIdsWithValidConsent(
+            Collection<Long> patientIds,
+            Long userId,
+            Consent.Purpose purpose,
+            Consent.DataType dataType) {
+        return memoizeBulk(PipLookup.VALID_CONSENT, patientIds,
+                patientId -> PipScope.FactKey.consent(patientId, userId, purpose, dataType),
+                unknown -> delegate.findPatientIdsWithValidConsent(unknown, userId, purpose, dataType));
+    }
+
+    /**
+     * Number of lookups of the given kind served from a scope
+     */
+    public long getHits(PipLookup lookup) {
+        return (long) hits.get(lookup).count();
+    }
+
+    /**
+     * Number of lookups of the given kind resolved by the delegate
+     */
+    public long getMisses(PipLookup lookup) {
+        return (long) misses.get(lookup).count();
+    }
+
+    private boolean memoize(PipScope.FactKey key, BooleanSupplier loader) {
+        PipScope scope = PipScope.current();
+        if (scope != null) {
+            Boolean known = scope.get(key);
+            if (known != null) {
+                hits.get(key.lookup()).increment();
+                return known;
+            }
+        }
+
+        misses.get(key.lookup()).increment();
+        boolean value = loader.getAsBoolean();
+        if (scope != null) {
+            scope.put(key, value);
+        }
+        return value;
+    }
+
+    private Set<Long> memoizeBulk(
+            PipLookup lookup,
+            Collection<Long> patientIds,
+            Function<Long, PipScope.FactKey> keyFor,
+            Function<Collection<Long>, Set<Long>> loader) {
+        PipScope scope = PipScope.current();
+        if (scope == null) {
+            misses.get(lookup).increment(patientIds.size());
+            return loader.apply(patientIds);
+        }
+
+        Set<Long> matching = new HashSet<>();
+        List<Long> unknown = new ArrayList<>();
+        for (Long patientId : patientIds) {
+            Boolean known = scope.get(keyFor.apply(patientId));
+            if (known == null) {
+                unknown.add(patientId);
+            } else if (known) {
+                matching.add(patientId);
+            }
+        }
+        hits.get(lookup).increment(patientIds.size() - unknown.size());
+
+        if (!unknown.isEmpty()) {
+            misses.get(lookup).increment(unknown.size());
+            Set<Long> loaded = loader.apply(unknown);
+            for (Long patientId : unknown) {
+                boolean value = loaded.contains(patientId);
+                scope.put(keyFor.apply(patientId), value);
+                if (value) {
+                    matching.add(patientId);
+                }
+            }
+            log.debug("Resolved {} {} facts in one bulk lookup", unknown.size(), lookup);
+        }
+        return matching;
+    }
+
+    private static Counter factCounter(MeterRegistry meterRegistry, PipLookup lookup, String result) {
+        return Counter.builder("abac.pip.facts")
+                .description("Policy information facts served from the request scope or resolved")
+                .tag("lookup", lookup.name().toLowerCase(Locale.ROOT))
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,28 @@
+package com.medshare.hub.abac.pip;
+
+/**
+ * PatientLocks - Striped locks serializing the updates of one patient's
+ * index entries
+ *
+ * A refresh reads the database and then writes the index. Holding the
+ * patient's stripe across both keeps a refresh that read an older state
+ * from overwriting the result of a newer one.
+ *
+ * @author MedShare Development Team
+ */
+final class PatientLocks {
+
+    private static final int STRIPES = 64;
+
+    private final Object[] locks = new Object[STRIPES];
+
+    PatientLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    Object of(long patientId) {
+        return locks[Long.hashCode(patientId) & (STRIPES - 1)];
+    }
+}
@@ -0,0 +1,13 @@
+package com.medshare.hub.abac.pip;
+
+/**
+ * PipLookup - Kinds of facts resolved by the policy information point
+ *
+ * Used as the unit for memoization hit/miss statistics.
+ *
+ * @author MedShare Development Team
+ */
+public enum PipLookup {
+    ACTIVE_RELATIONSHIP,
+    VALID_CONSENT
+}
@@ -0,0 +1,84 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PipScope - Memo of resolved policy information for one request or batch
+ *
+ * Bound to the current thread by PipScopeFilter (one scope per HTTP request)
+ * and by PolicyEvaluator.evaluateAll (one scope per batch, joining the
+ * request scope when there is one). MemoizingPolicyInformationPoint stores
+ * every fact it resolves here, so a fact is fetched at most once per scope
+ * no matter how many policies or resources need it.
+ *
+ * Scopes are re-entrant: opening a scope while one is active joins it, and
+ * the memo is discarded when the outermost scope is closed.
+ *
+ * @author MedShare Development Team
+ */
+public final class PipScope implements AutoCloseable {
+
+    private static final ThreadLocal<PipScope> CURRENT = new ThreadLocal<>();
+
+    private final Map<FactKey, Boolean> facts = new HashMap<>();
+    private int depth = 1;
+
+    private PipScope() {
+    }
+
+    /**
+     * Open a scope on the current thread, joining an already open one
+     */
+    public static PipScope open() {
+        PipScope current = CURRENT.get();
+        if (current != null) {
+            current.depth++;
+            return current;
+        }
+        PipScope scope = new PipScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * Scope bound to the current thread, or null outside of a scope
+     */
+    static PipScope current() {
+        return CURRENT.get();
+    }
+
+    Boolean get(FactKey key) {
+        return facts.get(key);
+    }
+
+    void put(FactKey key, boolean value) {
+        facts.put(key, value);
+    }
+
+    @Override
+    public void close() {
+        if (--depth == 0) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Identity of a memoized fact
+     */
+    record FactKey(PipLookup lookup, Long subjectId, Long patientId, Object qualifier) {
+
+        static FactKey relationship(Long providerId, Long patientId) {
+            return new FactKey(PipLookup.ACTIVE_RELATIONSHIP, providerId, patientId, null);
+        }
+
+        static FactKey consent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+            return new FactKey(PipLookup.VALID_CONSENT, userId, patientId, new ConsentQualifier(purpose, dataType));
+        }
+    }
+
+    private record ConsentQualifier(Consent.Purpose purpose, Consent.DataType dataType) {
+    }
+}
@@ -0,0 +1,34 @@
+package com.medshare.hub.abac.pip;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * PipScopeFilter - Opens one policy information scope per HTTP request
+ *
+ * Every relationship or consent fact resolved while handling the request
+ * is memoized for the rest of the request, so repeated authorization checks
+ * (several records of the same patient, several policies needing the same
+ * fact) hit the database once.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+public class PipScopeFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain) throws ServletException, IOException {
+        try (PipScope scope = PipScope.open()) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
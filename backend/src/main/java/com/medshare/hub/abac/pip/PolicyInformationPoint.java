@@ -0,0 +1,47 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * PolicyInformationPoint - Attribute resolution layer for ABAC policies
+ *
+ * Policies resolve facts that are not carried by the request attributes
+ * (treatment relationships, patient consents) through this interface
+ * instead of calling repositories directly. This keeps policies independent
+ * of where facts come from, and lets lookups be memoized, batched or served
+ * from in-memory indexes without changing policy code.
+ *
+ * @author MedShare Development Team
+ */
+public interface PolicyInformationPoint {
+
+    /**
+     * Check if the provider has an active treatment relationship with the
+     * patient
+     */
+    boolean hasActiveRelationship(Long providerId, Long patientId);
+
+    /**
+     * Find which of the given patients the provider actively treats
+     */
+    Set<Long> findActivelyTreatedPatientIds(Long providerId, Collection<Long> patientIds);
+
+    /**
+     * Check if the patient has a valid consent for the user, purpose and data
+     * type
+     */
+    boolean hasValidConsent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType);
+
+    /**
+     * Find which of the given patients have a valid consent for the user,
+     * purpose and data type
+     */
+    Set<Long> findPatientIdsWithValidConsent(
+            Collection<Long> patientIds,
+            Long userId,
+            Consent.Purpose purpose,
+            Consent.DataType dataType);
+}
@@ -0,0 +1,52 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.repository.ConsentRepository;
+import com.medshare.hub.repository.TreatmentRelationshipRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * RepositoryPolicyInformationPoint - Database-backed policy information
+ *
+ * Resolves every lookup with a query against the treatment relationship
+ * and consent tables. Last link of the PIP chain, behind
+ * MemoizingPolicyInformationPoint.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryPolicyInformationPoint implements PolicyInformationPoint {
+
+    private final TreatmentRelationshipRepository treatmentRelationshipRepository;
+    private final ConsentRepository consentRepository;
+
+    @Override
+    public boolean hasActiveRelationship(Long providerId, Long patientId) {
+        return treatmentRelationshipRepository.hasActiveRelationship(providerId, patientId);
+    }
+
+    @Override
+    public Set<Long> findActivelyTreatedPatientIds(Long providerId, Collection<Long> patientIds) {
+        return new HashSet<>(treatmentRelationshipRepository.findActivelyTreatedPatientIds(providerId, patientIds));
+    }
+
+    @Override
+    public boolean hasValidConsent(Long patientId, Long userId, Consent.Purpose purpose, Consent.DataType dataType) {
+        return consentRepository.hasValidConsent(patientId, userId, purpose, dataType);
+    }
+
+    @Override
+    public Set<Long> findPatientIdsWithValidConsent(
+            Collection<Long> patientIds,
+            Long userId,
+            Consent.Purpose purpose,
+            Consent.DataType dataType) {
+        return new HashSet<>(consentRepository.findPatientIdsWithValidConsent(patientIds, userId, purpose, dataType));
+    }
+}
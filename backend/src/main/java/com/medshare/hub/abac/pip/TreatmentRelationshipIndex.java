@@ -0,0 +1,493 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.entity.TreatmentRelationship;
+import com.medshare.hub.repository.TreatmentRelationshipRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * TreatmentRelationshipIndex - In-memory index of active treatment
+ * relationships
+ *
+ * Holds provider id → bitmap of actively treated patient ids, and the
+ * reverse patient id → bitmap of treating provider ids, so that
+ * TreatingPhysicianPolicy can answer without a database round trip.
+ *
+ * Consistency:
+ * - Bulk-loaded from the database once the application is ready
+ * - Updated incrementally after commit by TreatmentRelationshipIndexListener
+ * - Refreshed per patient from the database when another node bumps the
+ *   patient's cache epoch, before the new epoch is applied on this node;
+ *   if a refresh fails the index stops answering until the next reload
+ * - Lookups compare the end date of a pair in memory, so a relationship
+ *   never outlives its end date; a scheduled sweep of the expiry queue
+ *   then refreshes the patient from the database and drops it
+ * - Fully reloaded periodically, to pick up changes made outside this node
+ *
+ * Reads are lock-free and never touch the database: bitmaps and end date
+ * maps are never mutated once published, writers replace them with an
+ * updated copy under the index lock.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TreatmentRelationshipIndex {
+
+    /**
+     * Rough per-key overhead of a map entry (node, boxed key, bitmap header)
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 96;
+
+    private final TreatmentRelationshipRepository treatmentRelationshipRepository;
+    private final InvalidationEpochs invalidationEpochs;
+
+    @Value("${abac.index.relationships.enabled:true}")
+    private boolean enabled;
+
+    private volatile Map<Long, Roaring64Bitmap> patientsByProvider = new ConcurrentHashMap<>();
+    private volatile Map<Long, Roaring64Bitmap> providersByPatient = new ConcurrentHashMap<>();
+    // provider id → patient id → latest end date; pairs without an end date are absent
+    private volatile Map<Long, Map<Long, Long>> endsByProvider = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private final AtomicInteger refreshFailures = new AtomicInteger();
+    private final PatientLocks patientLocks = new PatientLocks();
+
+    // Guarded by this
+    private final PriorityQueue<Expiry> expiries = new PriorityQueue<>();
+    private List<Runnable> pendingDuringReload;
+
+    private volatile long nextExpiryMillis = Long.MAX_VALUE;
+
+    /**
+     * Follow relationship changes made on other nodes
+     */
+    @PostConstruct
+    void subscribeToRemoteChanges() {
+        if (enabled) {
+            invalidationEpochs.addRemotePatientListener(this::refreshPatient);
+        }
+    }
+
+    /**
+     * Load the index once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Periodic full reload (safety net for changes made on other nodes or
+     * directly in the database)
+     */
+    @Scheduled(
+            initialDelayString = "${abac.index.relationships.resync-interval-ms:900000}",
+            fixedDelayString = "${abac.index.relationships.resync-interval-ms:900000}")
+    @Transactional(readOnly = true)
+    public void resync() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * Scheduled sweep of relationships past their end date
+     * Rechecks the database: another relationship may keep the pair active
+     */
+    @Scheduled(fixedDelayString = "${abac.index.relationships.sweep-interval-ms:30000}")
+    public void sweepExpired() {
+        if (ready) {
+            expireDue(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Rebuild the index from the database
+     * Must run inside a transaction (the result is streamed)
+     */
+    void reload() {
+        long start = System.nanoTime();
+        int failuresAtStart = refreshFailures.get();
+        synchronized (this) {
+            pendingDuringReload = new ArrayList<>();
+        }
+
+        Map<Long, Roaring64Bitmap> byProvider = new ConcurrentHashMap<>();
+        Map<Long, Roaring64Bitmap> byPatient = new ConcurrentHashMap<>();
+        Map<Long, Map<Long, Long>> ends = new ConcurrentHashMap<>();
+        PriorityQueue<Expiry> loadedExpiries = new PriorityQueue<>();
+        long rows = 0;
+        try (Stream<TreatmentRelationshipRepository.ActiveRelationshipKey> keys =
+                treatmentRelationshipRepository.streamActiveRelationshipKeys()) {
+            Iterator<TreatmentRelationshipRepository.ActiveRelationshipKey> it = keys.iterator();
+            while (it.hasNext()) {
+                TreatmentRelationshipRepository.ActiveRelationshipKey key = it.next();
+                long providerId = key.getProviderId();
+                long patientId = key.getPatientId();
+                byProvider.computeIfAbsent(providerId, id -> new Roaring64Bitmap()).addLong(patientId);
+                long endMillis = key.getEndDate() == null ? Long.MAX_VALUE : toEpochMillis(key.getEndDate());
+                ends.computeIfAbsent(providerId, id -> new HashMap<>()).merge(patientId, endMillis, Math::max);
+                byPatient.computeIfAbsent(patientId, id -> new Roaring64Bitmap()).addLong(providerId);
+                if (endMillis != Long.MAX_VALUE) {
+                    loadedExpiries.add(new Expiry(endMillis, providerId, patientId));
+                }
+                rows++;
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingDuringReload = null;
+            }
+            log.error("Failed to load treatment relationship index: {}", e.getMessage(), e);
+            return;
+        }
+        byProvider.values().forEach(Roaring64Bitmap::runOptimize);
+        byPatient.values().forEach(Roaring64Bitmap::runOptimize);
+        ends.replaceAll((providerId, byPatientEnd) -> withoutOpenEnded(byPatientEnd));
+        ends.values().removeIf(Map::isEmpty);
+
+        synchronized (this) {
+            patientsByProvider = byProvider;
+            providersByPatient = byPatient;
+            endsByProvider = ends;
+            expiries.clear();
+            expiries.addAll(loadedExpiries);
+            updateNextExpiry();
+            // Replay changes committed while the snapshot was being read
+            List<Runnable> pending = pendingDuringReload;
+            pendingDuringReload = null;
+            pending.forEach(Runnable::run);
+            // A refresh that failed meanwhile may not be covered by the snapshot
+            ready = refreshFailures.get() == failuresAtStart;
+        }
+
+        log.info("Loaded treatment relationship index: {} relationships, {} providers, {} patients, ~{} KB in {} ms",
+                rows, byProvider.size(), byPatient.size(),
+                getMemoryFootprintBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Whether the index has been loaded and can answer lookups
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Check if the provider actively treats the patient
+     */
+    public boolean contains(long providerId, long patientId) {
+        Roaring64Bitmap patients = patientsByProvider.get(providerId);
+        return patients != null
+                && patients.contains(patientId)
+                && !hasEnded(providerId, patientId, System.currentTimeMillis());
+    }
+
+    /**
+     * Filter the given patients down to those the provider actively treats
+     */
+    public Set<Long> filterTreatedPatients(long providerId, Collection<Long> patientIds, Set<Long> into) {
+        Roaring64Bitmap patients = patientsByProvider.get(providerId);
+        if (patients == null) {
+            return into;
+        }
+        long now = System.currentTimeMillis();
+        for (Long patientId : patientIds) {
+            if (patientId != null && patients.contains(patientId) && !hasEnded(providerId, patientId, now)) {
+                into.add(patientId);
+            }
+        }
+        return into;
+    }
+
+    /**
+     * Number of providers actively treating the patient
+     */
+    public long countTreatingProviders(long patientId) {
+        Roaring64Bitmap providers = providersByPatient.get(patientId);
+        if (providers == null) {
+            return 0;
+        }
+        long count = providers.getLongCardinality();
+        long now = System.currentTimeMillis();
+        if (now >= nextExpiryMillis) {
+            for (Iterator<Long> it = providers.iterator(); it.hasNext(); ) {
+                if (hasEnded(it.next(), patientId, now)) {
+                    count--;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Approximate heap used by the index, in bytes
+     */
+    public long getMemoryFootprintBytes() {
+        long bytes = footprint(patientsByProvider) + footprint(providersByPatient);
+        for (Map<Long, Long> ends : endsByProvider.values()) {
+            bytes += ENTRY_OVERHEAD_BYTES * (1 + ends.size());
+        }
+        return bytes;
+    }
+
+    /**
+     * Record a saved relationship (called after commit)
+     * An ended relationship refreshes the patient: another relationship may
+     * keep the pair active
+     */
+    void onRelationshipSaved(TreatmentRelationship relationship) {
+        long providerId = relationship.getProvider().getUserId();
+        long patientId = relationship.getPatient().getPatientId();
+        if (isActiveNow(relationship)) {
+            LocalDateTime endDate = relationship.getEndDate();
+            long endMillis = endDate == null ? Long.MAX_VALUE : toEpochMillis(endDate);
+            synchronized (patientLocks.of(patientId)) {
+                add(providerId, patientId, endMillis);
+            }
+        } else {
+            refreshPatient(patientId);
+        }
+    }
+
+    /**
+     * Record a deleted relationship (called after commit)
+     */
+    void onRelationshipRemoved(TreatmentRelationship relationship) {
+        refreshPatient(relationship.getPatient().getPatientId());
+    }
+
+    /**
+     * Reload the active relationships of a patient from the database
+     * (relationships changed on another node, or past their end date)
+     */
+    void refreshPatient(long patientId) {
+        synchronized (patientLocks.of(patientId)) {
+            Map<Long, Long> endByProvider = new HashMap<>();
+            try {
+                for (TreatmentRelationshipRepository.ActiveRelationshipKey key :
+                        treatmentRelationshipRepository.findActiveRelationshipKeysByPatient(patientId)) {
+                    long endMillis = key.getEndDate() == null ? Long.MAX_VALUE : toEpochMillis(key.getEndDate());
+                    endByProvider.merge(key.getProviderId(), endMillis, Math::max);
+                }
+            } catch (RuntimeException e) {
+                // A stale pair could grant ended access: stop answering from
+                // memory until the next full reload succeeds
+                refreshFailures.incrementAndGet();
+                ready = false;
+                log.error("Failed to refresh relationship index for patient {}, index disabled until the next reload: {}",
+                        patientId, e.getMessage(), e);
+                return;
+            }
+            synchronized (this) {
+                Roaring64Bitmap indexed = providersByPatient.get(patientId);
+                Set<Long> providers = new LinkedHashSet<>(endByProvider.keySet());
+                if (indexed != null) {
+                    indexed.forEach(providers::add);
+                }
+                for (Long providerId : providers) {
+                    Long endMillis = endByProvider.get(providerId);
+                    if (endMillis == null) {
+                        remove(providerId, patientId);
+                    } else {
+                        applyOrDefer(() -> put(providerId, patientId, endMillis));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add a pair; its end date is the latest of its relationships
+     */
+    synchronized void add(long providerId, long patientId, long expiresAtMillis) {
+        applyOrDefer(() -> {
+            Roaring64Bitmap patients = patientsByProvider.get(providerId);
+            long endMillis = expiresAtMillis;
+            if (patients != null && patients.contains(patientId)) {
+                Long currentEnd = endOf(providerId, patientId);
+                endMillis = currentEnd == null ? Long.MAX_VALUE : Math.max(currentEnd, expiresAtMillis);
+            }
+            put(providerId, patientId, endMillis);
+        });
+    }
+
+    synchronized void remove(long providerId, long patientId) {
+        applyOrDefer(() -> {
+            replaceOrDrop(patientsByProvider, providerId, copyWithout(patientsByProvider.get(providerId), patientId));
+            replaceOrDrop(providersByPatient, patientId, copyWithout(providersByPatient.get(patientId), providerId));
+            setEnd(providerId, patientId, Long.MAX_VALUE);
+        });
+    }
+
+    /**
+     * Whether the pair's end date has passed
+     * Free unless an expiry is due and not yet swept
+     */
+    private boolean hasEnded(long providerId, long patientId, long now) {
+        if (now < nextExpiryMillis) {
+            return false;
+        }
+        Map<Long, Long> ends = endsByProvider.get(providerId);
+        Long endMillis = ends == null ? null : ends.get(patientId);
+        return endMillis != null && endMillis <= now;
+    }
+
+    // Must hold the index lock; the pair ends exactly at endMillis
+    private void put(long providerId, long patientId, long endMillis) {
+        setEnd(providerId, patientId, endMillis);
+        patientsByProvider.put(providerId, copyWith(patientsByProvider.get(providerId), patientId));
+        providersByPatient.put(patientId, copyWith(providersByPatient.get(patientId), providerId));
+        if (endMillis != Long.MAX_VALUE) {
+            expiries.add(new Expiry(endMillis, providerId, patientId));
+            updateNextExpiry();
+        }
+    }
+
+    private Long endOf(long providerId, long patientId) {
+        Map<Long, Long> ends = endsByProvider.get(providerId);
+        return ends == null ? null : ends.get(patientId);
+    }
+
+    // Must hold the index lock; Long.MAX_VALUE clears the end date
+    private void setEnd(long providerId, long patientId, long endMillis) {
+        Map<Long, Long> current = endsByProvider.get(providerId);
+        if (endMillis == Long.MAX_VALUE && (current == null || !current.containsKey(patientId))) {
+            return;
+        }
+        Map<Long, Long> updated = current == null ? new HashMap<>() : new HashMap<>(current);
+        if (endMillis == Long.MAX_VALUE) {
+            updated.remove(patientId);
+        } else {
+            updated.put(patientId, endMillis);
+        }
+        if (updated.isEmpty()) {
+            endsByProvider.remove(providerId);
+        } else {
+            endsByProvider.put(providerId, Map.copyOf(updated));
+        }
+    }
+
+    private void expireDue(long now) {
+        Set<Long> duePatients = new LinkedHashSet<>();
+        synchronized (this) {
+            while (!expiries.isEmpty() && expiries.peek().atMillis() <= now) {
+                duePatients.add(expiries.poll().patientId());
+            }
+            updateNextExpiry();
+        }
+        for (Long patientId : duePatients) {
+            refreshPatient(patientId);
+            invalidationEpochs.bumpPatient(patientId);
+        }
+        if (!duePatients.isEmpty()) {
+            log.debug("Expired treatment relationships of {} patients from index", duePatients.size());
+        }
+    }
+
+    // Must hold the index lock
+    private void applyOrDefer(Runnable change) {
+        change.run();
+        if (pendingDuringReload != null) {
+            pendingDuringReload.add(change);
+        }
+    }
+
+    // Must hold the index lock
+    private void updateNextExpiry() {
+        Expiry next = expiries.peek();
+        nextExpiryMillis = next == null ? Long.MAX_VALUE : next.atMillis();
+    }
+
+    private static Roaring64Bitmap copyWith(Roaring64Bitmap current, long value) {
+        if (current != null && current.contains(value)) {
+            return current;
+        }
+        Roaring64Bitmap updated = current == null ? new Roaring64Bitmap() : current.clone();
+        updated.addLong(value);
+        return updated;
+    }
+
+    private static Roaring64Bitmap copyWithout(Roaring64Bitmap current, long value) {
+        if (current == null || !current.contains(value)) {
+            return current;
+        }
+        Roaring64Bitmap updated = current.clone();
+        updated.removeLong(value);
+        return updated;
+    }
+
+    private static void replaceOrDrop(Map<Long, Roaring64Bitmap> map, long key, Roaring64Bitmap bitmap) {
+        if (bitmap == null || bitmap.isEmpty()) {
+            map.remove(key);
+        } else {
+            map.put(key, bitmap);
+        }
+    }
+
+    private static Map<Long, Long> withoutOpenEnded(Map<Long, Long> ends) {
+        Map<Long, Long> finite = new HashMap<>();
+        ends.forEach((patientId, endMillis) -> {
+            if (endMillis != Long.MAX_VALUE) {
+                finite.put(patientId, endMillis);
+            }
+        });
+        return Map.copyOf(finite);
+    }
+
+    private static long footprint(Map<Long, Roaring64Bitmap> map) {
+        long bytes = 0;
+        for (Roaring64Bitmap bitmap : map.values()) {
+            bytes += bitmap.getLongSizeInBytes() + ENTRY_OVERHEAD_BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Same notion of "active" as the repository queries: status ACTIVE and
+     * no end date or an end date in the future
+     */
+    private static boolean isActiveNow(TreatmentRelationship relationship) {
+        return relationship.getStatus() == TreatmentRelationship.Status.ACTIVE
+                && (relationship.getEndDate() == null || relationship.getEndDate().isAfter(LocalDateTime.now()));
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Expiry(long atMillis, long providerId, long patientId) implements Comparable<Expiry> {
+        @Override
+        public int compareTo(Expiry other) {
+            return Long.compare(atMillis, other.atMillis);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.entity.TreatmentRelationship;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.function.Consumer;
+
+/**
+ * TreatmentRelationshipIndexListener - Keeps TreatmentRelationshipIndex
+ * current
+ *
+ * JPA entity listener on TreatmentRelationship. Changes are applied to the
+ * index only after the surrounding transaction commits, so a rolled back
+ * relationship is never visible to authorization. Also bumps the patient's
+ * cache epoch so cached decisions about the patient are not reused.
+ *
+ * Beans are resolved lazily: entity listeners are created by Hibernate
+ * while the EntityManagerFactory is still being built.
+ *
+ * @author MedShare Development Team
+ */
+public class TreatmentRelationshipIndexListener {
+
+    private final ObjectProvider<TreatmentRelationshipIndex> index;
+    private final ObjectProvider<InvalidationEpochs> invalidationEpochs;
+
+    public TreatmentRelationshipIndexListener(
+            ObjectProvider<TreatmentRelationshipIndex> index,
+            ObjectProvider<InvalidationEpochs> invalidationEpochs) {
+        this.index = index;
+        this.invalidationEpochs = invalidationEpochs;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(TreatmentRelationship relationship) {
+        afterCommit(relationship, idx -> idx.onRelationshipSaved(relationship));
+    }
+
+    @PostRemove
+    public void onRemove(TreatmentRelationship relationship) {
+        afterCommit(relationship, idx -> idx.onRelationshipRemoved(relationship));
+    }
+
+    private void afterCommit(TreatmentRelationship relationship, Consumer<TreatmentRelationshipIndex> change) {
+        InvalidationEpochs epochs = invalidationEpochs.getIfAvailable();
+        if (epochs != null) {
+            epochs.bumpPatient(relationship.getPatient().getPatientId());
+        }
+
+        TreatmentRelationshipIndex idx = index.getIfAvailable();
+        if (idx == null) {
+            return;
+        }
+        AfterCommit.run(() -> change.accept(idx));
+    }
+}
@@ -1,14 +1,20 @@
 package com.medshare.hub.abac.policies;
 
+import com.medshare.hub.abac.Obligation;
 import com.medshare.hub.abac.Policy;
 import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.entity.AccessLog;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 /**
  * EmergencyOverridePolicy - ABAC policy for break-glass emergency access
@@ -35,54 +41,75 @@ import java.util.Arrays;
 @Slf4j
 public class EmergencyOverridePolicy implements Policy {
 
+    private static final Set<Obligation> OBLIGATIONS = EnumSet.of(
+            Obligation.ENHANCED_AUDIT, // Create detailed audit log
+            Obligation.SUPERVISOR_NOTIFICATION, // Notify supervisor immediately
+            Obligation.REQUIRE_JUSTIFICATION, // Record justification
+            Obligation.TEMPORARY_ACCESS); // Access is time-limited
+
+    private static final Set<EnvironmentAttribute> ENVIRONMENT_DEPENDENCIES = Set.of(
+            EnvironmentAttribute.EMERGENCY,
+            EnvironmentAttribute.JUSTIFICATION);
+
     @Override
     public PolicyDecision evaluate(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         log.warn("Evaluating EmergencyOverridePolicy for user {} - EMERGENCY ACCESS",
                 subject.getUserId());
 
+        String denyReason = denyReason(subject, environment);
+        if (denyReason != null) {
+            return PolicyDecision.deny(getPolicyName(), denyReason);
+        }
+
+        // Grant access with strict obligations
+        PolicyDecision decision = PolicyDecision.permit(getPolicyName(), OBLIGATIONS);
+
+        log.warn(
+                "EmergencyOverridePolicy: PERMIT - EMERGENCY ACCESS granted to user {} for patient {}. Justification: {}",
+                subject.getUserId(), resource.getPatientId(), environment.getJustification());
+
+        return decision;
+    }
+
+    @Override
+    public ResourceCondition partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Set<Long> patientIds) {
+        // Depends on subject and environment only: all or nothing
+        return ResourceCondition.of(environment.isEmergencyAccess() && denyReason(subject, environment) == null);
+    }
+
+    /**
+     * Why break-glass access must be denied, or null if it is granted
+     */
+    private String denyReason(SubjectAttributes subject, EnvironmentAttributes environment) {
         // Verify user is emergency-certified
         if (subject.getEmergencyCertified() == null || !subject.getEmergencyCertified()) {
-            return PolicyDecision.deny(getPolicyName(),
-                    "User is not emergency-certified for break-glass access");
+            return "User is not emergency-certified for break-glass access";
         }
 
         // Verify this is flagged as an emergency request
         if (!environment.isEmergencyAccess()) {
-            return PolicyDecision.deny(getPolicyName(),
-                    "Request not flagged as emergency");
+            return "Request not flagged as emergency";
         }
 
         // Require justification for emergency access
         if (environment.getJustification() == null || environment.getJustification().trim().isEmpty()) {
-            return PolicyDecision.deny(getPolicyName(),
-                    "Emergency access requires justification");
+            return "Emergency access requires justification";
         }
 
         // Justify justification has meaningful content (at least 10 characters)
         if (environment.getJustification().trim().length() < 10) {
-            return PolicyDecision.deny(getPolicyName(),
-                    "Emergency justification must be detailed (minimum 10 characters)");
+            return "Emergency justification must be detailed (minimum 10 characters)";
         }
-
-        // Grant access with strict obligations
-        PolicyDecision decision = PolicyDecision.permitWithObligations(
-                getPolicyName(),
-                Arrays.asList(
-                        "enhanced_audit", // Create detailed audit log
-                        "supervisor_notification", // Notify supervisor immediately
-                        "require_justification", // Record justification
-                        "temporary_access" // Access is time-limited
-                ));
-
-        log.warn(
-                "EmergencyOverridePolicy: PERMIT - EMERGENCY ACCESS granted to user {} for patient {}. Justification: {}",
-                subject.getUserId(), resource.getPatientId(), environment.getJustification());
-
-        return decision;
+        return null;
     }
 
     @Override
@@ -95,12 +122,17 @@ public class EmergencyOverridePolicy implements Policy {
         return 1; // Highest priority - evaluated first
     }
 
+    @Override
+    public Set<EnvironmentAttribute> getEnvironmentDependencies() {
+        return ENVIRONMENT_DEPENDENCIES;
+    }
+
     @Override
     public boolean isApplicable(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         // Only applicable when emergency flag is set
         return environment.isEmergencyAccess();
     }
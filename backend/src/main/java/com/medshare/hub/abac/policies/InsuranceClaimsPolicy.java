@@ -1,16 +1,29 @@
 package com.medshare.hub.abac.policies;
 
+import com.medshare.hub.abac.Obligation;
 import com.medshare.hub.abac.Policy;
 import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.PolicyTarget;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.entity.AccessLog;
 import com.medshare.hub.entity.Consent;
-import com.medshare.hub.repository.ConsentRepository;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * InsuranceClaimsPolicy - ABAC policy for insurance adjuster access
  * 
@@ -33,19 +46,33 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class InsuranceClaimsPolicy implements Policy {
 
-    private final ConsentRepository consentRepository;
+    private static final List<PolicyTarget> TARGETS = List.of(
+            PolicyTarget.of(User.UserRole.INSURANCE_ADJUSTER, AccessLog.Action.READ, ResourceType.MEDICAL_RECORD));
+
+    private static final Set<EnvironmentAttribute> ENVIRONMENT_DEPENDENCIES = Set.of();
+
+    private static final Set<Obligation> REDACTIONS = EnumSet.of(
+            Obligation.REDACT_CLINICAL_NOTES,
+            Obligation.REDACT_SENSITIVE_DIAGNOSES);
+
+    private static final Set<MedicalRecord.SensitivityLevel> HIGHLY_SENSITIVE = EnumSet.of(
+            MedicalRecord.SensitivityLevel.PSYCHIATRIC,
+            MedicalRecord.SensitivityLevel.HIV,
+            MedicalRecord.SensitivityLevel.CRITICAL);
+
+    private final PolicyInformationPoint policyInformationPoint;
 
     @Override
     public PolicyDecision evaluate(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         log.debug("Evaluating InsuranceClaimsPolicy for user {} accessing patient {}",
                 subject.getUserId(), resource.getPatientId());
 
         // Check if patient has given consent for insurance data sharing
-        boolean hasConsent = consentRepository.hasValidConsent(
+        boolean hasConsent = policyInformationPoint.hasValidConsent(
                 resource.getPatientId(),
                 subject.getUserId(),
                 Consent.Purpose.INSURANCE,
@@ -58,8 +85,9 @@ public class InsuranceClaimsPolicy implements Policy {
         }
 
         // Check record type - only allow billing-related records
-        if (!"BILLING".equalsIgnoreCase(resource.getRecordType()) &&
-                !"DIAGNOSIS".equalsIgnoreCase(resource.getRecordType())) {
+        // (billing data is carried by diagnosis records; there is no
+        // separate billing record type)
+        if (resource.getRecordType() != MedicalRecord.RecordType.DIAGNOSIS) {
             return PolicyDecision.deny(getPolicyName(),
                     "Insurance adjusters can only access billing and diagnosis records");
         }
@@ -71,16 +99,51 @@ public class InsuranceClaimsPolicy implements Policy {
         }
 
         // Create a PERMIT decision with redaction obligation
-        PolicyDecision decision = PolicyDecision.permit(getPolicyName());
-        decision.addObligation("redact_clinical_notes");
-        decision.addObligation("redact_sensitive_diagnoses");
+        PolicyDecision decision = PolicyDecision.permit(getPolicyName(), REDACTIONS);
 
-        log.info("InsuranceClaimsPolicy: PERMIT with redaction - User {} accessing patient {} data",
+        log.debug("InsuranceClaimsPolicy: PERMIT with redaction - User {} accessing patient {} data",
                 subject.getUserId(), resource.getPatientId());
 
         return decision;
     }
 
+    @Override
+    public void prefetch(
+            SubjectAttributes subject,
+            Collection<ResourceAttributes> resources,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        Set<Long> patientIds = ResourceAttributes.patientIdsOf(resources);
+        if (subject.getUserId() == null || patientIds.isEmpty()) {
+            return;
+        }
+
+        // One lookup for every patient in the batch, memoized by the PIP
+        policyInformationPoint.findPatientIdsWithValidConsent(
+                patientIds, subject.getUserId(), Consent.Purpose.INSURANCE, Consent.DataType.BILLING);
+    }
+
+    @Override
+    public ResourceCondition partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Set<Long> patientIds) {
+        if (subject.getRole() != User.UserRole.INSURANCE_ADJUSTER
+                || action != AccessLog.Action.READ
+                || resourceType != ResourceType.MEDICAL_RECORD
+                || subject.getUserId() == null) {
+            return ResourceCondition.FALSE;
+        }
+
+        ResourceCondition consented = ResourceCondition.patientIn(policyInformationPoint.findPatientIdsWithValidConsent(
+                patientIds, subject.getUserId(), Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        return ResourceCondition.and(consented, ResourceCondition.and(
+                ResourceCondition.recordTypeIn(EnumSet.of(MedicalRecord.RecordType.DIAGNOSIS)),
+                ResourceCondition.not(ResourceCondition.sensitivityIn(HIGHLY_SENSITIVE))));
+    }
+
     @Override
     public String getPolicyName() {
         return "InsuranceClaimsPolicy";
@@ -91,15 +154,25 @@ public class InsuranceClaimsPolicy implements Policy {
         return 4; // Lower priority (after core access policies)
     }
 
+    @Override
+    public Collection<PolicyTarget> getTargets() {
+        return TARGETS;
+    }
+
+    @Override
+    public Set<EnvironmentAttribute> getEnvironmentDependencies() {
+        return ENVIRONMENT_DEPENDENCIES;
+    }
+
     @Override
     public boolean isApplicable(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         // Applicable for insurance adjusters reading billing/diagnosis records
-        return "INSURANCE_ADJUSTER".equalsIgnoreCase(subject.getRole()) &&
-                "READ".equalsIgnoreCase(action) &&
-                "MEDICAL_RECORD".equalsIgnoreCase(resource.getResourceType());
+        return subject.getRole() == User.UserRole.INSURANCE_ADJUSTER &&
+                action == AccessLog.Action.READ &&
+                resource.getResourceType() == ResourceType.MEDICAL_RECORD;
     }
 }
@@ -2,12 +2,22 @@ package com.medshare.hub.abac.policies;
 
 import com.medshare.hub.abac.Policy;
 import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.PolicyTarget;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.User;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
 /**
  * PatientSelfAccessPolicy - ABAC policy for patient self-access
  * 
@@ -25,12 +35,17 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class PatientSelfAccessPolicy implements Policy {
 
+    private static final List<PolicyTarget> TARGETS = List.of(
+            PolicyTarget.of(User.UserRole.PATIENT, AccessLog.Action.READ, ResourceType.MEDICAL_RECORD));
+
+    private static final Set<EnvironmentAttribute> ENVIRONMENT_DEPENDENCIES = Set.of();
+
     @Override
     public PolicyDecision evaluate(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         log.debug("Evaluating PatientSelfAccessPolicy for user {} accessing patient {}",
                 subject.getUserId(), resource.getPatientId());
 
@@ -40,7 +55,7 @@ public class PatientSelfAccessPolicy implements Policy {
         // For simplicity, we check if the subject role is PATIENT and matches resource
         // patient
 
-        if (!"PATIENT".equalsIgnoreCase(subject.getRole())) {
+        if (subject.getRole() != User.UserRole.PATIENT) {
             return PolicyDecision.deny(getPolicyName(), "Not a patient");
         }
 
@@ -48,11 +63,23 @@ public class PatientSelfAccessPolicy implements Policy {
         // corresponds to resource.patientId. For now, we assume this mapping
         // is handled by a higher-level service that sets the patientId correctly.
 
-        log.info("PatientSelfAccessPolicy: PERMIT - Patient accessing their own records");
+        log.debug("PatientSelfAccessPolicy: PERMIT - Patient accessing their own records");
 
         return PolicyDecision.permit(getPolicyName());
     }
 
+    @Override
+    public ResourceCondition partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Set<Long> patientIds) {
+        return ResourceCondition.of(subject.getRole() == User.UserRole.PATIENT
+                && action == AccessLog.Action.READ
+                && resourceType == ResourceType.MEDICAL_RECORD);
+    }
+
     @Override
     public String getPolicyName() {
         return "PatientSelfAccessPolicy";
@@ -63,15 +90,25 @@ public class PatientSelfAccessPolicy implements Policy {
         return 2; // High priority (after emergency, but before providers)
     }
 
+    @Override
+    public Collection<PolicyTarget> getTargets() {
+        return TARGETS;
+    }
+
+    @Override
+    public Set<EnvironmentAttribute> getEnvironmentDependencies() {
+        return ENVIRONMENT_DEPENDENCIES;
+    }
+
     @Override
     public boolean isApplicable(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         // Applicable when a patient is reading their own medical records
-        return "PATIENT".equalsIgnoreCase(subject.getRole()) &&
-                "READ".equalsIgnoreCase(action) &&
-                "MEDICAL_RECORD".equalsIgnoreCase(resource.getResourceType());
+        return subject.getRole() == User.UserRole.PATIENT &&
+                action == AccessLog.Action.READ &&
+                resource.getResourceType() == ResourceType.MEDICAL_RECORD;
     }
 }
@@ -2,14 +2,26 @@ package com.medshare.hub.abac.policies;
 
 import com.medshare.hub.abac.Policy;
 import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.PolicyTarget;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
-import com.medshare.hub.repository.TreatmentRelationshipRepository;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.User;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * TreatingPhysicianPolicy -ABAC policy for treating physician access
  * 
@@ -30,19 +42,26 @@ import org.springframework.stereotype.Component;
 @Slf4j
 public class TreatingPhysicianPolicy implements Policy {
 
-    private final TreatmentRelationshipRepository treatmentRelationshipRepository;
+    private static final List<PolicyTarget> TARGETS = List.of(
+            PolicyTarget.of(User.UserRole.DOCTOR, AccessLog.Action.READ, ResourceType.MEDICAL_RECORD));
+
+    private static final Set<EnvironmentAttribute> ENVIRONMENT_DEPENDENCIES = Set.of(
+            EnvironmentAttribute.BUSINESS_HOURS,
+            EnvironmentAttribute.EMERGENCY);
+
+    private final PolicyInformationPoint policyInformationPoint;
 
     @Override
     public PolicyDecision evaluate(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         log.debug("Evaluating TreatingPhysicianPolicy for user {} accessing patient {}",
                 subject.getUserId(), resource.getPatientId());
 
         // Check if user has active treatment relationship
-        boolean hasActiveRelationship = treatmentRelationshipRepository.hasActiveRelationship(
+        boolean hasActiveRelationship = policyInformationPoint.hasActiveRelationship(
                 subject.getUserId(),
                 resource.getPatientId());
 
@@ -58,19 +77,58 @@ public class TreatingPhysicianPolicy implements Policy {
         }
 
         // Check psychiatric data restriction
-        if ("PSYCHIATRIC".equalsIgnoreCase(resource.getSensitivityLevel())) {
+        if (resource.getSensitivityLevel() == MedicalRecord.SensitivityLevel.PSYCHIATRIC) {
             if (!"psychiatry".equalsIgnoreCase(subject.getDepartment())) {
                 return PolicyDecision.deny(getPolicyName(),
                         "Psychiatric records require psychiatry department affiliation");
             }
         }
 
-        log.info("TreatingPhysicianPolicy: PERMIT - User {} has active treatment relationship with patient {}",
+        log.debug("TreatingPhysicianPolicy: PERMIT - User {} has active treatment relationship with patient {}",
                 subject.getUserId(), resource.getPatientId());
 
         return PolicyDecision.permit(getPolicyName());
     }
 
+    @Override
+    public void prefetch(
+            SubjectAttributes subject,
+            Collection<ResourceAttributes> resources,
+            EnvironmentAttributes environment,
+            AccessLog.Action action) {
+        Set<Long> patientIds = ResourceAttributes.patientIdsOf(resources);
+        if (subject.getUserId() == null || patientIds.isEmpty()) {
+            return;
+        }
+
+        // One lookup for every patient in the batch, memoized by the PIP
+        policyInformationPoint.findActivelyTreatedPatientIds(subject.getUserId(), patientIds);
+    }
+
+    @Override
+    public ResourceCondition partialEvaluate(
+            SubjectAttributes subject,
+            EnvironmentAttributes environment,
+            AccessLog.Action action,
+            ResourceType resourceType,
+            Set<Long> patientIds) {
+        if (subject.getRole() != User.UserRole.DOCTOR
+                || action != AccessLog.Action.READ
+                || resourceType != ResourceType.MEDICAL_RECORD
+                || subject.getUserId() == null
+                || (!environment.isBusinessHours() && !environment.isEmergencyAccess())) {
+            return ResourceCondition.FALSE;
+        }
+
+        ResourceCondition treated = ResourceCondition.patientIn(
+                policyInformationPoint.findActivelyTreatedPatientIds(subject.getUserId(), patientIds));
+        if ("psychiatry".equalsIgnoreCase(subject.getDepartment())) {
+            return treated;
+        }
+        return ResourceCondition.and(treated, ResourceCondition.not(
+                ResourceCondition.sensitivityIn(EnumSet.of(MedicalRecord.SensitivityLevel.PSYCHIATRIC))));
+    }
+
     @Override
     public String getPolicyName() {
         return "TreatingPhysicianPolicy";
@@ -81,15 +139,25 @@ public class TreatingPhysicianPolicy implements Policy {
         return 3; // Medium priority (after emergency and patient self-access)
     }
 
+    @Override
+    public Collection<PolicyTarget> getTargets() {
+        return TARGETS;
+    }
+
+    @Override
+    public Set<EnvironmentAttribute> getEnvironmentDependencies() {
+        return ENVIRONMENT_DEPENDENCIES;
+    }
+
     @Override
     public boolean isApplicable(
             SubjectAttributes subject,
             ResourceAttributes resource,
             EnvironmentAttributes environment,
-            String action) {
+            AccessLog.Action action) {
         // Applicable for doctors performing READ actions on medical records
-        return "DOCTOR".equalsIgnoreCase(subject.getRole()) &&
-                "READ".equalsIgnoreCase(action) &&
-                "MEDICAL_RECORD".equalsIgnoreCase(resource.getResourceType());
+        return subject.getRole() == User.UserRole.DOCTOR &&
+                action == AccessLog.Action.READ &&
+                resource.getResourceType() == ResourceType.MEDICAL_RECORD;
     }
 }
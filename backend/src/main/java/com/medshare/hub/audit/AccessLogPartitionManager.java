@@ -0,0 +1,145 @@
+package com.medshare.hub.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * AccessLogPartitionManager - Maintenance of the monthly access_logs partitions
+ *
+ * Runs at startup and daily:
+ * - creates the partitions of the current month and the next
+ * audit.partitions.months-ahead months, so inserts never land in the
+ * default partition; rows that did land there for a month are moved into
+ * its new partition
+ * - switches partitions older than audit.partitions.btree-months months to
+ * BRIN indexing; their rows are no longer inserted and are read by time
+ * range. The (user_id, created_at) and (patient_id, created_at) b-trees are
+ * kept for the keyset pages of user and patient access logs.
+ *
+ * Both steps are idempotent SQL functions (V8, V11 migrations). Every
+ * node runs them, so each call takes a transaction-scoped advisory lock
+ * first (V12): a concurrent call waits, then finds the work done and
+ * returns false. Each month and each partition is handled on its own: one
+ * failure is logged and does not stop the others. Partitions are never
+ * dropped here: audit logs are kept for 7 years.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Slf4j
+public class AccessLogPartitionManager {
+
+    private static final String PARTITION_PREFIX = "access_logs_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int btreeMonths;
+
+    public AccessLogPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            @Value("${audit.partitions.enabled:true}") boolean enabled,
+            @Value("${audit.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${audit.partitions.btree-months:3}") int btreeMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.btreeMonths = btreeMonths;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Scheduled partition maintenance
+     */
+    @Scheduled(cron = "${audit.partitions.cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            maintain(LocalDate.now());
+        } catch (DataAccessException e) {
+            log.error("access_logs partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the number of months or partitions that failed
+     */
+    int maintain(LocalDate today) {
+        int failures = 0;
+        YearMonth current = YearMonth.from(today);
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                Boolean created = jdbcTemplate.queryForObject(
+                        "SELECT create_access_logs_partition(?)", Boolean.class, Date.valueOf(month.atDay(1)));
+                if (Boolean.TRUE.equals(created)) {
+                    log.info("Created access_logs partition for {}", month);
+                }
+            } catch (DataAccessException e) {
+                failures++;
+                log.error("Failed to create access_logs partition for {}: {}", month, e.getMessage(), e);
+            }
+        }
+
+        YearMonth btreeCutoff = current.minusMonths(btreeMonths);
+        for (String partition : partitionNames()) {
+            YearMonth month = partitionMonth(partition);
+            if (month == null || !month.isBefore(btreeCutoff)) {
+                continue;
+            }
+            try {
+                Boolean changed = jdbcTemplate.queryForObject(
+                        "SELECT brin_access_logs_partition(?)", Boolean.class, partition);
+                if (Boolean.TRUE.equals(changed)) {
+                    log.info("Switched access_logs partition {} to BRIN indexing", partition);
+                }
+            } catch (DataAccessException e) {
+                failures++;
+                log.error("Failed to switch access_logs partition {} to BRIN: {}", partition, e.getMessage(), e);
+            }
+        }
+        return failures;
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList(
+                "SELECT child.relname FROM pg_inherits i "
+                        + "JOIN pg_class child ON child.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'access_logs'::regclass",
+                String.class);
+    }
+
+    /**
+     * Month of a monthly partition, or null for other partitions (default)
+     */
+    static YearMonth partitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
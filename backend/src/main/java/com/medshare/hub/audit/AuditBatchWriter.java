@@ -0,0 +1,408 @@
+package com.medshare.hub.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.medshare.hub.exception.AuditUnavailableException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.NonTransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AuditBatchWriter - Batched writer of the access_logs audit trail
+ *
+ * Request threads submit events to an AuditEventChannel (the durable
+ * AuditSpool, or an in-memory AuditEventQueue); a single writer thread
+ * drains it and inserts them with multi-row INSERT statements, one
+ * transaction per batch, acknowledging each batch once committed. A batch is flushed when it
+ * reaches the batch size or when its oldest event has waited for the
+ * flush interval, whichever comes first.
+ *
+ * The same transaction adds the batch to the hourly rollups
+ * (access_log_hourly_rollups, see HourlyRollupUpdater), so dashboard
+ * counts always match the rows in access_logs.
+ *
+ * No event is dropped: a batch that fails on a transient error (database
+ * down, connection lost, deadlock) is retried with backoff until it is
+ * written, and pending events are flushed on shutdown. A batch that fails
+ * on a permanent error (constraint violation, over-long value) is split
+ * in halves until the rejected events are isolated; those are moved to
+ * audit_dead_letters and the rest is written. Writes run in their own
+ * transaction, never in the caller's. When the channel
+ * is full, the submitting thread either writes its event itself (queue)
+ * or the access is refused with AuditUnavailableException (spool).
+ *
+ * Meters:
+ * - audit.queue.depth: events waiting to be written (unacknowledged)
+ * - audit.flush: latency of one batch write (p50/p95/p99)
+ * - audit.flush.rows: rows per batch
+ * - audit.events.written: rows written
+ * - audit.queue.overflow: events written by the submitting thread
+ * because the queue was full
+ * - audit.queue.rejected: accesses refused because the channel was full
+ * - audit.flush.failures: failed batch writes (retried or split)
+ * - audit.dead.letters: events rejected by access_logs and moved to
+ * audit_dead_letters
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Slf4j
+public class AuditBatchWriter {
+
+    private static final String INSERT = "INSERT INTO access_logs (user_id, patient_id, resource_type, resource_id, "
+            + "action, decision, policy_matched, deny_reason, justification, is_emergency, ip_address, session_id, "
+            + "created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DEAD_LETTER = "INSERT INTO audit_dead_letters (user_id, patient_id, resource_type, "
+            + "resource_id, action, decision, policy_matched, deny_reason, justification, is_emergency, ip_address, "
+            + "session_id, created_at, error) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Rows per INSERT statement (PostgreSQL allows 32767 bind parameters)
+     */
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final long MAX_RETRY_BACKOFF_MS = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HourlyRollupUpdater rollupUpdater;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditEventChannel channel;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Map<Integer, String> insertStatements = new ConcurrentHashMap<>();
+
+    private final Timer flushTimer;
+    private final DistributionSummary flushRows;
+    private final Counter eventsWritten;
+    private final Counter overflows;
+    private final Counter rejections;
+    private final Counter flushFailures;
+    private final Counter deadLetters;
+
+    private volatile boolean running;
+    /**
+     * A batch was given up during shutdown; nothing after it may be acknowledged
+     */
+    private volatile boolean abandoned;
+    private Thread writerThread;
+
+    public AuditBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            AuditEventChannel channel,
+            @Value("${audit.batch.size:500}") int batchSize,
+            @Value("${audit.batch.flush-interval-ms:200}") long flushIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rollupUpdater = new HourlyRollupUpdater(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Overflow writes run on request threads, often inside a read-only
+        // transaction that may roll back (access denied): never join it
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        Gauge.builder("audit.queue.depth", channel, AuditEventChannel::size)
+                .description("Audit events waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("audit.flush")
+                .description("Latency of one audit batch write")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushRows = DistributionSummary.builder("audit.flush.rows")
+                .description("Audit rows per batch write")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.eventsWritten = Counter.builder("audit.events.written")
+                .description("Audit rows written")
+                .register(meterRegistry);
+        this.overflows = Counter.builder("audit.queue.overflow")
+                .description("Audit events written by the submitting thread because the queue was full")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("audit.queue.rejected")
+                .description("Accesses refused because the audit channel was full")
+                .register(meterRegistry);
+        this.flushFailures = Counter.builder("audit.flush.failures")
+                .description("Failed audit batch writes (retried or split)")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("audit.dead.letters")
+                .description("Audit events rejected by access_logs (moved to audit_dead_letters)")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::run, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Started audit writer: {}, batch size {}, flush interval {} ms",
+                channel.getClass().getSimpleName(), batchSize, TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        // Whatever the writer thread did not get to
+        flushPending();
+    }
+
+    /**
+     * Queue an event for writing
+     * Never blocks on the database unless the channel is full, in which
+     * case the event is written by the calling thread or refused
+     *
+     * @throws AuditUnavailableException if the event cannot be recorded
+     */
+    public void submit(AuditEvent event) {
+        if (channel.offer(event)) {
+            if (channel.size() >= batchSize && writerThread != null) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        if (!channel.callerWritesWhenFull()) {
+            rejections.increment();
+            log.error("Audit channel full ({} events pending), refusing access", channel.size());
+            throw new AuditUnavailableException("Audit trail is unavailable, access cannot be recorded");
+        }
+        overflows.increment();
+        log.warn("Audit queue full ({} events), writing event on the calling thread", channel.size());
+        write(List.of(event));
+    }
+
+    /**
+     * Number of events waiting to be written
+     */
+    public long getQueueDepth() {
+        return channel.size();
+    }
+
+    /**
+     * Write every queued event now, in batches
+     */
+    void flushPending() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (!abandoned && channel.drainTo(batch, batchSize) > 0) {
+            if (!writeWithRetry(batch)) {
+                return;
+            }
+            channel.acknowledge();
+            batch.clear();
+        }
+    }
+
+    private void run() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        long oldestAt = 0;
+        while (running) {
+            try {
+                boolean wasEmpty = batch.isEmpty();
+                channel.drainTo(batch, batchSize - batch.size());
+                if (batch.isEmpty()) {
+                    LockSupport.parkNanos(this, flushIntervalNanos);
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (wasEmpty) {
+                    oldestAt = now;
+                }
+                long remaining = oldestAt + flushIntervalNanos - now;
+                if (batch.size() >= batchSize || remaining <= 0) {
+                    if (!writeWithRetry(batch)) {
+                        return;
+                    }
+                    channel.acknowledge();
+                    batch.clear();
+                } else {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            } catch (RuntimeException e) {
+                // Keeps the only writer thread alive; the batch is kept and retried
+                log.error("Audit writer error, retrying in {} ms: {}", MAX_RETRY_BACKOFF_MS, e.getMessage(), e);
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(MAX_RETRY_BACKOFF_MS));
+            }
+        }
+        if (!batch.isEmpty() && writeWithRetry(batch)) {
+            channel.acknowledge();
+        }
+    }
+
+    /**
+     * Write the batch, retrying transient failures with backoff and
+     * splitting it on permanent ones until the rejected events are
+     * isolated and dead-lettered
+     *
+     * Parts already written are never written again: the remaining parts
+     * are kept in order and retried from where the failure happened.
+     *
+     * @return false if the batch could not be written before shutdown
+     */
+    private boolean writeWithRetry(List<AuditEvent> batch) {
+        Deque<List<AuditEvent>> parts = new ArrayDeque<>();
+        parts.push(batch);
+        long backoffMs = 100;
+        while (!parts.isEmpty()) {
+            List<AuditEvent> part = parts.peek();
+            try {
+                write(part);
+                parts.pop();
+                backoffMs = 100;
+            } catch (RuntimeException e) {
+                if (isPermanent(e)) {
+                    parts.pop();
+                    if (part.size() == 1) {
+                        deadLetter(part.get(0), (NonTransientDataAccessException) e);
+                    } else {
+                        log.warn("Audit batch of {} events rejected, splitting it: {}", part.size(), e.getMessage());
+                        int half = part.size() / 2;
+                        parts.push(part.subList(half, part.size()));
+                        parts.push(part.subList(0, half));
+                    }
+                    continue;
+                }
+                if (!running) {
+                    // Left unacknowledged: a durable channel replays it after the restart
+                    log.error("Failed to write {} audit events during shutdown: {}", part.size(), e.getMessage(), e);
+                    abandoned = true;
+                    return false;
+                }
+                log.error("Failed to write {} audit events, retrying in {} ms: {}",
+                        part.size(), backoffMs, e.getMessage());
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether retrying the same rows can never succeed
+     * Resource failures (no connection, database down) are non-transient
+     * to Spring but clear up once the database is back, so they are retried.
+     */
+    private static boolean isPermanent(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException
+                && !(e instanceof NonTransientDataAccessResourceException);
+    }
+
+    /**
+     * Move an event rejected by access_logs to audit_dead_letters
+     * If that insert is refused as well, the event is logged in full as the
+     * last resort; a transient failure is thrown for the caller to retry.
+     */
+    private void deadLetter(AuditEvent event, NonTransientDataAccessException cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(DEAD_LETTER, statement -> {
+                int index = bind(statement, 1, event);
+                statement.setString(index, String.valueOf(cause.getMostSpecificCause().getMessage()));
+            }));
+            deadLetters.increment();
+            log.error("Audit event rejected by access_logs, moved to audit_dead_letters: {} ({})",
+                    event, cause.getMostSpecificCause().getMessage());
+        } catch (RuntimeException e) {
+            if (!isPermanent(e)) {
+                throw e;
+            }
+            deadLetters.increment();
+            log.error("AUDIT EVENT LOST: rejected by access_logs ({}) and audit_dead_letters ({}): {}",
+                    cause.getMostSpecificCause().getMessage(), e.getMessage(), event);
+        }
+    }
+
+    /**
+     * Insert the events in one transaction
+     */
+    private void write(List<AuditEvent> events) {
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int from = 0; from < events.size(); from += ROWS_PER_STATEMENT) {
+                    List<AuditEvent> rows = events.subList(from, Math.min(from + ROWS_PER_STATEMENT, events.size()));
+                    jdbcTemplate.update(insertStatement(rows.size()), statement -> bind(statement, rows));
+                }
+                rollupUpdater.add(events);
+            });
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            throw e;
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        flushRows.record(events.size());
+        eventsWritten.increment(events.size());
+        log.debug("Wrote {} audit events", events.size());
+    }
+
+    private String insertStatement(int rows) {
+        return insertStatements.computeIfAbsent(rows, count -> {
+            StringBuilder sql = new StringBuilder(INSERT.length() + count * (ROW.length() + 2)).append(INSERT);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(ROW);
+            }
+            return sql.toString();
+        });
+    }
+
+    private static void bind(PreparedStatement statement, List<AuditEvent> rows) throws SQLException {
+        int index = 1;
+        for (AuditEvent event : rows) {
+            index = bind(statement, index, event);
+        }
+    }
+
+    /**
+     * Bind the 13 columns of one event from the given parameter index
+     *
+     * @return the index of the next parameter
+     */
+    private static int bind(PreparedStatement statement, int index, AuditEvent event) throws SQLException {
+        statement.setObject(index++, event.userId(), Types.BIGINT);
+        statement.setObject(index++, event.patientId(), Types.BIGINT);
+        statement.setString(index++, event.resourceType());
+        statement.setObject(index++, event.resourceId(), Types.BIGINT);
+        statement.setString(index++, event.action() == null ? null : event.action().name());
+        statement.setString(index++, event.decision() == null ? null : event.decision().name());
+        statement.setString(index++, event.policyMatched());
+        statement.setString(index++, event.denyReason());
+        statement.setString(index++, event.justification());
+        statement.setBoolean(index++, event.emergency());
+        statement.setString(index++, event.ipAddress());
+        statement.setString(index++, event.sessionId());
+        statement.setTimestamp(index++, event.createdAt() == null ? null : Timestamp.valueOf(event.createdAt()));
+        return index;
+    }
+}
@@ -0,0 +1,29 @@
+package com.medshare.hub.audit;
+
+import com.medshare.hub.entity.AccessLog;
+
+import java.time.LocalDateTime;
+
+/**
+ * AuditEvent - One access attempt to be written to access_logs
+ *
+ * Immutable snapshot taken when the decision is made; createdAt is the
+ * time of the access, not of the (possibly later) database write.
+ *
+ * @author MedShare Development Team
+ */
+public record AuditEvent(
+        Long userId,
+        Long patientId,
+        String resourceType,
+        Long resourceId,
+        AccessLog.Action action,
+        AccessLog.Decision decision,
+        String policyMatched,
+        String denyReason,
+        boolean emergency,
+        String justification,
+        String ipAddress,
+        String sessionId,
+        LocalDateTime createdAt) {
+}
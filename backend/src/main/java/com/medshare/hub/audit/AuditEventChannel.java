@@ -0,0 +1,48 @@
+package com.medshare.hub.audit;
+
+import java.util.List;
+
+/**
+ * AuditEventChannel - Hand-off of audit events from request threads to
+ * the AuditBatchWriter thread
+ *
+ * Producers offer events; the single consumer drains them in order and
+ * acknowledges each drained batch once it is in the database.
+ * Implementations:
+ * - AuditEventQueue: bounded in-memory queue
+ * - AuditSpool: memory-mapped write-ahead spool surviving restarts
+ *
+ * @author MedShare Development Team
+ */
+public interface AuditEventChannel {
+
+    /**
+     * Append an event
+     *
+     * @return false if the channel is full
+     */
+    boolean offer(AuditEvent event);
+
+    /**
+     * Move up to max events, in append order, into the target list
+     *
+     * @return the number of events moved
+     */
+    int drainTo(List<AuditEvent> target, int max);
+
+    /**
+     * Every event drained so far has been written to the database
+     */
+    void acknowledge();
+
+    /**
+     * Number of events appended and not yet acknowledged
+     */
+    long size();
+
+    /**
+     * Whether a producer whose offer failed should write its event to the
+     * database itself; otherwise the access must be refused
+     */
+    boolean callerWritesWhenFull();
+}
@@ -0,0 +1,104 @@
+package com.medshare.hub.audit;
+
+import com.medshare.hub.entity.AccessLog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * AuditEventCodec - Compact binary form of an AuditEvent for the spool
+ *
+ * Fields in record order; nullable longs and strings carry a presence
+ * flag, enums are stored by ordinal, createdAt as seconds and nanos.
+ * Appending a field at the end is the only compatible format change.
+ *
+ * @author MedShare Development Team
+ */
+final class AuditEventCodec {
+
+    private static final AccessLog.Action[] ACTIONS = AccessLog.Action.values();
+    private static final AccessLog.Decision[] DECISIONS = AccessLog.Decision.values();
+
+    private AuditEventCodec() {
+    }
+
+    static byte[] encode(AuditEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeLong(out, event.userId());
+            writeLong(out, event.patientId());
+            writeString(out, event.resourceType());
+            writeLong(out, event.resourceId());
+            out.writeByte(event.action() == null ? -1 : event.action().ordinal());
+            out.writeByte(event.decision() == null ? -1 : event.decision().ordinal());
+            writeString(out, event.policyMatched());
+            writeString(out, event.denyReason());
+            out.writeBoolean(event.emergency());
+            writeString(out, event.justification());
+            writeString(out, event.ipAddress());
+            writeString(out, event.sessionId());
+            out.writeLong(event.createdAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(event.createdAt().getNano());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static AuditEvent decode(ByteBuffer in) {
+        Long userId = readLong(in);
+        Long patientId = readLong(in);
+        String resourceType = readString(in);
+        Long resourceId = readLong(in);
+        byte action = in.get();
+        byte decision = in.get();
+        String policyMatched = readString(in);
+        String denyReason = readString(in);
+        boolean emergency = in.get() != 0;
+        String justification = readString(in);
+        String ipAddress = readString(in);
+        String sessionId = readString(in);
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+        return new AuditEvent(userId, patientId, resourceType, resourceId,
+                action < 0 ? null : ACTIONS[action],
+                decision < 0 ? null : DECISIONS[decision],
+                policyMatched, denyReason, emergency, justification, ipAddress, sessionId, createdAt);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static Long readLong(ByteBuffer in) {
+        return in.get() != 0 ? in.getLong() : null;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,77 @@
+package com.medshare.hub.audit;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AuditEventQueue - Bounded lock-free multi-producer queue of audit events
+ *
+ * Producers (request threads) reserve a slot with a CAS on the size
+ * counter and append to a lock-free linked queue; offer fails instead of
+ * blocking once the capacity is reached. The single consumer is the
+ * AuditBatchWriter thread. Events are lost if the process dies before
+ * they are written; AuditSpool is the durable alternative.
+ *
+ * @author MedShare Development Team
+ */
+public final class AuditEventQueue implements AuditEventChannel {
+
+    private final Queue<AuditEvent> events = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+
+    public AuditEventQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Audit queue capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean offer(AuditEvent event) {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        events.add(event);
+        return true;
+    }
+
+    @Override
+    public int drainTo(List<AuditEvent> target, int max) {
+        int drained = 0;
+        AuditEvent event;
+        while (drained < max && (event = events.poll()) != null) {
+            target.add(event);
+            drained++;
+        }
+        if (drained > 0) {
+            size.addAndGet(-drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public void acknowledge() {
+        // Drained events are no longer held
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    /**
+     * A full queue means the database is falling behind: the producer
+     * writes its own event
+     */
+    @Override
+    public boolean callerWritesWhenFull() {
+        return true;
+    }
+}
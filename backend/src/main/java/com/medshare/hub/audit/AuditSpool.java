@@ -0,0 +1,480 @@
+package com.medshare.hub.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * AuditSpool - Append-only memory-mapped write-ahead spool of audit events
+ *
+ * Events are appended to fixed-size segment files (audit-&lt;seq&gt;.spool)
+ * mapped into memory, so an append is an in-memory copy under a short
+ * lock: once offer returns, the event survives a JVM crash (the page
+ * cache belongs to the kernel). Appended data is forced to disk on
+ * rotation and at a fixed interval by a dedicated thread, independently of
+ * the reader, so the bound on what an OS crash can lose also holds while
+ * the database is down and nothing is drained.
+ *
+ * Record layout: [int payload length][int CRC32C of payload][payload].
+ * The length is written last, so a reader never sees a half-written
+ * record; a length of -1 marks the end of a segment, 0 unused space.
+ *
+ * The AuditBatchWriter thread is the single reader. After a batch is in
+ * the database, acknowledge() records the read position in the
+ * checkpoint file and deletes fully consumed segments. On startup the
+ * spool resumes from the checkpoint and replays every complete record
+ * after it; a torn record at the tail (crash during append) is zeroed.
+ * Delivery is at least once: a crash between the database commit and
+ * the checkpoint replays that batch.
+ *
+ * When the unacknowledged data exceeds maxPendingBytes, offer either
+ * fails at once (REJECT) or waits up to the block timeout for the writer
+ * to catch up (BLOCK).
+ *
+ * @author MedShare Development Team
+ */
+@Slf4j
+public final class AuditSpool implements AuditEventChannel, Closeable {
+
+    /**
+     * Behaviour of offer when the spool is full
+     */
+    public enum OverflowMode {
+        BLOCK,
+        REJECT
+    }
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private static final int HEADER_BYTES = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final int CHECKPOINT_BYTES = 20;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxPendingBytes;
+    private final OverflowMode overflowMode;
+    private final long blockTimeoutNanos;
+    private final long forceIntervalMs;
+
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final FileChannel checkpoint;
+    private final ByteBuffer checkpointBuffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+    private final ScheduledExecutorService forcer;
+
+    // Guarded by this
+    private Segment writeSegment;
+    private int writeOffset;
+    private long ackSequence;
+    private int ackOffset;
+    private long pendingEvents;
+    private long forcedSequence;
+    private int forcedOffset;
+
+    // Reader thread only
+    private Segment readSegment;
+    private int readOffset;
+    private long drainedSinceAck;
+
+    private AuditSpool(Path directory, int segmentSize, long maxPendingBytes, OverflowMode overflowMode,
+            long blockTimeoutMs, long forceIntervalMs) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxPendingBytes = maxPendingBytes;
+        this.overflowMode = overflowMode;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+        this.checkpoint = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.forceIntervalMs = forceIntervalMs;
+        this.forcer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "audit-spool-force");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the spool in the directory, recovering unacknowledged events
+     * left by a previous run
+     *
+     * @param segmentSize     bytes per segment file
+     * @param maxPendingBytes unacknowledged bytes above which offer blocks
+     *                        or fails
+     * @param forceIntervalMs interval at which appended data is forced to
+     *                        disk by the spool's own thread (0: only on
+     *                        rotation)
+     */
+    public static AuditSpool open(Path directory, int segmentSize, long maxPendingBytes, OverflowMode overflowMode,
+            long blockTimeoutMs, long forceIntervalMs) throws IOException {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Audit spool segment size too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        AuditSpool spool = new AuditSpool(directory, segmentSize, maxPendingBytes, overflowMode,
+                blockTimeoutMs, forceIntervalMs);
+        spool.recover();
+        if (forceIntervalMs > 0) {
+            spool.forcer.scheduleWithFixedDelay(spool::forceAppended, forceIntervalMs, forceIntervalMs,
+                    TimeUnit.MILLISECONDS);
+        }
+        return spool;
+    }
+
+    @Override
+    public boolean offer(AuditEvent event) {
+        byte[] payload = AuditEventCodec.encode(event);
+        int recordSize = HEADER_BYTES + payload.length;
+        if (recordSize + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Audit event of " + recordSize + " bytes exceeds the spool segment size");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int checksum = (int) crc.getValue();
+
+        synchronized (this) {
+            if (!awaitSpace(recordSize)) {
+                return false;
+            }
+            if (writeOffset + recordSize + Integer.BYTES > segmentSize) {
+                rotate();
+            }
+            MappedByteBuffer buffer = writeSegment.buffer();
+            buffer.put(writeOffset + HEADER_BYTES, payload);
+            buffer.putInt(writeOffset + Integer.BYTES, checksum);
+            buffer.putInt(writeOffset, payload.length);
+            writeOffset += recordSize;
+            pendingEvents++;
+        }
+        return true;
+    }
+
+    @Override
+    public int drainTo(List<AuditEvent> target, int max) {
+        long endSequence;
+        int endOffset;
+        // Publishes the appended bytes to this thread
+        synchronized (this) {
+            endSequence = writeSegment.sequence();
+            endOffset = writeOffset;
+        }
+
+        int drained = 0;
+        while (drained < max && (readSegment.sequence() < endSequence || readOffset < endOffset)) {
+            ByteBuffer buffer = readSegment.buffer();
+            int length = readOffset + HEADER_BYTES <= segmentSize ? buffer.getInt(readOffset) : END_OF_SEGMENT;
+            if (length <= 0) {
+                // End marker (or space left unused by recovery): continue in the next segment
+                readSegment = segments.get(readSegment.sequence() + 1);
+                readOffset = 0;
+                continue;
+            }
+            target.add(AuditEventCodec.decode(buffer.slice(readOffset + HEADER_BYTES, length)));
+            readOffset += HEADER_BYTES + length;
+            drained++;
+        }
+        drainedSinceAck += drained;
+        return drained;
+    }
+
+    @Override
+    public void acknowledge() {
+        if (drainedSinceAck == 0) {
+            return;
+        }
+        long sequence = readSegment.sequence();
+        int offset = readOffset;
+        writeCheckpoint(sequence, offset);
+        synchronized (this) {
+            ackSequence = sequence;
+            ackOffset = offset;
+            pendingEvents -= drainedSinceAck;
+            notifyAll();
+        }
+        drainedSinceAck = 0;
+
+        Map<Long, Segment> consumed = segments.headMap(sequence);
+        for (Segment segment : List.copyOf(consumed.values())) {
+            consumed.remove(segment.sequence());
+            delete(segment);
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return pendingEvents;
+    }
+
+    /**
+     * Events are already durable when the spool is full; writing more on
+     * request threads would only add load to a database that is behind
+     */
+    @Override
+    public boolean callerWritesWhenFull() {
+        return false;
+    }
+
+    /**
+     * Bytes appended and not yet acknowledged
+     */
+    public synchronized long pendingBytes() {
+        return (writeSegment.sequence() - ackSequence) * segmentSize + writeOffset - ackOffset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        forcer.shutdown();
+        try {
+            forcer.awaitTermination(forceIntervalMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeSegments();
+    }
+
+    /**
+     * Whether everything appended so far has been forced to disk
+     */
+    synchronized boolean isForced() {
+        return forcedSequence == writeSegment.sequence() && forcedOffset == writeOffset;
+    }
+
+    private synchronized void closeSegments() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.buffer().force();
+            segment.channel().close();
+        }
+        segments.clear();
+        checkpoint.close();
+    }
+
+    private boolean awaitSpace(int recordSize) {
+        if (pendingBytes() + recordSize <= maxPendingBytes) {
+            return true;
+        }
+        if (overflowMode == OverflowMode.REJECT) {
+            return false;
+        }
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (pendingBytes() + recordSize > maxPendingBytes) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            try {
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotate() {
+        MappedByteBuffer buffer = writeSegment.buffer();
+        buffer.putInt(writeOffset, END_OF_SEGMENT);
+        buffer.force();
+        Segment next = openSegment(writeSegment.sequence() + 1);
+        forcedSequence = next.sequence();
+        forcedOffset = 0;
+        segments.put(next.sequence(), next);
+        writeSegment = next;
+        writeOffset = 0;
+        log.debug("Audit spool rotated to segment {}", next.sequence());
+    }
+
+    /**
+     * Force the data appended since the last force to disk
+     * Runs on the force thread, outside the append lock.
+     */
+    private void forceAppended() {
+        Segment segment;
+        int offset;
+        synchronized (this) {
+            segment = writeSegment;
+            offset = writeOffset;
+            if (segment == null || (forcedSequence == segment.sequence() && forcedOffset == offset)) {
+                return;
+            }
+        }
+        try {
+            // Earlier segments were forced on rotation
+            segment.buffer().force(0, offset);
+        } catch (RuntimeException e) {
+            // Caught so that the scheduled task keeps running
+            log.error("Failed to force audit spool segment {} to disk: {}", segment.sequence(), e.getMessage(), e);
+            return;
+        }
+        synchronized (this) {
+            forcedSequence = segment.sequence();
+            forcedOffset = offset;
+        }
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(AuditSpool::isSegmentFile)
+                    .forEach(path -> {
+                        Segment segment = openSegment(sequenceOf(path));
+                        segments.put(segment.sequence(), segment);
+                    });
+        }
+        readCheckpoint();
+
+        // Segments before the checkpoint were consumed but not yet deleted
+        for (Segment segment : List.copyOf(segments.headMap(ackSequence).values())) {
+            segments.remove(segment.sequence());
+            delete(segment);
+        }
+        if (segments.isEmpty() || segments.firstKey() != ackSequence) {
+            if (!segments.isEmpty()) {
+                log.error("Audit spool checkpoint points to missing segment {}, resuming at segment {}",
+                        ackSequence, segments.firstKey());
+                ackSequence = segments.firstKey();
+            }
+            ackOffset = 0;
+        }
+        if (segments.isEmpty()) {
+            segments.put(ackSequence, openSegment(ackSequence));
+        }
+
+        // Count the complete records after the checkpoint and find the end of the last segment
+        long recovered = 0;
+        int offset = ackOffset;
+        for (Segment segment : segments.values()) {
+            ByteBuffer buffer = segment.buffer();
+            while (offset + HEADER_BYTES <= segmentSize) {
+                int length = buffer.getInt(offset);
+                if (length == 0 || length == END_OF_SEGMENT) {
+                    break;
+                }
+                if (!isValid(buffer, offset, length)) {
+                    log.warn("Discarding torn audit spool record in segment {} at offset {}",
+                            segment.sequence(), offset);
+                    for (int i = offset; i < segmentSize; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                    break;
+                }
+                offset += HEADER_BYTES + length;
+                recovered++;
+            }
+            writeSegment = segment;
+            writeOffset = offset;
+            offset = 0;
+        }
+
+        // Recovered data may only be in the page cache (JVM crash): force it once
+        writeSegment.buffer().force();
+        forcedSequence = writeSegment.sequence();
+        forcedOffset = writeOffset;
+
+        readSegment = segments.get(ackSequence);
+        readOffset = ackOffset;
+        pendingEvents = recovered;
+        if (recovered > 0) {
+            log.warn("Recovered {} unwritten audit events from spool {}", recovered, directory);
+        }
+        log.info("Opened audit spool {}: {} segment(s), write position {}:{}",
+                directory, segments.size(), writeSegment.sequence(), writeOffset);
+    }
+
+    private boolean isValid(ByteBuffer buffer, int offset, int length) {
+        if (length < 0 || offset + HEADER_BYTES + length > segmentSize) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + HEADER_BYTES, length));
+        return (int) crc.getValue() == buffer.getInt(offset + Integer.BYTES);
+    }
+
+    /**
+     * Checkpoint layout: [long segment][int offset][long CRC32C of both]
+     */
+    private void readCheckpoint() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHECKPOINT_BYTES);
+        if (checkpoint.read(buffer, 0) < CHECKPOINT_BYTES) {
+            ackSequence = segments.isEmpty() ? 0 : segments.firstKey();
+            ackOffset = 0;
+            return;
+        }
+        long sequence = buffer.getLong(0);
+        int offset = buffer.getInt(Long.BYTES);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, Long.BYTES + Integer.BYTES));
+        if (crc.getValue() != buffer.getLong(Long.BYTES + Integer.BYTES)) {
+            throw new IOException("Corrupt audit spool checkpoint in " + directory);
+        }
+        ackSequence = sequence;
+        ackOffset = offset;
+    }
+
+    private void writeCheckpoint(long sequence, int offset) {
+        ByteBuffer buffer = checkpointBuffer.clear();
+        buffer.putLong(sequence).putInt(offset);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(0, Long.BYTES + Integer.BYTES));
+        buffer.putLong(crc.getValue()).flip();
+        try {
+            while (buffer.hasRemaining()) {
+                checkpoint.write(buffer, buffer.position());
+            }
+        } catch (IOException e) {
+            // The batch is written; a stale checkpoint only means it is replayed after a restart
+            log.error("Failed to write audit spool checkpoint: {}", e.getMessage(), e);
+        }
+    }
+
+    private Segment openSegment(long sequence) {
+        Path path = directory.resolve(SEGMENT_PREFIX + String.format("%019d", sequence) + SEGMENT_SUFFIX);
+        try {
+            FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(sequence, path, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open audit spool segment " + path, e);
+        }
+    }
+
+    private void delete(Segment segment) {
+        try {
+            segment.channel().close();
+            Files.deleteIfExists(segment.path());
+        } catch (IOException e) {
+            log.warn("Failed to delete consumed audit spool segment {}: {}", segment.path(), e.getMessage());
+        }
+    }
+
+    private static boolean isSegmentFile(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private record Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+}
@@ -0,0 +1,284 @@
+package com.medshare.hub.audit;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * ComplianceReportExporter - Streams the access_logs of a date range as
+ * NDJSON or CSV
+ *
+ * Rows are read with plain JDBC over a forward-only cursor: inside a
+ * read-only transaction, the PostgreSQL driver fetches audit.export.fetch-size
+ * rows at a time instead of materializing the result. Each row is written
+ * to the output as soon as it is read; no entity is created, so nothing
+ * accumulates in a persistence context and memory use does not depend on
+ * the number of rows.
+ *
+ * The date range is on the partition key, so only the monthly partitions
+ * it covers are read. Rows are in chronological order. In CSV, text that
+ * would start a spreadsheet formula is prefixed with a quote.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Slf4j
+public class ComplianceReportExporter {
+
+    private static final Column[] COLUMNS = {
+            new Column("logId", "log_id", ColumnType.LONG),
+            new Column("createdAt", "created_at", ColumnType.TIMESTAMP),
+            new Column("userId", "user_id", ColumnType.LONG),
+            new Column("patientId", "patient_id", ColumnType.LONG),
+            new Column("resourceType", "resource_type", ColumnType.STRING),
+            new Column("resourceId", "resource_id", ColumnType.LONG),
+            new Column("action", "action", ColumnType.STRING),
+            new Column("decision", "decision", ColumnType.STRING),
+            new Column("policyMatched", "policy_matched", ColumnType.STRING),
+            new Column("denyReason", "deny_reason", ColumnType.STRING),
+            new Column("isEmergency", "is_emergency", ColumnType.BOOLEAN),
+            new Column("justification", "justification", ColumnType.STRING),
+            new Column("ipAddress", "ip_address", ColumnType.STRING),
+            new Column("sessionId", "session_id", ColumnType.STRING)
+    };
+
+    private static final String QUERY = "SELECT "
+            + Arrays.stream(COLUMNS).map(Column::sqlName).collect(Collectors.joining(", "))
+            + " FROM access_logs WHERE created_at BETWEEN ? AND ? ORDER BY created_at, log_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final JsonFactory jsonFactory;
+    private final int fetchSize;
+
+    public ComplianceReportExporter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${audit.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // The cursor only lives inside a transaction (autocommit off)
+        this.transactionTemplate.setReadOnly(true);
+        this.jsonFactory = objectMapper.getFactory();
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Write the access logs created between startDate and endDate
+     * (inclusive) to the output
+     *
+     * @return the number of rows written
+     * @throws UncheckedIOException if writing fails (e.g. the client
+     *                              disconnected)
+     */
+    public long export(LocalDateTime startDate, LocalDateTime endDate, ComplianceReportFormat format,
+            OutputStream out) {
+        long start = System.nanoTime();
+        Long rows = transactionTemplate.execute(status -> {
+            try {
+                RowWriter writer = format == ComplianceReportFormat.CSV
+                        ? new CsvRowWriter(out)
+                        : new NdjsonRowWriter(jsonFactory.createGenerator(out));
+                long[] count = { 0 };
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            QUERY, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(fetchSize);
+                    statement.setTimestamp(1, Timestamp.valueOf(startDate));
+                    statement.setTimestamp(2, Timestamp.valueOf(endDate));
+                    return statement;
+                }, (RowCallbackHandler) resultSet -> {
+                    try {
+                        writer.write(resultSet);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                });
+                writer.finish();
+                return count[0];
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} access logs ({} to {}) as {} in {} ms", rows, startDate, endDate, format,
+                (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    private enum ColumnType {
+        LONG,
+        TIMESTAMP,
+        STRING,
+        BOOLEAN
+    }
+
+    private record Column(String name, String sqlName, ColumnType type) {
+    }
+
+    private interface RowWriter {
+
+        void write(ResultSet row) throws SQLException, IOException;
+
+        /**
+         * Flush buffered output; the stream itself stays open
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, nulls included
+     */
+    private static final class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet row) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < COLUMNS.length; i++) {
+                Column column = COLUMNS[i];
+                int index = i + 1;
+                generator.writeFieldName(column.name());
+                switch (column.type()) {
+                    case LONG -> {
+                        long value = row.getLong(index);
+                        if (row.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeNumber(value);
+                        }
+                    }
+                    case BOOLEAN -> {
+                        boolean value = row.getBoolean(index);
+                        if (row.wasNull()) {
+                            generator.writeNull();
+                        } else {
+                            generator.writeBoolean(value);
+                        }
+                    }
+                    case TIMESTAMP -> {
+                        LocalDateTime value = row.getObject(index, LocalDateTime.class);
+                        generator.writeString(value == null ? null : value.toString());
+                    }
+                    case STRING -> generator.writeString(row.getString(index));
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * RFC 4180: header row, CRLF line endings, fields quoted when needed,
+     * empty field for null
+     */
+    private static final class CsvRowWriter implements RowWriter {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(COLUMNS[i].name());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet row) throws SQLException, IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                int index = i + 1;
+                String value = switch (COLUMNS[i].type()) {
+                    case TIMESTAMP -> {
+                        LocalDateTime timestamp = row.getObject(index, LocalDateTime.class);
+                        yield timestamp == null ? null : timestamp.toString();
+                    }
+                    case BOOLEAN -> {
+                        boolean flag = row.getBoolean(index);
+                        yield row.wasNull() ? null : Boolean.toString(flag);
+                    }
+                    case LONG -> row.getString(index);
+                    case STRING -> neutralizeFormula(row.getString(index));
+                };
+                if (value != null) {
+                    writeField(value);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        /**
+         * Prefix text a spreadsheet would run as a formula with a quote
+         * (CSV injection): justifications and other audit text are entered
+         * by users, and compliance reports are opened in spreadsheets
+         */
+        private static String neutralizeFormula(String value) {
+            if (value == null || value.isEmpty()) {
+                return value;
+            }
+            return switch (value.charAt(0)) {
+                case '=', '+', '-', '@', '\t', '\r' -> "'" + value;
+                default -> value;
+            };
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                    && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
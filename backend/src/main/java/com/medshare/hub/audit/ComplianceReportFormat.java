@@ -0,0 +1,50 @@
+package com.medshare.hub.audit;
+
+import java.util.Locale;
+
+/**
+ * ComplianceReportFormat - Output formats of the compliance report export
+ *
+ * @author MedShare Development Team
+ */
+public enum ComplianceReportFormat {
+
+    /**
+     * One JSON object per line
+     */
+    NDJSON("application/x-ndjson", "ndjson"),
+
+    /**
+     * RFC 4180 comma-separated values with a header row
+     */
+    CSV("text/csv", "csv");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    ComplianceReportFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Parse a request parameter (case-insensitive)
+     *
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static ComplianceReportFormat fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported report format: " + value + " (ndjson or csv)");
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.medshare.hub.audit;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HourlyRollupUpdater - Adds a batch of audit events to
+ * access_log_hourly_rollups
+ *
+ * The batch is first aggregated in memory, so a batch of hundreds of
+ * events usually becomes a single upsert of a few rows. Rows are upserted
+ * in key order: concurrent writers (overflow writes on request threads)
+ * lock the same rows in the same order and cannot deadlock.
+ *
+ * Must run in the transaction that inserts the events into access_logs.
+ *
+ * @author MedShare Development Team
+ */
+final class HourlyRollupUpdater {
+
+    private static final String UPSERT = "INSERT INTO access_log_hourly_rollups (bucket_start, decision, "
+            + "policy_matched, resource_type, is_emergency, event_count) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?)";
+    private static final String ON_CONFLICT = " ON CONFLICT ON CONSTRAINT access_log_hourly_rollups_key "
+            + "DO UPDATE SET event_count = access_log_hourly_rollups.event_count + EXCLUDED.event_count";
+
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator.comparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::decision)
+            .thenComparing(RollupKey::policyMatched, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(RollupKey::resourceType)
+            .thenComparing(RollupKey::emergency);
+
+    /**
+     * Rows per upsert statement (PostgreSQL allows 32767 bind parameters)
+     */
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Integer, String> upsertStatements = new ConcurrentHashMap<>();
+
+    HourlyRollupUpdater(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void add(List<AuditEvent> events) {
+        Map<RollupKey, Long> counts = aggregate(events);
+        if (counts.isEmpty()) {
+            return;
+        }
+        List<RollupKey> keys = new ArrayList<>(counts.keySet());
+        keys.sort(KEY_ORDER);
+        for (int from = 0; from < keys.size(); from += ROWS_PER_STATEMENT) {
+            List<RollupKey> rows = keys.subList(from, Math.min(from + ROWS_PER_STATEMENT, keys.size()));
+            jdbcTemplate.update(upsertStatement(rows.size()), statement -> {
+                int index = 1;
+                for (RollupKey key : rows) {
+                    statement.setTimestamp(index++, Timestamp.valueOf(key.bucketStart()));
+                    statement.setString(index++, key.decision());
+                    statement.setString(index++, key.policyMatched());
+                    statement.setString(index++, key.resourceType());
+                    statement.setBoolean(index++, key.emergency());
+                    statement.setLong(index++, counts.get(key));
+                }
+            });
+        }
+    }
+
+    static Map<RollupKey, Long> aggregate(List<AuditEvent> events) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (AuditEvent event : events) {
+            if (event.decision() == null || event.resourceType() == null || event.createdAt() == null) {
+                // The access_logs insert rejects it first; AuditBatchWriter dead-letters it
+                continue;
+            }
+            RollupKey key = new RollupKey(
+                    event.createdAt().truncatedTo(ChronoUnit.HOURS),
+                    event.decision().name(),
+                    event.policyMatched(),
+                    event.resourceType(),
+                    event.emergency());
+            counts.merge(key, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private String upsertStatement(int rows) {
+        return upsertStatements.computeIfAbsent(rows, count -> {
+            StringBuilder sql = new StringBuilder(UPSERT.length() + count * (ROW.length() + 2) + ON_CONFLICT.length())
+                    .append(UPSERT);
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(ROW);
+            }
+            return sql.append(ON_CONFLICT).toString();
+        });
+    }
+
+    record RollupKey(
+            LocalDateTime bucketStart,
+            String decision,
+            String policyMatched,
+            String resourceType,
+            boolean emergency) {
+    }
+}
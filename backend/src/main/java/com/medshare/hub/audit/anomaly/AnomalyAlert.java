@@ -0,0 +1,27 @@
+package com.medshare.hub.audit.anomaly;
+
+import java.time.Instant;
+
+/**
+ * AnomalyAlert - A sliding-window threshold crossed by a user or patient
+ *
+ * Published as an application event when raised.
+ *
+ * @param rule         the rule whose threshold was crossed
+ * @param subjectId    user or patient ID, depending on the rule's subject
+ * @param observed     value over the window (estimated for distinct
+ *                     patients)
+ * @param threshold    configured threshold
+ * @param windowMillis length of the sliding window
+ * @param detectedAt   when the threshold was crossed
+ *
+ * @author MedShare Development Team
+ */
+public record AnomalyAlert(
+        AnomalyRule rule,
+        Long subjectId,
+        long observed,
+        long threshold,
+        long windowMillis,
+        Instant detectedAt) {
+}
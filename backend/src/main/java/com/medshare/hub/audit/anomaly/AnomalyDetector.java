@@ -0,0 +1,270 @@
+package com.medshare.hub.audit.anomaly;
+
+import com.medshare.hub.audit.AuditEvent;
+import com.medshare.hub.entity.AccessLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * AnomalyDetector - Real-time sliding-window anomaly detection on the
+ * audit stream
+ *
+ * Every audit event is fed in as it is logged. Per user it counts
+ * denials, emergency accesses and distinct patients touched; per patient
+ * it counts denials and emergency accesses. Counters are lock-free rings
+ * of time buckets (SlidingWindowCounter, SlidingWindowDistinctCounter)
+ * spanning audit.anomaly.window-ms, so recording an event costs the same
+ * whatever the traffic and needs no database query.
+ *
+ * When a count reaches its threshold an AnomalyAlert is raised: logged,
+ * counted, published as an application event and kept in the list of
+ * recent alerts. A rule fires at most once per window for a given user
+ * or patient. A threshold of 0 disables the rule.
+ *
+ * Counters are per node and start empty on restart; subjects idle for a
+ * whole window are evicted by a periodic sweep.
+ *
+ * Meters:
+ * - audit.anomaly.alerts: alerts raised, tagged by rule
+ * - audit.anomaly.tracked: users and patients with live counters
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Slf4j
+public class AnomalyDetector {
+
+    private static final int RECENT_ALERTS = 100;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final long bucketMillis;
+    private final int buckets;
+    private final int distinctBits;
+    private final Map<AnomalyRule, Long> thresholds = new EnumMap<>(AnomalyRule.class);
+    private final ApplicationEventPublisher eventPublisher;
+    private final LongSupplier clock;
+
+    private final Map<Long, SubjectWindow> users = new ConcurrentHashMap<>();
+    private final Map<Long, SubjectWindow> patients = new ConcurrentHashMap<>();
+    private final Deque<AnomalyAlert> recentAlerts = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger recentAlertCount = new AtomicInteger();
+    private final Map<AnomalyRule, Counter> alertCounters = new EnumMap<>(AnomalyRule.class);
+
+    @Autowired
+    public AnomalyDetector(
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${audit.anomaly.enabled:true}") boolean enabled,
+            @Value("${audit.anomaly.window-ms:3600000}") long windowMillis,
+            @Value("${audit.anomaly.buckets:12}") int buckets,
+            @Value("${audit.anomaly.user.denials-threshold:10}") long userDenials,
+            @Value("${audit.anomaly.user.emergency-threshold:3}") long userEmergencies,
+            @Value("${audit.anomaly.user.distinct-patients-threshold:50}") long userDistinctPatients,
+            @Value("${audit.anomaly.patient.denials-threshold:10}") long patientDenials,
+            @Value("${audit.anomaly.patient.emergency-threshold:3}") long patientEmergencies) {
+        this(eventPublisher, meterRegistry, enabled, windowMillis, buckets, Map.of(
+                AnomalyRule.USER_DENIALS, userDenials,
+                AnomalyRule.USER_EMERGENCY_ACCESSES, userEmergencies,
+                AnomalyRule.USER_DISTINCT_PATIENTS, userDistinctPatients,
+                AnomalyRule.PATIENT_DENIALS, patientDenials,
+                AnomalyRule.PATIENT_EMERGENCY_ACCESSES, patientEmergencies), System::currentTimeMillis);
+    }
+
+    AnomalyDetector(
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            boolean enabled,
+            long windowMillis,
+            int buckets,
+            Map<AnomalyRule, Long> thresholds,
+            LongSupplier clock) {
+        if (buckets <= 0 || windowMillis < buckets) {
+            throw new IllegalArgumentException("Invalid anomaly window: " + windowMillis + " ms in " + buckets
+                    + " buckets");
+        }
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.bucketMillis = windowMillis / buckets;
+        this.buckets = buckets;
+        this.thresholds.putAll(thresholds);
+        // Linear counting is accurate up to about the bitmap size: twice the threshold
+        long distinctThreshold = thresholds.getOrDefault(AnomalyRule.USER_DISTINCT_PATIENTS, 0L);
+        this.distinctBits = distinctThreshold > 0
+                ? Math.max(128, Integer.highestOneBit((int) Math.min(distinctThreshold * 2, 1 << 20)) << 1)
+                : 0;
+        this.clock = clock;
+
+        for (AnomalyRule rule : AnomalyRule.values()) {
+            alertCounters.put(rule, Counter.builder("audit.anomaly.alerts")
+                    .description("Audit anomaly alerts raised")
+                    .tag("rule", rule.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("audit.anomaly.tracked", users, Map::size)
+                .description("Subjects with live anomaly counters")
+                .tag("subject", "user")
+                .register(meterRegistry);
+        Gauge.builder("audit.anomaly.tracked", patients, Map::size)
+                .description("Subjects with live anomaly counters")
+                .tag("subject", "patient")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count an audit event and raise the alerts whose thresholds it
+     * reaches
+     */
+    public void record(AuditEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = clock.getAsLong();
+        long bucket = now / bucketMillis;
+        boolean denied = event.decision() == AccessLog.Decision.DENY;
+
+        if (event.userId() != null) {
+            SubjectWindow user = users.computeIfAbsent(event.userId(),
+                    id -> new SubjectWindow(buckets, distinctBits));
+            user.touch(bucket);
+            if (denied) {
+                check(AnomalyRule.USER_DENIALS, event.userId(), user, user.denials.increment(bucket), bucket, now);
+            }
+            if (event.emergency()) {
+                check(AnomalyRule.USER_EMERGENCY_ACCESSES, event.userId(), user,
+                        user.emergencies.increment(bucket), bucket, now);
+            }
+            if (event.patientId() != null && user.patients != null) {
+                user.patients.add(bucket, event.patientId());
+                check(AnomalyRule.USER_DISTINCT_PATIENTS, event.userId(), user,
+                        user.patients.estimate(bucket), bucket, now);
+            }
+        }
+
+        if (event.patientId() != null && (denied || event.emergency())) {
+            SubjectWindow patient = patients.computeIfAbsent(event.patientId(),
+                    id -> new SubjectWindow(buckets, 0));
+            patient.touch(bucket);
+            if (denied) {
+                check(AnomalyRule.PATIENT_DENIALS, event.patientId(), patient,
+                        patient.denials.increment(bucket), bucket, now);
+            }
+            if (event.emergency()) {
+                check(AnomalyRule.PATIENT_EMERGENCY_ACCESSES, event.patientId(), patient,
+                        patient.emergencies.increment(bucket), bucket, now);
+            }
+        }
+    }
+
+    /**
+     * Most recent alerts, newest first
+     */
+    public List<AnomalyAlert> getRecentAlerts() {
+        return new ArrayList<>(recentAlerts);
+    }
+
+    /**
+     * Denials of a user over the current window
+     */
+    public long getUserDenials(Long userId) {
+        SubjectWindow user = users.get(userId);
+        return user == null ? 0 : user.denials.sum(clock.getAsLong() / bucketMillis);
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    /**
+     * Drop the counters of users and patients idle for a whole window
+     */
+    @Scheduled(fixedDelayString = "${audit.anomaly.sweep-interval-ms:300000}")
+    public void evictIdle() {
+        long oldest = clock.getAsLong() / bucketMillis - buckets;
+        users.values().removeIf(window -> window.lastBucket < oldest);
+        patients.values().removeIf(window -> window.lastBucket < oldest);
+    }
+
+    private void check(AnomalyRule rule, Long subjectId, SubjectWindow window, long observed, long bucket,
+            long now) {
+        long threshold = thresholds.getOrDefault(rule, 0L);
+        if (threshold <= 0 || observed < threshold || !window.claimAlert(rule, bucket, buckets)) {
+            return;
+        }
+        AnomalyAlert alert = new AnomalyAlert(rule, subjectId, observed, threshold, windowMillis,
+                Instant.ofEpochMilli(now));
+        log.warn("ANOMALOUS ACTIVITY DETECTED: {} {} - {} {} in the last {} minutes (threshold {})",
+                rule.getSubject(), subjectId, observed, rule, windowMillis / 60_000, threshold);
+        alertCounters.get(rule).increment();
+        recentAlerts.addFirst(alert);
+        if (recentAlertCount.incrementAndGet() > RECENT_ALERTS && recentAlerts.pollLast() != null) {
+            recentAlertCount.decrementAndGet();
+        }
+        eventPublisher.publishEvent(alert);
+    }
+
+    /**
+     * Counters of one user or patient
+     */
+    private static final class SubjectWindow {
+
+        private final SlidingWindowCounter denials;
+        private final SlidingWindowCounter emergencies;
+        private final SlidingWindowDistinctCounter patients;
+        /**
+         * Per rule, 1 + the bucket of the last alert (0: never)
+         */
+        private final AtomicLongArray lastAlerts = new AtomicLongArray(AnomalyRule.values().length);
+        private volatile long lastBucket;
+
+        /**
+         * @param distinctBits bitmap size of the distinct patient counter,
+         *                     0 for none
+         */
+        private SubjectWindow(int buckets, int distinctBits) {
+            this.denials = new SlidingWindowCounter(buckets);
+            this.emergencies = new SlidingWindowCounter(buckets);
+            this.patients = distinctBits > 0 ? new SlidingWindowDistinctCounter(buckets, distinctBits) : null;
+        }
+
+        private void touch(long bucket) {
+            // Skip the volatile write when the bucket has not changed
+            if (lastBucket != bucket) {
+                lastBucket = bucket;
+            }
+        }
+
+        /**
+         * Whether this rule may fire now: not already fired within the window
+         */
+        private boolean claimAlert(AnomalyRule rule, long bucket, int buckets) {
+            int index = rule.ordinal();
+            long last = lastAlerts.get(index);
+            if (last != 0 && bucket - (last - 1) < buckets) {
+                return false;
+            }
+            return lastAlerts.compareAndSet(index, last, bucket + 1);
+        }
+    }
+}
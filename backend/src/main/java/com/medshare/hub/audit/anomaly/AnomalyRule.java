@@ -0,0 +1,52 @@
+package com.medshare.hub.audit.anomaly;
+
+/**
+ * AnomalyRule - Sliding-window conditions checked by AnomalyDetector
+ *
+ * @author MedShare Development Team
+ */
+public enum AnomalyRule {
+
+    /**
+     * A user was denied access too often
+     */
+    USER_DENIALS(Subject.USER),
+
+    /**
+     * A user broke the glass too often
+     */
+    USER_EMERGENCY_ACCESSES(Subject.USER),
+
+    /**
+     * A user touched the records of too many different patients
+     */
+    USER_DISTINCT_PATIENTS(Subject.USER),
+
+    /**
+     * Access to a patient's records was denied too often (probing)
+     */
+    PATIENT_DENIALS(Subject.PATIENT),
+
+    /**
+     * A patient's records were opened by emergency override too often
+     */
+    PATIENT_EMERGENCY_ACCESSES(Subject.PATIENT);
+
+    /**
+     * What the rule's counters are kept per
+     */
+    public enum Subject {
+        USER,
+        PATIENT
+    }
+
+    private final Subject subject;
+
+    AnomalyRule(Subject subject) {
+        this.subject = subject;
+    }
+
+    public Subject getSubject() {
+        return subject;
+    }
+}
@@ -0,0 +1,61 @@
+package com.medshare.hub.audit.anomaly;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SlidingWindowCounter - Lock-free event count over the last N time buckets
+ *
+ * A ring of N slots, one per bucket. Each slot packs the low 32 bits of
+ * its bucket number (the tag) with the bucket's count in one long, so a
+ * slot still holding an older bucket is recognized and restarted by the
+ * same CAS that increments it; there is no separate reset to race with.
+ * Increment and sum cost O(N), independent of the event rate.
+ *
+ * @author MedShare Development Team
+ */
+final class SlidingWindowCounter {
+
+    private static final long LOW_MASK = 0xFFFF_FFFFL;
+
+    private final AtomicLongArray slots;
+
+    SlidingWindowCounter(int buckets) {
+        this.slots = new AtomicLongArray(buckets);
+    }
+
+    /**
+     * Count one event in the bucket
+     *
+     * @return the count over the window ending with the bucket
+     */
+    long increment(long bucket) {
+        int slot = slot(bucket);
+        long tag = bucket & LOW_MASK;
+        long current;
+        long next;
+        do {
+            current = slots.get(slot);
+            long count = (current >>> 32) == tag ? current & LOW_MASK : 0;
+            next = tag << 32 | Math.min(count + 1, LOW_MASK);
+        } while (!slots.compareAndSet(slot, current, next));
+        return sum(bucket);
+    }
+
+    /**
+     * Count over the window ending with the bucket
+     */
+    long sum(long bucket) {
+        long total = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long value = slots.get(slot(bucket - i));
+            if ((value >>> 32) == ((bucket - i) & LOW_MASK)) {
+                total += value & LOW_MASK;
+            }
+        }
+        return total;
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) slots.length());
+    }
+}
@@ -0,0 +1,100 @@
+package com.medshare.hub.audit.anomaly;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * SlidingWindowDistinctCounter - Lock-free estimate of distinct values
+ * seen over the last N time buckets
+ *
+ * Each bucket holds a linear-counting bitmap: a value sets one bit chosen
+ * by its hash, and the number of distinct values is estimated from the
+ * fraction of bits still clear in the union of the window's bitmaps
+ * (m * ln(m / clear)). The bitmap is split into 32-bit words, each packed
+ * with its bucket tag like SlidingWindowCounter, so words of an expired
+ * bucket restart on the next CAS. Add and estimate cost O(N * words).
+ *
+ * With m bits the estimate is accurate to a few percent up to about m
+ * distinct values; size the bitmap at twice the threshold of interest.
+ *
+ * @author MedShare Development Team
+ */
+final class SlidingWindowDistinctCounter {
+
+    private static final long LOW_MASK = 0xFFFF_FFFFL;
+
+    private final int buckets;
+    private final int words;
+    private final AtomicLongArray cells;
+
+    /**
+     * @param bits bitmap size per bucket, a multiple of 32
+     */
+    SlidingWindowDistinctCounter(int buckets, int bits) {
+        this.buckets = buckets;
+        this.words = bits / Integer.SIZE;
+        this.cells = new AtomicLongArray(buckets * words);
+    }
+
+    /**
+     * Record a value in the bucket
+     */
+    void add(long bucket, long value) {
+        int bit = (int) Long.remainderUnsigned(mix(value), (long) words * Integer.SIZE);
+        int cell = slot(bucket) * words + (bit >>> 5);
+        long mask = 1L << (bit & 31);
+        long tag = bucket & LOW_MASK;
+        long current;
+        long next;
+        do {
+            current = cells.get(cell);
+            if ((current >>> 32) == tag) {
+                if ((current & mask) != 0) {
+                    return;
+                }
+                next = current | mask;
+            } else {
+                next = tag << 32 | mask;
+            }
+        } while (!cells.compareAndSet(cell, current, next));
+    }
+
+    /**
+     * Estimated number of distinct values over the window ending with the
+     * bucket
+     */
+    long estimate(long bucket) {
+        int clear = 0;
+        for (int word = 0; word < words; word++) {
+            long union = 0;
+            for (int i = 0; i < buckets; i++) {
+                long value = cells.get(slot(bucket - i) * words + word);
+                if ((value >>> 32) == ((bucket - i) & LOW_MASK)) {
+                    union |= value;
+                }
+            }
+            clear += Integer.SIZE - Long.bitCount(union & LOW_MASK);
+        }
+        int bits = words * Integer.SIZE;
+        if (clear == 0) {
+            // Saturated: at least this many
+            return bits;
+        }
+        return Math.round(bits * Math.log((double) bits / clear));
+    }
+
+    private int slot(long bucket) {
+        return (int) Math.floorMod(bucket, (long) buckets);
+    }
+
+    /**
+     * MurmurHash3 finalizer: spreads sequential IDs over the bitmap
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,45 @@
+package com.medshare.hub.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CacheInvalidationListener - Applies near cache invalidations published by
+ * other nodes
+ *
+ * @author MedShare Development Team
+ */
+@Slf4j
+public class CacheInvalidationListener implements MessageListener {
+
+    private final TwoTierCacheManager cacheManager;
+    private final String nodeId;
+
+    public CacheInvalidationListener(TwoTierCacheManager cacheManager, String nodeId) {
+        this.cacheManager = cacheManager;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\" + RedisCacheInvalidationPublisher.SEPARATOR, 4);
+        if (parts.length != 4 || parts[0].length() != 1) {
+            log.warn("Ignoring malformed cache invalidation message: {}", body);
+            return;
+        }
+        if (nodeId.equals(parts[1])) {
+            return;
+        }
+
+        char op = parts[0].charAt(0);
+        if (op == RedisCacheInvalidationPublisher.EVICT) {
+            cacheManager.onRemoteInvalidation(parts[2], parts[3]);
+        } else if (op == RedisCacheInvalidationPublisher.CLEAR) {
+            cacheManager.onRemoteInvalidation(parts[2], null);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.medshare.hub.cache;
+
+/**
+ * CacheInvalidationPublisher - Broadcasts near cache invalidations to the
+ * other nodes of the cluster
+ *
+ * @author MedShare Development Team
+ */
+public interface CacheInvalidationPublisher {
+
+    /**
+     * Publisher for single-node setups and tests
+     */
+    CacheInvalidationPublisher NONE = new CacheInvalidationPublisher() {
+        @Override
+        public void publishEvict(String cacheName, String key) {
+        }
+
+        @Override
+        public void publishClear(String cacheName) {
+        }
+    };
+
+    /**
+     * Ask other nodes to drop their near copy of an entry
+     */
+    void publishEvict(String cacheName, String key);
+
+    /**
+     * Ask other nodes to drop all near entries of a cache
+     */
+    void publishClear(String cacheName);
+}
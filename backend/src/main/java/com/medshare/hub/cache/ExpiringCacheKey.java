@@ -0,0 +1,40 @@
+package com.medshare.hub.cache;
+
+import java.time.Duration;
+
+/**
+ * ExpiringCacheKey - Cache key carrying the instant its entry stops being
+ * valid
+ *
+ * Both cache tiers cap the entry TTL so the entry expires no later than
+ * expiresAtMillis. The string form of the key is what both tiers store it
+ * under.
+ *
+ * @author MedShare Development Team
+ */
+public interface ExpiringCacheKey {
+
+    /**
+     * Shortest TTL handed to a tier: a zero TTL means "never expire" to Redis
+     */
+    Duration MINIMUM_TIME_TO_LIVE = Duration.ofMillis(1);
+
+    /**
+     * Epoch millis at which the entry must expire, or Long.MAX_VALUE
+     */
+    long expiresAtMillis();
+
+    /**
+     * TTL for an entry written now, capped by the tier's default TTL
+     */
+    static Duration timeToLive(Object key, Duration defaultTimeToLive) {
+        if (!(key instanceof ExpiringCacheKey expiring) || expiring.expiresAtMillis() == Long.MAX_VALUE) {
+            return defaultTimeToLive;
+        }
+        long remaining = expiring.expiresAtMillis() - System.currentTimeMillis();
+        if (remaining >= defaultTimeToLive.toMillis()) {
+            return defaultTimeToLive;
+        }
+        return remaining < MINIMUM_TIME_TO_LIVE.toMillis() ? MINIMUM_TIME_TO_LIVE : Duration.ofMillis(remaining);
+    }
+}
@@ -0,0 +1,230 @@
+package com.medshare.hub.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * InvalidationEpochs - Per-patient and per-user cache invalidation epochs
+ *
+ * Cached policy decisions include the current epoch of their subject (user)
+ * and of the patient owning the resource in their key. Bumping an epoch
+ * makes every cached decision of that user or patient unreachable in O(1),
+ * without touching any other entry; the orphaned entries age out with the
+ * cache TTL.
+ *
+ * Redis (INCR) is the source of truth. Each node keeps a bounded local copy,
+ * loaded lazily and kept current by the epoch pub/sub channel, so building
+ * a cache key does not need a network round trip. Local epochs expire a
+ * while after they were written and are then read from Redis again, so a
+ * message missed during a Redis reconnect only keeps an old epoch (and the
+ * decisions cached under it) for that long.
+ *
+ * A patient epoch bumped on another node first runs the registered patient
+ * listeners (the in-memory PIP indexes refresh the patient from the
+ * database), then applies the new epoch: a decision cached under the new
+ * epoch is never evaluated against index entries older than the change.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@Slf4j
+public class InvalidationEpochs implements MessageListener {
+
+    private static final String KEY_PREFIX = "medshare:epoch:";
+    private static final String PATIENT = "p:";
+    private static final String USER = "u:";
+    private static final char ORIGIN_SEPARATOR = '|';
+
+    /**
+     * Used when the epoch cannot be read; unique so the lookup misses the
+     * cache instead of risking a stale decision
+     */
+    private final AtomicLong unknownEpoch = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Identifies this node in epoch messages
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final LoadingCache<String, Long> epochs;
+    private final List<LongConsumer> patientListeners = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    public InvalidationEpochs(
+            StringRedisTemplate redisTemplate,
+            @Value("${cache.epochs.channel:medshare:cache:epochs}") String channel,
+            @Value("${cache.epochs.local-maximum-size:100000}") long localMaximumSize,
+            @Value("${cache.epochs.local-time-to-live-ms:30000}") long localTimeToLiveMs) {
+        this(redisTemplate, channel, localMaximumSize, localTimeToLiveMs, Ticker.systemTicker());
+    }
+
+    InvalidationEpochs(
+            StringRedisTemplate redisTemplate,
+            String channel,
+            long localMaximumSize,
+            long localTimeToLiveMs,
+            Ticker ticker) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.epochs = Caffeine.newBuilder()
+                .maximumSize(localMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(localTimeToLiveMs))
+                .ticker(ticker)
+                .build(this::load);
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Current epoch of the patient (0 if never bumped)
+     */
+    public long patientEpoch(Long patientId) {
+        return patientId == null ? 0 : epoch(PATIENT + patientId);
+    }
+
+    /**
+     * Current epoch of the user (0 if never bumped)
+     */
+    public long userEpoch(Long userId) {
+        return userId == null ? 0 : epoch(USER + userId);
+    }
+
+    /**
+     * Invalidate the cached decisions about a patient's resources once the
+     * current transaction commits (consent or relationship change)
+     */
+    public void bumpPatient(Long patientId) {
+        if (patientId != null) {
+            afterCommit(PATIENT + patientId);
+        }
+    }
+
+    /**
+     * Invalidate the cached decisions of a user once the current transaction
+     * commits (user attribute change)
+     */
+    public void bumpUser(Long userId) {
+        if (userId != null) {
+            afterCommit(USER + userId);
+        }
+    }
+
+    /**
+     * Register a listener run with the patient id whenever another node
+     * bumps a patient epoch, before the new epoch is applied on this node
+     * Runs on the message listener thread
+     */
+    public void addRemotePatientListener(LongConsumer listener) {
+        patientListeners.add(listener);
+    }
+
+    /**
+     * Apply an epoch bumped on another node (message: nodeId|key=epoch)
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int origin = body.indexOf(ORIGIN_SEPARATOR);
+        int separator = body.lastIndexOf('=');
+        if (origin < 0 || separator < origin) {
+            log.warn("Ignoring malformed epoch message: {}", body);
+            return;
+        }
+        String key = body.substring(origin + 1, separator);
+        long epoch;
+        try {
+            epoch = Long.parseLong(body.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed epoch message: {}", body);
+            return;
+        }
+        if (key.startsWith(PATIENT) && !body.startsWith(nodeId + ORIGIN_SEPARATOR)) {
+            notifyPatientListeners(key);
+        }
+        epochs.asMap().merge(key, epoch, Math::max);
+    }
+
+    private void notifyPatientListeners(String key) {
+        long patientId;
+        try {
+            patientId = Long.parseLong(key.substring(PATIENT.length()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed patient epoch key: {}", key);
+            return;
+        }
+        for (LongConsumer listener : patientListeners) {
+            try {
+                listener.accept(patientId);
+            } catch (RuntimeException e) {
+                // Listeners handle their own failures; never lose the epoch
+                log.error("Remote patient listener failed for patient {}: {}", patientId, e.getMessage(), e);
+            }
+        }
+    }
+
+    private long epoch(String key) {
+        Long epoch = epochs.get(key);
+        return epoch != null ? epoch : unknownEpoch.getAndIncrement();
+    }
+
+    private Long load(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(KEY_PREFIX + key);
+            return value == null ? 0L : Long.parseLong(value);
+        } catch (RuntimeException e) {
+            // Not cached by the loading cache; retried on the next lookup
+            log.warn("Failed to read cache epoch {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void afterCommit(String key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(key);
+                }
+            });
+        } else {
+            bump(key);
+        }
+    }
+
+    private void bump(String key) {
+        try {
+            Long epoch = redisTemplate.opsForValue().increment(KEY_PREFIX + key);
+            if (epoch == null) {
+                return;
+            }
+            epochs.asMap().merge(key, epoch, Math::max);
+            redisTemplate.convertAndSend(channel, nodeId + ORIGIN_SEPARATOR + key + "=" + epoch);
+            log.debug("Bumped cache epoch {} to {}", key, epoch);
+        } catch (RuntimeException e) {
+            // Cached decisions of this key now live until their TTL
+            log.error("Failed to bump cache epoch {}: {}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.medshare.hub.cache;
+
+import org.springframework.cache.Cache;
+
+/**
+ * NearEntry - Value held by the near tier, with the instant it must expire
+ *
+ * @author MedShare Development Team
+ */
+record NearEntry(Object value, long expiresAtMillis) implements Cache.ValueWrapper {
+
+    @Override
+    public Object get() {
+        return value;
+    }
+}
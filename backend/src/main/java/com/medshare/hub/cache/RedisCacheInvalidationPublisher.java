@@ -0,0 +1,52 @@
+package com.medshare.hub.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * RedisCacheInvalidationPublisher - Broadcasts near cache invalidations over
+ * Redis pub/sub
+ *
+ * Message format: op|nodeId|cacheName|key, where op is E (evict one key) or
+ * C (clear the cache, empty key). Messages published by a node are ignored
+ * by that node's CacheInvalidationListener.
+ *
+ * @author MedShare Development Team
+ */
+@Slf4j
+public class RedisCacheInvalidationPublisher implements CacheInvalidationPublisher {
+
+    static final char EVICT = 'E';
+    static final char CLEAR = 'C';
+    static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String nodeId;
+
+    public RedisCacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel, String nodeId) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public void publishEvict(String cacheName, String key) {
+        publish(EVICT, cacheName, key);
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        publish(CLEAR, cacheName, "");
+    }
+
+    private void publish(char op, String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(channel,
+                    op + String.valueOf(SEPARATOR) + nodeId + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (RuntimeException e) {
+            // Other nodes fall back to near cache TTL expiry
+            log.warn("Failed to publish cache invalidation for {}: {}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.medshare.hub.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TwoTierCache - On-heap near cache in front of a shared remote cache
+ *
+ * Reads are served from the node-local near tier when possible and only go
+ * to the remote tier (Redis) on a near miss; remote hits are copied into the
+ * near tier. Writes and evictions go to both tiers and are broadcast so that
+ * other nodes drop their near copy of the entry.
+ *
+ * Near entries are keyed by the string form of the cache key, which is also
+ * what the remote tier and the invalidation messages use. Entries under an
+ * ExpiringCacheKey expire no later than the key's expiry instant.
+ *
+ * Metrics (tagged with cache name and tier):
+ * - cache.tier.gets (result=hit|miss)
+ * - cache.tier.latency
+ *
+ * @author MedShare Development Team
+ */
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, NearEntry> near;
+    private final Cache remote;
+    private final CacheInvalidationPublisher publisher;
+
+    private final Counter nearHits;
+    private final Counter nearMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Timer nearLatency;
+    private final Timer remoteLatency;
+
+    public TwoTierCache(
+            String name,
+            com.github.benmanes.caffeine.cache.Cache<String, NearEntry> near,
+            Cache remote,
+            CacheInvalidationPublisher publisher,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.near = near;
+        this.remote = remote;
+        this.publisher = publisher;
+        this.nearHits = gets(meterRegistry, "near", "hit");
+        this.nearMisses = gets(meterRegistry, "near", "miss");
+        this.remoteHits = gets(meterRegistry, "remote", "hit");
+        this.remoteMisses = gets(meterRegistry, "remote", "miss");
+        this.nearLatency = latency(meterRegistry, "near");
+        this.remoteLatency = latency(meterRegistry, "remote");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String nearKey = nearKey(key);
+
+        long start = System.nanoTime();
+        ValueWrapper value = near.getIfPresent(nearKey);
+        nearLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (value != null) {
+            nearHits.increment();
+            return value;
+        }
+        nearMisses.increment();
+
+        start = System.nanoTime();
+        value = remote.get(key);
+        remoteLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (value == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        near.put(nearKey, new NearEntry(value.get(), expiresAtMillis(key)));
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        if (value == null) {
+            return null;
+        }
+        Object stored = value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper value = get(key);
+        if (value != null) {
+            return (T) value.get();
+        }
+        T loaded;
+        try {
+            loaded = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String nearKey = nearKey(key);
+        near.put(nearKey, new NearEntry(value, expiresAtMillis(key)));
+        publisher.publishEvict(name, nearKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String nearKey = nearKey(key);
+        near.invalidate(nearKey);
+        publisher.publishEvict(name, nearKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        near.invalidateAll();
+        publisher.publishClear(name);
+    }
+
+    /**
+     * Drop a near entry on behalf of another node
+     */
+    void evictNear(String nearKey) {
+        near.invalidate(nearKey);
+    }
+
+    /**
+     * Drop all near entries on behalf of another node
+     */
+    void clearNear() {
+        near.invalidateAll();
+    }
+
+    private static String nearKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static long expiresAtMillis(Object key) {
+        return key instanceof ExpiringCacheKey expiring ? expiring.expiresAtMillis() : Long.MAX_VALUE;
+    }
+
+    private Counter gets(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Timer latency(MeterRegistry meterRegistry, String tier) {
+        return Timer.builder("cache.tier.latency")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,141 @@
+package com.medshare.hub.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TwoTierCacheManager - Wraps the remote cache manager with per-node near
+ * caches
+ *
+ * Caches listed in nearCacheNames get a bounded, TTL-evicted Caffeine tier
+ * in front of the remote cache; every other cache is served by the remote
+ * cache manager unchanged. Near entries live for the near TTL, or until the
+ * expiry instant of their ExpiringCacheKey if that comes first.
+ *
+ * @author MedShare Development Team
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final Set<String> nearCacheNames;
+    private final long nearMaximumSize;
+    private final Duration nearTimeToLive;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    private volatile CacheInvalidationPublisher publisher = CacheInvalidationPublisher.NONE;
+
+    public TwoTierCacheManager(
+            CacheManager remote,
+            Set<String> nearCacheNames,
+            long nearMaximumSize,
+            Duration nearTimeToLive,
+            MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.nearCacheNames = Set.copyOf(nearCacheNames);
+        this.nearMaximumSize = nearMaximumSize;
+        this.nearTimeToLive = nearTimeToLive;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Set the publisher used to broadcast invalidations
+     * Must be called before the first cache is created
+     */
+    public void setPublisher(CacheInvalidationPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!nearCacheNames.contains(name)) {
+            return remote.getCache(name);
+        }
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, remoteCache));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    /**
+     * Apply an invalidation received from another node
+     *
+     * @param key the string form of the cache key, or null to clear the
+     *            whole near cache
+     */
+    public void onRemoteInvalidation(String cacheName, String key) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache == null) {
+            return;
+        }
+        if (key == null) {
+            cache.clearNear();
+        } else {
+            cache.evictNear(key);
+        }
+    }
+
+    private TwoTierCache createCache(String name, Cache remoteCache) {
+        log.info("Creating two-tier cache '{}' (near tier: max {} entries, ttl {})",
+                name, nearMaximumSize, nearTimeToLive);
+        return new TwoTierCache(
+                name,
+                Caffeine.newBuilder()
+                        .maximumSize(nearMaximumSize)
+                        .expireAfter(new NearEntryExpiry(nearTimeToLive))
+                        .build(),
+                remoteCache,
+                publisher,
+                meterRegistry);
+    }
+
+    /**
+     * Expire near entries after the near TTL or at their expiry instant,
+     * whichever comes first; reads do not extend the lifetime
+     */
+    private record NearEntryExpiry(Duration timeToLive) implements Expiry<String, NearEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, NearEntry entry, long currentTime) {
+            long ttlNanos = timeToLive.toNanos();
+            if (entry.expiresAtMillis() == Long.MAX_VALUE) {
+                return ttlNanos;
+            }
+            long remainingNanos = TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(0, entry.expiresAtMillis() - System.currentTimeMillis()));
+            return Math.min(ttlNanos, remainingNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, NearEntry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, NearEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.medshare.hub.config;
+
+import com.medshare.hub.audit.AuditEventChannel;
+import com.medshare.hub.audit.AuditEventQueue;
+import com.medshare.hub.audit.AuditSpool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Audit Configuration - Channel between request threads and the audit writer
+ *
+ * Configures:
+ * - The durable AuditSpool (default): events survive a crash and are
+ *   replayed on restart; accesses are refused once the spool is full
+ * - The in-memory AuditEventQueue when audit.spool.enabled=false
+ *
+ * @author MedShare Development Team
+ */
+@Configuration
+public class AuditConfig {
+
+    @Value("${audit.spool.enabled:true}")
+    private boolean spoolEnabled;
+
+    @Value("${audit.spool.directory:data/audit-spool}")
+    private Path spoolDirectory;
+
+    @Value("${audit.spool.segment-size-bytes:67108864}")
+    private int segmentSize;
+
+    @Value("${audit.spool.max-size-bytes:1073741824}")
+    private long maxSize;
+
+    @Value("${audit.spool.overflow:BLOCK}")
+    private AuditSpool.OverflowMode overflowMode;
+
+    @Value("${audit.spool.block-timeout-ms:2000}")
+    private long blockTimeoutMs;
+
+    @Value("${audit.spool.force-interval-ms:1000}")
+    private long forceIntervalMs;
+
+    @Value("${audit.queue.capacity:65536}")
+    private int queueCapacity;
+
+    @Bean
+    public AuditEventChannel auditEventChannel(MeterRegistry meterRegistry) throws IOException {
+        if (!spoolEnabled) {
+            return new AuditEventQueue(queueCapacity);
+        }
+        AuditSpool spool = AuditSpool.open(spoolDirectory, segmentSize, maxSize, overflowMode,
+                blockTimeoutMs, forceIntervalMs);
+        Gauge.builder("audit.spool.bytes", spool, AuditSpool::pendingBytes)
+                .description("Unacknowledged bytes in the audit spool")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return spool;
+    }
+}
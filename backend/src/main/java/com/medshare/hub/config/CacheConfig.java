@@ -0,0 +1,93 @@
+package com.medshare.hub.config;
+
+import com.medshare.hub.cache.CacheInvalidationListener;
+import com.medshare.hub.cache.ExpiringCacheKey;
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.cache.RedisCacheInvalidationPublisher;
+import com.medshare.hub.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Cache Configuration - Two-tier caching (Caffeine near cache + Redis)
+ *
+ * Configures:
+ * - Redis as the shared cache tier (entries under an ExpiringCacheKey
+ *   expire at the key's expiry instant)
+ * - Per-node Caffeine near caches for the hottest caches
+ * - Redis pub/sub invalidation of near caches across nodes
+ * - Redis pub/sub propagation of cache invalidation epochs
+ *
+ * @author MedShare Development Team
+ */
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Identifies this node in invalidation messages
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${spring.cache.redis.time-to-live:300000}")
+    private long redisTimeToLiveMs;
+
+    @Value("${cache.near.names:policyDecisions,users,patients}")
+    private Set<String> nearCacheNames;
+
+    @Value("${cache.near.maximum-size:10000}")
+    private long nearMaximumSize;
+
+    @Value("${cache.near.time-to-live-ms:60000}")
+    private long nearTimeToLiveMs;
+
+    @Value("${cache.invalidation.channel:medshare:cache:invalidation}")
+    private String invalidationChannel;
+
+    @Bean
+    public TwoTierCacheManager cacheManager(
+            RedisConnectionFactory connectionFactory,
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry) {
+        Duration redisTimeToLive = Duration.ofMillis(redisTimeToLiveMs);
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl((key, value) -> ExpiringCacheKey.timeToLive(key, redisTimeToLive)))
+                .build();
+        redisCacheManager.afterPropertiesSet();
+
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+                redisCacheManager,
+                nearCacheNames,
+                nearMaximumSize,
+                Duration.ofMillis(nearTimeToLiveMs),
+                meterRegistry);
+        cacheManager.setPublisher(new RedisCacheInvalidationPublisher(redisTemplate, invalidationChannel, nodeId));
+        return cacheManager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory connectionFactory,
+            TwoTierCacheManager cacheManager,
+            InvalidationEpochs invalidationEpochs) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                new CacheInvalidationListener(cacheManager, nodeId),
+                new ChannelTopic(invalidationChannel));
+        container.addMessageListener(invalidationEpochs, new ChannelTopic(invalidationEpochs.getChannel()));
+        return container;
+    }
+}
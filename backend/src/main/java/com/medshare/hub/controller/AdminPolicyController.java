@@ -0,0 +1,60 @@
+package com.medshare.hub.controller;
+
+import com.medshare.hub.abac.PolicyEvaluator;
+import com.medshare.hub.abac.dsl.DeclarativePolicyLoader;
+import com.medshare.hub.abac.dsl.PolicyDefinitionException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * AdminPolicyController - ABAC policy administration endpoints
+ * 
+ * Endpoints:
+ * - GET /api/admin/policies - Current policy set
+ * - POST /api/admin/policies/reload - Recompile the declarative policies
+ * 
+ * Restricted to ADMIN users.
+ * 
+ * @author MedShare Development Team
+ */
+@RestController
+@RequestMapping("/api/admin/policies")
+@RequiredArgsConstructor
+@Slf4j
+@PreAuthorize("hasRole('ADMIN')")
+@CrossOrigin(origins = { "http://localhost:5173", "http://localhost:3000" })
+public class AdminPolicyController {
+
+    private final PolicyEvaluator policyEvaluator;
+    private final DeclarativePolicyLoader declarativePolicyLoader;
+
+    /**
+     * Get the current policy set
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getPolicies() {
+        return ResponseEntity.ok(Map.of(
+                "version", policyEvaluator.getPolicyVersion(),
+                "policies", policyEvaluator.getRegisteredPolicies()));
+    }
+
+    /**
+     * Reload the declarative policies
+     * An invalid policy file is rejected and the current policies stay active
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadPolicies() {
+        try {
+            declarativePolicyLoader.reload();
+        } catch (PolicyDefinitionException e) {
+            log.warn("Rejected declarative policy reload: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return getPolicies();
+    }
+}
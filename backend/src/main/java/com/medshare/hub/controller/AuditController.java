@@ -1,16 +1,44 @@
 package com.medshare.hub.controller;
 
+import com.medshare.hub.audit.ComplianceReportFormat;
+import com.medshare.hub.audit.anomaly.AnomalyAlert;
+import com.medshare.hub.dto.AuditRollup;
+import com.medshare.hub.dto.CursorPage;
+import com.medshare.hub.dto.PageCursor;
 import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.security.CustomUserDetails;
 import com.medshare.hub.service.AuditService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
 
 /**
  * AuditController - Endpoints for retrieving audit logs
+ * 
+ * Endpoints:
+ * - GET /api/audit/patient/{patientId} - Access logs of a patient's records
+ * - GET /api/audit/user/{userId} - Access logs of a user
+ * Both are newest first with keyset pagination (cursor, size) and no
+ * total count
+ * - GET /api/audit/compliance/export - Compliance report as NDJSON or CSV
+ * (ADMIN only)
+ * - GET /api/audit/anomalies - Recent real-time anomaly alerts (ADMIN only)
+ * - GET /api/audit/rollups - Access counts per hour or day (ADMIN only)
+ * - GET /api/audit/rollups/summary - Access totals over a range (ADMIN only)
  */
 @RestController
 @RequestMapping("/api/audit")
@@ -19,28 +47,155 @@ import org.springframework.web.bind.annotation.*;
 @CrossOrigin(origins = { "http://localhost:5173", "http://localhost:3000" })
 public class AuditController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final AuditService auditService;
 
     /**
-     * Get access logs for a specific patient
+     * Get access logs for a specific patient, newest first
      * Used in Patient Portal and Provider Medical Record View
+     * Keyset pagination: pass the previous page's nextCursor as cursor
      */
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<Page<AccessLog>> getPatientAccessLogs(
+    public ResponseEntity<?> getPatientAccessLogs(
             @PathVariable Long patientId,
-            Pageable pageable) {
-        Page<AccessLog> logs = auditService.getPatientAccessLogs(patientId, pageable);
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        CursorPage<AccessLog> logs = auditService.getPatientAccessLogs(patientId, after, pageSize(size));
         return ResponseEntity.ok(logs);
     }
 
     /**
-     * Get access logs for a specific user (Provider's activity)
+     * Get access logs for a specific user (Provider's activity), newest first
+     * Keyset pagination: pass the previous page's nextCursor as cursor
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<Page<AccessLog>> getUserAccessLogs(
+    public ResponseEntity<?> getUserAccessLogs(
             @PathVariable Long userId,
-            Pageable pageable) {
-        Page<AccessLog> logs = auditService.getUserAccessLogs(userId, pageable);
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size) {
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        CursorPage<AccessLog> logs = auditService.getUserAccessLogs(userId, after, pageSize(size));
         return ResponseEntity.ok(logs);
     }
+
+    /**
+     * Get the most recent anomaly alerts, newest first
+     */
+    @GetMapping("/anomalies")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AnomalyAlert>> getRecentAnomalies() {
+        return ResponseEntity.ok(auditService.getRecentAnomalies());
+    }
+
+    /**
+     * Get access counts per hour or day between startDate and endDate
+     * (exclusive), by decision, policy, resource type and emergency flag
+     * Served from the hourly rollups; startDate is rounded down to the hour
+     */
+    @GetMapping("/rollups")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAccessRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false, defaultValue = "hour") String granularity) {
+        AuditRollup.Granularity bucketSize;
+        try {
+            bucketSize = AuditRollup.Granularity.fromParameter(granularity);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "endDate is before startDate"));
+        }
+        return ResponseEntity.ok(auditService.getAccessRollups(startDate, endDate, bucketSize));
+    }
+
+    /**
+     * Get permitted, denied and emergency access totals between startDate
+     * and endDate (exclusive), from the hourly rollups
+     */
+    @GetMapping("/rollups/summary")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getAccessSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "endDate is before startDate"));
+        }
+        return ResponseEntity.ok(auditService.getAccessSummary(startDate, endDate));
+    }
+
+    /**
+     * Export every access attempt between startDate and endDate (inclusive)
+     * The report is streamed as it is read, so it can cover any range;
+     * the export itself is recorded in the audit trail
+     */
+    @GetMapping("/compliance/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> exportComplianceReport(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false, defaultValue = "ndjson") String format,
+            Authentication authentication,
+            HttpServletRequest request) {
+        ComplianceReportFormat reportFormat;
+        try {
+            reportFormat = ComplianceReportFormat.fromParameter(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        if (endDate.isBefore(startDate)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "endDate is before startDate"));
+        }
+
+        auditService.logAccess(
+                extractUserIdFromAuth(authentication),
+                null,
+                "COMPLIANCE_REPORT",
+                null,
+                AccessLog.Action.EXPORT,
+                AccessLog.Decision.PERMIT,
+                null,
+                null,
+                false,
+                "Compliance report " + startDate + " to " + endDate,
+                request.getRemoteAddr(),
+                request.getSession().getId());
+
+        String filename = "compliance-report-" + startDate.format(DateTimeFormatter.BASIC_ISO_DATE)
+                + "-" + endDate.format(DateTimeFormatter.BASIC_ISO_DATE) + "." + reportFormat.getFileExtension();
+        StreamingResponseBody body = out -> auditService.exportComplianceReport(
+                startDate, endDate, reportFormat, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(reportFormat.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    private static int pageSize(Integer size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    /**
+     * Extract user ID from authentication
+     */
+    private Long extractUserIdFromAuth(Authentication authentication) {
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            return userDetails.getUserId();
+        }
+        throw new com.medshare.hub.exception.ResourceNotFoundException("User identity not found in security context");
+    }
 }
@@ -1,29 +1,38 @@
 package com.medshare.hub.controller;
 
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.dto.CursorPage;
+import com.medshare.hub.dto.MedicalRecordSummary;
+import com.medshare.hub.dto.PageCursor;
 import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.redaction.MedicalRecordJsonWriter;
+import com.medshare.hub.service.AuthorizedRecord;
 import com.medshare.hub.service.MedicalRecordService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * MedicalRecordController - Medical record access endpoints
  * 
  * All endpoints pass through ABAC authorization.
  * Access is logged to audit trail.
+ * Records are streamed to the response, with content redacted on the way
+ * out according to the decision's obligations. Listings return summaries
+ * without content.
  * 
  * Endpoints:
  * - GET /api/records/{id} - Get single record
- * - GET /api/records/patient/{patientId} - Get patient's records
+ * - GET /api/records/patient/{patientId} - Get summaries of patient's records
  * - POST /api/records - Create new record
  * 
  * @author MedShare Development Team
@@ -35,14 +44,17 @@ import java.time.LocalDateTime;
 @CrossOrigin(origins = { "http://localhost:5173", "http://localhost:3000" })
 public class MedicalRecordController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final MedicalRecordService medicalRecordService;
+    private final MedicalRecordJsonWriter medicalRecordJsonWriter;
 
     /**
      * Get medical record by ID
      * ABAC authorization performed in service layer
      */
     @GetMapping("/{recordId}")
-    public ResponseEntity<MedicalRecord> getRecord(
+    public ResponseEntity<StreamingResponseBody> getRecord(
             @PathVariable Long recordId,
             @RequestParam(required = false, defaultValue = "false") Boolean isEmergency,
             @RequestParam(required = false) String justification,
@@ -60,9 +72,11 @@ public class MedicalRecordController {
                 .build();
 
         try {
-            MedicalRecord record = medicalRecordService.getRecordWithAuthorization(
+            AuthorizedRecord record = medicalRecordService.getRecordWithAuthorization(
                     recordId, userId, environment);
-            return ResponseEntity.ok(record);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> medicalRecordJsonWriter.writeRecord(out, record));
         } catch (AccessDeniedException e) {
             log.warn("Access denied for user {} to record {}: {}", userId, recordId, e.getMessage());
             return ResponseEntity.status(403).build();
@@ -70,12 +84,14 @@ public class MedicalRecordController {
     }
 
     /**
-     * Get patient's medical records (paginated)
+     * Get summaries of a patient's medical records, newest first
+     * Keyset pagination: pass the previous page's nextCursor as cursor
      */
     @GetMapping("/patient/{patientId}")
-    public ResponseEntity<Page<MedicalRecord>> getPatientRecords(
+    public ResponseEntity<?> getPatientRecords(
             @PathVariable Long patientId,
-            Pageable pageable,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "20") Integer size,
             @RequestParam(required = false, defaultValue = "false") Boolean isEmergency,
             @RequestParam(required = false) String justification,
             Authentication authentication,
@@ -90,8 +106,15 @@ public class MedicalRecordController {
                 .sessionId(request.getSession().getId())
                 .build();
 
-        Page<MedicalRecord> records = medicalRecordService.getPatientRecords(
-                patientId, userId, environment, pageable);
+        PageCursor after;
+        try {
+            after = PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        CursorPage<MedicalRecordSummary> records = medicalRecordService.getPatientRecords(
+                patientId, userId, environment, after, Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
 
         return ResponseEntity.ok(records);
     }
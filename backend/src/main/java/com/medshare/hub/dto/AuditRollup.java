@@ -0,0 +1,43 @@
+package com.medshare.hub.dto;
+
+import com.medshare.hub.entity.AccessLog;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * AuditRollup DTO - Access count of one time bucket for one decision,
+ * policy, resource type and emergency flag
+ *
+ * Read from the pre-aggregated access_log_hourly_rollups table, never from
+ * access_logs. policyMatched is null for decisions no policy matched.
+ */
+public record AuditRollup(
+        LocalDateTime bucketStart,
+        AccessLog.Decision decision,
+        String policyMatched,
+        String resourceType,
+        boolean emergency,
+        long count) {
+
+    /**
+     * Size of the time buckets
+     */
+    public enum Granularity {
+        HOUR,
+        DAY;
+
+        /**
+         * Parse a request parameter (case-insensitive)
+         *
+         * @throws IllegalArgumentException if the granularity is not supported
+         */
+        public static Granularity fromParameter(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported granularity: " + value + " (hour or day)");
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.medshare.hub.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * AuditSummary DTO - Access totals over a time range, for dashboard tiles
+ *
+ * Covers the whole hours from start (inclusive) to end (exclusive).
+ */
+public record AuditSummary(
+        LocalDateTime start,
+        LocalDateTime end,
+        long total,
+        long permitted,
+        long denied,
+        long emergency) {
+}
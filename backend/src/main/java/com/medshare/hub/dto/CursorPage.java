@@ -0,0 +1,17 @@
+package com.medshare.hub.dto;
+
+import java.util.List;
+
+/**
+ * CursorPage DTO - One page of a keyset-paginated listing
+ *
+ * nextCursor is passed back as the cursor parameter to fetch the following
+ * page; it is null on the last page. content may hold fewer than size
+ * items when rows were filtered out after the query.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, int size, boolean hasNext) {
+
+    public static <T> CursorPage<T> empty(int size) {
+        return new CursorPage<>(List.of(), null, size, false);
+    }
+}
@@ -0,0 +1,30 @@
+package com.medshare.hub.dto;
+
+import com.medshare.hub.entity.MedicalRecord;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * MedicalRecordSummary DTO - Medical record metadata for list views
+ *
+ * Selected directly by the listing query (no entity, no JSONB content, no
+ * lazy associations); full content is only loaded by detail reads.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicalRecordSummary {
+
+    private Long recordId;
+    private Long patientId;
+    private MedicalRecord.RecordType recordType;
+    private String title;
+    private String description;
+    private MedicalRecord.SensitivityLevel sensitivityLevel;
+    private Long createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,63 @@
+package com.medshare.hub.dto;
+
+import com.medshare.hub.entity.AccessLog;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * PageCursor DTO - Keyset position in a newest-first listing
+ *
+ * Identifies the last row of a page by (createdAt, id), id being the
+ * row's primary key (recordId, logId); the next page starts strictly
+ * after it. Sent to clients as an opaque URL-safe token.
+ */
+public record PageCursor(LocalDateTime createdAt, Long id) {
+
+    /**
+     * Cursor positioned after the given record
+     */
+    public static PageCursor after(MedicalRecordSummary summary) {
+        return new PageCursor(summary.getCreatedAt(), summary.getRecordId());
+    }
+
+    /**
+     * Cursor positioned after the given access log
+     */
+    public static PageCursor after(AccessLog accessLog) {
+        return new PageCursor(accessLog.getCreatedAt(), accessLog.getLogId());
+    }
+
+    /**
+     * Opaque token for this cursor
+     */
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a token produced by encode
+     *
+     * @return the cursor, or null for a null or blank token (first page)
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+    }
+}
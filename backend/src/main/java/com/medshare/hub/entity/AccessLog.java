@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
  * Access Log Entity - Immutable audit trail for HIPAA compliance
  * 
  * Records every access attempt (permit or deny) for comprehensive auditing.
- * Logs are tamper-proof (no updates/deletes allowed via database rules).
+ * Logs are tamper-proof (no updates/deletes allowed via database triggers)
+ * and stored in monthly partitions of access_logs (V8 migration).
  * 
  * Includes:
  * - Who accessed (user)
@@ -3,7 +3,9 @@ package com.medshare.hub.entity;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
@@ -59,8 +61,15 @@ public class MedicalRecord {
     @Column(name = "sensitivity_level", nullable = false, length = 50)
     private SensitivityLevel sensitivityLevel;
 
+    /**
+     * FHIR content, loaded on first access only (bytecode-enhanced lazy
+     * attribute): metadata queries do not transfer the JSONB column
+     */
+    @Basic(fetch = FetchType.LAZY)
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(nullable = false, columnDefinition = "jsonb")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Map<String, Object> content;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -1,5 +1,6 @@
 package com.medshare.hub.entity;
 
+import com.medshare.hub.abac.pip.TreatmentRelationshipIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -26,7 +27,7 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "treatment_relationships")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({ AuditingEntityListener.class, TreatmentRelationshipIndexListener.class })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
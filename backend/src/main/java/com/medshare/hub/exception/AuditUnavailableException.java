@@ -0,0 +1,24 @@
+package com.medshare.hub.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * AuditUnavailableException - Thrown when an access cannot be audited
+ *
+ * Every access must be recorded before data is returned; when the audit
+ * trail cannot accept the event (spool full), the request fails instead.
+ *
+ * @author MedShare Development Team
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class AuditUnavailableException extends RuntimeException {
+
+    public AuditUnavailableException(String message) {
+        super(message);
+    }
+
+    public AuditUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
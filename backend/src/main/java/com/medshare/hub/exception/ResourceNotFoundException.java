@@ -0,0 +1,18 @@
+package com.medshare.hub.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * ResourceNotFoundException - Thrown when a requested resource or identity
+ * cannot be resolved
+ *
+ * @author MedShare Development Team
+ */
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class ResourceNotFoundException extends RuntimeException {
+
+    public ResourceNotFoundException(String message) {
+        super(message);
+    }
+}
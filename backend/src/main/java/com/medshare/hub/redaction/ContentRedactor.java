@@ -0,0 +1,125 @@
+package com.medshare.hub.redaction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medshare.hub.abac.Obligation;
+import com.medshare.hub.abac.PolicyDecision;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ContentRedactor - Obligation-driven redaction of medical record content
+ *
+ * Each redaction obligation maps to a set of JSON paths. Content is
+ * written through a filtering generator that drops those paths token by
+ * token, so:
+ * - Raw JSON is redacted in one streaming pass without building an object
+ *   tree; without content obligations it is passed through as is
+ * - The JSON text itself is held in memory: the PostgreSQL driver
+ *   materializes the whole column value, so memory still grows with the
+ *   document size
+ * - The Hibernate-managed content map is never read or modified
+ *
+ * The filter for each combination of obligations is compiled once.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ContentRedactor {
+
+    /**
+     * Content paths removed by each redaction obligation
+     */
+    static final Map<Obligation, List<String>> REDACTED_PATHS = new EnumMap<>(Map.of(
+            Obligation.REDACT_CLINICAL_NOTES, List.of("clinicalNotes", "providerComments"),
+            Obligation.REDACT_SENSITIVE_DIAGNOSES, List.of("sensitiveDiagnoses", "psychiatricNotes")));
+
+    private final ObjectMapper objectMapper;
+    private final Map<Integer, TokenFilter> filters = new ConcurrentHashMap<>();
+
+    /**
+     * Whether the decision requires any part of the content to be removed
+     */
+    public boolean requiresRedaction(PolicyDecision decision) {
+        return redactionKey(decision) != 0;
+    }
+
+    /**
+     * Write raw JSON content (as read from the JSONB column) to the
+     * generator
+     * Without content obligations the text is spliced into the output
+     * untouched: no parsing, no re-serialization. Otherwise it is streamed
+     * through the redaction filter.
+     */
+    public void write(JsonGenerator generator, String json, PolicyDecision decision) throws IOException {
+        if (json == null) {
+            generator.writeNull();
+        } else if (!requiresRedaction(decision)) {
+            generator.writeRawValue(json);
+        } else {
+            write(generator, new StringReader(json), decision);
+        }
+    }
+
+    /**
+     * Stream raw JSON content to the generator, dropping the paths the
+     * decision's obligations require
+     */
+    public void write(JsonGenerator generator, Reader json, PolicyDecision decision) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() == null) {
+                generator.writeNull();
+                return;
+            }
+            redacting(generator, decision).copyCurrentStructure(parser);
+        }
+    }
+
+    private JsonGenerator redacting(JsonGenerator generator, PolicyDecision decision) {
+        int key = redactionKey(decision);
+        if (key == 0) {
+            return generator;
+        }
+        TokenFilter filter = filters.computeIfAbsent(key, ContentRedactor::compile);
+        return new FilteringGeneratorDelegate(generator, filter, TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true);
+    }
+
+    private static int redactionKey(PolicyDecision decision) {
+        if (!decision.hasObligations()) {
+            return 0;
+        }
+        int key = 0;
+        for (Obligation obligation : REDACTED_PATHS.keySet()) {
+            if (decision.hasObligation(obligation)) {
+                key |= obligation.bit();
+            }
+        }
+        return key;
+    }
+
+    private static TokenFilter compile(int key) {
+        List<String> paths = new ArrayList<>();
+        REDACTED_PATHS.forEach((obligation, obligationPaths) -> {
+            if ((key & obligation.bit()) != 0) {
+                paths.addAll(obligationPaths);
+            }
+        });
+        log.debug("Compiled redaction filter for paths {}", paths);
+        return RedactionFilter.compile(paths);
+    }
+}
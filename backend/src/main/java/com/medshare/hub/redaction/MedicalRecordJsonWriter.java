@@ -0,0 +1,62 @@
+package com.medshare.hub.redaction;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.service.AuthorizedRecord;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * MedicalRecordJsonWriter - Writes authorized medical records straight to
+ * the response
+ *
+ * Record metadata is written field by field and the content is passed
+ * through ContentRedactor, so redaction obligations are applied on the
+ * way out without copying or modifying the entity.
+ *
+ * Output matches the previous entity serialization for the fields clients
+ * use (recordId, recordType, title, description, sensitivityLevel,
+ * content, createdAt, updatedAt); related entities are written as ids.
+ *
+ * @author MedShare Development Team
+ */
+@Component
+@RequiredArgsConstructor
+public class MedicalRecordJsonWriter {
+
+    private final ObjectMapper objectMapper;
+    private final ContentRedactor contentRedactor;
+
+    /**
+     * Write one record
+     */
+    public void writeRecord(OutputStream out, AuthorizedRecord record) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            write(generator, record);
+        }
+    }
+
+    private void write(JsonGenerator generator, AuthorizedRecord authorized) throws IOException {
+        MedicalRecord record = authorized.record();
+        generator.writeStartObject();
+        generator.writeObjectField("recordId", record.getRecordId());
+        generator.writeObjectField("patientId",
+                record.getPatient() == null ? null : record.getPatient().getPatientId());
+        generator.writeObjectField("recordType", record.getRecordType());
+        generator.writeStringField("title", record.getTitle());
+        generator.writeStringField("description", record.getDescription());
+        generator.writeObjectField("sensitivityLevel", record.getSensitivityLevel());
+        generator.writeFieldName("content");
+        contentRedactor.write(generator, authorized.contentJson(), authorized.decision());
+        generator.writeObjectField("createdBy",
+                record.getCreatedBy() == null ? null : record.getCreatedBy().getUserId());
+        generator.writeObjectField("createdAt", record.getCreatedAt());
+        generator.writeObjectField("updatedAt", record.getUpdatedAt());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,80 @@
+package com.medshare.hub.redaction;
+
+import com.fasterxml.jackson.core.filter.TokenFilter;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RedactionFilter - Jackson token filter dropping a set of JSON paths
+ *
+ * Paths are dot-separated property names; "*" matches any property or any
+ * array element (e.g. "entry.*.resource.note"). An exact property name
+ * takes precedence over "*" at the same level. The paths are compiled into
+ * a trie: each token is matched with one map lookup, and subtrees without
+ * a redacted path below them are passed through as a whole.
+ *
+ * Objects and arrays emptied by redaction are kept (as {} and []), so the
+ * document keeps its shape.
+ *
+ * @author MedShare Development Team
+ */
+final class RedactionFilter extends TokenFilter {
+
+    private static final String ANY = "*";
+
+    private final Map<String, RedactionFilter> children = new HashMap<>();
+    private boolean redacted;
+
+    private RedactionFilter() {
+    }
+
+    /**
+     * Compile a set of paths into a filter
+     *
+     * @throws IllegalArgumentException for a path with an empty segment
+     */
+    static RedactionFilter compile(Collection<String> paths) {
+        RedactionFilter root = new RedactionFilter();
+        for (String path : paths) {
+            RedactionFilter node = root;
+            for (String segment : path.split("\\.", -1)) {
+                if (segment.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid redaction path: " + path);
+                }
+                node = node.children.computeIfAbsent(segment, name -> new RedactionFilter());
+            }
+            node.redacted = true;
+        }
+        return root;
+    }
+
+    @Override
+    public TokenFilter includeProperty(String name) {
+        RedactionFilter child = children.get(name);
+        return select(child != null ? child : children.get(ANY));
+    }
+
+    @Override
+    public TokenFilter includeElement(int index) {
+        return select(children.get(ANY));
+    }
+
+    @Override
+    public boolean includeEmptyObject(boolean contentsFiltered) {
+        return true;
+    }
+
+    @Override
+    public boolean includeEmptyArray(boolean contentsFiltered) {
+        return true;
+    }
+
+    private static TokenFilter select(RedactionFilter child) {
+        if (child == null) {
+            return TokenFilter.INCLUDE_ALL;
+        }
+        return child.redacted ? null : child;
+    }
+}
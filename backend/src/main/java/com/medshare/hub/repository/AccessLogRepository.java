@@ -15,24 +15,15 @@ import java.util.List;
  * AccessLogRepository - Data access for Access Logs (Audit Trail)
  * 
  * Provides queries for HIPAA-compliant audit log retrieval and analysis.
- * Note: Logs are immutable (no updates/deletes allowed by database rules).
+ * Note: Logs are immutable (no updates/deletes allowed by database triggers).
+ * The table is partitioned by month on created_at: queries bounded by
+ * createdAt only scan the partitions they cover. User and patient
+ * activity is listed with keyset pagination (AccessLogRepositoryCustom).
  * 
  * @author MedShare Development Team
  */
 @Repository
-public interface AccessLogRepository extends JpaRepository<AccessLog, Long> {
-
-    /**
-     * Find access logs by user (paginated)
-     * For user activity auditing
-     */
-    Page<AccessLog> findByUser_UserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
-
-    /**
-     * Find access logs by patient (paginated)
-     * For patient record access transparency
-     */
-    Page<AccessLog> findByPatient_PatientIdOrderByCreatedAtDesc(Long patientId, Pageable pageable);
+public interface AccessLogRepository extends JpaRepository<AccessLog, Long>, AccessLogRepositoryCustom {
 
     /**
      * Find denied access attempts (security monitoring)
@@ -64,6 +55,9 @@ public interface AccessLogRepository extends JpaRepository<AccessLog, Long> {
 
     /**
      * Find access logs by date range (compliance reporting)
+     * The range is on the partition key (created_at), so only the monthly
+     * partitions it overlaps are scanned; the bounds are bind parameters,
+     * so PostgreSQL prunes at executor startup even for generic plans
      */
     @Query("SELECT al FROM AccessLog al WHERE " +
             "al.createdAt BETWEEN :startDate AND :endDate " +
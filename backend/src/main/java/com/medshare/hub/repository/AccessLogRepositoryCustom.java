@@ -0,0 +1,38 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.AccessLog;
+
+import java.util.List;
+
+/**
+ * AccessLogRepositoryCustom - Keyset-paginated access log queries
+ *
+ * Pages are newest first, ordered by (createdAt, logId). A page starts
+ * strictly after the previous page's last row, so page N costs the same
+ * as page 1 and no total count is computed.
+ *
+ * @author MedShare Development Team
+ */
+public interface AccessLogRepositoryCustom {
+
+    /**
+     * Access logs of a user (served by the per-partition user_id,
+     * created_at index)
+     *
+     * @param after position of the previous page's last row, or null for
+     *              the first page
+     * @param limit maximum number of rows
+     */
+    List<AccessLog> findByUserBefore(Long userId, PageCursor after, int limit);
+
+    /**
+     * Access logs of a patient's records (served by the per-partition
+     * patient_id, created_at index)
+     *
+     * @param after position of the previous page's last row, or null for
+     *              the first page
+     * @param limit maximum number of rows
+     */
+    List<AccessLog> findByPatientBefore(Long patientId, PageCursor after, int limit);
+}
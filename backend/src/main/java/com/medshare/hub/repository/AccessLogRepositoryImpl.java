@@ -0,0 +1,69 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.AccessLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AccessLogRepositoryImpl - Criteria implementation of
+ * AccessLogRepositoryCustom
+ *
+ * The keyset predicate is written as
+ * createdAt &lt;= :createdAt AND (createdAt &lt; :createdAt OR logId &lt; :logId)
+ * so that its first conjunct is a range condition on the second column of
+ * the (user_id | patient_id, created_at DESC) indexes: the scan starts at
+ * the cursor instead of skipping the rows of previous pages.
+ *
+ * @author MedShare Development Team
+ */
+@RequiredArgsConstructor
+public class AccessLogRepositoryImpl implements AccessLogRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<AccessLog> findByUserBefore(Long userId, PageCursor after, int limit) {
+        return findBefore("user", "userId", userId, after, limit);
+    }
+
+    @Override
+    public List<AccessLog> findByPatientBefore(Long patientId, PageCursor after, int limit) {
+        return findBefore("patient", "patientId", patientId, after, limit);
+    }
+
+    private List<AccessLog> findBefore(String association, String idAttribute, Long id, PageCursor after,
+            int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AccessLog> query = cb.createQuery(AccessLog.class);
+        Root<AccessLog> root = query.from(AccessLog.class);
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> logId = root.get("logId");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(root.get(association).get(idAttribute), id));
+        if (after != null) {
+            predicates.add(cb.lessThanOrEqualTo(createdAt, after.createdAt()));
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, after.createdAt()),
+                    cb.lessThan(logId, after.id())));
+        }
+
+        query.select(root)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(logId));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
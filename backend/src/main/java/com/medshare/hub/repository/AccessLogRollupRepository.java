@@ -0,0 +1,77 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.dto.AuditRollup;
+import com.medshare.hub.dto.AuditSummary;
+import com.medshare.hub.entity.AccessLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * AccessLogRollupRepository - Dashboard queries on the hourly access
+ * rollups
+ *
+ * access_log_hourly_rollups holds one row per hour x decision x policy x
+ * resource type x emergency flag, maintained by AuditBatchWriter, so these
+ * queries read a few rows per hour of the range instead of every access
+ * log in it. Ranges are in whole hours: the start is rounded down to the
+ * hour and the end is exclusive.
+ *
+ * @author MedShare Development Team
+ */
+@Repository
+@RequiredArgsConstructor
+public class AccessLogRollupRepository {
+
+    private static final String FIND_ROLLUPS = "SELECT date_trunc(?, bucket_start) AS bucket, decision, "
+            + "policy_matched, resource_type, is_emergency, SUM(event_count) AS event_count "
+            + "FROM access_log_hourly_rollups WHERE bucket_start >= ? AND bucket_start < ? "
+            + "GROUP BY 1, 2, 3, 4, 5 ORDER BY 1, 2, 3 NULLS FIRST, 4, 5";
+
+    private static final String SUMMARIZE = "SELECT COALESCE(SUM(event_count), 0), "
+            + "COALESCE(SUM(event_count) FILTER (WHERE decision = 'PERMIT'), 0), "
+            + "COALESCE(SUM(event_count) FILTER (WHERE decision = 'DENY'), 0), "
+            + "COALESCE(SUM(event_count) FILTER (WHERE is_emergency), 0) "
+            + "FROM access_log_hourly_rollups WHERE bucket_start >= ? AND bucket_start < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Access counts per time bucket, decision, policy, resource type and
+     * emergency flag, in chronological order
+     */
+    public List<AuditRollup> findRollups(
+            LocalDateTime start,
+            LocalDateTime end,
+            AuditRollup.Granularity granularity) {
+        return jdbcTemplate.query(FIND_ROLLUPS,
+                (rs, rowNum) -> new AuditRollup(
+                        rs.getTimestamp("bucket").toLocalDateTime(),
+                        AccessLog.Decision.valueOf(rs.getString("decision")),
+                        rs.getString("policy_matched"),
+                        rs.getString("resource_type"),
+                        rs.getBoolean("is_emergency"),
+                        rs.getLong("event_count")),
+                granularity.name().toLowerCase(Locale.ROOT),
+                Timestamp.valueOf(start.truncatedTo(ChronoUnit.HOURS)),
+                Timestamp.valueOf(end));
+    }
+
+    /**
+     * Access totals over the range
+     */
+    public AuditSummary summarize(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.HOURS);
+        return jdbcTemplate.queryForObject(SUMMARIZE,
+                (rs, rowNum) -> new AuditSummary(from, end,
+                        rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+                Timestamp.valueOf(from),
+                Timestamp.valueOf(end));
+    }
+}
@@ -1,13 +1,19 @@
 package com.medshare.hub.repository;
 
 import com.medshare.hub.entity.Consent;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * ConsentRepository - Data access for Patient Consents
@@ -50,6 +56,24 @@ public interface ConsentRepository extends JpaRepository<Consent, Long> {
             @Param("purpose") Consent.Purpose purpose,
             @Param("dataType") Consent.DataType dataType);
 
+    /**
+     * Find which of the given patients have a valid consent for the user,
+     * purpose and data type
+     * Bulk variant of hasValidConsent for batch ABAC evaluation
+     */
+    @Query("SELECT DISTINCT c.patient.patientId FROM Consent c WHERE " +
+            "c.patient.patientId IN :patientIds AND " +
+            "c.grantedToUser.userId = :userId AND " +
+            "c.purpose = :purpose AND " +
+            "(c.dataType = 'ALL' OR c.dataType = :dataType) AND " +
+            "c.revoked = false AND " +
+            "(c.expiresAt IS NULL OR c.expiresAt > CURRENT_TIMESTAMP)")
+    List<Long> findPatientIdsWithValidConsent(
+            @Param("patientIds") Collection<Long> patientIds,
+            @Param("userId") Long userId,
+            @Param("purpose") Consent.Purpose purpose,
+            @Param("dataType") Consent.DataType dataType);
+
     /**
      * Find all active consents for a patient
      */
@@ -75,4 +99,65 @@ public interface ConsentRepository extends JpaRepository<Consent, Long> {
      * Find all consents (including revoked) for patient - for audit purposes
      */
     List<Consent> findByPatient_PatientIdOrderByGrantedAtDesc(Long patientId);
+
+    /**
+     * Stream the keys of all valid consents granted to a user
+     * Used to bulk-load the in-memory ConsentIndex
+     * Must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT c.patient.patientId AS patientId, " +
+            "c.grantedToUser.userId AS userId, " +
+            "c.purpose AS purpose, " +
+            "c.dataType AS dataType, " +
+            "c.expiresAt AS expiresAt " +
+            "FROM Consent c WHERE " +
+            "c.grantedToUser IS NOT NULL AND " +
+            "c.purpose IS NOT NULL AND " +
+            "c.dataType IS NOT NULL AND " +
+            "c.revoked = false AND " +
+            "(c.expiresAt IS NULL OR c.expiresAt > CURRENT_TIMESTAMP)")
+    Stream<ValidConsentKey> streamValidUserConsentKeys();
+
+    /**
+     * Find the keys of the valid consents of a patient granted to users
+     * Used to refresh one patient in the in-memory ConsentIndex
+     */
+    @Query("SELECT c.patient.patientId AS patientId, " +
+            "c.grantedToUser.userId AS userId, " +
+            "c.purpose AS purpose, " +
+            "c.dataType AS dataType, " +
+            "c.expiresAt AS expiresAt " +
+            "FROM Consent c WHERE " +
+            "c.patient.patientId = :patientId AND " +
+            "c.grantedToUser IS NOT NULL AND " +
+            "c.purpose IS NOT NULL AND " +
+            "c.dataType IS NOT NULL AND " +
+            "c.revoked = false AND " +
+            "(c.expiresAt IS NULL OR c.expiresAt > CURRENT_TIMESTAMP)")
+    List<ValidConsentKey> findValidUserConsentKeys(@Param("patientId") Long patientId);
+
+    /**
+     * Find every user a patient ever granted a consent to (including
+     * revoked and expired consents)
+     */
+    @Query("SELECT DISTINCT c.grantedToUser.userId FROM Consent c WHERE " +
+            "c.patient.patientId = :patientId AND " +
+            "c.grantedToUser IS NOT NULL")
+    List<Long> findGranteeUserIds(@Param("patientId") Long patientId);
+
+    /**
+     * Projection of a valid user consent for index loading
+     */
+    interface ValidConsentKey {
+        Long getPatientId();
+
+        Long getUserId();
+
+        Consent.Purpose getPurpose();
+
+        Consent.DataType getDataType();
+
+        LocalDateTime getExpiresAt();
+    }
 }
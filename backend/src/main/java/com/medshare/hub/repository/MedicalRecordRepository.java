@@ -4,6 +4,7 @@ import com.medshare.hub.entity.MedicalRecord;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,11 +16,14 @@ import java.util.List;
  * 
  * Provides paginated queries with sensitivity-based filtering for ABAC.
  * All queries should be checked against ABAC policies before returning data.
+ * Listings can push authorization into the query with the specifications
+ * of MedicalRecordSpecifications.
  * 
  * @author MedShare Development Team
  */
 @Repository
-public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long> {
+public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Long>,
+        JpaSpecificationExecutor<MedicalRecord>, MedicalRecordRepositoryCustom {
 
     /**
      * Find all medical records for a patient (paginated)
@@ -55,6 +59,16 @@ public interface MedicalRecordRepository extends JpaRepository<MedicalRecord, Lo
             "ORDER BY mr.createdAt DESC")
     List<MedicalRecord> findHighlySensitiveRecords(@Param("patientId") Long patientId);
 
+    /**
+     * Raw JSON text of a record's content
+     * Written to the response as is, or streamed through the redaction
+     * filter, without building an object tree. The text is loaded whole
+     * (the driver materializes the column value either way).
+     */
+    @Query(value = "SELECT CAST(content AS text) FROM medical_records WHERE record_id = :recordId",
+            nativeQuery = true)
+    String findContentJson(@Param("recordId") Long recordId);
+
     /**
      * Find records created by a specific provider
      */
@@ -0,0 +1,26 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.dto.MedicalRecordSummary;
+import com.medshare.hub.dto.PageCursor;
+
+import java.util.List;
+
+/**
+ * MedicalRecordRepositoryCustom - Criteria-based medical record queries
+ *
+ * @author MedShare Development Team
+ */
+public interface MedicalRecordRepositoryCustom {
+
+    /**
+     * Newest-first summaries of a patient's records (keyset pagination on
+     * createdAt, recordId, served by idx_medical_records_patient)
+     *
+     * @param condition policy residual the records must satisfy, or null
+     * @param after     position of the previous page's last row, or null
+     *                  for the first page
+     * @param limit     maximum number of rows
+     */
+    List<MedicalRecordSummary> findSummaries(Long patientId, ResourceCondition condition, PageCursor after, int limit);
+}
@@ -0,0 +1,68 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.dto.MedicalRecordSummary;
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.MedicalRecord;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MedicalRecordRepositoryImpl - Criteria implementation of
+ * MedicalRecordRepositoryCustom
+ *
+ * Summaries are selected with a constructor projection, so neither the
+ * JSONB content nor the associated entities are loaded.
+ *
+ * @author MedShare Development Team
+ */
+@RequiredArgsConstructor
+public class MedicalRecordRepositoryImpl implements MedicalRecordRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<MedicalRecordSummary> findSummaries(
+            Long patientId,
+            ResourceCondition condition,
+            PageCursor after,
+            int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<MedicalRecordSummary> query = cb.createQuery(MedicalRecordSummary.class);
+        Root<MedicalRecord> root = query.from(MedicalRecord.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(MedicalRecordSpecifications.forPatient(patientId).toPredicate(root, query, cb));
+        if (condition != null) {
+            predicates.add(MedicalRecordSpecifications.matching(condition).toPredicate(root, query, cb));
+        }
+        if (after != null) {
+            predicates.add(MedicalRecordSpecifications.before(after).toPredicate(root, query, cb));
+        }
+
+        query.select(cb.construct(MedicalRecordSummary.class,
+                        root.get("recordId"),
+                        root.get("patient").get("patientId"),
+                        root.get("recordType"),
+                        root.get("title"),
+                        root.get("description"),
+                        root.get("sensitivityLevel"),
+                        root.join("createdBy", JoinType.LEFT).get("userId"),
+                        root.get("createdAt"),
+                        root.get("updatedAt")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(root.get("createdAt")), cb.desc(root.get("recordId")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
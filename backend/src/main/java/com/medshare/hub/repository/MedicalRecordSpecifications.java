@@ -0,0 +1,76 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.MedicalRecord;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * MedicalRecordSpecifications - Query predicates for medical record listings
+ * 
+ * Translates the residual of a partially evaluated ABAC policy set
+ * (ResourceCondition) into a JPA predicate, so listing queries fetch and
+ * count only records the user may read:
+ * - patient id set → patient_id IN (...)
+ * - sensitivity level / record type set → column IN (...)
+ * - and / or / not → the SQL connectives
+ * 
+ * Also provides the keyset predicate of newest-first listings.
+ * 
+ * @author MedShare Development Team
+ */
+public final class MedicalRecordSpecifications {
+
+    private MedicalRecordSpecifications() {
+    }
+
+    /**
+     * Records of one patient
+     */
+    public static Specification<MedicalRecord> forPatient(Long patientId) {
+        return (root, query, cb) -> cb.equal(root.get("patient").get("patientId"), patientId);
+    }
+
+    /**
+     * Records after a keyset position in newest-first order
+     */
+    public static Specification<MedicalRecord> before(PageCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), cursor.createdAt()),
+                cb.and(cb.equal(root.get("createdAt"), cursor.createdAt()),
+                        cb.lessThan(root.get("recordId"), cursor.id())));
+    }
+
+    /**
+     * Records satisfying a policy residual
+     */
+    public static Specification<MedicalRecord> matching(ResourceCondition condition) {
+        return (root, query, cb) -> predicate(condition, root, cb);
+    }
+
+    private static Predicate predicate(ResourceCondition condition, Root<MedicalRecord> root, CriteriaBuilder cb) {
+        if (condition instanceof ResourceCondition.Constant constant) {
+            return constant.value() ? cb.conjunction() : cb.disjunction();
+        }
+        if (condition instanceof ResourceCondition.PatientIn in) {
+            return root.get("patient").get("patientId").in(in.patientIds());
+        }
+        if (condition instanceof ResourceCondition.SensitivityIn in) {
+            return root.get("sensitivityLevel").in(in.levels());
+        }
+        if (condition instanceof ResourceCondition.RecordTypeIn in) {
+            return root.get("recordType").in(in.types());
+        }
+        if (condition instanceof ResourceCondition.And and) {
+            return cb.and(and.operands().stream().map(operand -> predicate(operand, root, cb)).toArray(Predicate[]::new));
+        }
+        if (condition instanceof ResourceCondition.Or or) {
+            return cb.or(or.operands().stream().map(operand -> predicate(operand, root, cb)).toArray(Predicate[]::new));
+        }
+        ResourceCondition.Not not = (ResourceCondition.Not) condition;
+        return cb.not(predicate(not.condition(), root, cb));
+    }
+}
@@ -1,13 +1,19 @@
 package com.medshare.hub.repository;
 
 import com.medshare.hub.entity.TreatmentRelationship;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * TreatmentRelationshipRepository - Data access for Treatment Relationships
@@ -46,6 +52,19 @@ public interface TreatmentRelationshipRepository extends JpaRepository<Treatment
             @Param("providerId") Long providerId,
             @Param("patientId") Long patientId);
 
+    /**
+     * Find which of the given patients the provider actively treats
+     * Bulk variant of hasActiveRelationship for batch ABAC evaluation
+     */
+    @Query("SELECT DISTINCT tr.patient.patientId FROM TreatmentRelationship tr WHERE " +
+            "tr.provider.userId = :providerId AND " +
+            "tr.patient.patientId IN :patientIds AND " +
+            "tr.status = 'ACTIVE' AND " +
+            "(tr.endDate IS NULL OR tr.endDate > CURRENT_TIMESTAMP)")
+    List<Long> findActivelyTreatedPatientIds(
+            @Param("providerId") Long providerId,
+            @Param("patientIds") Collection<Long> patientIds);
+
     /**
      * Find all active relationships for a provider
      */
@@ -76,4 +95,46 @@ public interface TreatmentRelationshipRepository extends JpaRepository<Treatment
             @Param("providerId") Long providerId,
             @Param("patientId") Long patientId,
             @Param("type") TreatmentRelationship.RelationshipType type);
+
+    /**
+     * Stream the keys of all active relationships
+     * Used to bulk-load the in-memory TreatmentRelationshipIndex
+     * Must be consumed inside a transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT tr.relationshipId AS relationshipId, " +
+            "tr.provider.userId AS providerId, " +
+            "tr.patient.patientId AS patientId, " +
+            "tr.endDate AS endDate " +
+            "FROM TreatmentRelationship tr WHERE " +
+            "tr.status = 'ACTIVE' AND " +
+            "(tr.endDate IS NULL OR tr.endDate > CURRENT_TIMESTAMP)")
+    Stream<ActiveRelationshipKey> streamActiveRelationshipKeys();
+
+    /**
+     * Find the keys of the active relationships of a patient
+     * Used to refresh one patient in the in-memory TreatmentRelationshipIndex
+     */
+    @Query("SELECT tr.relationshipId AS relationshipId, " +
+            "tr.provider.userId AS providerId, " +
+            "tr.patient.patientId AS patientId, " +
+            "tr.endDate AS endDate " +
+            "FROM TreatmentRelationship tr WHERE " +
+            "tr.patient.patientId = :patientId AND " +
+            "tr.status = 'ACTIVE' AND " +
+            "(tr.endDate IS NULL OR tr.endDate > CURRENT_TIMESTAMP)")
+    List<ActiveRelationshipKey> findActiveRelationshipKeysByPatient(@Param("patientId") Long patientId);
+
+    /**
+     * Projection of an active relationship for index loading
+     */
+    interface ActiveRelationshipKey {
+        Long getRelationshipId();
+
+        Long getProviderId();
+
+        Long getPatientId();
+
+        LocalDateTime getEndDate();
+    }
 }
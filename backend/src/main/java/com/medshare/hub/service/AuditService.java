@@ -1,15 +1,26 @@
 package com.medshare.hub.service;
 
+import com.medshare.hub.audit.AuditBatchWriter;
+import com.medshare.hub.audit.AuditEvent;
+import com.medshare.hub.audit.ComplianceReportExporter;
+import com.medshare.hub.audit.ComplianceReportFormat;
+import com.medshare.hub.audit.anomaly.AnomalyAlert;
+import com.medshare.hub.audit.anomaly.AnomalyDetector;
+import com.medshare.hub.dto.AuditRollup;
+import com.medshare.hub.dto.AuditSummary;
+import com.medshare.hub.dto.CursorPage;
+import com.medshare.hub.dto.PageCursor;
 import com.medshare.hub.entity.AccessLog;
 import com.medshare.hub.repository.AccessLogRepository;
+import com.medshare.hub.repository.AccessLogRollupRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,17 +30,19 @@ import java.util.List;
  * Handles:
  * - Asynchronous audit log creation (non-blocking)
  * - Audit log retrieval and querying
- * - Anomaly detection (simple rules-based)
- * - Compliance reporting
+ * - Anomaly detection (real-time sliding windows, AnomalyDetector)
+ * - Compliance reporting and streaming export
+ * - Dashboard counts from the hourly rollups
  * 
  * HIPAA Compliance:
  * - All access attempts are logged (permit and deny)
- * - Logs are immutable (enforced by database rules)
+ * - Logs are immutable (enforced by database triggers)
  * - 7-year retention policy
  * - Tamper-proof audit trail
  * 
  * Performance:
- * - Async logging prevents impact on policy evaluation time
+ * - Events are queued and written in batches by AuditBatchWriter, so
+ * logging does not add a database round trip to the request
  * - Target: <5ms overhead for audit logging
  * 
  * @author MedShare Development Team
@@ -40,12 +53,18 @@ import java.util.List;
 public class AuditService {
 
     private final AccessLogRepository accessLogRepository;
+    private final AccessLogRollupRepository accessLogRollupRepository;
+    private final AuditBatchWriter auditBatchWriter;
+    private final ComplianceReportExporter complianceReportExporter;
+    private final AnomalyDetector anomalyDetector;
 
     /**
      * Create audit log entry (asynchronous)
      * 
      * Logs every access attempt with full context.
-     * Runs asynchronously to not impact application performance.
+     * The event is queued for AuditBatchWriter, which inserts it with
+     * other pending events in one multi-row batch, so the request does not
+     * wait for the database.
      * 
      * @param userId        User making the request
      * @param patientId     Patient whose data is being accessed
@@ -60,8 +79,6 @@ public class AuditService {
      * @param ipAddress     IP address of request
      * @param sessionId     Session identifier
      */
-    @Async
-    @Transactional
     public void logAccess(
             Long userId,
             Long patientId,
@@ -75,29 +92,22 @@ public class AuditService {
             String justification,
             String ipAddress,
             String sessionId) {
-        AccessLog log = new AccessLog();
-        log.setUser(userId != null ? new com.medshare.hub.entity.User() {
-            {
-                setUserId(userId);
-            }
-        } : null);
-        log.setPatient(patientId != null ? new com.medshare.hub.entity.Patient() {
-            {
-                setPatientId(patientId);
-            }
-        } : null);
-        log.setResourceType(resourceType);
-        log.setResourceId(resourceId);
-        log.setAction(action);
-        log.setDecision(decision);
-        log.setPolicyMatched(policyMatched);
-        log.setDenyReason(denyReason);
-        log.setIsEmergency(isEmergency != null && isEmergency);
-        log.setJustification(justification);
-        log.setIpAddress(ipAddress);
-        log.setSessionId(sessionId);
-
-        accessLogRepository.save(log);
+        AuditEvent event = new AuditEvent(
+                userId,
+                patientId,
+                resourceType,
+                resourceId,
+                action,
+                decision,
+                policyMatched,
+                denyReason,
+                isEmergency != null && isEmergency,
+                justification,
+                ipAddress,
+                sessionId,
+                LocalDateTime.now());
+        auditBatchWriter.submit(event);
+        anomalyDetector.record(event);
 
         if (isEmergency != null && isEmergency) {
             log.warn("EMERGENCY ACCESS logged: User {} accessed patient {} - Justification: {}",
@@ -109,20 +119,31 @@ public class AuditService {
     }
 
     /**
-     * Get access logs for a specific user (paginated)
+     * Get access logs for a specific user, newest first, with keyset
+     * pagination
+     * 
+     * @param after position after which the page starts, or null for the
+     *              first page
+     * @param size  maximum number of logs in the page
      */
     @Transactional(readOnly = true)
-    public Page<AccessLog> getUserAccessLogs(Long userId, Pageable pageable) {
-        return accessLogRepository.findByUser_UserIdOrderByCreatedAtDesc(userId, pageable);
+    public CursorPage<AccessLog> getUserAccessLogs(Long userId, PageCursor after, int size) {
+        // One extra row tells whether a next page exists
+        return toPage(accessLogRepository.findByUserBefore(userId, after, size + 1), size);
     }
 
     /**
-     * Get access logs for a specific patient (paginated)
+     * Get access logs for a specific patient, newest first, with keyset
+     * pagination
      * Shows who accessed patient's records
+     * 
+     * @param after position after which the page starts, or null for the
+     *              first page
+     * @param size  maximum number of logs in the page
      */
     @Transactional(readOnly = true)
-    public Page<AccessLog> getPatientAccessLogs(Long patientId, Pageable pageable) {
-        return accessLogRepository.findByPatient_PatientIdOrderByCreatedAtDesc(patientId, pageable);
+    public CursorPage<AccessLog> getPatientAccessLogs(Long patientId, PageCursor after, int size) {
+        return toPage(accessLogRepository.findByPatientBefore(patientId, after, size + 1), size);
     }
 
     /**
@@ -144,7 +165,8 @@ public class AuditService {
 
     /**
      * Anomaly detection: Check if user has unusual number of denied accesses
-     * Simple rule-based detection
+     * Counts in the database, for any window; real-time detection on every
+     * event is done by AnomalyDetector (see getRecentAnomalies)
      * 
      * @param userId    User to check
      * @param hours     Time window
@@ -165,6 +187,13 @@ public class AuditService {
         return false;
     }
 
+    /**
+     * Alerts raised by the real-time anomaly detector, newest first
+     */
+    public List<AnomalyAlert> getRecentAnomalies() {
+        return anomalyDetector.getRecentAlerts();
+    }
+
     /**
      * Get compliance report for date range
      * Shows all access attempts for compliance auditing
@@ -176,4 +205,48 @@ public class AuditService {
             Pageable pageable) {
         return accessLogRepository.findByDateRange(startDate, endDate, pageable);
     }
+
+    /**
+     * Export the compliance report for a date range
+     * Streams every access attempt in the range to the output, in
+     * chronological order, with constant memory regardless of its size
+     * 
+     * @return the number of access logs written
+     */
+    public long exportComplianceReport(
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            ComplianceReportFormat format,
+            OutputStream out) {
+        return complianceReportExporter.export(startDate, endDate, format, out);
+    }
+
+    /**
+     * Get access counts per hour or day for dashboards
+     * Read from the hourly rollups, so the cost depends on the length of
+     * the range, not on the number of access logs in it
+     */
+    @Transactional(readOnly = true)
+    public List<AuditRollup> getAccessRollups(
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            AuditRollup.Granularity granularity) {
+        return accessLogRollupRepository.findRollups(startDate, endDate, granularity);
+    }
+
+    /**
+     * Get access totals (permitted, denied, emergency) for a date range
+     * from the hourly rollups
+     */
+    @Transactional(readOnly = true)
+    public AuditSummary getAccessSummary(LocalDateTime startDate, LocalDateTime endDate) {
+        return accessLogRollupRepository.summarize(startDate, endDate);
+    }
+
+    private static CursorPage<AccessLog> toPage(List<AccessLog> rows, int size) {
+        boolean hasNext = rows.size() > size;
+        List<AccessLog> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? PageCursor.after(content.get(size - 1)).encode() : null;
+        return new CursorPage<>(content, nextCursor, size, hasNext);
+    }
 }
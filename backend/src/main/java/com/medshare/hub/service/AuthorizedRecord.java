@@ -0,0 +1,22 @@
+package com.medshare.hub.service;
+
+import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.entity.MedicalRecord;
+
+/**
+ * AuthorizedRecord - A medical record together with the decision that
+ * granted access to it
+ *
+ * The record is returned unmodified; obligations of the decision (content
+ * redaction) are applied when the record is written to the response.
+ *
+ * @param record      the record, never modified for redaction
+ * @param decision    the permitting decision
+ * @param contentJson raw JSON text of the content, passed through as is
+ *                    or streamed through the redaction filter; the
+ *                    record's lazily loaded content map is never read
+ *
+ * @author MedShare Development Team
+ */
+public record AuthorizedRecord(MedicalRecord record, PolicyDecision decision, String contentJson) {
+}
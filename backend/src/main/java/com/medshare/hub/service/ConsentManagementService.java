@@ -1,5 +1,7 @@
 package com.medshare.hub.service;
 
+import com.medshare.hub.abac.pip.ConsentIndex;
+import com.medshare.hub.cache.InvalidationEpochs;
 import com.medshare.hub.entity.Consent;
 import com.medshare.hub.entity.Patient;
 import com.medshare.hub.entity.User;
@@ -8,7 +10,6 @@ import com.medshare.hub.repository.PatientRepository;
 import com.medshare.hub.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -34,12 +35,13 @@ public class ConsentManagementService {
     private final ConsentRepository consentRepository;
     private final PatientRepository patientRepository;
     private final UserRepository userRepository;
+    private final ConsentIndex consentIndex;
+    private final InvalidationEpochs invalidationEpochs;
 
     /**
      * Grant consent to user or organization
      */
     @Transactional
-    @CacheEvict(value = "policyDecisions", allEntries = true)
     public Consent grantConsent(
         Long patientId,
         Long grantedToUserId,
@@ -55,7 +57,7 @@ public class ConsentManagementService {
         consent.setPatient(patient);
 
         if (grantedToUserId != null) {
-            User grantedTo User = userRepository.findById(grantedToUserId)
+            User grantedToUser = userRepository.findById(grantedToUserId)
                 .orElseThrow(() -> new IllegalArgumentException("Granted user not found"));
             consent.setGrantedToUser(grantedToUser);
         }
@@ -66,6 +68,8 @@ public class ConsentManagementService {
         consent.setExpiresAt(expiresAt);
 
         Consent savedConsent = consentRepository.save(consent);
+        consentIndex.consentGranted(savedConsent);
+        invalidationEpochs.bumpPatient(patientId);
         log.info("Consent granted: Patient {} to {} for {} purpose",
                  patientId,
                  grantedToUserId != null ? "user " + grantedToUserId : grantedToOrganization,
@@ -78,7 +82,6 @@ public class ConsentManagementService {
      * Revoke consent
      */
     @Transactional
-    @CacheEvict(value = "policyDecisions", allEntries = true)
     public void revokeConsent(Long consentId, Long patientId) {
         Consent consent = consentRepository.findById(consentId)
                 .orElseThrow(() -> new IllegalArgumentException("Consent not found"));
@@ -90,6 +93,8 @@ public class ConsentManagementService {
 
         consent.revoke();
         consentRepository.save(consent);
+        consentIndex.consentRevoked(consent);
+        invalidationEpochs.bumpPatient(patientId);
 
         log.info("Consent revoked: Consent {} by patient {}", consentId, patientId);
     }
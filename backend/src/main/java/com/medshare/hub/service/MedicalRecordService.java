@@ -2,22 +2,28 @@ package com.medshare.hub.service;
 
 import com.medshare.hub.abac.PolicyDecision;
 import com.medshare.hub.abac.PolicyEvaluator;
+import com.medshare.hub.abac.ResourceCondition;
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.dto.CursorPage;
+import com.medshare.hub.dto.MedicalRecordSummary;
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.AccessLog;
 import com.medshare.hub.entity.MedicalRecord;
 import com.medshare.hub.entity.User;
 import com.medshare.hub.repository.MedicalRecordRepository;
 import com.medshare.hub.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * MedicalRecordService - Business logic for medical record access
@@ -26,7 +32,8 @@ import java.util.Map;
  * All access goes through:
  * 1. ABAC policy evaluation
  * 2. Audit logging
- * 3. Field-level redaction (if obligations present)
+ * 3. Field-level redaction (if obligations present), applied by
+ * ContentRedactor when the record is written to the response
  * 
  * @author MedShare Development Team
  */
@@ -46,10 +53,11 @@ public class MedicalRecordService {
      * @param recordId         Medical record ID
      * @param requestingUserId User requesting access
      * @param environment      Environmental context
-     * @return Medical record with potential redaction
+     * @return The record with its decision; redaction obligations are
+     *         applied when it is written (MedicalRecordJsonWriter)
      */
     @Transactional(readOnly = true)
-    public MedicalRecord getRecordWithAuthorization(
+    public AuthorizedRecord getRecordWithAuthorization(
             Long recordId,
             Long requestingUserId,
             EnvironmentAttributes environment) {
@@ -67,7 +75,7 @@ public class MedicalRecordService {
 
         // Evaluate ABAC policy
         PolicyDecision decision = policyEvaluator.evaluateAccess(
-                subject, resource, environment, "READ");
+                subject, resource, environment, AccessLog.Action.READ);
 
         // Log access attempt
         auditService.logAccess(
@@ -92,32 +100,90 @@ public class MedicalRecordService {
             throw new AccessDeniedException(decision.getDenyReason());
         }
 
-        // Apply redaction if required by policy obligations
-        if (decision.hasObligation("redact_clinical_notes") ||
-                decision.hasObligation("redact_sensitive_diagnoses")) {
-            return applyRedaction(record, decision.getObligations());
+        // Raw content is passed through, or streamed through redaction when obligations require it
+        // (content is NOT NULL, so no row means the record was deleted since it was read)
+        String contentJson = medicalRecordRepository.findContentJson(recordId);
+        if (contentJson == null) {
+            throw new IllegalArgumentException("Medical record not found: " + recordId);
         }
-
-        return record;
+        return new AuthorizedRecord(record, decision, contentJson);
     }
 
     /**
-     * Get patient's medical records with pagination and ABAC
+     * Get summaries of a patient's medical records, newest first, with
+     * keyset pagination and ABAC
+     * 
+     * The policies are first partially evaluated for the user and patient;
+     * the residual condition (e.g. "sensitivity not PSYCHIATRIC") becomes
+     * part of the query, so pages are full and only readable rows are
+     * fetched. The summaries are then authorized with one batch
+     * evaluation, resolving relationship and consent facts once per
+     * patient rather than once per record.
+     * 
+     * If a policy cannot be partially evaluated, unfiltered rows are
+     * fetched and records the user may not read are left out of the page.
+     * Summaries carry no content, so no redaction applies; full content is
+     * only returned by getRecordWithAuthorization.
+     * 
+     * @param after position after which the page starts, or null for the
+     *              first page
+     * @param size  maximum number of records in the page
      */
     @Transactional(readOnly = true)
-    public Page<MedicalRecord> getPatientRecords(
+    public CursorPage<MedicalRecordSummary> getPatientRecords(
             Long patientId,
             Long requestingUserId,
             EnvironmentAttributes environment,
-            Pageable pageable) {
-        // Note: In production, each record would be individually authorized
-        // For performance, we could cache authorization decisions
-        Page<MedicalRecord> records = medicalRecordRepository.findByPatient_PatientId(patientId, pageable);
+            PageCursor after,
+            int size) {
+        User requestingUser = userRepository.findById(requestingUserId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + requestingUserId));
+        SubjectAttributes subject = buildSubjectAttributes(requestingUser);
 
-        // For simplicity, we're doing bulk authorization check here
-        // In production, implement per-record authorization with caching
+        Optional<ResourceCondition> residual = policyEvaluator.partialEvaluate(
+                subject, environment, AccessLog.Action.READ, ResourceType.MEDICAL_RECORD, List.of(patientId));
+        if (residual.isPresent() && residual.get() == ResourceCondition.FALSE) {
+            log.debug("No records of patient {} readable by user {}", patientId, requestingUserId);
+            return CursorPage.empty(size);
+        }
 
-        return records;
+        // One extra row tells whether a next page exists
+        List<MedicalRecordSummary> rows = medicalRecordRepository.findSummaries(
+                patientId, residual.orElse(null), after, size + 1);
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows = rows.subList(0, size);
+        }
+        if (rows.isEmpty()) {
+            return CursorPage.empty(size);
+        }
+
+        List<ResourceAttributes> resources = rows.stream()
+                .map(this::buildResourceAttributes)
+                .toList();
+        List<PolicyDecision> decisions = policyEvaluator.evaluateAll(
+                subject, resources, environment, AccessLog.Action.READ);
+
+        List<MedicalRecordSummary> permitted = new ArrayList<>(rows.size());
+        for (int i = 0; i < decisions.size(); i++) {
+            PolicyDecision decision = decisions.get(i);
+            MedicalRecordSummary summary = rows.get(i);
+            if (!decision.isPermitted()) {
+                if (residual.isPresent()) {
+                    // The residual admitted a record the policies deny: they disagree
+                    log.warn("Record {} matched the policy residual but was denied for user {}: {}",
+                            summary.getRecordId(), requestingUserId, decision.getDenyReason());
+                } else {
+                    log.debug("Record {} filtered from listing for user {}: {}",
+                            summary.getRecordId(), requestingUserId, decision.getDenyReason());
+                }
+                continue;
+            }
+            permitted.add(summary);
+        }
+
+        String nextCursor = hasNext ? PageCursor.after(rows.get(rows.size() - 1)).encode() : null;
+        return new CursorPage<>(permitted, nextCursor, size, hasNext);
     }
 
     /**
@@ -132,38 +198,13 @@ public class MedicalRecordService {
         return medicalRecordRepository.save(record);
     }
 
-    /**
-     * Apply field-level redaction based on policy obligations
-     */
-    private MedicalRecord applyRedaction(MedicalRecord record, java.util.List<String> obligations) {
-        if (obligations.contains("redact_clinical_notes")) {
-            Map<String, Object> content = record.getContent();
-            if (content != null) {
-                content.remove("clinicalNotes");
-                content.remove("providerComments");
-                log.debug("Redacted clinical notes from record {}", record.getRecordId());
-            }
-        }
-
-        if (obligations.contains("redact_sensitive_diagnoses")) {
-            Map<String, Object> content = record.getContent();
-            if (content != null) {
-                content.remove("sensitiveDiagnoses");
-                content.remove("psychiatricNotes");
-                log.debug("Redacted sensitive diagnoses from record {}", record.getRecordId());
-            }
-        }
-
-        return record;
-    }
-
     /**
      * Build subject attributes from User entity
      */
     private SubjectAttributes buildSubjectAttributes(User user) {
         return SubjectAttributes.builder()
                 .userId(user.getUserId())
-                .role(user.getRole().toString())
+                .role(user.getRole())
                 .department(user.getDepartment())
                 .certifications(user.getCertifications())
                 .emergencyCertified(user.getEmergencyCertified())
@@ -172,16 +213,30 @@ public class MedicalRecordService {
                 .build();
     }
 
+    /**
+     * Build resource attributes from a record summary
+     */
+    private ResourceAttributes buildResourceAttributes(MedicalRecordSummary summary) {
+        return ResourceAttributes.builder()
+                .resourceId(summary.getRecordId())
+                .resourceType(ResourceType.MEDICAL_RECORD)
+                .patientId(summary.getPatientId())
+                .sensitivityLevel(summary.getSensitivityLevel())
+                .recordType(summary.getRecordType())
+                .createdBy(summary.getCreatedBy())
+                .build();
+    }
+
     /**
      * Build resource attributes from MedicalRecord entity
      */
     private ResourceAttributes buildResourceAttributes(MedicalRecord record) {
         return ResourceAttributes.builder()
                 .resourceId(record.getRecordId())
-                .resourceType("MEDICAL_RECORD")
+                .resourceType(ResourceType.MEDICAL_RECORD)
                 .patientId(record.getPatient().getPatientId())
-                .sensitivityLevel(record.getSensitivityLevel().toString())
-                .recordType(record.getRecordType().toString())
+                .sensitivityLevel(record.getSensitivityLevel())
+                .recordType(record.getRecordType())
                 .createdBy(record.getCreatedBy() != null ? record.getCreatedBy().getUserId() : null)
                 .build();
     }
@@ -1,5 +1,6 @@
 package com.medshare.hub.service;
 
+import com.medshare.hub.cache.InvalidationEpochs;
 import com.medshare.hub.entity.User;
 import com.medshare.hub.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -30,9 +31,11 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final InvalidationEpochs invalidationEpochs;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, InvalidationEpochs invalidationEpochs) {
         this.userRepository = userRepository;
+        this.invalidationEpochs = invalidationEpochs;
         this.passwordEncoder = new BCryptPasswordEncoder(12);
     }
 
@@ -86,6 +89,8 @@ public class UserService {
         }
 
         User updated = userRepository.save(user);
+        // Cached decisions depend on the user's attributes
+        invalidationEpochs.bumpUser(user.getUserId());
         log.info("Updated user: {}", user.getUserId());
 
         return updated;
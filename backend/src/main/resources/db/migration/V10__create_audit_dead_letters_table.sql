@@ -0,0 +1,37 @@
+-- Create Audit Dead Letters Table
+-- Audit events that access_logs permanently rejects (constraint
+-- violation, over-long value, unknown user or patient), moved aside by
+-- AuditBatchWriter so one bad event cannot hold up the rest of the trail.
+-- Columns are unconstrained so that any rejected event fits; the error
+-- explains why access_logs refused it.
+
+CREATE TABLE audit_dead_letters (
+    dead_letter_id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT,
+    patient_id BIGINT,
+    resource_type TEXT,
+    resource_id BIGINT,
+    action TEXT,
+    decision TEXT,
+    policy_matched TEXT,
+    deny_reason TEXT,
+    justification TEXT,
+    is_emergency BOOLEAN,
+    ip_address TEXT,
+    session_id TEXT,
+    created_at TIMESTAMP,
+    error TEXT NOT NULL,
+    rejected_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+-- Same retention as access_logs: dead letters are part of the audit trail
+CREATE RULE audit_dead_letters_immutable AS
+    ON UPDATE TO audit_dead_letters
+    DO INSTEAD NOTHING;
+
+CREATE RULE audit_dead_letters_no_delete AS
+    ON DELETE TO audit_dead_letters
+    DO INSTEAD NOTHING;
+
+COMMENT ON TABLE audit_dead_letters IS 'Audit events rejected by access_logs constraints, kept for review';
+COMMENT ON COLUMN audit_dead_letters.error IS 'Database error that rejected the event';
@@ -0,0 +1,110 @@
+-- Access Logs Partition Maintenance Fixes
+--
+-- 1. create_access_logs_partition now moves rows out of the default
+-- partition. Rows for a month with no partition land in
+-- access_logs_default. Before this change, creating that month's
+-- partition failed with "updated partition constraint for default
+-- partition would be violated", and failed again every day.
+-- The default partition is now detached, the partition is created, the
+-- month's rows are moved into it, and the default is re-attached. All
+-- of this runs in the caller's transaction, so concurrent inserts never
+-- see access_logs without its default partition.
+--
+-- 2. brin_access_logs_partition now keeps the (user_id, created_at) and
+-- (patient_id, created_at) b-trees. The keyset pages of user and patient
+-- access logs walk these indexes into old months; BRIN cannot serve
+-- them. The other b-trees (decision, emergency, timestamp, log_id) are
+-- still replaced by BRIN. Partitions already switched get the two
+-- b-trees back.
+
+CREATE OR REPLACE FUNCTION create_access_logs_partition(for_month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    start_at DATE := date_trunc('month', for_month)::DATE;
+    end_at DATE := (date_trunc('month', for_month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'access_logs_p' || to_char(start_at, 'YYYYMM');
+    has_default_rows BOOLEAN;
+    moved BIGINT;
+    removed BIGINT;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    SELECT EXISTS (SELECT 1 FROM access_logs_default WHERE created_at >= start_at AND created_at < end_at)
+    INTO has_default_rows;
+    IF has_default_rows THEN
+        -- Detaching also drops the immutability triggers cloned onto the
+        -- default partition, so its rows can be deleted below
+        ALTER TABLE access_logs DETACH PARTITION access_logs_default;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF access_logs FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_at, end_at);
+    EXECUTE format('CREATE UNIQUE INDEX %I ON %I (log_id)', partition_name || '_log_id_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (user_id, created_at DESC)', partition_name || '_user_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (patient_id, created_at DESC)', partition_name || '_patient_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (decision, created_at DESC)', partition_name || '_decision_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (is_emergency, created_at DESC) WHERE is_emergency = TRUE',
+                   partition_name || '_emergency_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (created_at DESC)', partition_name || '_timestamp_idx', partition_name);
+
+    IF has_default_rows THEN
+        INSERT INTO access_logs
+        SELECT * FROM access_logs_default WHERE created_at >= start_at AND created_at < end_at;
+        GET DIAGNOSTICS moved = ROW_COUNT;
+        DELETE FROM access_logs_default WHERE created_at >= start_at AND created_at < end_at;
+        GET DIAGNOSTICS removed = ROW_COUNT;
+        IF removed <> moved THEN
+            -- Rolls back the whole move rather than leave rows in both partitions
+            RAISE EXCEPTION 'Moved % rows from access_logs_default to % but deleted %',
+                moved, partition_name, removed;
+        END IF;
+        ALTER TABLE access_logs ATTACH PARTITION access_logs_default DEFAULT;
+        RAISE NOTICE 'Moved % rows from access_logs_default to %', moved, partition_name;
+    END IF;
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION brin_access_logs_partition(partition_name TEXT) RETURNS BOOLEAN AS $$
+DECLARE
+    btree_index TEXT;
+    changed BOOLEAN := FALSE;
+BEGIN
+    EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I USING brin (created_at)',
+                   partition_name || '_created_brin', partition_name);
+    EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I USING brin (log_id)',
+                   partition_name || '_log_id_brin', partition_name);
+    FOR btree_index IN
+        SELECT index_class.relname
+        FROM pg_index idx
+        JOIN pg_class index_class ON index_class.oid = idx.indexrelid
+        JOIN pg_am am ON am.oid = index_class.relam
+        WHERE idx.indrelid = partition_name::regclass AND am.amname = 'btree'
+          AND index_class.relname NOT IN (partition_name || '_user_idx', partition_name || '_patient_idx')
+    LOOP
+        EXECUTE format('DROP INDEX %I', btree_index);
+        changed := TRUE;
+    END LOOP;
+    RETURN changed;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Restore the keyset-pagination b-trees on partitions already switched to BRIN
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT child.relname
+        FROM pg_inherits i
+        JOIN pg_class child ON child.oid = i.inhrelid
+        WHERE i.inhparent = 'access_logs'::regclass AND child.relname LIKE 'access_logs\_p%'
+    LOOP
+        EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I (user_id, created_at DESC)',
+                       partition_name || '_user_idx', partition_name);
+        EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I (patient_id, created_at DESC)',
+                       partition_name || '_patient_idx', partition_name);
+    END LOOP;
+END;
+$$;
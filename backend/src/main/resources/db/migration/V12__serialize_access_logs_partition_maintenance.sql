@@ -0,0 +1,90 @@
+-- Serialize Access Logs Partition Maintenance
+--
+-- AccessLogPartitionManager runs on every node at startup and daily, so
+-- several nodes call these functions at the same time. Without a lock:
+-- - two calls for the same month both find no partition, and the second
+--   CREATE TABLE fails; with rows in the default partition, both detach
+--   and move them
+-- - two BRIN switches of the same partition list the same b-trees, and
+--   the second DROP INDEX fails
+-- Both functions now take the same transaction-scoped advisory lock
+-- first. A waiting call then sees the committed work of the previous one
+-- and returns FALSE. The lock is released when the caller's transaction
+-- ends. The function bodies are otherwise unchanged from V11.
+
+CREATE OR REPLACE FUNCTION create_access_logs_partition(for_month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    start_at DATE := date_trunc('month', for_month)::DATE;
+    end_at DATE := (date_trunc('month', for_month) + INTERVAL '1 month')::DATE;
+    partition_name TEXT := 'access_logs_p' || to_char(start_at, 'YYYYMM');
+    has_default_rows BOOLEAN;
+    moved BIGINT;
+    removed BIGINT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('access_logs_partition_maintenance'));
+
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    SELECT EXISTS (SELECT 1 FROM access_logs_default WHERE created_at >= start_at AND created_at < end_at)
+    INTO has_default_rows;
+    IF has_default_rows THEN
+        -- Detaching also drops the immutability triggers cloned onto the
+        -- default partition, so its rows can be deleted below
+        ALTER TABLE access_logs DETACH PARTITION access_logs_default;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF access_logs FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_at, end_at);
+    EXECUTE format('CREATE UNIQUE INDEX %I ON %I (log_id)', partition_name || '_log_id_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (user_id, created_at DESC)', partition_name || '_user_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (patient_id, created_at DESC)', partition_name || '_patient_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (decision, created_at DESC)', partition_name || '_decision_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (is_emergency, created_at DESC) WHERE is_emergency = TRUE',
+                   partition_name || '_emergency_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (created_at DESC)', partition_name || '_timestamp_idx', partition_name);
+
+    IF has_default_rows THEN
+        INSERT INTO access_logs
+        SELECT * FROM access_logs_default WHERE created_at >= start_at AND created_at < end_at;
+        GET DIAGNOSTICS moved = ROW_COUNT;
+        DELETE FROM access_logs_default WHERE created_at >= start_at AND created_at < end_at;
+        GET DIAGNOSTICS removed = ROW_COUNT;
+        IF removed <> moved THEN
+            -- Rolls back the whole move rather than leave rows in both partitions
+            RAISE EXCEPTION 'Moved % rows from access_logs_default to % but deleted %',
+                moved, partition_name, removed;
+        END IF;
+        ALTER TABLE access_logs ATTACH PARTITION access_logs_default DEFAULT;
+        RAISE NOTICE 'Moved % rows from access_logs_default to %', moved, partition_name;
+    END IF;
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION brin_access_logs_partition(partition_name TEXT) RETURNS BOOLEAN AS $$
+DECLARE
+    btree_index TEXT;
+    changed BOOLEAN := FALSE;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('access_logs_partition_maintenance'));
+
+    EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I USING brin (created_at)',
+                   partition_name || '_created_brin', partition_name);
+    EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I USING brin (log_id)',
+                   partition_name || '_log_id_brin', partition_name);
+    FOR btree_index IN
+        SELECT index_class.relname
+        FROM pg_index idx
+        JOIN pg_class index_class ON index_class.oid = idx.indexrelid
+        JOIN pg_am am ON am.oid = index_class.relam
+        WHERE idx.indrelid = partition_name::regclass AND am.amname = 'btree'
+          AND index_class.relname NOT IN (partition_name || '_user_idx', partition_name || '_patient_idx')
+    LOOP
+        EXECUTE format('DROP INDEX %I', btree_index);
+        changed := TRUE;
+    END LOOP;
+    RETURN changed;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,136 @@
+-- Partition Access Logs by Month
+-- access_logs becomes a range-partitioned table on created_at with one
+-- partition per month, so inserts only touch the current month's indexes
+-- and date-range queries scan only the months they cover.
+--
+-- Recent partitions carry the b-tree indexes of V6; partitions older than
+-- the retention window of hot indexes are switched to BRIN-only indexing
+-- by AccessLogPartitionManager (brin_access_logs_partition), which also
+-- creates partitions ahead of time (create_access_logs_partition).
+
+-- Keep the existing table (and its log_id sequence) until the data is copied
+ALTER TABLE access_logs RENAME TO access_logs_unpartitioned;
+
+CREATE TABLE access_logs (
+    log_id BIGINT NOT NULL DEFAULT nextval('access_logs_log_id_seq'),
+    user_id BIGINT REFERENCES users(user_id) ON DELETE SET NULL,
+    patient_id BIGINT REFERENCES patients(patient_id) ON DELETE SET NULL,
+    resource_type VARCHAR(50) NOT NULL,
+    resource_id BIGINT,
+    action VARCHAR(50) NOT NULL CHECK (action IN ('READ', 'WRITE', 'UPDATE', 'DELETE', 'EXPORT', 'PRINT')),
+    decision VARCHAR(20) NOT NULL CHECK (decision IN ('PERMIT', 'DENY')),
+    policy_matched VARCHAR(100),
+    deny_reason TEXT,
+    justification TEXT,
+    is_emergency BOOLEAN DEFAULT FALSE,
+    ip_address VARCHAR(45),
+    device_info TEXT,
+    session_id VARCHAR(100),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+) PARTITION BY RANGE (created_at);
+
+-- Create the partition for the month containing the given date, with the
+-- b-tree indexes of a recent partition. Returns FALSE if it already exists.
+-- Indexes are created per partition (not on the parent) so that old
+-- partitions can drop them.
+CREATE FUNCTION create_access_logs_partition(for_month DATE) RETURNS BOOLEAN AS $$
+DECLARE
+    start_at DATE := date_trunc('month', for_month)::DATE;
+    partition_name TEXT := 'access_logs_p' || to_char(start_at, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN FALSE;
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF access_logs FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, start_at, (start_at + INTERVAL '1 month')::DATE);
+    EXECUTE format('CREATE UNIQUE INDEX %I ON %I (log_id)', partition_name || '_log_id_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (user_id, created_at DESC)', partition_name || '_user_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (patient_id, created_at DESC)', partition_name || '_patient_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (decision, created_at DESC)', partition_name || '_decision_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (is_emergency, created_at DESC) WHERE is_emergency = TRUE',
+                   partition_name || '_emergency_idx', partition_name);
+    EXECUTE format('CREATE INDEX %I ON %I (created_at DESC)', partition_name || '_timestamp_idx', partition_name);
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Replace the b-tree indexes of a partition with BRIN indexes on the
+-- insertion-ordered columns. Old months are queried by time range for
+-- compliance reporting; BRIN serves those at a fraction of the size.
+-- Returns FALSE if the partition was already BRIN-only.
+CREATE FUNCTION brin_access_logs_partition(partition_name TEXT) RETURNS BOOLEAN AS $$
+DECLARE
+    btree_index TEXT;
+    changed BOOLEAN := FALSE;
+BEGIN
+    EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I USING brin (created_at)',
+                   partition_name || '_created_brin', partition_name);
+    EXECUTE format('CREATE INDEX IF NOT EXISTS %I ON %I USING brin (log_id)',
+                   partition_name || '_log_id_brin', partition_name);
+    FOR btree_index IN
+        SELECT index_class.relname
+        FROM pg_index idx
+        JOIN pg_class index_class ON index_class.oid = idx.indexrelid
+        JOIN pg_am am ON am.oid = index_class.relam
+        WHERE idx.indrelid = partition_name::regclass AND am.amname = 'btree'
+    LOOP
+        EXECUTE format('DROP INDEX %I', btree_index);
+        changed := TRUE;
+    END LOOP;
+    RETURN changed;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Partitions for every month with existing logs, the current month and the next three
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    month_start := date_trunc('month', LEAST(
+        COALESCE((SELECT MIN(created_at) FROM access_logs_unpartitioned), CURRENT_TIMESTAMP),
+        CURRENT_TIMESTAMP))::DATE;
+    WHILE month_start <= (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months')::DATE LOOP
+        PERFORM create_access_logs_partition(month_start);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END;
+$$;
+
+-- Catches rows outside every monthly partition, so an insert never fails
+-- if partitions were not created in time. Expected to stay empty.
+CREATE TABLE access_logs_default PARTITION OF access_logs DEFAULT;
+CREATE INDEX access_logs_default_timestamp_idx ON access_logs_default (created_at DESC);
+
+INSERT INTO access_logs
+SELECT log_id, user_id, patient_id, resource_type, resource_id, action, decision, policy_matched,
+       deny_reason, justification, is_emergency, ip_address, device_info, session_id, created_at
+FROM access_logs_unpartitioned;
+
+ALTER SEQUENCE access_logs_log_id_seq OWNED BY access_logs.log_id;
+DROP TABLE access_logs_unpartitioned;
+
+-- Immutability (replaces the V6 rules, which would not cover the partitions):
+-- row triggers on the parent are cloned to every partition, present and
+-- future, and skip the row like DO INSTEAD NOTHING did
+CREATE FUNCTION access_logs_immutable() RETURNS TRIGGER AS $$
+BEGIN
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER access_logs_immutable
+    BEFORE UPDATE ON access_logs
+    FOR EACH ROW EXECUTE FUNCTION access_logs_immutable();
+
+CREATE TRIGGER access_logs_no_delete
+    BEFORE DELETE ON access_logs
+    FOR EACH ROW EXECUTE FUNCTION access_logs_immutable();
+
+COMMENT ON TABLE access_logs IS 'HIPAA-compliant immutable audit trail for all access attempts, partitioned by month';
+COMMENT ON COLUMN access_logs.decision IS 'ABAC policy decision: PERMIT or DENY';
+COMMENT ON COLUMN access_logs.policy_matched IS 'Name of ABAC policy that made the decision';
+COMMENT ON COLUMN access_logs.is_emergency IS 'TRUE for break-glass emergency access';
+COMMENT ON COLUMN access_logs.justification IS 'Required for emergency access, explains why access was needed';
+
+ANALYZE access_logs;
@@ -0,0 +1,28 @@
+-- Create Hourly Access Log Rollups
+-- Pre-aggregated access counts for audit dashboards: one row per
+-- hour x decision x policy x resource type x emergency flag.
+-- Maintained by AuditBatchWriter in the same transaction as the
+-- access_logs rows it counts, so the two never disagree.
+
+CREATE TABLE access_log_hourly_rollups (
+    bucket_start TIMESTAMP NOT NULL,
+    decision VARCHAR(20) NOT NULL CHECK (decision IN ('PERMIT', 'DENY')),
+    policy_matched VARCHAR(100),
+    resource_type VARCHAR(50) NOT NULL,
+    is_emergency BOOLEAN NOT NULL,
+    event_count BIGINT NOT NULL CHECK (event_count >= 0),
+    -- NULL policy_matched (no applicable policy) is one group, so upserts can target it
+    CONSTRAINT access_log_hourly_rollups_key
+        UNIQUE NULLS NOT DISTINCT (bucket_start, decision, policy_matched, resource_type, is_emergency)
+);
+
+-- Existing audit history
+INSERT INTO access_log_hourly_rollups (bucket_start, decision, policy_matched, resource_type, is_emergency, event_count)
+SELECT date_trunc('hour', created_at), decision, policy_matched, resource_type, COALESCE(is_emergency, FALSE), COUNT(*)
+FROM access_logs
+GROUP BY 1, 2, 3, 4, 5;
+
+COMMENT ON TABLE access_log_hourly_rollups IS 'Hourly access counts per decision, policy, resource type and emergency flag';
+COMMENT ON COLUMN access_log_hourly_rollups.bucket_start IS 'Start of the hour (access_logs.created_at truncated to the hour)';
+
+ANALYZE access_log_hourly_rollups;
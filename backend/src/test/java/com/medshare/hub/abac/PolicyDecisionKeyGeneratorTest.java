@@ -0,0 +1,88 @@
+package com.medshare.hub.abac;
+
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PolicyDecisionKeyGeneratorTest - Unit tests for decision cache keys
+ *
+ * Tests:
+ * - User and patient epochs folded into the key
+ * - A bumped epoch makes the previous key unreachable
+ *
+ * @author MedShare Development Team
+ */
+class PolicyDecisionKeyGeneratorTest {
+
+    @Mock
+    private InvalidationEpochs invalidationEpochs;
+
+    private PolicyDecisionKeyGenerator keyGenerator;
+
+    private SubjectAttributes subject;
+    private ResourceAttributes resource;
+    private EnvironmentAttributes environment;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        keyGenerator = new PolicyDecisionKeyGenerator(invalidationEpochs, new PolicyEvaluator(List.of()));
+        subject = SubjectAttributes.builder()
+                .userId(10L)
+                .role(User.UserRole.DOCTOR)
+                .build();
+        resource = ResourceAttributes.builder()
+                .resourceId(100L)
+                .resourceType(ResourceType.MEDICAL_RECORD)
+                .patientId(50L)
+                .build();
+        environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now())
+                .build();
+        when(invalidationEpochs.userEpoch(10L)).thenReturn(3L);
+        when(invalidationEpochs.patientEpoch(50L)).thenReturn(7L);
+    }
+
+    @Test
+    void testGenerate_FoldsUserAndPatientEpochs() {
+        PolicyDecisionKey key = generate();
+
+        assertTrue(key.value().startsWith("10:100:READ:u3:p7:v" + PolicyEvaluator.BUILT_IN_VERSION + ":"),
+                key.value());
+        assertEquals(key, generate());
+    }
+
+    @Test
+    void testGenerate_BumpedEpochChangesKey() {
+        PolicyDecisionKey before = generate();
+
+        when(invalidationEpochs.patientEpoch(50L)).thenReturn(8L);
+        PolicyDecisionKey afterPatientBump = generate();
+
+        when(invalidationEpochs.userEpoch(10L)).thenReturn(4L);
+        PolicyDecisionKey afterUserBump = generate();
+
+        assertNotEquals(before.value(), afterPatientBump.value());
+        assertNotEquals(afterPatientBump.value(), afterUserBump.value());
+        assertTrue(afterUserBump.value().contains(":u4:p8:"), afterUserBump.value());
+    }
+
+    private PolicyDecisionKey generate() {
+        return (PolicyDecisionKey) keyGenerator.generate(null, null, subject, resource, environment, AccessLog.Action.READ);
+    }
+}
@@ -0,0 +1,64 @@
+package com.medshare.hub.abac;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PolicyDecisionTest - Unit tests for immutable, interned decisions
+ *
+ * Tests:
+ * - Shared instances for identical outcomes
+ * - Obligation bitset and string adapters
+ * - Interning preserved across (cache) serialization
+ *
+ * @author MedShare Development Team
+ */
+class PolicyDecisionTest {
+
+    @Test
+    void testFactories_ReturnSharedInstances() {
+        assertSame(PolicyDecision.permit("TestPolicy"), PolicyDecision.permit("TestPolicy"));
+        assertSame(PolicyDecision.deny("TestPolicy", "Denied"), PolicyDecision.deny("TestPolicy", "Denied"));
+        assertSame(
+                PolicyDecision.permit("TestPolicy", EnumSet.of(Obligation.ENHANCED_AUDIT)),
+                PolicyDecision.permitWithObligations("TestPolicy", List.of("enhanced_audit")));
+        assertNotSame(PolicyDecision.permit("TestPolicy"),
+                PolicyDecision.permit("TestPolicy", EnumSet.of(Obligation.ENHANCED_AUDIT)));
+    }
+
+    @Test
+    void testObligations_BitsetAndStringAdapters() {
+        PolicyDecision decision = PolicyDecision.permit("TestPolicy",
+                EnumSet.of(Obligation.REDACT_CLINICAL_NOTES, Obligation.REDACT_SENSITIVE_DIAGNOSES));
+
+        assertTrue(decision.hasObligation(Obligation.REDACT_CLINICAL_NOTES));
+        assertTrue(decision.hasObligation("redact_sensitive_diagnoses"));
+        assertFalse(decision.hasObligation(Obligation.ENHANCED_AUDIT));
+        assertFalse(decision.hasObligation("unknown_obligation"));
+        assertEquals(List.of("redact_clinical_notes", "redact_sensitive_diagnoses"), decision.getObligations());
+        assertThrows(UnsupportedOperationException.class, () -> decision.getObligations().add("x"));
+        assertThrows(IllegalArgumentException.class,
+                () -> PolicyDecision.permitWithObligations("TestPolicy", List.of("unknown_obligation")));
+    }
+
+    @Test
+    void testSerialization_ResolvesToInternedInstance() throws Exception {
+        PolicyDecision decision = PolicyDecision.deny("TestPolicy", "Denied");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(decision);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            assertSame(decision, in.readObject());
+        }
+    }
+}
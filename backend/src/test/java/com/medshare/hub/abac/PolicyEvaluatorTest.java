@@ -2,18 +2,28 @@ package com.medshare.hub.abac;
 
 import com.medshare.hub.abac.attributes.EnvironmentAttributes;
 import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
 import com.medshare.hub.abac.attributes.SubjectAttributes;
 import com.medshare.hub.abac.policies.EmergencyOverridePolicy;
 import com.medshare.hub.abac.policies.PatientSelfAccessPolicy;
 import com.medshare.hub.abac.policies.TreatingPhysicianPolicy;
+import com.medshare.hub.abac.pip.MemoizingPolicyInformationPoint;
+import com.medshare.hub.abac.pip.PipLookup;
+import com.medshare.hub.abac.pip.RepositoryPolicyInformationPoint;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.repository.ConsentRepository;
 import com.medshare.hub.repository.TreatmentRelationshipRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -27,6 +37,11 @@ import static org.mockito.Mockito.*;
  * - Patient self-access
  * - Treating physician access with business hours
  * - Deny by default
+ * - Dispatch table lookup
+ * - Batch evaluation
+ * - Decision cache environment keys
+ * - Evaluation metrics
+ * - Partial evaluation into a residual resource condition
  * 
  * @author MedShare Development Team
  */
@@ -35,6 +50,11 @@ class PolicyEvaluatorTest {
     @Mock
     private TreatmentRelationshipRepository treatmentRelationshipRepository;
 
+    @Mock
+    private ConsentRepository consentRepository;
+
+    private MemoizingPolicyInformationPoint policyInformationPoint;
+
     private PolicyEvaluator policyEvaluator;
 
     @BeforeEach
@@ -44,7 +64,9 @@ class PolicyEvaluatorTest {
         // Create policies
         EmergencyOverridePolicy emergencyPolicy = new EmergencyOverridePolicy();
         PatientSelfAccessPolicy patientSelfAccessPolicy = new PatientSelfAccessPolicy();
-        TreatingPhysicianPolicy treatingPhysicianPolicy = new TreatingPhysicianPolicy(treatmentRelationshipRepository);
+        policyInformationPoint = new MemoizingPolicyInformationPoint(
+                new RepositoryPolicyInformationPoint(treatmentRelationshipRepository, consentRepository));
+        TreatingPhysicianPolicy treatingPhysicianPolicy = new TreatingPhysicianPolicy(policyInformationPoint);
 
         // Initialize evaluator with policies
         policyEvaluator = new PolicyEvaluator(Arrays.asList(
@@ -193,7 +215,7 @@ class PolicyEvaluatorTest {
             .isEmergency(false)
             .build();
 
-        when(treatment RelationshipRepository.hasActiveRelationship(10L, 50L))
+        when(treatmentRelationshipRepository.hasActiveRelationship(10L, 50L))
             .thenReturn(true);
 
         // Act
@@ -229,4 +251,216 @@ class PolicyEvaluatorTest {
         assertFalse(decision.isPermitted(), "Unknown role should be denied by default");
         assertEquals("DefaultDeny", decision.getPolicyMatched());
     }
+
+    @Test
+    void testDispatch_StaticPolicySkipsIsApplicable() {
+        // Arrange - role in non-canonical case still resolves its chain
+        SubjectAttributes subject = SubjectAttributes.builder()
+                .userId(50L)
+                .role("patient")
+                .build();
+
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceId(100L)
+                .resourceType("MEDICAL_RECORD")
+                .patientId(50L)
+                .build();
+
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now())
+                .isEmergency(false)
+                .build();
+
+        PatientSelfAccessPolicy patientPolicy = spy(new PatientSelfAccessPolicy());
+        PolicyEvaluator evaluator = new PolicyEvaluator(Arrays.asList(
+                new EmergencyOverridePolicy(), patientPolicy));
+
+        // Act
+        PolicyDecision decision = evaluator.evaluateAccess(subject, resource, environment, "read");
+
+        // Assert
+        assertTrue(decision.isPermitted());
+        assertEquals("PatientSelfAccessPolicy", decision.getPolicyMatched());
+        verify(patientPolicy, never()).isApplicable(any(), any(), any(), any());
+    }
+
+    @Test
+    void testDispatch_DynamicPolicyAppliesToUndeclaredTargets() {
+        // Arrange - no policy declares PHARMACIST targets
+        SubjectAttributes subject = SubjectAttributes.builder()
+                .userId(20L)
+                .role("PHARMACIST")
+                .emergencyCertified(true)
+                .build();
+
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceId(100L)
+                .resourceType("MEDICAL_RECORD")
+                .patientId(50L)
+                .build();
+
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now())
+                .isEmergency(true)
+                .justification("Anaphylaxis in pharmacy, checking allergy history")
+                .build();
+
+        // Act
+        PolicyDecision decision = policyEvaluator.evaluateAccess(subject, resource, environment, "READ");
+
+        // Assert
+        assertTrue(decision.isPermitted());
+        assertEquals("EmergencyOverridePolicy", decision.getPolicyMatched());
+    }
+
+    @Test
+    void testEvaluateAll_ResolvesRelationshipOncePerPatient() {
+        // Arrange - a page of three records for the same patient
+        SubjectAttributes subject = SubjectAttributes.builder()
+                .userId(10L)
+                .role("DOCTOR")
+                .department("cardiology")
+                .build();
+
+        List<ResourceAttributes> resources = List.of(
+                ResourceAttributes.builder().resourceId(100L).resourceType("MEDICAL_RECORD")
+                        .patientId(50L).sensitivityLevel("STANDARD").build(),
+                ResourceAttributes.builder().resourceId(101L).resourceType("MEDICAL_RECORD")
+                        .patientId(50L).sensitivityLevel("PSYCHIATRIC").build(),
+                ResourceAttributes.builder().resourceId(102L).resourceType("MEDICAL_RECORD")
+                        .patientId(50L).sensitivityLevel("STANDARD").build());
+
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.of(2026, 1, 30, 14, 0))
+                .isEmergency(false)
+                .build();
+
+        when(treatmentRelationshipRepository.findActivelyTreatedPatientIds(eq(10L), anyCollection()))
+                .thenReturn(List.of(50L));
+
+        // Act
+        List<PolicyDecision> decisions = policyEvaluator.evaluateAll(subject, resources, environment, "READ");
+
+        // Assert
+        assertEquals(3, decisions.size());
+        assertTrue(decisions.get(0).isPermitted());
+        assertFalse(decisions.get(1).isPermitted(), "Psychiatric record requires psychiatry department");
+        assertTrue(decisions.get(2).isPermitted());
+        verify(treatmentRelationshipRepository, times(1)).findActivelyTreatedPatientIds(eq(10L), anyCollection());
+        verify(treatmentRelationshipRepository, never()).hasActiveRelationship(any(), any());
+        assertEquals(3, policyInformationPoint.getHits(PipLookup.ACTIVE_RELATIONSHIP));
+        assertEquals(1, policyInformationPoint.getMisses(PipLookup.ACTIVE_RELATIONSHIP));
+    }
+
+    @Test
+    void testEnvironmentProfile_PhysicianDecisionExpiresAtBusinessHoursEdge() {
+        // Arrange
+        SubjectAttributes subject = SubjectAttributes.builder().userId(10L).role("DOCTOR").build();
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceId(100L).resourceType("MEDICAL_RECORD").patientId(50L).build();
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.of(2026, 1, 30, 14, 0))
+                .isEmergency(false)
+                .build();
+
+        // Act
+        EnvironmentProfile profile = policyEvaluator.environmentProfile(subject, resource, AccessLog.Action.READ);
+
+        // Assert - only the attributes the chain reads, expiring at 20:00
+        assertEquals("bh1,em0", profile.key(environment));
+        assertEquals(LocalDateTime.of(2026, 1, 30, 20, 0)
+                        .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                profile.expiresAtMillis(environment));
+        assertTrue(policyEvaluator.isCacheable(subject, resource, environment, AccessLog.Action.READ));
+    }
+
+    @Test
+    void testEnvironmentProfile_PatientDecisionIgnoresTimeOfDay() {
+        SubjectAttributes subject = SubjectAttributes.builder().userId(5L).role("PATIENT").build();
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceId(100L).resourceType("MEDICAL_RECORD").patientId(5L).build();
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.of(2026, 1, 30, 23, 0))
+                .isEmergency(false)
+                .build();
+
+        EnvironmentProfile profile = policyEvaluator.environmentProfile(subject, resource, AccessLog.Action.READ);
+
+        assertEquals("em0", profile.key(environment));
+        assertEquals(Long.MAX_VALUE, profile.expiresAtMillis(environment));
+    }
+
+    @Test
+    void testIsCacheable_FreeTextJustificationIsNotCached() {
+        SubjectAttributes subject = SubjectAttributes.builder().userId(10L).role("DOCTOR").build();
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceId(100L).resourceType("MEDICAL_RECORD").patientId(50L).build();
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.of(2026, 1, 30, 14, 0))
+                .isEmergency(false)
+                .justification("Follow-up on lab results")
+                .build();
+
+        assertFalse(policyEvaluator.isCacheable(subject, resource, environment, AccessLog.Action.READ));
+    }
+
+    @Test
+    void testMetrics_RecordsPolicyLatencyAndDecisionOutcomes() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PolicyEvaluator evaluator = new PolicyEvaluator(
+                Arrays.asList(new EmergencyOverridePolicy(), new PatientSelfAccessPolicy()), registry);
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceId(100L).resourceType("MEDICAL_RECORD").patientId(5L).build();
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now())
+                .isEmergency(false)
+                .build();
+
+        evaluator.evaluateAccess(SubjectAttributes.builder().userId(5L).role("PATIENT").build(),
+                resource, environment, AccessLog.Action.READ);
+        evaluator.evaluateAccess(SubjectAttributes.builder().userId(6L).role("PHARMACIST").build(),
+                resource, environment, AccessLog.Action.READ);
+
+        assertEquals(1, registry.get("abac.policy.evaluation")
+                .tags("policy", "PatientSelfAccessPolicy", "outcome", "permit").timer().count());
+        assertEquals(1, registry.get("abac.decisions")
+                .tags("outcome", "permit", "policy", "PatientSelfAccessPolicy").counter().count());
+        assertEquals(1, registry.get("abac.decisions")
+                .tags("outcome", "default_deny", "policy", "DefaultDeny").counter().count());
+        assertEquals(2, registry.get("abac.applicable.policies").summary().count());
+    }
+
+    @Test
+    void testPartialEvaluate_ResidualMatchesPerRecordDecisions() {
+        SubjectAttributes subject = SubjectAttributes.builder()
+                .userId(10L)
+                .role("DOCTOR")
+                .department("cardiology")
+                .emergencyCertified(false)
+                .build();
+        EnvironmentAttributes environment = EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.of(2026, 1, 30, 14, 0))
+                .isEmergency(false)
+                .build();
+        when(treatmentRelationshipRepository.findActivelyTreatedPatientIds(eq(10L), anyCollection()))
+                .thenReturn(List.of(50L));
+        when(treatmentRelationshipRepository.hasActiveRelationship(10L, 50L)).thenReturn(true);
+
+        Optional<ResourceCondition> residual = policyEvaluator.partialEvaluate(
+                subject, environment, AccessLog.Action.READ, ResourceType.MEDICAL_RECORD, List.of(50L, 51L));
+
+        assertTrue(residual.isPresent());
+        for (long patientId : new long[] { 50L, 51L }) {
+            for (String sensitivity : new String[] { "STANDARD", "PSYCHIATRIC" }) {
+                ResourceAttributes resource = ResourceAttributes.builder().resourceId(100L)
+                        .resourceType("MEDICAL_RECORD").patientId(patientId).sensitivityLevel(sensitivity).build();
+                assertEquals(policyEvaluator.evaluateAccess(subject, resource, environment, AccessLog.Action.READ)
+                        .isPermitted(), residual.get().test(resource), patientId + "/" + sensitivity);
+            }
+        }
+
+        SubjectAttributes pharmacist = SubjectAttributes.builder().userId(20L).role("PHARMACIST").build();
+        assertEquals(Optional.of(ResourceCondition.FALSE), policyEvaluator.partialEvaluate(
+                pharmacist, environment, AccessLog.Action.READ, ResourceType.MEDICAL_RECORD, List.of(50L)));
+    }
 }
@@ -0,0 +1,61 @@
+package com.medshare.hub.abac.attributes;
+
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.User;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SubjectAttributesTest - Unit tests for the typed ABAC attribute model
+ * 
+ * Tests:
+ * - String builder setters resolve enums case-insensitively
+ * - Unknown names resolve to null
+ * - Certifications held as a registry bitset
+ * 
+ * @author MedShare Development Team
+ */
+class SubjectAttributesTest {
+
+    @Test
+    void testBuilder_StringAttributesResolveToEnums() {
+        SubjectAttributes subject = SubjectAttributes.builder().role("doctor").build();
+        ResourceAttributes resource = ResourceAttributes.builder()
+                .resourceType("medical_record")
+                .sensitivityLevel("Psychiatric")
+                .recordType("LAB_RESULT")
+                .build();
+
+        assertEquals(User.UserRole.DOCTOR, subject.getRole());
+        assertTrue(subject.hasRole("DOCTOR"));
+        assertEquals(ResourceType.MEDICAL_RECORD, resource.getResourceType());
+        assertEquals(MedicalRecord.SensitivityLevel.PSYCHIATRIC, resource.getSensitivityLevel());
+        assertEquals(MedicalRecord.RecordType.LAB_RESULT, resource.getRecordType());
+        assertTrue(resource.isHighlySensitive());
+    }
+
+    @Test
+    void testBuilder_UnknownNamesResolveToNull() {
+        SubjectAttributes subject = SubjectAttributes.builder().role("UNKNOWN_ROLE").build();
+        ResourceAttributes resource = ResourceAttributes.builder().recordType("BILLING").build();
+
+        assertNull(subject.getRole());
+        assertFalse(subject.hasRole("UNKNOWN_ROLE"));
+        assertNull(resource.getRecordType());
+    }
+
+    @Test
+    void testCertifications_HeldAsRegistryBitset() {
+        SubjectAttributes subject = SubjectAttributes.builder()
+                .certifications("ACLS", "pals")
+                .build();
+
+        int acls = CertificationRegistry.find("acls");
+        assertTrue(acls >= 0);
+        assertTrue(subject.hasCertification(acls));
+        assertTrue(subject.hasCertification("PALS"));
+        assertFalse(subject.hasCertification("NEVER_REGISTERED_CERTIFICATION"));
+        assertArrayEquals(new String[] { "ACLS", "PALS" }, subject.getCertifications());
+    }
+}
@@ -0,0 +1,165 @@
+package com.medshare.hub.abac.dsl;
+
+import com.medshare.hub.abac.PolicyEvaluator;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.abac.policies.PatientSelfAccessPolicy;
+import com.medshare.hub.controller.AdminPolicyController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * DeclarativePolicyLoaderTest - Unit tests for loading and reloading the
+ * declarative policy file
+ *
+ * Tests:
+ * - A valid reload changes the policy set version and the active policies
+ * - An invalid file is rejected and the previous policy set stays active
+ * - An empty or missing file falls back to the built-in policy set
+ * - Admin reload endpoint answering 400 for an invalid file
+ *
+ * @author MedShare Development Team
+ */
+class DeclarativePolicyLoaderTest {
+
+    private static final String AUDITED_POLICY = """
+            policies:
+              - name: AuditedPatientPolicy
+                priority: 5
+                targets:
+                  - { role: PATIENT, action: READ, resourceType: MEDICAL_RECORD }
+                permit:
+                  obligations: [ENHANCED_AUDIT]
+            """;
+
+    private static final String PHARMACIST_POLICY = """
+            policies:
+              - name: PharmacistPolicy
+                priority: 6
+                targets:
+                  - { role: PHARMACIST, action: READ, resourceType: MEDICAL_RECORD }
+                deny:
+                  - when: { not: { fact: ACTIVE_RELATIONSHIP } }
+                    reason: No active treatment relationship with patient
+            """;
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private PolicyInformationPoint policyInformationPoint;
+
+    private Path policyFile;
+    private PolicyEvaluator evaluator;
+    private DeclarativePolicyLoader loader;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        policyFile = directory.resolve("abac-policies.yml");
+        evaluator = new PolicyEvaluator(List.of(new PatientSelfAccessPolicy()));
+        loader = new DeclarativePolicyLoader(
+                new PolicyCompiler(policyInformationPoint), evaluator, new DefaultResourceLoader());
+        ReflectionTestUtils.setField(loader, "location", policyFile.toUri().toString());
+    }
+
+    @Test
+    void testReload_ValidFileChangesVersionAndPolicies() throws IOException {
+        write(AUDITED_POLICY);
+        String first = loader.reload();
+
+        assertNotEquals(PolicyEvaluator.BUILT_IN_VERSION, first);
+        assertEquals(first, evaluator.getPolicyVersion());
+        assertTrue(hasPolicy("AuditedPatientPolicy"));
+
+        write(PHARMACIST_POLICY);
+        String second = loader.reload();
+
+        assertNotEquals(first, second);
+        assertEquals(second, evaluator.getPolicyVersion());
+        assertTrue(hasPolicy("PharmacistPolicy"));
+        assertFalse(hasPolicy("AuditedPatientPolicy"));
+        assertTrue(hasPolicy("PatientSelfAccessPolicy"));
+
+        // Same content, same version (shared by every node with the file)
+        write(PHARMACIST_POLICY);
+        assertEquals(second, loader.reload());
+    }
+
+    @Test
+    void testReload_InvalidFileKeepsPreviousPolicySet() throws IOException {
+        write(AUDITED_POLICY);
+        String version = loader.reload();
+        List<String> policies = evaluator.getRegisteredPolicies();
+
+        // Does not parse
+        write("policies: [ { name: Broken");
+        assertThrows(PolicyDefinitionException.class, () -> loader.reload());
+        // Parses but does not compile
+        write(PHARMACIST_POLICY.replace("ACTIVE_RELATIONSHIP", "FAVOURITE_COLOUR"));
+        assertThrows(PolicyDefinitionException.class, () -> loader.reload());
+        // Compiles but clashes with a policy component
+        write(AUDITED_POLICY.replace("AuditedPatientPolicy", "PatientSelfAccessPolicy"));
+        assertThrows(PolicyDefinitionException.class, () -> loader.reload());
+
+        assertEquals(version, evaluator.getPolicyVersion());
+        assertEquals(policies, evaluator.getRegisteredPolicies());
+    }
+
+    @Test
+    void testReload_EmptyOrMissingFileFallsBackToBuiltInVersion() throws IOException {
+        write(AUDITED_POLICY);
+        loader.reload();
+
+        write("");
+        assertEquals(PolicyEvaluator.BUILT_IN_VERSION, loader.reload());
+        assertEquals(PolicyEvaluator.BUILT_IN_VERSION, evaluator.getPolicyVersion());
+        assertFalse(hasPolicy("AuditedPatientPolicy"));
+
+        write(AUDITED_POLICY);
+        loader.reload();
+        Files.delete(policyFile);
+        assertEquals(PolicyEvaluator.BUILT_IN_VERSION, loader.reload());
+        assertEquals(List.of("PatientSelfAccessPolicy (priority=2)"), evaluator.getRegisteredPolicies());
+    }
+
+    @Test
+    void testReloadPolicies_InvalidFileAnswersBadRequest() throws IOException {
+        AdminPolicyController controller = new AdminPolicyController(evaluator, loader);
+        write(AUDITED_POLICY);
+        ResponseEntity<Map<String, Object>> loaded = controller.reloadPolicies();
+        String version = evaluator.getPolicyVersion();
+
+        assertEquals(HttpStatus.OK, loaded.getStatusCode());
+        assertEquals(version, loaded.getBody().get("version"));
+
+        write(PHARMACIST_POLICY.replace("ACTIVE_RELATIONSHIP", "FAVOURITE_COLOUR"));
+        ResponseEntity<Map<String, Object>> rejected = controller.reloadPolicies();
+
+        assertEquals(HttpStatus.BAD_REQUEST, rejected.getStatusCode());
+        assertTrue(rejected.getBody().get("error").toString().contains("FAVOURITE_COLOUR"));
+        assertEquals(version, evaluator.getPolicyVersion());
+    }
+
+    private void write(String content) throws IOException {
+        Files.writeString(policyFile, content);
+    }
+
+    private boolean hasPolicy(String name) {
+        return evaluator.getRegisteredPolicies().stream().anyMatch(policy -> policy.startsWith(name + " "));
+    }
+}
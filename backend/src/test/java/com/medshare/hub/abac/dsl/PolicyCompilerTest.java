@@ -0,0 +1,192 @@
+package com.medshare.hub.abac.dsl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.medshare.hub.abac.Obligation;
+import com.medshare.hub.abac.Policy;
+import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.PolicyEvaluator;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.attributes.EnvironmentAttribute;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.abac.attributes.SubjectAttributes;
+import com.medshare.hub.abac.pip.PolicyInformationPoint;
+import com.medshare.hub.abac.policies.PatientSelfAccessPolicy;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.MedicalRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PolicyCompilerTest - Unit tests for declarative policy compilation
+ * 
+ * Tests:
+ * - Compiled deny rules and permit obligations
+ * - Environment dependencies inferred from the rules
+ * - Invalid definitions rejected
+ * - Partial evaluation of compiled rules
+ * - Atomic swap of the evaluator's policy set
+ * 
+ * @author MedShare Development Team
+ */
+class PolicyCompilerTest {
+
+    private static final String PHYSICIAN_POLICY = """
+            policies:
+              - name: DeclarativePhysicianPolicy
+                priority: 5
+                targets:
+                  - { role: DOCTOR, action: READ, resourceType: MEDICAL_RECORD }
+                deny:
+                  - when: { not: { fact: ACTIVE_RELATIONSHIP } }
+                    reason: No active treatment relationship with patient
+                  - when:
+                      all:
+                        - { attribute: environment.businessHours, equals: false }
+                        - { attribute: environment.emergency, equals: false }
+                    reason: Access outside business hours requires emergency override
+                  - when:
+                      all:
+                        - { attribute: resource.sensitivityLevel, in: [PSYCHIATRIC] }
+                        - { not: { attribute: subject.department, equals: psychiatry } }
+                    reason: Psychiatric records require psychiatry department affiliation
+                permit:
+                  obligations: [ENHANCED_AUDIT]
+            """;
+
+    @Mock
+    private PolicyInformationPoint policyInformationPoint;
+
+    private PolicyCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        compiler = new PolicyCompiler(policyInformationPoint);
+    }
+
+    @Test
+    void testCompile_DenyRulesAndPermitObligations() throws Exception {
+        Policy policy = compiler.compile(parse(PHYSICIAN_POLICY)).get(0);
+        when(policyInformationPoint.hasActiveRelationship(10L, 50L)).thenReturn(true);
+        when(policyInformationPoint.hasActiveRelationship(11L, 50L)).thenReturn(false);
+
+        ResourceAttributes psychiatric = resource("PSYCHIATRIC");
+        EnvironmentAttributes daytime = environment(10);
+
+        PolicyDecision unrelated = policy.evaluate(doctor(11L, "cardiology"), resource("STANDARD"), daytime,
+                AccessLog.Action.READ);
+        PolicyDecision afterHours = policy.evaluate(doctor(10L, "cardiology"), resource("STANDARD"),
+                environment(22), AccessLog.Action.READ);
+        PolicyDecision wrongDepartment = policy.evaluate(doctor(10L, "cardiology"), psychiatric, daytime,
+                AccessLog.Action.READ);
+        PolicyDecision permitted = policy.evaluate(doctor(10L, "Psychiatry"), psychiatric, daytime,
+                AccessLog.Action.READ);
+
+        assertEquals("No active treatment relationship with patient", unrelated.getDenyReason());
+        assertEquals("Access outside business hours requires emergency override", afterHours.getDenyReason());
+        assertEquals("Psychiatric records require psychiatry department affiliation",
+                wrongDepartment.getDenyReason());
+        assertTrue(permitted.isPermitted());
+        assertTrue(permitted.hasObligation(Obligation.ENHANCED_AUDIT));
+        assertEquals(Set.of(EnvironmentAttribute.BUSINESS_HOURS, EnvironmentAttribute.EMERGENCY),
+                policy.getEnvironmentDependencies());
+    }
+
+    @Test
+    void testPartialEvaluate_CompiledRulesLeaveResourceResidual() throws Exception {
+        Policy policy = compiler.compile(parse(PHYSICIAN_POLICY)).get(0);
+        when(policyInformationPoint.findActivelyTreatedPatientIds(eq(10L), anyCollection()))
+                .thenReturn(Set.of(50L));
+
+        ResourceCondition residual = policy.partialEvaluate(doctor(10L, "cardiology"), environment(10),
+                AccessLog.Action.READ, ResourceType.MEDICAL_RECORD, Set.of(50L, 51L));
+
+        assertEquals(ResourceCondition.and(
+                ResourceCondition.patientIn(Set.of(50L)),
+                ResourceCondition.not(ResourceCondition.sensitivityIn(
+                        Set.of(MedicalRecord.SensitivityLevel.PSYCHIATRIC)))), residual);
+        assertEquals(ResourceCondition.FALSE, policy.partialEvaluate(doctor(10L, "cardiology"), environment(22),
+                AccessLog.Action.READ, ResourceType.MEDICAL_RECORD, Set.of(50L, 51L)));
+    }
+
+    @Test
+    void testCompile_InvalidDefinitionsRejected() {
+        assertThrows(PolicyDefinitionException.class, () -> compiler.compile(parse("""
+                policies:
+                  - name: UnknownAttribute
+                    priority: 5
+                    targets: [{ role: DOCTOR, action: READ, resourceType: MEDICAL_RECORD }]
+                    deny:
+                      - when: { attribute: subject.shoeSize, equals: 42 }
+                        reason: Too big
+                """)));
+        assertThrows(PolicyDefinitionException.class, () -> compiler.compile(parse("""
+                policies:
+                  - name: UnknownRole
+                    priority: 5
+                    targets: [{ role: SURGEON, action: READ, resourceType: MEDICAL_RECORD }]
+                """)));
+        assertThrows(PolicyDefinitionException.class, () -> compiler.compile(parse("""
+                policies:
+                  - name: NoTargets
+                    priority: 5
+                """)));
+    }
+
+    @Test
+    void testReplaceDeclarativePolicies_SwapsPolicySet() throws Exception {
+        PolicyEvaluator evaluator = new PolicyEvaluator(List.of(new PatientSelfAccessPolicy()));
+        when(policyInformationPoint.hasActiveRelationship(10L, 50L)).thenReturn(true);
+        SubjectAttributes doctor = doctor(10L, "cardiology");
+
+        assertFalse(evaluator.evaluateAccess(doctor, resource("STANDARD"), environment(10),
+                AccessLog.Action.READ).isPermitted());
+
+        evaluator.replaceDeclarativePolicies(compiler.compile(parse(PHYSICIAN_POLICY)), "abc123");
+        PolicyDecision decision = evaluator.evaluateAccess(doctor, resource("STANDARD"), environment(10),
+                AccessLog.Action.READ);
+
+        assertTrue(decision.isPermitted());
+        assertEquals("DeclarativePhysicianPolicy", decision.getPolicyMatched());
+        assertEquals("abc123", evaluator.getPolicyVersion());
+        assertThrows(IllegalArgumentException.class, () -> evaluator.replaceDeclarativePolicies(
+                List.of(new PatientSelfAccessPolicy()), "def456"));
+        assertEquals("abc123", evaluator.getPolicyVersion());
+    }
+
+    private static PolicyDocument parse(String yaml) throws Exception {
+        return new ObjectMapper(new YAMLFactory()).readValue(yaml, PolicyDocument.class);
+    }
+
+    private static SubjectAttributes doctor(Long userId, String department) {
+        return SubjectAttributes.builder().userId(userId).role("DOCTOR").department(department).build();
+    }
+
+    private static ResourceAttributes resource(String sensitivityLevel) {
+        return ResourceAttributes.builder()
+                .resourceId(100L)
+                .resourceType("MEDICAL_RECORD")
+                .patientId(50L)
+                .sensitivityLevel(sensitivityLevel)
+                .build();
+    }
+
+    private static EnvironmentAttributes environment(int hour) {
+        return EnvironmentAttributes.builder()
+                .currentTime(LocalDateTime.now().withHour(hour))
+                .isEmergency(false)
+                .build();
+    }
+}
@@ -0,0 +1,213 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.entity.Consent;
+import com.medshare.hub.entity.Patient;
+import com.medshare.hub.entity.User;
+import com.medshare.hub.repository.ConsentRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ConsentIndexTest - Unit tests for the in-memory consent index
+ *
+ * Tests:
+ * - Purpose/data type matching, including data type ALL
+ * - Expiry of grants
+ * - Revocation reloading the patient/user pair
+ * - Revocation on one node reaching the index of another node
+ * - Hash table growth and deletion
+ *
+ * @author MedShare Development Team
+ */
+class ConsentIndexTest {
+
+    @Mock
+    private ConsentRepository consentRepository;
+
+    private ConsentIndex consentIndex;
+
+    @Mock
+    private InvalidationEpochs invalidationEpochs;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(consentRepository.streamValidUserConsentKeys()).thenReturn(Stream.empty());
+        consentIndex = new ConsentIndex(consentRepository, invalidationEpochs);
+        consentIndex.reload();
+    }
+
+    @Test
+    void testGrant_MatchesPurposeAndDataType() {
+        consentIndex.consentGranted(consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, null));
+
+        assertTrue(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        assertFalse(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.IMAGING));
+        assertFalse(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.RESEARCH, Consent.DataType.BILLING));
+        assertFalse(consentIndex.hasValidConsent(1L, 21L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+    }
+
+    @Test
+    void testGrant_DataTypeAllCoversEveryDataType() {
+        consentIndex.consentGranted(consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.ALL, null));
+
+        assertTrue(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        assertTrue(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.IMAGING));
+    }
+
+    @Test
+    void testExpiry_ExpiredGrantIsIgnoredAndSwept() {
+        LocalDateTime past = LocalDateTime.now().minusMinutes(1);
+        LocalDateTime future = LocalDateTime.now().plusDays(1);
+        consentIndex.consentGranted(consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, past));
+        consentIndex.consentGranted(consent(1L, 20L, Consent.Purpose.TREATMENT, Consent.DataType.ALL, future));
+
+        assertFalse(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+
+        consentIndex.sweepExpired();
+
+        assertFalse(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        assertTrue(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.TREATMENT, Consent.DataType.LAB_RESULTS));
+    }
+
+    @Test
+    void testRevoke_ReloadsRemainingConsentsOfThePair() {
+        Consent billing = consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, null);
+        Consent all = consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.ALL, null);
+        consentIndex.consentGranted(billing);
+        consentIndex.consentGranted(all);
+
+        when(consentRepository.findValidConsentsForUser(1L, 20L)).thenReturn(List.of(billing));
+        consentIndex.consentRevoked(all);
+
+        assertTrue(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        assertFalse(consentIndex.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.IMAGING));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRemoteRevoke_RefreshesIndexOfOtherNode() {
+        // Two nodes sharing the database and the Redis epoch channel
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        AtomicLong counter = new AtomicLong();
+        List<InvalidationEpochs> subscribers = new CopyOnWriteArrayList<>();
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.increment(anyString())).thenAnswer(invocation -> counter.incrementAndGet());
+        doAnswer(invocation -> {
+            DefaultMessage message = new DefaultMessage(
+                    invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8),
+                    invocation.<String>getArgument(1).getBytes(StandardCharsets.UTF_8));
+            subscribers.forEach(epochs -> epochs.onMessage(message, null));
+            return null;
+        }).when(redis).convertAndSend(anyString(), anyString());
+
+        InvalidationEpochs epochsA = new InvalidationEpochs(redis, "epochs", 100, 30_000);
+        InvalidationEpochs epochsB = new InvalidationEpochs(redis, "epochs", 100, 30_000);
+        subscribers.add(epochsA);
+        subscribers.add(epochsB);
+        ConsentIndex nodeA = new ConsentIndex(consentRepository, epochsA);
+        ConsentIndex nodeB = new ConsentIndex(consentRepository, epochsB);
+        ReflectionTestUtils.setField(nodeA, "enabled", true);
+        ReflectionTestUtils.setField(nodeB, "enabled", true);
+        nodeA.subscribeToRemoteChanges();
+        nodeB.subscribeToRemoteChanges();
+
+        ConsentRepository.ValidConsentKey key = mock(ConsentRepository.ValidConsentKey.class);
+        when(key.getPatientId()).thenReturn(1L);
+        when(key.getUserId()).thenReturn(20L);
+        when(key.getPurpose()).thenReturn(Consent.Purpose.INSURANCE);
+        when(key.getDataType()).thenReturn(Consent.DataType.BILLING);
+        when(consentRepository.streamValidUserConsentKeys()).thenAnswer(invocation -> Stream.of(key));
+        nodeA.reload();
+        nodeB.reload();
+        assertTrue(nodeB.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+
+        // Node A revokes; the database no longer has a valid consent
+        when(consentRepository.findValidConsentsForUser(1L, 20L)).thenReturn(List.of());
+        when(consentRepository.findValidUserConsentKeys(1L)).thenReturn(List.of());
+        when(consentRepository.findGranteeUserIds(1L)).thenReturn(List.of(20L));
+        long epochBefore = epochsB.patientEpoch(1L);
+        nodeA.consentRevoked(consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, null));
+        epochsA.bumpPatient(1L);
+
+        assertFalse(nodeA.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        assertFalse(nodeB.hasValidConsent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING));
+        assertTrue(epochsB.patientEpoch(1L) > epochBefore);
+        // The originating node does not refresh from its own message
+        verify(consentRepository, times(1)).findValidUserConsentKeys(1L);
+    }
+
+    @Test
+    void testRefreshPatient_FailureStopsAnsweringUntilReload() {
+        consentIndex.consentGranted(consent(1L, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, null));
+        when(consentRepository.findGranteeUserIds(1L)).thenThrow(new RuntimeException("connection refused"));
+
+        consentIndex.refreshPatient(1L);
+
+        assertFalse(consentIndex.isReady());
+
+        when(consentRepository.streamValidUserConsentKeys()).thenAnswer(invocation -> Stream.empty());
+        consentIndex.reload();
+
+        assertTrue(consentIndex.isReady());
+    }
+
+    @Test
+    void testTable_GrowsAndDeletesWithoutLosingEntries() {
+        int pairs = 5_000;
+        for (long patientId = 1; patientId <= pairs; patientId++) {
+            consentIndex.consentGranted(
+                    consent(patientId, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, null));
+        }
+
+        when(consentRepository.findValidConsentsForUser(anyLong(), eq(20L))).thenReturn(List.of());
+        for (long patientId = 1; patientId <= pairs; patientId += 2) {
+            consentIndex.consentRevoked(
+                    consent(patientId, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING, null));
+        }
+
+        for (long patientId = 1; patientId <= pairs; patientId++) {
+            assertEquals(patientId % 2 == 0,
+                    consentIndex.hasValidConsent(patientId, 20L, Consent.Purpose.INSURANCE, Consent.DataType.BILLING),
+                    "patient " + patientId);
+        }
+    }
+
+    private static Consent consent(
+            Long patientId,
+            Long userId,
+            Consent.Purpose purpose,
+            Consent.DataType dataType,
+            LocalDateTime expiresAt) {
+        Patient patient = new Patient();
+        patient.setPatientId(patientId);
+        User user = new User();
+        user.setUserId(userId);
+
+        Consent consent = new Consent();
+        consent.setPatient(patient);
+        consent.setGrantedToUser(user);
+        consent.setPurpose(purpose);
+        consent.setDataType(dataType);
+        consent.setExpiresAt(expiresAt);
+        return consent;
+    }
+}
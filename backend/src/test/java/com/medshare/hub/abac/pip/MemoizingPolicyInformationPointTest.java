@@ -0,0 +1,179 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.entity.Consent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * MemoizingPolicyInformationPointTest - Unit tests for scope memoization of
+ * policy information
+ *
+ * Tests:
+ * - Facts resolved once per scope, not memoized outside of a scope
+ * - Nested scopes joining the outer scope, memo discarded by the outermost
+ * - Bulk lookups querying only the patients not known yet
+ * - Consent facts keyed by purpose and data type
+ * - Scope closed by PipScopeFilter when the filter chain throws
+ * - Hit/miss counters registered with the meter registry
+ *
+ * @author MedShare Development Team
+ */
+class MemoizingPolicyInformationPointTest {
+
+    private static final long PROVIDER_ID = 10L;
+
+    @Mock
+    private PolicyInformationPoint delegate;
+
+    private MeterRegistry meterRegistry;
+
+    private MemoizingPolicyInformationPoint policyInformationPoint;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        policyInformationPoint = new MemoizingPolicyInformationPoint(delegate, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        assertNull(PipScope.current(), "Scope left open on the thread");
+    }
+
+    @Test
+    void testScope_FactResolvedOnce() {
+        when(delegate.hasActiveRelationship(PROVIDER_ID, 50L)).thenReturn(true);
+
+        try (PipScope scope = PipScope.open()) {
+            assertTrue(policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L));
+            assertTrue(policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L));
+        }
+        verify(delegate, times(1)).hasActiveRelationship(PROVIDER_ID, 50L);
+
+        // Outside of a scope nothing is remembered
+        policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L);
+        policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L);
+        verify(delegate, times(3)).hasActiveRelationship(PROVIDER_ID, 50L);
+    }
+
+    @Test
+    void testNestedScope_JoinsOuterScopeUntilOutermostCloses() {
+        when(delegate.hasActiveRelationship(PROVIDER_ID, 50L)).thenReturn(false);
+
+        try (PipScope outer = PipScope.open()) {
+            policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L);
+            try (PipScope inner = PipScope.open()) {
+                assertSame(outer, inner);
+                assertFalse(policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L));
+            }
+            // Closing the inner scope keeps the memo of the outer one
+            assertSame(outer, PipScope.current());
+            assertFalse(policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L));
+        }
+        verify(delegate, times(1)).hasActiveRelationship(PROVIDER_ID, 50L);
+
+        try (PipScope scope = PipScope.open()) {
+            policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L);
+        }
+        verify(delegate, times(2)).hasActiveRelationship(PROVIDER_ID, 50L);
+    }
+
+    @Test
+    void testBulkLookup_QueriesOnlyUnknownPatients() {
+        when(delegate.hasActiveRelationship(PROVIDER_ID, 50L)).thenReturn(true);
+        when(delegate.hasActiveRelationship(PROVIDER_ID, 51L)).thenReturn(false);
+        when(delegate.findActivelyTreatedPatientIds(eq(PROVIDER_ID), anyCollection())).thenReturn(Set.of(52L));
+
+        try (PipScope scope = PipScope.open()) {
+            policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L);
+            policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 51L);
+
+            Set<Long> treated = policyInformationPoint.findActivelyTreatedPatientIds(
+                    PROVIDER_ID, List.of(50L, 51L, 52L, 53L));
+
+            assertEquals(Set.of(50L, 52L), treated);
+            verify(delegate).findActivelyTreatedPatientIds(PROVIDER_ID, List.of(52L, 53L));
+
+            // Every patient is known now: no query at all
+            assertEquals(Set.of(52L), policyInformationPoint.findActivelyTreatedPatientIds(
+                    PROVIDER_ID, List.of(52L, 53L)));
+            assertFalse(policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 53L));
+            verify(delegate, times(1)).findActivelyTreatedPatientIds(eq(PROVIDER_ID), anyCollection());
+            verify(delegate, never()).hasActiveRelationship(PROVIDER_ID, 53L);
+        }
+    }
+
+    @Test
+    void testConsent_KeyedByPurposeAndDataType() {
+        when(delegate.hasValidConsent(anyLong(), anyLong(), any(), any())).thenReturn(true);
+        when(delegate.findPatientIdsWithValidConsent(anyCollection(), anyLong(), any(), any()))
+                .thenReturn(Set.of());
+
+        try (PipScope scope = PipScope.open()) {
+            policyInformationPoint.hasValidConsent(50L, 20L, Consent.Purpose.TREATMENT, Consent.DataType.ALL);
+            policyInformationPoint.hasValidConsent(50L, 20L, Consent.Purpose.TREATMENT, Consent.DataType.ALL);
+            policyInformationPoint.hasValidConsent(50L, 20L, Consent.Purpose.RESEARCH, Consent.DataType.ALL);
+
+            Set<Long> consented = policyInformationPoint.findPatientIdsWithValidConsent(
+                    List.of(50L, 51L), 20L, Consent.Purpose.RESEARCH, Consent.DataType.ALL);
+
+            assertEquals(Set.of(50L), consented);
+        }
+        verify(delegate, times(1)).hasValidConsent(50L, 20L, Consent.Purpose.TREATMENT, Consent.DataType.ALL);
+        verify(delegate, times(1)).hasValidConsent(50L, 20L, Consent.Purpose.RESEARCH, Consent.DataType.ALL);
+        verify(delegate).findPatientIdsWithValidConsent(
+                List.of(51L), 20L, Consent.Purpose.RESEARCH, Consent.DataType.ALL);
+    }
+
+    @Test
+    void testFilter_ClosesScopeWhenChainThrows() {
+        PipScopeFilter filter = new PipScopeFilter();
+        FilterChain failing = (request, response) -> {
+            assertNotNull(PipScope.current());
+            throw new ServletException("Handler failed");
+        };
+
+        assertThrows(ServletException.class, () -> filter.doFilter(
+                new MockHttpServletRequest(), new MockHttpServletResponse(), failing));
+
+        assertNull(PipScope.current());
+    }
+
+    @Test
+    void testCounters_RegisteredWithMeterRegistry() {
+        when(delegate.findActivelyTreatedPatientIds(eq(PROVIDER_ID), anyCollection())).thenReturn(Set.of());
+
+        try (PipScope scope = PipScope.open()) {
+            policyInformationPoint.findActivelyTreatedPatientIds(PROVIDER_ID, List.of(50L, 51L, 52L));
+            policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 50L);
+            policyInformationPoint.hasActiveRelationship(PROVIDER_ID, 51L);
+        }
+
+        assertEquals(2, policyInformationPoint.getHits(PipLookup.ACTIVE_RELATIONSHIP));
+        assertEquals(3, policyInformationPoint.getMisses(PipLookup.ACTIVE_RELATIONSHIP));
+        assertEquals(2.0, facts("active_relationship", "hit"));
+        assertEquals(3.0, facts("active_relationship", "miss"));
+        assertEquals(0.0, facts("valid_consent", "miss"));
+    }
+
+    private double facts(String lookup, String result) {
+        return meterRegistry.get("abac.pip.facts").tag("lookup", lookup).tag("result", result).counter().count();
+    }
+}
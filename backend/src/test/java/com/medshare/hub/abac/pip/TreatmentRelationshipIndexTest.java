@@ -0,0 +1,214 @@
+package com.medshare.hub.abac.pip;
+
+import com.medshare.hub.cache.InvalidationEpochs;
+import com.medshare.hub.repository.TreatmentRelationshipRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TreatmentRelationshipIndexTest - Unit tests for the in-memory
+ * relationship index
+ *
+ * Tests:
+ * - Bulk load
+ * - Incremental add and remove
+ * - Expiry of relationships past their end date, in memory on lookup and
+ *   against the database on sweep
+ * - Relationship changes on one node reaching the index of another node
+ *
+ * @author MedShare Development Team
+ */
+class TreatmentRelationshipIndexTest {
+
+    @Mock
+    private TreatmentRelationshipRepository treatmentRelationshipRepository;
+
+    private TreatmentRelationshipIndex index;
+
+    @Mock
+    private InvalidationEpochs invalidationEpochs;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        index = new TreatmentRelationshipIndex(treatmentRelationshipRepository, invalidationEpochs);
+    }
+
+    @Test
+    void testReload_IndexesBothDirections() {
+        List<TreatmentRelationshipRepository.ActiveRelationshipKey> keys = List.of(
+                key(1L, 10L, 100L, null),
+                key(2L, 10L, 101L, null),
+                key(3L, 11L, 100L, null));
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys()).thenReturn(keys.stream());
+
+        index.reload();
+
+        assertTrue(index.isReady());
+        assertTrue(index.contains(10L, 100L));
+        assertTrue(index.contains(10L, 101L));
+        assertFalse(index.contains(11L, 101L));
+        assertEquals(2, index.countTreatingProviders(100L));
+        assertEquals(Set.of(100L, 101L),
+                index.filterTreatedPatients(10L, List.of(100L, 101L, 102L), new HashSet<>()));
+        assertTrue(index.getMemoryFootprintBytes() > 0);
+    }
+
+    @Test
+    void testRemove_DropsPairFromBothDirections() {
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys()).thenReturn(Stream.empty());
+        index.reload();
+
+        index.add(10L, 100L, Long.MAX_VALUE);
+        assertTrue(index.contains(10L, 100L));
+
+        index.remove(10L, 100L);
+        assertFalse(index.contains(10L, 100L));
+        assertEquals(0, index.countTreatingProviders(100L));
+    }
+
+    @Test
+    void testExpiry_LookupComparesEndDateWithoutDatabase() {
+        List<TreatmentRelationshipRepository.ActiveRelationshipKey> keys = List.of(
+                key(1L, 10L, 100L, LocalDateTime.now().minusMinutes(1)),
+                key(2L, 11L, 100L, LocalDateTime.now().plusDays(1)),
+                key(3L, 12L, 100L, null));
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys()).thenReturn(keys.stream());
+        index.reload();
+
+        assertFalse(index.contains(10L, 100L));
+        assertTrue(index.contains(11L, 100L));
+        assertTrue(index.contains(12L, 100L));
+        assertEquals(Set.of(), index.filterTreatedPatients(10L, List.of(100L), new HashSet<>()));
+        assertEquals(2, index.countTreatingProviders(100L));
+        verify(treatmentRelationshipRepository, never()).findActiveRelationshipKeysByPatient(anyLong());
+        verify(treatmentRelationshipRepository, never()).hasActiveRelationship(anyLong(), anyLong());
+    }
+
+    @Test
+    void testExpiry_SweepRefreshesPatientFromDatabase() {
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys()).thenReturn(Stream.empty());
+        index.reload();
+        index.add(10L, 100L, System.currentTimeMillis() - 1);
+        index.add(11L, 100L, System.currentTimeMillis() - 1);
+        // Provider 11 was extended by a relationship this node did not see
+        List<TreatmentRelationshipRepository.ActiveRelationshipKey> active =
+                List.of(key(2L, 11L, 100L, null));
+        when(treatmentRelationshipRepository.findActiveRelationshipKeysByPatient(100L)).thenReturn(active);
+
+        index.sweepExpired();
+
+        assertFalse(index.contains(10L, 100L));
+        assertTrue(index.contains(11L, 100L));
+        assertEquals(1, index.countTreatingProviders(100L));
+        verify(treatmentRelationshipRepository).findActiveRelationshipKeysByPatient(100L);
+        verify(invalidationEpochs).bumpPatient(100L);
+    }
+
+    @Test
+    void testAdd_LaterEndDateOfTheSamePairWins() {
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys()).thenReturn(Stream.empty());
+        index.reload();
+
+        index.add(10L, 100L, Long.MAX_VALUE);
+        index.add(10L, 100L, System.currentTimeMillis() - 1);
+        index.add(11L, 100L, System.currentTimeMillis() - 1);
+        index.add(11L, 100L, System.currentTimeMillis() + 60_000);
+
+        assertTrue(index.contains(10L, 100L));
+        assertTrue(index.contains(11L, 100L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRemoteChange_RefreshesIndexOfOtherNode() {
+        // Two nodes sharing the database and the Redis epoch channel
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        AtomicLong counter = new AtomicLong();
+        List<InvalidationEpochs> subscribers = new CopyOnWriteArrayList<>();
+        when(redis.opsForValue()).thenReturn(values);
+        when(values.increment(anyString())).thenAnswer(invocation -> counter.incrementAndGet());
+        doAnswer(invocation -> {
+            DefaultMessage message = new DefaultMessage(
+                    invocation.<String>getArgument(0).getBytes(StandardCharsets.UTF_8),
+                    invocation.<String>getArgument(1).getBytes(StandardCharsets.UTF_8));
+            subscribers.forEach(epochs -> epochs.onMessage(message, null));
+            return null;
+        }).when(redis).convertAndSend(anyString(), anyString());
+
+        InvalidationEpochs epochsA = new InvalidationEpochs(redis, "epochs", 100, 30_000);
+        InvalidationEpochs epochsB = new InvalidationEpochs(redis, "epochs", 100, 30_000);
+        subscribers.add(epochsA);
+        subscribers.add(epochsB);
+        TreatmentRelationshipIndex nodeA = new TreatmentRelationshipIndex(treatmentRelationshipRepository, epochsA);
+        TreatmentRelationshipIndex nodeB = new TreatmentRelationshipIndex(treatmentRelationshipRepository, epochsB);
+        ReflectionTestUtils.setField(nodeA, "enabled", true);
+        ReflectionTestUtils.setField(nodeB, "enabled", true);
+        nodeA.subscribeToRemoteChanges();
+        nodeB.subscribeToRemoteChanges();
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys())
+                .thenAnswer(invocation -> Stream.of(key(1L, 10L, 100L, null)));
+        nodeA.reload();
+        nodeB.reload();
+        assertTrue(nodeB.contains(10L, 100L));
+
+        // Node A ends the relationship with provider 10 and creates one with provider 11
+        List<TreatmentRelationshipRepository.ActiveRelationshipKey> active =
+                List.of(key(2L, 11L, 100L, null));
+        when(treatmentRelationshipRepository.findActiveRelationshipKeysByPatient(100L)).thenReturn(active);
+        nodeA.refreshPatient(100L);
+        epochsA.bumpPatient(100L);
+
+        assertFalse(nodeB.contains(10L, 100L));
+        assertTrue(nodeB.contains(11L, 100L));
+        assertEquals(1, nodeB.countTreatingProviders(100L));
+        // Node A refreshed once itself, node B once from the epoch message
+        verify(treatmentRelationshipRepository, times(2)).findActiveRelationshipKeysByPatient(100L);
+    }
+
+    @Test
+    void testRefreshPatient_FailureStopsAnsweringUntilReload() {
+        when(treatmentRelationshipRepository.streamActiveRelationshipKeys()).thenAnswer(invocation -> Stream.empty());
+        index.reload();
+        when(treatmentRelationshipRepository.findActiveRelationshipKeysByPatient(100L))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        index.refreshPatient(100L);
+
+        assertFalse(index.isReady());
+
+        index.reload();
+
+        assertTrue(index.isReady());
+    }
+
+    private static TreatmentRelationshipRepository.ActiveRelationshipKey key(
+            Long relationshipId, Long providerId, Long patientId, LocalDateTime endDate) {
+        TreatmentRelationshipRepository.ActiveRelationshipKey key =
+                mock(TreatmentRelationshipRepository.ActiveRelationshipKey.class);
+        when(key.getRelationshipId()).thenReturn(relationshipId);
+        when(key.getProviderId()).thenReturn(providerId);
+        when(key.getPatientId()).thenReturn(patientId);
+        when(key.getEndDate()).thenReturn(endDate);
+        return key;
+    }
+}
@@ -0,0 +1,88 @@
+package com.medshare.hub.audit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AccessLogPartitionManagerTest - Unit tests for access_logs partition maintenance
+ * 
+ * Tests:
+ * - Partitions created for the current and upcoming months
+ * - Only partitions past the b-tree window switched to BRIN
+ * - A month that fails does not stop the following months or BRIN step
+ * 
+ * @author MedShare Development Team
+ */
+class AccessLogPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private AccessLogPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        manager = new AccessLogPartitionManager(jdbcTemplate, true, 2, 3);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), any(Object[].class))).thenReturn(true);
+    }
+
+    @Test
+    void testMaintain_CreatesUpcomingAndCompactsOldPartitions() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "access_logs_p202401", "access_logs_p202402", "access_logs_p202403",
+                "access_logs_p202405", "access_logs_p202406", "access_logs_default"));
+
+        manager.maintain(LocalDate.of(2024, 6, 17));
+
+        for (String month : List.of("2024-06-01", "2024-07-01", "2024-08-01")) {
+            verify(jdbcTemplate).queryForObject("SELECT create_access_logs_partition(?)", Boolean.class,
+                    Date.valueOf(month));
+        }
+        verify(jdbcTemplate).queryForObject("SELECT brin_access_logs_partition(?)", Boolean.class,
+                "access_logs_p202401");
+        verify(jdbcTemplate).queryForObject("SELECT brin_access_logs_partition(?)", Boolean.class,
+                "access_logs_p202402");
+        verify(jdbcTemplate, times(5)).queryForObject(anyString(), eq(Boolean.class), any(Object[].class));
+    }
+
+    @Test
+    void testMaintain_FailedMonthDoesNotStopMaintenance() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of(
+                "access_logs_p202401", "access_logs_p202406", "access_logs_default"));
+        when(jdbcTemplate.queryForObject("SELECT create_access_logs_partition(?)", Boolean.class,
+                Date.valueOf("2024-06-01")))
+                .thenThrow(new DataIntegrityViolationException(
+                        "updated partition constraint for default partition would be violated"));
+
+        int failures = manager.maintain(LocalDate.of(2024, 6, 17));
+
+        assertEquals(1, failures);
+        for (String month : List.of("2024-07-01", "2024-08-01")) {
+            verify(jdbcTemplate).queryForObject("SELECT create_access_logs_partition(?)", Boolean.class,
+                    Date.valueOf(month));
+        }
+        verify(jdbcTemplate).queryForObject("SELECT brin_access_logs_partition(?)", Boolean.class,
+                "access_logs_p202401");
+    }
+
+    @Test
+    void testPartitionMonth_ParsesMonthlyPartitionNames() {
+        assertEquals(YearMonth.of(2024, 1), AccessLogPartitionManager.partitionMonth("access_logs_p202401"));
+        assertNull(AccessLogPartitionManager.partitionMonth("access_logs_default"));
+        assertNull(AccessLogPartitionManager.partitionMonth("access_logs_pending"));
+    }
+}
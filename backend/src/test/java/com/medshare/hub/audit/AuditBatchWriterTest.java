@@ -0,0 +1,230 @@
+package com.medshare.hub.audit;
+
+import com.medshare.hub.entity.AccessLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AuditBatchWriterTest - Unit tests for the batched audit writer
+ * 
+ * Tests:
+ * - Queued events written with one multi-row insert
+ * - Full queue falls back to writing on the calling thread
+ * - Overflow write inside a read-only transaction uses its own transaction
+ * - Batch aggregated into one hourly rollup row per key
+ * - Writer thread survives a failed transaction begin
+ * - Transient failure retried until written
+ * - Rejected (poison) event dead-lettered, rest of the batch written
+ * 
+ * @author MedShare Development Team
+ */
+class AuditBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testFlushPending_WritesQueuedEventsInOneStatement() {
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(100), 50, 200);
+
+        for (int i = 0; i < 3; i++) {
+            writer.submit(event(i));
+        }
+        assertEquals(3, writer.getQueueDepth());
+        verifyNoInteractions(jdbcTemplate);
+
+        writer.flushPending();
+
+        verify(jdbcTemplate, times(1)).update(
+                argThat((String sql) -> sql.startsWith("INSERT INTO access_logs") && sql.split("\\(\\?").length == 4),
+                any(PreparedStatementSetter.class));
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(3, meterRegistry.get("audit.events.written").counter().count());
+        assertEquals(1, meterRegistry.get("audit.flush").timer().count());
+    }
+
+    @Test
+    void testSubmit_FullQueueWritesOnCallingThread() {
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(2), 50, 200);
+
+        writer.submit(event(1));
+        writer.submit(event(2));
+        writer.submit(event(3));
+
+        assertEquals(2, writer.getQueueDepth());
+        verify(jdbcTemplate, times(1)).update(
+                argThat((String sql) -> sql.startsWith("INSERT INTO access_logs ")),
+                any(PreparedStatementSetter.class));
+        assertEquals(1, meterRegistry.get("audit.queue.overflow").counter().count());
+    }
+
+    @Test
+    void testSubmit_OverflowInReadOnlyTransactionWritesInNewTransaction() {
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(1), 50, 200);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            writer.submit(event(1));
+            writer.submit(event(2));
+        });
+
+        ArgumentCaptor<TransactionDefinition> definitions = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(2)).getTransaction(definitions.capture());
+        TransactionDefinition caller = definitions.getAllValues().get(0);
+        TransactionDefinition overflow = definitions.getAllValues().get(1);
+        assertTrue(caller.isReadOnly());
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, overflow.getPropagationBehavior());
+        assertFalse(overflow.isReadOnly());
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO access_logs "),
+                any(PreparedStatementSetter.class));
+    }
+
+    @Test
+    void testFlushPending_UpsertsOneRollupRowPerKey() {
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(100), 50, 200);
+        LocalDateTime hour = LocalDateTime.of(2024, 3, 1, 10, 0);
+        List<AuditEvent> events = List.of(
+                event(1, AccessLog.Decision.PERMIT, hour.plusMinutes(5)),
+                event(2, AccessLog.Decision.PERMIT, hour.plusMinutes(59)),
+                event(3, AccessLog.Decision.DENY, hour.plusMinutes(30)),
+                event(4, AccessLog.Decision.PERMIT, hour.plusHours(1)));
+
+        events.forEach(writer::submit);
+        writer.flushPending();
+
+        verify(jdbcTemplate, times(1)).update(
+                argThat((String sql) -> sql.startsWith("INSERT INTO access_log_hourly_rollups")
+                        && sql.contains("ON CONFLICT") && sql.split("\\(\\?").length == 4),
+                any(PreparedStatementSetter.class));
+        Map<HourlyRollupUpdater.RollupKey, Long> counts = HourlyRollupUpdater.aggregate(events);
+        assertEquals(3, counts.size());
+        assertEquals(2L, counts.get(new HourlyRollupUpdater.RollupKey(
+                hour, "PERMIT", "PatientSelfAccessPolicy", "MEDICAL_RECORD", false)));
+    }
+
+    @Test
+    void testWriterThread_SurvivesFailedTransactionBegin() throws InterruptedException {
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("Connection refused"))
+                .thenReturn(null);
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(100), 50, 10);
+        writer.start();
+        try {
+            writer.submit(event(1));
+
+            verify(jdbcTemplate, timeout(5000)).update(
+                    argThat((String sql) -> sql.startsWith("INSERT INTO access_logs ")),
+                    any(PreparedStatementSetter.class));
+        } finally {
+            writer.stop();
+        }
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(1, meterRegistry.get("audit.flush.failures").counter().count());
+        assertEquals(1, meterRegistry.get("audit.events.written").counter().count());
+    }
+
+    @Test
+    void testWriterThread_RetriesTransientFailure() throws InterruptedException {
+        when(jdbcTemplate.update(startsWith("INSERT INTO access_logs "), any(PreparedStatementSetter.class)))
+                .thenThrow(new TransientDataAccessResourceException("Connection reset"))
+                .thenReturn(3);
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(100), 50, 10);
+        writer.start();
+        try {
+            for (int i = 0; i < 3; i++) {
+                writer.submit(event(i));
+            }
+
+            verify(jdbcTemplate, timeout(5000).times(2)).update(startsWith("INSERT INTO access_logs "),
+                    any(PreparedStatementSetter.class));
+        } finally {
+            writer.stop();
+        }
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(1, meterRegistry.get("audit.flush.failures").counter().count());
+        assertEquals(3, meterRegistry.get("audit.events.written").counter().count());
+        assertEquals(0, meterRegistry.get("audit.dead.letters").counter().count());
+    }
+
+    @Test
+    void testFlushPending_DeadLettersRejectedEvent() {
+        String poison = "x".repeat(200);
+        when(jdbcTemplate.update(startsWith("INSERT INTO access_logs "), any(PreparedStatementSetter.class)))
+                .thenAnswer(invocation -> {
+                    PreparedStatement statement = mock(PreparedStatement.class);
+                    invocation.<PreparedStatementSetter>getArgument(1).setValues(statement);
+                    boolean rejected = mockingDetails(statement).getInvocations().stream()
+                            .anyMatch(call -> Arrays.asList(call.getArguments()).contains(poison));
+                    if (rejected) {
+                        throw new DataIntegrityViolationException("value too long for type character varying(100)");
+                    }
+                    return 1;
+                });
+        AuditBatchWriter writer = new AuditBatchWriter(jdbcTemplate, transactionManager, meterRegistry,
+                new AuditEventQueue(100), 50, 200);
+        writer.submit(event(1));
+        writer.submit(event(2));
+        writer.submit(new AuditEvent(3L, 50L, "MEDICAL_RECORD", 100L, AccessLog.Action.READ,
+                AccessLog.Decision.PERMIT, "PatientSelfAccessPolicy", null, false, null,
+                "127.0.0.1", poison, LocalDateTime.now()));
+        writer.submit(event(4));
+
+        writer.flushPending();
+
+        verify(jdbcTemplate, times(1)).update(startsWith("INSERT INTO audit_dead_letters"),
+                any(PreparedStatementSetter.class));
+        assertEquals(0, writer.getQueueDepth());
+        assertEquals(3, meterRegistry.get("audit.events.written").counter().count());
+        assertEquals(1, meterRegistry.get("audit.dead.letters").counter().count());
+    }
+
+    private static AuditEvent event(long userId) {
+        return event(userId, AccessLog.Decision.PERMIT, LocalDateTime.now());
+    }
+
+    private static AuditEvent event(long userId, AccessLog.Decision decision, LocalDateTime createdAt) {
+        return new AuditEvent(userId, 50L, "MEDICAL_RECORD", 100L, AccessLog.Action.READ,
+                decision, "PatientSelfAccessPolicy", null, false, null,
+                "127.0.0.1", "session", createdAt);
+    }
+}
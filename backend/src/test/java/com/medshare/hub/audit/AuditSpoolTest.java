@@ -0,0 +1,165 @@
+package com.medshare.hub.audit;
+
+import com.medshare.hub.entity.AccessLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AuditSpoolTest - Unit tests for the memory-mapped audit spool
+ * 
+ * Tests:
+ * - Events drained in order across segment rotation
+ * - Unacknowledged events replayed after reopening
+ * - Full spool rejects appends until acknowledged
+ * - Torn tail record discarded on recovery, appends resume in its place
+ * - Appended events forced to disk while nothing is drained
+ * 
+ * @author MedShare Development Team
+ */
+class AuditSpoolTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testDrainTo_EventsInOrderAcrossSegments() throws Exception {
+        try (AuditSpool spool = open(AuditSpool.OverflowMode.REJECT, 1 << 20)) {
+            for (long i = 0; i < 100; i++) {
+                assertTrue(spool.offer(event(i)));
+            }
+            assertEquals(100, spool.size());
+
+            List<AuditEvent> drained = new ArrayList<>();
+            while (spool.drainTo(drained, 30) > 0) {
+                spool.acknowledge();
+            }
+
+            assertEquals(100, drained.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(event(i), drained.get(i));
+            }
+            assertEquals(0, spool.size());
+            assertEquals(1, segmentFiles());
+        }
+    }
+
+    @Test
+    void testOpen_ReplaysUnacknowledgedEvents() throws Exception {
+        try (AuditSpool spool = open(AuditSpool.OverflowMode.REJECT, 1 << 20)) {
+            for (long i = 0; i < 5; i++) {
+                spool.offer(event(i));
+            }
+            List<AuditEvent> drained = new ArrayList<>();
+            spool.drainTo(drained, 2);
+            spool.acknowledge();
+            // Drained but not written before the crash
+            spool.drainTo(drained, 2);
+        }
+
+        try (AuditSpool spool = open(AuditSpool.OverflowMode.REJECT, 1 << 20)) {
+            assertEquals(3, spool.size());
+            List<AuditEvent> replayed = new ArrayList<>();
+            spool.drainTo(replayed, 10);
+
+            assertEquals(List.of(event(2), event(3), event(4)), replayed);
+        }
+    }
+
+    @Test
+    void testOffer_FullSpoolRejectsUntilAcknowledged() throws Exception {
+        try (AuditSpool spool = open(AuditSpool.OverflowMode.REJECT, 1024)) {
+            int accepted = 0;
+            while (spool.offer(event(accepted))) {
+                accepted++;
+            }
+            assertTrue(accepted > 0);
+
+            spool.drainTo(new ArrayList<>(), accepted);
+            spool.acknowledge();
+
+            assertTrue(spool.offer(event(accepted)));
+        }
+    }
+
+    @Test
+    void testOpen_DiscardsTornTailRecord() throws Exception {
+        try (AuditSpool spool = open(AuditSpool.OverflowMode.REJECT, 1 << 20)) {
+            for (long i = 0; i < 3; i++) {
+                spool.offer(event(i));
+            }
+        }
+        // Crash during the third append: its length is written, part of its payload is not
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.toString().endsWith(".spool")).findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            int offset = 0;
+            for (int i = 0; i < 2; i++) {
+                channel.read(header.clear(), offset);
+                offset += 2 * Integer.BYTES + header.getInt(0);
+            }
+            channel.read(header.clear(), offset);
+            int length = header.getInt(0);
+            channel.write(ByteBuffer.allocate(length / 2), offset + 2 * Integer.BYTES + length / 2);
+        }
+
+        try (AuditSpool spool = open(AuditSpool.OverflowMode.REJECT, 1 << 20)) {
+            assertEquals(2, spool.size());
+            assertTrue(spool.offer(event(3)));
+
+            List<AuditEvent> replayed = new ArrayList<>();
+            spool.drainTo(replayed, 10);
+
+            assertEquals(List.of(event(0), event(1), event(3)), replayed);
+        }
+    }
+
+    @Test
+    void testForce_RunsWithoutReader() throws Exception {
+        try (AuditSpool spool = AuditSpool.open(directory, SEGMENT_SIZE, 1 << 20, AuditSpool.OverflowMode.REJECT,
+                0, 10)) {
+            spool.offer(event(1));
+            assertFalse(spool.isForced());
+
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            while (!spool.isForced() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+
+            assertTrue(spool.isForced());
+            assertEquals(1, spool.size());
+        }
+    }
+
+    private AuditSpool open(AuditSpool.OverflowMode overflowMode, long maxPendingBytes) throws Exception {
+        return AuditSpool.open(directory, SEGMENT_SIZE, maxPendingBytes, overflowMode, 0, 1000);
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".spool")).count();
+        }
+    }
+
+    private static AuditEvent event(long userId) {
+        return new AuditEvent(userId, 50L, "MEDICAL_RECORD", 100L + userId, AccessLog.Action.READ,
+                AccessLog.Decision.DENY, null, "No active treatment relationship with patient", false, null,
+                "127.0.0.1", "session", LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123456789));
+    }
+}
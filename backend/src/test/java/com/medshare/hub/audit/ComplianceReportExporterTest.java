@@ -0,0 +1,117 @@
+package com.medshare.hub.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ComplianceReportExporterTest - Unit tests for the compliance report export
+ * 
+ * Tests:
+ * - NDJSON: one object per line, nulls kept
+ * - CSV: header row, quoting of special characters, empty nulls
+ * - CSV: text starting a spreadsheet formula prefixed with a quote
+ * 
+ * @author MedShare Development Team
+ */
+class ComplianceReportExporterTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ResultSet row;
+
+    private ComplianceReportExporter exporter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        exporter = new ComplianceReportExporter(jdbcTemplate, transactionManager, new ObjectMapper(), 1000);
+
+        // Log 7: denied, with no patient and a justification needing quotes
+        when(row.getLong(anyInt())).thenReturn(7L, 3L, 0L, 100L);
+        when(row.wasNull()).thenReturn(false, false, true, false, false);
+        when(row.getObject(2, LocalDateTime.class)).thenReturn(CREATED_AT);
+        when(row.getBoolean(11)).thenReturn(false);
+        when(row.getString(anyInt())).thenAnswer(invocation -> switch ((int) invocation.getArgument(0)) {
+            case 1 -> "7";
+            case 3 -> "3";
+            case 5 -> "MEDICAL_RECORD";
+            case 6 -> "100";
+            case 7 -> "READ";
+            case 8 -> "DENY";
+            case 10 -> "No active treatment relationship with patient";
+            case 12 -> "Consult, \"urgent\"";
+            case 13 -> "127.0.0.1";
+            default -> null;
+        });
+        doAnswer(invocation -> {
+            invocation.getArgument(1, RowCallbackHandler.class).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void testExport_NdjsonOneObjectPerLine() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = exporter.export(CREATED_AT.minusDays(1), CREATED_AT, ComplianceReportFormat.NDJSON, out);
+
+        assertEquals(1, rows);
+        assertEquals("{\"logId\":7,\"createdAt\":\"2024-01-15T10:30\",\"userId\":3,\"patientId\":null,"
+                + "\"resourceType\":\"MEDICAL_RECORD\",\"resourceId\":100,\"action\":\"READ\",\"decision\":\"DENY\","
+                + "\"policyMatched\":null,\"denyReason\":\"No active treatment relationship with patient\","
+                + "\"isEmergency\":false,\"justification\":\"Consult, \\\"urgent\\\"\",\"ipAddress\":\"127.0.0.1\","
+                + "\"sessionId\":null}\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testExport_CsvQuotesSpecialCharacters() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(CREATED_AT.minusDays(1), CREATED_AT, ComplianceReportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("logId,createdAt,userId,patientId,"));
+        assertEquals("7,2024-01-15T10:30,3,,MEDICAL_RECORD,100,READ,DENY,,"
+                + "No active treatment relationship with patient,false,\"Consult, \"\"urgent\"\"\",127.0.0.1,",
+                lines[1]);
+    }
+
+    @Test
+    void testExport_CsvNeutralizesFormulas() throws Exception {
+        when(row.getString(10)).thenReturn("-2+3");
+        when(row.getString(12)).thenReturn("=HYPERLINK(\"http://example.com\",\"x\")");
+        when(row.getString(13)).thenReturn("@SUM(A1)");
+        when(row.getString(14)).thenReturn("+1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exporter.export(CREATED_AT.minusDays(1), CREATED_AT, ComplianceReportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("7,2024-01-15T10:30,3,,MEDICAL_RECORD,100,READ,DENY,,'-2+3,false,"
+                + "\"'=HYPERLINK(\"\"http://example.com\"\",\"\"x\"\")\",'@SUM(A1),'+1", lines[1]);
+    }
+}
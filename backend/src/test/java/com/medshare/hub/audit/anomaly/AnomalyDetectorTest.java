@@ -0,0 +1,109 @@
+package com.medshare.hub.audit.anomaly;
+
+import com.medshare.hub.audit.AuditEvent;
+import com.medshare.hub.entity.AccessLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * AnomalyDetectorTest - Unit tests for the sliding-window anomaly detector
+ * 
+ * Tests:
+ * - Denial threshold raises one alert per window, for user and patient
+ * - Old denials slide out of the window
+ * - Distinct patients estimated per user
+ * 
+ * @author MedShare Development Team
+ */
+class AnomalyDetectorTest {
+
+    private static final long WINDOW_MS = 60_000;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private AnomalyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        detector = new AnomalyDetector(eventPublisher, new SimpleMeterRegistry(), true, WINDOW_MS, 6, Map.of(
+                AnomalyRule.USER_DENIALS, 3L,
+                AnomalyRule.USER_DISTINCT_PATIENTS, 20L,
+                AnomalyRule.PATIENT_DENIALS, 3L), clock::get);
+    }
+
+    @Test
+    void testRecord_DenialThresholdAlertsOncePerWindow() {
+        for (int i = 0; i < 5; i++) {
+            detector.record(event(1L, 50L, AccessLog.Decision.DENY));
+        }
+
+        verify(eventPublisher).publishEvent(new AnomalyAlert(AnomalyRule.USER_DENIALS, 1L, 3, 3, WINDOW_MS,
+                Instant.ofEpochMilli(clock.get())));
+        verify(eventPublisher, times(2)).publishEvent(any(AnomalyAlert.class));
+        assertEquals(2, detector.getRecentAlerts().size());
+        assertEquals(AnomalyRule.PATIENT_DENIALS, detector.getRecentAlerts().get(0).rule());
+
+        // The next window may alert again
+        clock.addAndGet(WINDOW_MS);
+        for (int i = 0; i < 3; i++) {
+            detector.record(event(1L, 51L, AccessLog.Decision.DENY));
+        }
+        verify(eventPublisher, times(4)).publishEvent(any(AnomalyAlert.class));
+    }
+
+    @Test
+    void testRecord_DenialsSlideOutOfWindow() {
+        detector.record(event(1L, 50L, AccessLog.Decision.DENY));
+        detector.record(event(1L, 50L, AccessLog.Decision.DENY));
+        assertEquals(2, detector.getUserDenials(1L));
+
+        clock.addAndGet(WINDOW_MS / 2);
+        detector.record(event(1L, 50L, AccessLog.Decision.DENY));
+        assertEquals(3, detector.getUserDenials(1L));
+
+        clock.addAndGet(WINDOW_MS / 2 + 1);
+        assertEquals(1, detector.getUserDenials(1L));
+        verify(eventPublisher, never()).publishEvent(argThat((Object alert) ->
+                alert instanceof AnomalyAlert anomaly && anomaly.rule() == AnomalyRule.USER_DENIALS
+                        && anomaly.observed() > 3));
+    }
+
+    @Test
+    void testRecord_DistinctPatientsEstimated() {
+        for (long patientId = 100; patientId < 110; patientId++) {
+            detector.record(event(2L, patientId, AccessLog.Decision.PERMIT));
+            detector.record(event(2L, patientId, AccessLog.Decision.PERMIT));
+        }
+        verify(eventPublisher, never()).publishEvent(any(AnomalyAlert.class));
+
+        // Estimated, so well past the threshold
+        for (long patientId = 110; patientId < 140; patientId++) {
+            detector.record(event(2L, patientId, AccessLog.Decision.PERMIT));
+        }
+
+        verify(eventPublisher, times(1)).publishEvent(argThat((Object alert) ->
+                alert instanceof AnomalyAlert anomaly && anomaly.rule() == AnomalyRule.USER_DISTINCT_PATIENTS
+                        && anomaly.subjectId() == 2L));
+    }
+
+    private static AuditEvent event(Long userId, Long patientId, AccessLog.Decision decision) {
+        return new AuditEvent(userId, patientId, "MEDICAL_RECORD", 100L, AccessLog.Action.READ, decision,
+                null, null, false, null, "127.0.0.1", "session", LocalDateTime.now());
+    }
+}
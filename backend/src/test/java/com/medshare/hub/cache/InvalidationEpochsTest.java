@@ -0,0 +1,173 @@
+package com.medshare.hub.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * InvalidationEpochsTest - Unit tests for the cache invalidation epochs
+ *
+ * Tests:
+ * - Bump incrementing in Redis and publishing, deferred until commit
+ * - Epoch messages from other nodes merged as a maximum
+ * - Unique fallback epoch while Redis cannot be read
+ * - Local epochs re-read from Redis after their time to live
+ * - Patient listeners run for other nodes' messages only
+ *
+ * @author MedShare Development Team
+ */
+class InvalidationEpochsTest {
+
+    private static final String CHANNEL = "epochs";
+    private static final long TIME_TO_LIVE_MS = 30_000;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> values;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private InvalidationEpochs epochs;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        epochs = new InvalidationEpochs(redisTemplate, CHANNEL, 100, TIME_TO_LIVE_MS, nanos::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testBump_IncrementsInRedisAndPublishes() {
+        when(values.increment("medshare:epoch:p:1")).thenReturn(5L);
+
+        epochs.bumpPatient(1L);
+
+        assertEquals(5, epochs.patientEpoch(1L));
+        verify(values, never()).get(anyString());
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+        assertTrue(message.getValue().endsWith("|p:1=5"), message.getValue());
+    }
+
+    @Test
+    void testBump_DeferredUntilCommit() {
+        when(values.increment("medshare:epoch:u:7")).thenReturn(2L);
+        TransactionSynchronizationManager.initSynchronization();
+
+        epochs.bumpUser(7L);
+
+        verify(values, never()).increment(anyString());
+        List<TransactionSynchronization> synchronizations =
+                new ArrayList<>(TransactionSynchronizationManager.getSynchronizations());
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+
+        verify(values).increment("medshare:epoch:u:7");
+        assertEquals(2, epochs.userEpoch(7L));
+    }
+
+    @Test
+    void testOnMessage_MergesOnlyHigherEpochs() {
+        when(values.get("medshare:epoch:p:1")).thenReturn("3");
+        assertEquals(3, epochs.patientEpoch(1L));
+
+        epochs.onMessage(message("other-node|p:1=7"), null);
+        assertEquals(7, epochs.patientEpoch(1L));
+
+        // Out of order delivery never moves an epoch back
+        epochs.onMessage(message("other-node|p:1=5"), null);
+        assertEquals(7, epochs.patientEpoch(1L));
+
+        epochs.onMessage(message("malformed"), null);
+        epochs.onMessage(message("other-node|p:1=x"), null);
+        assertEquals(7, epochs.patientEpoch(1L));
+        verify(values, times(1)).get("medshare:epoch:p:1");
+    }
+
+    @Test
+    void testUnknownEpoch_UniqueUntilRedisIsReadable() {
+        when(values.get("medshare:epoch:p:1"))
+                .thenThrow(new RedisConnectionFailureException("connection refused"))
+                .thenThrow(new RedisConnectionFailureException("connection refused"))
+                .thenReturn("4");
+
+        long first = epochs.patientEpoch(1L);
+        long second = epochs.patientEpoch(1L);
+
+        // Each lookup gets a key no cached decision was stored under
+        assertNotEquals(first, second);
+        assertTrue(first < 0 && second < 0);
+        assertEquals(4, epochs.patientEpoch(1L));
+        assertEquals(0, epochs.patientEpoch(null));
+    }
+
+    @Test
+    void testLocalEpoch_ReloadedAfterTimeToLive() {
+        when(values.get("medshare:epoch:p:1")).thenReturn("1", "2");
+        assertEquals(1, epochs.patientEpoch(1L));
+
+        // The message for epoch 2 was missed
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(TIME_TO_LIVE_MS - 1));
+        assertEquals(1, epochs.patientEpoch(1L));
+
+        nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals(2, epochs.patientEpoch(1L));
+    }
+
+    @Test
+    void testOnMessage_RunsPatientListenersForOtherNodesBeforeApplyingEpoch() {
+        when(values.increment("medshare:epoch:p:1")).thenReturn(5L);
+        List<Long> refreshed = new ArrayList<>();
+        List<Long> epochSeenByListener = new ArrayList<>();
+        epochs.addRemotePatientListener(patientId -> {
+            refreshed.add(patientId);
+            epochSeenByListener.add(epochs.patientEpoch(patientId));
+        });
+        when(values.get("medshare:epoch:p:2")).thenReturn("8");
+
+        epochs.onMessage(message("other-node|p:2=9"), null);
+        epochs.onMessage(message("other-node|u:2=3"), null);
+
+        assertEquals(List.of(2L), refreshed);
+        assertEquals(List.of(8L), epochSeenByListener);
+        assertEquals(9, epochs.patientEpoch(2L));
+
+        // A node's own bump comes back on the channel and is not refreshed again
+        epochs.bumpPatient(1L);
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), published.capture());
+        epochs.onMessage(message(published.getValue()), null);
+
+        assertEquals(List.of(2L), refreshed);
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,80 @@
+package com.medshare.hub.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TwoTierCacheTest - Unit tests for the near/remote cache tiers
+ *
+ * Tests:
+ * - Repeat reads served by the near tier
+ * - Eviction of both tiers and broadcast to other nodes
+ * - Per-tier hit/miss metrics
+ *
+ * @author MedShare Development Team
+ */
+class TwoTierCacheTest {
+
+    private Cache remote;
+    private CacheInvalidationPublisher publisher;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = spy(new ConcurrentMapCache("policyDecisions"));
+        publisher = mock(CacheInvalidationPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TwoTierCache("policyDecisions",
+                Caffeine.newBuilder().maximumSize(100).build(),
+                remote, publisher, meterRegistry);
+    }
+
+    @Test
+    void testGet_RepeatReadSkipsRemoteTier() {
+        remote.put("1:100:READ", "decision");
+
+        assertEquals("decision", cache.get("1:100:READ").get());
+        assertEquals("decision", cache.get("1:100:READ").get());
+
+        verify(remote, times(1)).get("1:100:READ");
+        assertEquals(1.0, count("near", "hit"));
+        assertEquals(1.0, count("near", "miss"));
+        assertEquals(1.0, count("remote", "hit"));
+    }
+
+    @Test
+    void testEvict_ClearsBothTiersAndBroadcasts() {
+        cache.put(42L, "user");
+        clearInvocations(publisher);
+        cache.evict(42L);
+
+        assertNull(cache.get(42L));
+        assertNull(remote.get(42L));
+        verify(publisher).publishEvict("policyDecisions", "42");
+    }
+
+    @Test
+    void testRemoteInvalidation_DropsOnlyNearCopy() {
+        cache.put(42L, "user");
+        cache.evictNear("42");
+
+        assertEquals("user", cache.get(42L).get());
+        assertEquals(1.0, count("remote", "hit"));
+    }
+
+    private double count(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
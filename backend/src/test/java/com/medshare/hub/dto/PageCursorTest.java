@@ -0,0 +1,47 @@
+package com.medshare.hub.dto;
+
+import com.medshare.hub.entity.AccessLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PageCursorTest - Unit tests for keyset page cursors
+ * 
+ * Tests:
+ * - Token round trip
+ * - Cursor after an access log
+ * - First page and malformed tokens
+ * 
+ * @author MedShare Development Team
+ */
+class PageCursorTest {
+
+    @Test
+    void testEncodeDecode_RoundTrip() {
+        PageCursor cursor = new PageCursor(LocalDateTime.of(2026, 1, 30, 14, 5, 7, 123_000_000), 42L);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void testAfter_AccessLogPositionsOnCreatedAtAndLogId() {
+        AccessLog accessLog = new AccessLog();
+        accessLog.setLogId(7L);
+        accessLog.setCreatedAt(LocalDateTime.of(2026, 2, 1, 9, 0));
+
+        PageCursor cursor = PageCursor.decode(PageCursor.after(accessLog).encode());
+
+        assertEquals(new PageCursor(LocalDateTime.of(2026, 2, 1, 9, 0), 7L), cursor);
+    }
+
+    @Test
+    void testDecode_BlankIsFirstPageAndGarbageIsRejected() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not-a-cursor"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("%%%"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.medshare.hub.redaction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.filter.FilteringGeneratorDelegate;
+import com.fasterxml.jackson.core.filter.TokenFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medshare.hub.abac.Obligation;
+import com.medshare.hub.abac.PolicyDecision;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ContentRedactorTest - Unit tests for streaming content redaction
+ * 
+ * Tests:
+ * - Obligation paths dropped from raw JSON, other content kept verbatim
+ * - JSON text passed through untouched without content obligations
+ * - Nested and wildcard paths
+ * 
+ * @author MedShare Development Team
+ */
+class ContentRedactorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ContentRedactor redactor = new ContentRedactor(objectMapper);
+
+    @Test
+    void testWriteRaw_DropsObligationPaths() throws IOException {
+        String json = "{\"summary\":\"Stable\",\"clinicalNotes\":{\"text\":\"private\"},"
+                + "\"sensitiveDiagnoses\":[\"F32\"],\"labs\":[{\"code\":\"A1C\"}]}";
+
+        String clinical = writeRaw(json, PolicyDecision.permit("P", List.of(Obligation.REDACT_CLINICAL_NOTES)));
+        String both = writeRaw(json, PolicyDecision.permit("P",
+                List.of(Obligation.REDACT_CLINICAL_NOTES, Obligation.REDACT_SENSITIVE_DIAGNOSES)));
+        String none = writeRaw(json, PolicyDecision.permit("P"));
+
+        assertEquals("{\"summary\":\"Stable\",\"sensitiveDiagnoses\":[\"F32\"],\"labs\":[{\"code\":\"A1C\"}]}",
+                clinical);
+        assertEquals("{\"summary\":\"Stable\",\"labs\":[{\"code\":\"A1C\"}]}", both);
+        assertEquals(json, none);
+    }
+
+    @Test
+    void testWriteText_PassesThroughOrRedacts() throws IOException {
+        String json = "{\"summary\":\"Stable\",\"psychiatricNotes\":\"private\"}";
+
+        assertEquals(json, writeText(json, PolicyDecision.permit("P")));
+        assertEquals("{\"summary\":\"Stable\"}", writeText(json,
+                PolicyDecision.permit("P", List.of(Obligation.REDACT_SENSITIVE_DIAGNOSES))));
+        assertEquals("null", writeText(null, PolicyDecision.permit("P")));
+    }
+
+    @Test
+    void testRedactionFilter_NestedAndWildcardPaths() throws IOException {
+        RedactionFilter filter = RedactionFilter.compile(List.of("entry.*.resource.note", "meta.source"));
+        String json = "{\"entry\":[{\"resource\":{\"id\":1,\"note\":\"x\"}},{\"resource\":{\"note\":\"y\"}}],"
+                + "\"meta\":{\"source\":\"s\"},\"note\":\"kept\"}";
+
+        StringWriter out = new StringWriter();
+        try (JsonParser parser = objectMapper.getFactory().createParser(json);
+                JsonGenerator generator = new FilteringGeneratorDelegate(
+                        objectMapper.getFactory().createGenerator(out), filter,
+                        TokenFilter.Inclusion.INCLUDE_ALL_AND_PATH, true)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+
+        assertEquals("{\"entry\":[{\"resource\":{\"id\":1}},{\"resource\":{}}],\"meta\":{},\"note\":\"kept\"}",
+                out.toString());
+    }
+
+    private String writeText(String json, PolicyDecision decision) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            redactor.write(generator, json, decision);
+        }
+        return out.toString();
+    }
+
+    private String writeRaw(String json, PolicyDecision decision) throws IOException {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            redactor.write(generator, new StringReader(json), decision);
+        }
+        return out.toString();
+    }
+}
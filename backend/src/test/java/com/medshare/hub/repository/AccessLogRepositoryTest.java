@@ -0,0 +1,135 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.audit.AuditBatchWriter;
+import com.medshare.hub.audit.ComplianceReportExporter;
+import com.medshare.hub.audit.anomaly.AnomalyDetector;
+import com.medshare.hub.dto.CursorPage;
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.service.AuditService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * AccessLogRepositoryTest - Keyset pagination of access logs, run by
+ * findByUserBefore/findByPatientBefore on H2
+ *
+ * Pages are fetched through AuditService, which asks for one extra row to
+ * tell whether a next page exists.
+ *
+ * Tests:
+ * - Ties on createdAt across a page boundary, broken by log id
+ * - Last page without nextCursor, including an exactly full last page
+ * - Logs of other users and patients excluded
+ *
+ * @author MedShare Development Team
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:access-logs;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/h2-access-logs.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AccessLogRepositoryTest {
+
+    private static final long USER_ID = 10L;
+    private static final long PATIENT_ID = 50L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AuditService auditService;
+
+    @BeforeEach
+    void setUp() {
+        auditService = new AuditService(
+                accessLogRepository,
+                mock(AccessLogRollupRepository.class),
+                mock(AuditBatchWriter.class),
+                mock(ComplianceReportExporter.class),
+                mock(AnomalyDetector.class));
+    }
+
+    @Test
+    void testGetUserAccessLogs_TiesOnCreatedAtAcrossPageBoundary() {
+        long oldest = insert(USER_ID, PATIENT_ID, NOW.minusHours(1));
+        long older = insert(USER_ID, PATIENT_ID, NOW.minusHours(1));
+        long tiedFirst = insert(USER_ID, PATIENT_ID, NOW);
+        long tiedSecond = insert(USER_ID, PATIENT_ID, NOW);
+        long tiedThird = insert(USER_ID, PATIENT_ID, NOW);
+        insert(USER_ID + 1, PATIENT_ID, NOW);
+
+        // The boundary falls between rows created at the same instant
+        CursorPage<AccessLog> first = auditService.getUserAccessLogs(USER_ID, null, 2);
+        assertEquals(List.of(tiedThird, tiedSecond), ids(first));
+        assertTrue(first.hasNext());
+        assertNotNull(first.nextCursor());
+
+        CursorPage<AccessLog> second = auditService.getUserAccessLogs(
+                USER_ID, PageCursor.decode(first.nextCursor()), 2);
+        assertEquals(List.of(tiedFirst, older), ids(second));
+        assertTrue(second.hasNext());
+
+        CursorPage<AccessLog> last = auditService.getUserAccessLogs(
+                USER_ID, PageCursor.decode(second.nextCursor()), 2);
+        assertEquals(List.of(oldest), ids(last));
+        assertFalse(last.hasNext());
+        assertNull(last.nextCursor());
+    }
+
+    @Test
+    void testGetPatientAccessLogs_FullLastPageHasNoNextCursor() {
+        long older = insert(USER_ID, PATIENT_ID, NOW.minusMinutes(5));
+        long newer = insert(USER_ID + 1, PATIENT_ID, NOW);
+        insert(USER_ID, PATIENT_ID + 1, NOW);
+
+        CursorPage<AccessLog> page = auditService.getPatientAccessLogs(PATIENT_ID, null, 2);
+
+        assertEquals(List.of(newer, older), ids(page));
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testFindByPatientBefore_CursorOnTieReturnsOnlySmallerIds() {
+        long tiedFirst = insert(USER_ID, PATIENT_ID, NOW);
+        long tiedSecond = insert(USER_ID, PATIENT_ID, NOW);
+        insert(USER_ID, PATIENT_ID, NOW);
+        long older = insert(USER_ID, PATIENT_ID, NOW.minusSeconds(1));
+
+        List<AccessLog> rows = accessLogRepository.findByPatientBefore(
+                PATIENT_ID, new PageCursor(NOW, tiedSecond), 10);
+
+        assertEquals(List.of(tiedFirst, older), rows.stream().map(AccessLog::getLogId).toList());
+    }
+
+    private long insert(long userId, long patientId, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO access_logs (user_id, patient_id, resource_type, resource_id, action, "
+                        + "decision, created_at) VALUES (?, ?, 'MEDICAL_RECORD', 1, 'READ', 'PERMIT', ?)",
+                userId, patientId, Timestamp.valueOf(createdAt));
+        return jdbcTemplate.queryForObject("SELECT MAX(log_id) FROM access_logs", Long.class);
+    }
+
+    private static List<Long> ids(CursorPage<AccessLog> page) {
+        return page.content().stream().map(AccessLog::getLogId).toList();
+    }
+}
@@ -0,0 +1,98 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.entity.MedicalRecord;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MedicalRecordRepositoryTest - Lazy loading of record content
+ * 
+ * Runs on H2 with a reduced schema (db/h2-medical-records.sql); the
+ * bytecode-enhanced entity must leave the JSON content unloaded until it
+ * is accessed.
+ * 
+ * Tests:
+ * - findById leaves content unloaded, first access loads it
+ * - findHighlySensitiveRecords leaves content unloaded
+ * - Content changed in place is flushed (inline dirty tracking only sees
+ *   setter calls, mutable JSON is compared on flush)
+ * 
+ * @author MedShare Development Team
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:medical-records;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/h2-medical-records.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MedicalRecordRepositoryTest {
+
+    private static final long PATIENT_ID = 50L;
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long recordId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO medical_records (patient_id, record_type, title, sensitivity_level, "
+                + "content, created_at) VALUES (?, 'DIAGNOSIS', 'Assessment', 'PSYCHIATRIC', "
+                + "'{\"diagnosis\": \"F32.1\"}' FORMAT JSON, CURRENT_TIMESTAMP)", PATIENT_ID);
+        recordId = jdbcTemplate.queryForObject("SELECT MAX(record_id) FROM medical_records", Long.class);
+        entityManager.clear();
+    }
+
+    @Test
+    void testFindById_ContentLoadedOnFirstAccess() {
+        MedicalRecord record = medicalRecordRepository.findById(recordId).orElseThrow();
+
+        assertEquals("Assessment", record.getTitle());
+        assertFalse(Hibernate.isPropertyInitialized(record, "content"));
+
+        assertEquals("F32.1", record.getContent().get("diagnosis"));
+        assertTrue(Hibernate.isPropertyInitialized(record, "content"));
+    }
+
+    @Test
+    void testInPlaceContentChange_IsFlushed() {
+        MedicalRecord record = medicalRecordRepository.findById(recordId).orElseThrow();
+
+        record.getContent().put("diagnosis", "F33.0");
+        entityManager.flush();
+
+        String stored = jdbcTemplate.queryForObject(
+                "SELECT CAST(content AS VARCHAR) FROM medical_records WHERE record_id = ?", String.class, recordId);
+        assertTrue(stored.contains("F33.0"), stored);
+    }
+
+    @Test
+    void testFindHighlySensitiveRecords_ContentNotLoaded() {
+        List<MedicalRecord> records = medicalRecordRepository.findHighlySensitiveRecords(PATIENT_ID);
+
+        assertFalse(records.isEmpty());
+        for (MedicalRecord record : records) {
+            assertFalse(Hibernate.isPropertyInitialized(record, "content"));
+        }
+    }
+}
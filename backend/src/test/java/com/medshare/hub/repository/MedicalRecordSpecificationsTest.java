@@ -0,0 +1,115 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.dto.MedicalRecordSummary;
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.MedicalRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MedicalRecordSpecificationsTest - Listing query predicates, run by
+ * findSummaries on H2
+ * 
+ * Tests:
+ * - Keyset pages newest first, ties on createdAt broken by record id
+ * - Residual set memberships and connectives translated to SQL
+ * - Non-simplifiable negation and constant FALSE
+ * 
+ * @author MedShare Development Team
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:medical-records;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/h2-medical-records.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MedicalRecordSpecificationsTest {
+
+    private static final long PATIENT_ID = 50L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Autowired
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testFindSummaries_KeysetPagesBreakTiesByRecordId() {
+        long older = insert(MedicalRecord.RecordType.VISIT_NOTE, MedicalRecord.SensitivityLevel.STANDARD,
+                NOW.minusDays(1));
+        long first = insert(MedicalRecord.RecordType.VISIT_NOTE, MedicalRecord.SensitivityLevel.STANDARD, NOW);
+        long second = insert(MedicalRecord.RecordType.VISIT_NOTE, MedicalRecord.SensitivityLevel.STANDARD, NOW);
+
+        List<MedicalRecordSummary> page = medicalRecordRepository.findSummaries(PATIENT_ID, null, null, 2);
+        assertEquals(List.of(second, first), ids(page));
+
+        List<MedicalRecordSummary> next = medicalRecordRepository.findSummaries(
+                PATIENT_ID, null, PageCursor.after(page.get(1)), 2);
+        assertEquals(List.of(older), ids(next));
+
+        // Same createdAt as the cursor: only smaller record ids follow it
+        List<MedicalRecordSummary> afterSecond = medicalRecordRepository.findSummaries(
+                PATIENT_ID, null, new PageCursor(NOW, second), 10);
+        assertEquals(List.of(first, older), ids(afterSecond));
+    }
+
+    @Test
+    void testFindSummaries_ResidualTranslatedToPredicate() {
+        long visit = insert(MedicalRecord.RecordType.VISIT_NOTE, MedicalRecord.SensitivityLevel.STANDARD,
+                NOW.minusHours(1));
+        long psychiatricLab = insert(MedicalRecord.RecordType.LAB_RESULT, MedicalRecord.SensitivityLevel.PSYCHIATRIC,
+                NOW.minusHours(2));
+        insert(MedicalRecord.RecordType.DIAGNOSIS, MedicalRecord.SensitivityLevel.HIV, NOW.minusHours(3));
+
+        // (not psychiatric and not HIV) or lab result
+        ResourceCondition residual = ResourceCondition.or(
+                ResourceCondition.and(
+                        ResourceCondition.patientIn(List.of(PATIENT_ID)),
+                        ResourceCondition.not(ResourceCondition.sensitivityIn(Set.of(
+                                MedicalRecord.SensitivityLevel.PSYCHIATRIC, MedicalRecord.SensitivityLevel.HIV)))),
+                ResourceCondition.recordTypeIn(Set.of(MedicalRecord.RecordType.LAB_RESULT)));
+
+        assertEquals(List.of(visit, psychiatricLab),
+                ids(medicalRecordRepository.findSummaries(PATIENT_ID, residual, null, 10)));
+    }
+
+    @Test
+    void testFindSummaries_NegatedPatientSetAndFalse() {
+        long visit = insert(MedicalRecord.RecordType.VISIT_NOTE, MedicalRecord.SensitivityLevel.STANDARD, NOW);
+
+        ResourceCondition otherPatient = ResourceCondition.patientIn(List.of(60L));
+        assertEquals(List.of(), ids(medicalRecordRepository.findSummaries(PATIENT_ID, otherPatient, null, 10)));
+        assertEquals(List.of(visit), ids(medicalRecordRepository.findSummaries(
+                PATIENT_ID, ResourceCondition.not(otherPatient), null, 10)));
+        assertEquals(List.of(), ids(medicalRecordRepository.findSummaries(
+                PATIENT_ID, ResourceCondition.FALSE, null, 10)));
+    }
+
+    private long insert(MedicalRecord.RecordType type, MedicalRecord.SensitivityLevel sensitivity,
+            LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO medical_records (patient_id, record_type, title, sensitivity_level, "
+                        + "content, created_at) VALUES (?, ?, ?, ?, '{}' FORMAT JSON, ?)",
+                PATIENT_ID, type.name(), type + " record", sensitivity.name(), Timestamp.valueOf(createdAt));
+        return jdbcTemplate.queryForObject("SELECT MAX(record_id) FROM medical_records", Long.class);
+    }
+
+    private static List<Long> ids(List<MedicalRecordSummary> summaries) {
+        return summaries.stream().map(MedicalRecordSummary::getRecordId).toList();
+    }
+}
@@ -0,0 +1,90 @@
+package com.medshare.hub.repository;
+
+import com.medshare.hub.entity.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserRepositoryTest - Dirty checking of the bytecode-enhanced User entity
+ * 
+ * Runs on H2 with a users table only (db/h2-users.sql). Inline dirty
+ * tracking records setter calls; the certifications array is mutable, so
+ * a change made in place, without a setter call, must still be flushed.
+ * 
+ * Tests:
+ * - Certification replaced in place is flushed
+ * - Unchanged user is not updated
+ * 
+ * @author MedShare Development Team
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.datasource.url=jdbc:h2:mem:users;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/h2-users.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO users (email, password_hash, first_name, last_name, role, "
+                + "certifications) VALUES ('doctor@example.com', 'x', 'Ada', 'Doe', 'DOCTOR', "
+                + "ARRAY['BLS', 'ACLS'])");
+        userId = jdbcTemplate.queryForObject("SELECT MAX(user_id) FROM users", Long.class);
+        entityManager.clear();
+    }
+
+    @Test
+    void testInPlaceCertificationChange_IsFlushed() {
+        User user = userRepository.findById(userId).orElseThrow();
+
+        user.getCertifications()[1] = "PALS";
+        entityManager.flush();
+
+        assertArrayEquals(new Object[] { "BLS", "PALS" }, storedCertifications());
+    }
+
+    @Test
+    void testUnchangedUser_IsNotUpdated() {
+        userRepository.findById(userId).orElseThrow();
+        jdbcTemplate.update("UPDATE users SET department = 'Cardiology' WHERE user_id = ?", userId);
+
+        entityManager.flush();
+
+        // A stale update of every column would have reset the department
+        assertEquals("Cardiology", jdbcTemplate.queryForObject(
+                "SELECT department FROM users WHERE user_id = ?", String.class, userId));
+    }
+
+    private Object[] storedCertifications() {
+        return jdbcTemplate.queryForObject("SELECT certifications FROM users WHERE user_id = ?",
+                (rs, rowNum) -> {
+                    Array array = rs.getArray(1);
+                    return (Object[]) array.getArray();
+                }, userId);
+    }
+}
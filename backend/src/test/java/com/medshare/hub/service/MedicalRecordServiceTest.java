@@ -0,0 +1,187 @@
+package com.medshare.hub.service;
+
+import com.medshare.hub.abac.PolicyDecision;
+import com.medshare.hub.abac.PolicyEvaluator;
+import com.medshare.hub.abac.ResourceCondition;
+import com.medshare.hub.abac.attributes.EnvironmentAttributes;
+import com.medshare.hub.abac.attributes.ResourceType;
+import com.medshare.hub.dto.CursorPage;
+import com.medshare.hub.dto.MedicalRecordSummary;
+import com.medshare.hub.dto.PageCursor;
+import com.medshare.hub.entity.AccessLog;
+import com.medshare.hub.entity.MedicalRecord;
+import com.medshare.hub.entity.Patient;
+import com.medshare.hub.entity.User;
+import com.medshare.hub.repository.MedicalRecordRepository;
+import com.medshare.hub.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * MedicalRecordServiceTest - Unit tests for the patient record listing
+ * 
+ * Tests:
+ * - Residual FALSE returns an empty page without querying
+ * - Residual pushed into the query, size + 1 rows detect the next page
+ * - Last page has no next cursor
+ * - No residual: unfiltered rows fetched, denied records left out
+ * - Record deleted before its content is read reported as not found
+ * 
+ * @author MedShare Development Team
+ */
+class MedicalRecordServiceTest {
+
+    private static final long PATIENT_ID = 50L;
+    private static final long USER_ID = 7L;
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @Mock
+    private MedicalRecordRepository medicalRecordRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PolicyEvaluator policyEvaluator;
+
+    @Mock
+    private AuditService auditService;
+
+    private MedicalRecordService medicalRecordService;
+
+    private final EnvironmentAttributes environment = EnvironmentAttributes.builder().build();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        medicalRecordService = new MedicalRecordService(medicalRecordRepository, userRepository, policyEvaluator,
+                auditService);
+
+        User doctor = new User();
+        doctor.setUserId(USER_ID);
+        doctor.setRole(User.UserRole.DOCTOR);
+        when(userRepository.findById(USER_ID)).thenReturn(Optional.of(doctor));
+    }
+
+    @Test
+    void testGetPatientRecords_FalseResidual_ReturnsEmptyPageWithoutQuery() {
+        residual(Optional.of(ResourceCondition.FALSE));
+
+        CursorPage<MedicalRecordSummary> page = medicalRecordService.getPatientRecords(
+                PATIENT_ID, USER_ID, environment, null, 10);
+
+        assertTrue(page.content().isEmpty());
+        assertFalse(page.hasNext());
+        verifyNoInteractions(medicalRecordRepository);
+    }
+
+    @Test
+    void testGetPatientRecords_ExtraRowSetsNextCursor() {
+        ResourceCondition residual = ResourceCondition.not(
+                ResourceCondition.sensitivityIn(Set.of(MedicalRecord.SensitivityLevel.PSYCHIATRIC)));
+        residual(Optional.of(residual));
+        List<MedicalRecordSummary> rows = summaries(3);
+        when(medicalRecordRepository.findSummaries(PATIENT_ID, residual, null, 3)).thenReturn(rows);
+        permitAll();
+
+        CursorPage<MedicalRecordSummary> page = medicalRecordService.getPatientRecords(
+                PATIENT_ID, USER_ID, environment, null, 2);
+
+        assertEquals(rows.subList(0, 2), page.content());
+        assertTrue(page.hasNext());
+        assertEquals(PageCursor.after(rows.get(1)), PageCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void testGetPatientRecords_LastPageHasNoNextCursor() {
+        residual(Optional.of(ResourceCondition.TRUE));
+        PageCursor after = new PageCursor(NOW, 100L);
+        List<MedicalRecordSummary> rows = summaries(2);
+        when(medicalRecordRepository.findSummaries(PATIENT_ID, ResourceCondition.TRUE, after, 3)).thenReturn(rows);
+        permitAll();
+
+        CursorPage<MedicalRecordSummary> page = medicalRecordService.getPatientRecords(
+                PATIENT_ID, USER_ID, environment, after, 2);
+
+        assertEquals(rows, page.content());
+        assertFalse(page.hasNext());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testGetPatientRecords_NoResidual_FiltersDeniedRecords() {
+        residual(Optional.empty());
+        List<MedicalRecordSummary> rows = summaries(3);
+        when(medicalRecordRepository.findSummaries(PATIENT_ID, null, null, 4)).thenReturn(rows);
+        when(policyEvaluator.evaluateAll(any(), anyList(), eq(environment), eq(AccessLog.Action.READ)))
+                .thenReturn(List.of(
+                        PolicyDecision.permit("TreatingPhysicianPolicy"),
+                        PolicyDecision.deny("TreatingPhysicianPolicy", "Sensitive record"),
+                        PolicyDecision.permit("TreatingPhysicianPolicy")));
+
+        CursorPage<MedicalRecordSummary> page = medicalRecordService.getPatientRecords(
+                PATIENT_ID, USER_ID, environment, null, 3);
+
+        assertEquals(List.of(rows.get(0), rows.get(2)), page.content());
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    void testGetRecordWithAuthorization_DeletedContentIsNotFound() {
+        Patient patient = new Patient();
+        patient.setPatientId(PATIENT_ID);
+        MedicalRecord record = new MedicalRecord();
+        record.setRecordId(100L);
+        record.setPatient(patient);
+        when(medicalRecordRepository.findById(100L)).thenReturn(Optional.of(record));
+        when(policyEvaluator.evaluateAccess(any(), any(), eq(environment), eq(AccessLog.Action.READ)))
+                .thenReturn(PolicyDecision.permit("TreatingPhysicianPolicy"));
+        when(medicalRecordRepository.findContentJson(100L)).thenReturn(null);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> medicalRecordService.getRecordWithAuthorization(100L, USER_ID, environment));
+
+        assertEquals("Medical record not found: 100", e.getMessage());
+    }
+
+    private void residual(Optional<ResourceCondition> residual) {
+        when(policyEvaluator.partialEvaluate(any(), eq(environment), eq(AccessLog.Action.READ),
+                eq(ResourceType.MEDICAL_RECORD), eq(List.of(PATIENT_ID)))).thenReturn(residual);
+    }
+
+    private void permitAll() {
+        when(policyEvaluator.evaluateAll(any(), anyList(), eq(environment), eq(AccessLog.Action.READ)))
+                .thenAnswer(invocation -> {
+                    List<PolicyDecision> decisions = new ArrayList<>();
+                    for (int i = 0; i < invocation.<List<?>>getArgument(1).size(); i++) {
+                        decisions.add(PolicyDecision.permit("TreatingPhysicianPolicy"));
+                    }
+                    return decisions;
+                });
+    }
+
+    /**
+     * Newest first, two of them created at the same instant
+     */
+    private static List<MedicalRecordSummary> summaries(int count) {
+        List<MedicalRecordSummary> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new MedicalRecordSummary(100L - i, PATIENT_ID, MedicalRecord.RecordType.VISIT_NOTE,
+                    "Visit " + i, null, MedicalRecord.SensitivityLevel.STANDARD, USER_ID,
+                    NOW.minusHours(i / 2), null));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,20 @@
+-- Table for access log repository tests on H2 (the Flyway migrations are
+-- PostgreSQL-specific and partition access_logs): access_logs as created
+-- by V6, without the immutability rules and foreign keys
+CREATE TABLE access_logs (
+    log_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT,
+    patient_id BIGINT,
+    resource_type VARCHAR(50) NOT NULL,
+    resource_id BIGINT,
+    action VARCHAR(50) NOT NULL,
+    decision VARCHAR(20) NOT NULL,
+    policy_matched VARCHAR(100),
+    deny_reason TEXT,
+    justification TEXT,
+    is_emergency BOOLEAN DEFAULT FALSE,
+    ip_address VARCHAR(45),
+    device_info TEXT,
+    session_id VARCHAR(100),
+    created_at TIMESTAMP NOT NULL
+);
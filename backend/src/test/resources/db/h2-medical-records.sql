@@ -0,0 +1,19 @@
+-- Tables for medical record repository tests on H2 (the Flyway migrations
+-- are PostgreSQL-specific): medical_records with JSON instead of JSONB,
+-- and users reduced to the key the listing query joins on
+CREATE TABLE users (
+    user_id BIGINT PRIMARY KEY
+);
+
+CREATE TABLE medical_records (
+    record_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    patient_id BIGINT NOT NULL,
+    record_type VARCHAR(50) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    description TEXT,
+    sensitivity_level VARCHAR(50) NOT NULL,
+    content JSON NOT NULL,
+    created_by BIGINT REFERENCES users(user_id),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP
+);
@@ -0,0 +1,17 @@
+-- Users table for user repository tests on H2 (the Flyway migrations are
+-- PostgreSQL-specific): certifications as a VARCHAR ARRAY instead of TEXT[]
+CREATE TABLE users (
+    user_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255) UNIQUE NOT NULL,
+    password_hash VARCHAR(255) NOT NULL,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    role VARCHAR(50) NOT NULL,
+    department VARCHAR(100),
+    certifications VARCHAR(100) ARRAY,
+    employer VARCHAR(200),
+    location VARCHAR(200),
+    emergency_certified BOOLEAN DEFAULT FALSE,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);